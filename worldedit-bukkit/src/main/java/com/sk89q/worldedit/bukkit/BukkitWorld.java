@@ -459,6 +459,27 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
         }
     }
 
+    @Override
+    public boolean supportsSectionBlocks() {
+        BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
+        return adapter != null && adapter.supportsSectionBlocks();
+    }
+
+    @Override
+    public boolean setSectionBlocks(int sectionX, int sectionY, int sectionZ, short[] indices, int[] stateIds,
+                                    int count, boolean notifyNeighbors) {
+        BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
+        if (adapter != null) {
+            try {
+                return adapter.setSectionBlocks(getWorld(), sectionX, sectionY, sectionZ, indices, stateIds, count,
+                        notifyNeighbors);
+            } catch (Exception e) {
+                logger.warn("Unable to set blocks by section via impl adapter", e);
+            }
+        }
+        return false;
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
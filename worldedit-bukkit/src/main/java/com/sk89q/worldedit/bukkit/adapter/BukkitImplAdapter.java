@@ -172,4 +172,33 @@ default boolean simulateItemUse(World world, BlockVector3 position, BaseItem ite
     default OptionalInt getInternalBlockStateId(BlockState state) {
         return OptionalInt.empty();
     }
+
+    /**
+     * Returns whether this adapter implements
+     * {@link #setSectionBlocks(World, int, int, int, short[], int[], int, boolean)}.
+     *
+     * @return true if blocks can be set by section
+     */
+    default boolean supportsSectionBlocks() {
+        return false;
+    }
+
+    /**
+     * Set many blocks within one chunk section from their internal state ids,
+     * then relight them and send one update for the section to players.
+     *
+     * @param world the world
+     * @param sectionX the section X coordinate
+     * @param sectionY the section Y coordinate
+     * @param sectionZ the section Z coordinate
+     * @param indices the indices of the blocks within the section ({@code y << 8 | z << 4 | x})
+     * @param stateIds the internal ids of the states to set
+     * @param count the number of blocks to set
+     * @param notifyNeighbors whether to notify neighbouring blocks of the change
+     * @return true if the blocks were set, false if this adapter cannot set blocks by section
+     */
+    default boolean setSectionBlocks(World world, int sectionX, int sectionY, int sectionZ, short[] indices,
+                                     int[] stateIds, int count, boolean notifyNeighbors) {
+        return false;
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.extension.platform.AbstractPlatform;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.registry.state.BooleanProperty;
+import com.sk89q.worldedit.registry.state.IntegerProperty;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledBlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import com.sk89q.worldedit.world.registry.Registries;
+import org.enginehub.piston.CommandManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import javax.annotation.Nullable;
+
+/**
+ * A platform that serves bundled registry data, so that benchmarks can run
+ * without a game.
+ *
+ * <p>{@link #install()} must be called before any block type is used.</p>
+ */
+public final class BenchmarkPlatform extends AbstractPlatform {
+
+    /**
+     * A block with properties, for benchmarking state changes.
+     */
+    public static final String STATEFUL_BLOCK = "worldedit:benchmark_block";
+
+    private static final String[] BLOCKS = {
+            "minecraft:air", "minecraft:stone", "minecraft:dirt", "minecraft:grass_block",
+            "minecraft:cobblestone", "minecraft:oak_planks", "minecraft:glass", "minecraft:bedrock"
+    };
+
+    private static boolean installed;
+
+    private final LocalConfiguration configuration = new LocalConfiguration() {
+        @Override
+        public void load() {
+        }
+    };
+    private final Registries registries = new BenchmarkRegistries();
+
+    private BenchmarkPlatform() {
+    }
+
+    /**
+     * Register the platform and the block types used by the benchmarks.
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        WorldEdit.getInstance().getPlatformManager().register(new BenchmarkPlatform());
+        for (String id : BLOCKS) {
+            BlockType.REGISTRY.register(id, new BlockType(id));
+        }
+        BlockType.REGISTRY.register(STATEFUL_BLOCK, new BlockType(STATEFUL_BLOCK));
+    }
+
+    @Override
+    public Registries getRegistries() {
+        return registries;
+    }
+
+    @Override
+    public int getDataVersion() {
+        return 1976;
+    }
+
+    @Override
+    public boolean isValidMobType(String type) {
+        return false;
+    }
+
+    @Override
+    public void reload() {
+    }
+
+    @Nullable
+    @Override
+    public Player matchPlayer(Player player) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public World matchWorld(World world) {
+        return null;
+    }
+
+    @Override
+    public void registerCommands(CommandManager commandManager) {
+    }
+
+    @Override
+    public void registerGameHooks() {
+    }
+
+    @Override
+    public LocalConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public String getVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getPlatformName() {
+        return "Benchmark";
+    }
+
+    @Override
+    public String getPlatformVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public Map<Capability, Preference> getCapabilities() {
+        Map<Capability, Preference> capabilities = new EnumMap<>(Capability.class);
+        for (Capability capability : Capability.values()) {
+            capabilities.put(capability, Preference.NORMAL);
+        }
+        return capabilities;
+    }
+
+    private static final class BenchmarkRegistries extends BundledRegistries {
+        private final BlockRegistry blockRegistry = new BundledBlockRegistry() {
+            private final Map<String, Property<?>> properties = ImmutableMap.<String, Property<?>>of(
+                    "power", new IntegerProperty("power",
+                            Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15)),
+                    "lit", new BooleanProperty("lit", Arrays.asList(false, true)));
+            private final Map<BlockState, Integer> ids = new HashMap<>();
+
+            @Override
+            public Map<String, ? extends Property<?>> getProperties(BlockType blockType) {
+                return STATEFUL_BLOCK.equals(blockType.getId()) ? properties : Collections.emptyMap();
+            }
+
+            @Override
+            public synchronized OptionalInt getInternalBlockStateId(BlockState state) {
+                // Hand out ids like a platform would, so id-based storage is benchmarked
+                Integer id = ids.get(state);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(state, id);
+                }
+                return OptionalInt.of(id);
+            }
+        };
+
+        @Override
+        public BlockRegistry getBlockRegistry() {
+            return blockRegistry;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks for changing the properties of a {@link BlockState}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockStateBenchmark {
+
+    private BlockState state;
+    private Property<Integer> power;
+    private Property<Boolean> lit;
+    private int value;
+
+    @Setup
+    public void setUp() {
+        BenchmarkPlatform.install();
+        BlockType type = BlockType.REGISTRY.get(BenchmarkPlatform.STATEFUL_BLOCK);
+        state = type.getDefaultState();
+        power = type.getProperty("power");
+        lit = type.getProperty("lit");
+    }
+
+    @Benchmark
+    public BlockState withSingleProperty() {
+        value = (value + 1) & 15;
+        return state.with(power, value);
+    }
+
+    @Benchmark
+    public BlockState withTwoProperties() {
+        value = (value + 1) & 15;
+        return state.with(power, value).with(lit, (value & 1) == 0);
+    }
+
+    @Benchmark
+    public Integer getProperty() {
+        return state.getState(power);
+    }
+
+}
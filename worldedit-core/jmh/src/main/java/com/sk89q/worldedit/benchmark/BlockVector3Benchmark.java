@@ -0,0 +1,74 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks for {@link BlockVector3} arithmetic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockVector3Benchmark {
+
+    public BlockVector3 a = BlockVector3.at(123, 64, -456);
+    public BlockVector3 b = BlockVector3.at(-7, 3, 19);
+
+    @Benchmark
+    public BlockVector3 add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public BlockVector3 multiplyAndSubtract() {
+        return a.multiply(3).subtract(b);
+    }
+
+    @Benchmark
+    public int distanceSq() {
+        return a.distanceSq(b);
+    }
+
+    @Benchmark
+    public BlockVector3 packRoundTrip() {
+        return BlockVector3.fromLongPackedForm(a.toLongPackedForm());
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return a.add(b).hashCode();
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.block.BlockReplace;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.RegionMask;
+import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.pattern.BlockPattern;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.function.visitor.RecursiveVisitor;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks common {@link EditSession} operations against a
+ * {@link MemoryWorld}, including history recording and reordering.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EditSessionBenchmark {
+
+    @Param({"16", "48"})
+    public int size;
+
+    private MemoryWorld world;
+    private Region region;
+    private BlockVector3 center;
+    private Pattern stone;
+    private Pattern mixed;
+
+    @Setup
+    public void setUp() {
+        BenchmarkPlatform.install();
+        world = new MemoryWorld();
+        world.generateFlat();
+        int half = size / 2;
+        region = new CuboidRegion(world, BlockVector3.at(-half, 40, -half), BlockVector3.at(half - 1, 40 + size - 1, half - 1));
+        center = region.getCenter().toBlockPoint();
+        stone = new BlockPattern(BlockTypes.STONE.getDefaultState());
+        RandomPattern random = new RandomPattern();
+        random.add(new BlockPattern(BlockTypes.COBBLESTONE.getDefaultState()), 1);
+        random.add(new BlockPattern(BlockTypes.OAK_PLANKS.getDefaultState()), 1);
+        random.add(new BlockPattern(BlockTypes.GLASS.getDefaultState()), 1);
+        mixed = random;
+    }
+
+    private EditSession createEditSession() {
+        return WorldEdit.getInstance().getEditSessionFactory().getEditSession(world, -1);
+    }
+
+    @Benchmark
+    public int setBlocks() throws WorldEditException {
+        try (EditSession editSession = createEditSession()) {
+            return editSession.setBlocks(region, mixed);
+        }
+    }
+
+    @Benchmark
+    public int replaceBlocks() throws WorldEditException {
+        // Replace stone and then put it back, so every invocation sees the same world
+        int affected;
+        try (EditSession editSession = createEditSession()) {
+            affected = editSession.replaceBlocks(region, new BlockTypeMask(editSession, BlockTypes.STONE), mixed);
+        }
+        try (EditSession editSession = createEditSession()) {
+            return affected + editSession.replaceBlocks(region,
+                    new BlockTypeMask(editSession, BlockTypes.COBBLESTONE, BlockTypes.OAK_PLANKS, BlockTypes.GLASS), stone);
+        }
+    }
+
+    @Benchmark
+    public int makeSphere() throws WorldEditException {
+        try (EditSession editSession = createEditSession()) {
+            return editSession.makeSphere(center, mixed, size / 2.0, true);
+        }
+    }
+
+    @Benchmark
+    public int forwardExtentCopy() throws WorldEditException {
+        try (EditSession editSession = createEditSession()) {
+            ForwardExtentCopy copy = new ForwardExtentCopy(editSession, region, editSession,
+                    region.getMinimumPoint().add(0, size, 0));
+            Operations.complete(copy);
+            return copy.getAffected();
+        }
+    }
+
+    @Benchmark
+    public int recursiveVisitor() throws WorldEditException {
+        try (EditSession editSession = createEditSession()) {
+            // Replacing stone with stone keeps the world the same between invocations
+            RecursiveVisitor visitor = new RecursiveVisitor(
+                    new MaskIntersection(new BlockTypeMask(editSession, BlockTypes.STONE), new RegionMask(region)),
+                    new BlockReplace(editSession, stone));
+            visitor.visit(region.getMinimumPoint());
+            Operations.complete(visitor);
+            return visitor.getAffected();
+        }
+    }
+
+}
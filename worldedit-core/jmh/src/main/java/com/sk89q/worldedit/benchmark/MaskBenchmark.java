@@ -0,0 +1,104 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.mask.ExistingBlockMask;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.MaskUnion;
+import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.function.mask.RegionMask;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Mask#test(BlockVector3)} over a column of a
+ * {@link MemoryWorld}, for single masks and typical chains.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskBenchmark {
+
+    private BlockVector3[] positions;
+    private Mask typeMask;
+    private Mask existingMask;
+    private Mask chain;
+
+    @Setup
+    public void setUp() {
+        BenchmarkPlatform.install();
+        MemoryWorld world = new MemoryWorld();
+        world.generateFlat();
+        positions = new BlockVector3[MemoryWorld.HEIGHT];
+        for (int y = 0; y < positions.length; y++) {
+            positions[y] = BlockVector3.at(3, y, -5);
+        }
+        typeMask = new BlockTypeMask(world, BlockTypes.STONE, BlockTypes.DIRT);
+        existingMask = new ExistingBlockMask(world);
+        chain = new MaskIntersection(
+                new RegionMask(new CuboidRegion(BlockVector3.at(-32, 0, -32), BlockVector3.at(32, 255, 32))),
+                new MaskUnion(new BlockTypeMask(world, BlockTypes.GRASS_BLOCK), typeMask),
+                Masks.negate(new BlockTypeMask(world, BlockTypes.BEDROCK)));
+    }
+
+    private int count(Mask mask) {
+        int count = 0;
+        for (BlockVector3 position : positions) {
+            if (mask.test(position)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int blockTypeMask() {
+        return count(typeMask);
+    }
+
+    @Benchmark
+    public int existingBlockMask() {
+        return count(existingMask);
+    }
+
+    @Benchmark
+    public int maskChain() {
+        return count(chain);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.NullWorld;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+
+import java.util.Arrays;
+
+/**
+ * A world that keeps a fixed {@code 128x256x128} volume centred on the
+ * origin in an array, and is air everywhere else.
+ */
+public class MemoryWorld extends NullWorld {
+
+    public static final int RADIUS = 64;
+    public static final int HEIGHT = 256;
+    private static final int SIZE = RADIUS * 2;
+
+    private final BlockState[] blocks = new BlockState[SIZE * HEIGHT * SIZE];
+    private final BlockState air = BlockTypes.AIR.getDefaultState();
+
+    public MemoryWorld() {
+        Arrays.fill(blocks, air);
+    }
+
+    /**
+     * Fill the world with bedrock at y=0, stone up to y=62, dirt and grass
+     * on top.
+     */
+    public void generateFlat() {
+        BlockState bedrock = BlockTypes.BEDROCK.getDefaultState();
+        BlockState stone = BlockTypes.STONE.getDefaultState();
+        BlockState dirt = BlockTypes.DIRT.getDefaultState();
+        BlockState grass = BlockTypes.GRASS_BLOCK.getDefaultState();
+        for (int y = 0; y < HEIGHT; y++) {
+            BlockState state = y == 0 ? bedrock : y < 60 ? stone : y < 63 ? dirt : y == 63 ? grass : air;
+            Arrays.fill(blocks, y * SIZE * SIZE, (y + 1) * SIZE * SIZE, state);
+        }
+    }
+
+    private int getIndex(BlockVector3 position) {
+        int x = position.getBlockX() + RADIUS;
+        int y = position.getBlockY();
+        int z = position.getBlockZ() + RADIUS;
+        if (x < 0 || x >= SIZE || y < 0 || y >= HEIGHT || z < 0 || z >= SIZE) {
+            return -1;
+        }
+        return (y * SIZE + z) * SIZE + x;
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        int index = getIndex(position);
+        return index >= 0 ? blocks[index] : air;
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        return getBlock(position).toBaseBlock();
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block, boolean notifyAndLight) throws WorldEditException {
+        int index = getIndex(position);
+        if (index < 0) {
+            return false;
+        }
+        blocks[index] = block.toImmutableState();
+        return true;
+    }
+
+}
@@ -52,6 +52,15 @@ public NBTInputStream(InputStream is) throws IOException {
         this.is = new DataInputStream(is);
     }
 
+    /**
+     * Get the underlying data input, for {@link NBTStreamReader}.
+     *
+     * @return the data input
+     */
+    DataInputStream getDataInput() {
+        return is;
+    }
+
     /**
      * Reads an NBT tag from the stream.
      * 
@@ -82,6 +82,80 @@ public void writeNamedTag(String name, Tag tag) throws IOException {
         writeTagPayload(tag);
     }
 
+    /**
+     * Writes the type and name of a tag without its payload, so that the
+     * payload can be streamed by the caller.
+     *
+     * <p>For a {@code TAG_Compound}, the child tags must follow and be
+     * finished with {@link #writeEndTag()}.</p>
+     *
+     * @param name the name of the tag
+     * @param type the type code of the tag, from {@link NBTConstants}
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeNamedTagHeader(String name, int type) throws IOException {
+        checkNotNull(name);
+        if (type == NBTConstants.TYPE_END) {
+            throw new IOException("Named TAG_End not permitted.");
+        }
+        byte[] nameBytes = name.getBytes(NBTConstants.CHARSET);
+
+        os.writeByte(type);
+        os.writeShort(nameBytes.length);
+        os.write(nameBytes);
+    }
+
+    /**
+     * Writes the header of a {@code TAG_List} whose elements will be written
+     * with {@link #writeTagPayload(Tag)}.
+     *
+     * @param name the name of the tag
+     * @param type the type of the elements
+     * @param size the number of elements that will follow
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeNamedListHeader(String name, Class<? extends Tag> type, int size) throws IOException {
+        writeNamedTagHeader(name, NBTConstants.TYPE_LIST);
+        os.writeByte(NBTUtils.getTypeCode(type));
+        os.writeInt(size);
+    }
+
+    /**
+     * Writes the header of a {@code TAG_Byte_Array} whose contents will be
+     * written with {@link #writeRawBytes(byte[], int, int)}.
+     *
+     * @param name the name of the tag
+     * @param length the number of bytes that will follow
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeNamedByteArrayHeader(String name, int length) throws IOException {
+        writeNamedTagHeader(name, NBTConstants.TYPE_BYTE_ARRAY);
+        os.writeInt(length);
+    }
+
+    /**
+     * Writes bytes that belong to a tag started with
+     * {@link #writeNamedByteArrayHeader(String, int)}.
+     *
+     * @param bytes the bytes
+     * @param offset the offset into the array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeRawBytes(byte[] bytes, int offset, int length) throws IOException {
+        os.write(bytes, offset, length);
+    }
+
+    /**
+     * Writes the {@code TAG_End} that closes a compound started with
+     * {@link #writeNamedTagHeader(String, int)}.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeEndTag() throws IOException {
+        os.writeByte(NBTConstants.TYPE_END);
+    }
+
     /**
      * Writes tag payload.
      * 
@@ -90,7 +164,7 @@ public void writeNamedTag(String name, Tag tag) throws IOException {
      * @throws IOException
      *             if an I/O error occurs.
      */
-    private void writeTagPayload(Tag tag) throws IOException {
+    public void writeTagPayload(Tag tag) throws IOException {
         int type = NBTUtils.getTypeCode(tag.getClass());
         switch (type) {
         case NBTConstants.TYPE_END:
@@ -0,0 +1,424 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.jnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads an NBT stream one tag at a time instead of building the whole tree
+ * of {@link Tag} objects.
+ *
+ * <p>{@link #next()} reads the type and name of the next tag in the current
+ * compound. The caller then either reads its payload, in full with
+ * {@link #readTag()} or piece by piece with the primitive methods, or skips
+ * it with {@link #skip()}. After {@link #next()} returns a compound, further
+ * calls to {@link #next()} return its children until
+ * {@link NBTConstants#TYPE_END}.</p>
+ *
+ * <p>Lists are read with {@link #readListHeader()}, after which each
+ * element is read with {@link #readPayload(int)} or {@link #skipPayload(int)},
+ * or, for lists of compounds, by calling {@link #next()} until the end of
+ * each element.</p>
+ */
+public final class NBTStreamReader {
+
+    private final DataInputStream is;
+    private final byte[] scratch = new byte[4096];
+    private int type = NBTConstants.TYPE_END;
+    private String name = "";
+    private int listType = NBTConstants.TYPE_END;
+
+    /**
+     * Create a new reader that reads from the given NBT stream.
+     *
+     * @param inputStream the stream
+     */
+    public NBTStreamReader(NBTInputStream inputStream) {
+        checkNotNull(inputStream);
+        this.is = inputStream.getDataInput();
+    }
+
+    /**
+     * Read the type and name of the next tag.
+     *
+     * @return the type, or {@link NBTConstants#TYPE_END} at the end of a compound
+     * @throws IOException if an I/O error occurs
+     */
+    public int next() throws IOException {
+        type = is.readByte() & 0xFF;
+        name = type == NBTConstants.TYPE_END ? "" : readString();
+        return type;
+    }
+
+    /**
+     * Get the type of the tag last read with {@link #next()}.
+     *
+     * @return the type
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Get the name of the tag last read with {@link #next()}.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the element type of the list last read with {@link #readListHeader()}.
+     *
+     * @return the element type
+     */
+    public int getListType() {
+        return listType;
+    }
+
+    /**
+     * Read the payload of the current tag into a {@link Tag}.
+     *
+     * @return the tag
+     * @throws IOException if an I/O error occurs
+     */
+    public Tag readTag() throws IOException {
+        return readPayload(type);
+    }
+
+    /**
+     * Read the payload of the current tag into a {@link Tag}, leaving out any
+     * nested tags whose paths match the given filter.
+     *
+     * <p>A path is made of the names of the nested compound entries leading
+     * to a tag, separated by {@code /}, such as {@code Level/Sections/SkyLight}
+     * for the sky light of each element of the {@code Sections} list. The
+     * name of the current tag is not included.</p>
+     *
+     * @param skip a filter for the paths of nested tags to leave out
+     * @return the tag
+     * @throws IOException if an I/O error occurs
+     */
+    public Tag readTag(Predicate<String> skip) throws IOException {
+        checkNotNull(skip);
+        return readPayload(type, skip, "");
+    }
+
+    /**
+     * Skip the payload of the current tag.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void skip() throws IOException {
+        skipPayload(type);
+    }
+
+    /**
+     * Read a payload of the given type into a {@link Tag}.
+     *
+     * @param type the type
+     * @return the tag
+     * @throws IOException if an I/O error occurs
+     */
+    public Tag readPayload(int type) throws IOException {
+        return readPayload(type, null, "");
+    }
+
+    private Tag readPayload(int type, @Nullable Predicate<String> skip, String path) throws IOException {
+        switch (type) {
+            case NBTConstants.TYPE_BYTE:
+                return new ByteTag(is.readByte());
+            case NBTConstants.TYPE_SHORT:
+                return new ShortTag(is.readShort());
+            case NBTConstants.TYPE_INT:
+                return new IntTag(is.readInt());
+            case NBTConstants.TYPE_LONG:
+                return new LongTag(is.readLong());
+            case NBTConstants.TYPE_FLOAT:
+                return new FloatTag(is.readFloat());
+            case NBTConstants.TYPE_DOUBLE:
+                return new DoubleTag(is.readDouble());
+            case NBTConstants.TYPE_BYTE_ARRAY:
+                byte[] bytes = new byte[readArrayLength()];
+                is.readFully(bytes);
+                return new ByteArrayTag(bytes);
+            case NBTConstants.TYPE_STRING:
+                return new StringTag(readString());
+            case NBTConstants.TYPE_LIST:
+                int childType = is.readByte() & 0xFF;
+                int length = is.readInt();
+                if (childType == NBTConstants.TYPE_END && length > 0) {
+                    throw new IOException("TAG_End not permitted in a list.");
+                }
+                List<Tag> tagList = new ArrayList<>();
+                for (int i = 0; i < length; i++) {
+                    tagList.add(readPayload(childType, skip, path));
+                }
+                return new ListTag(NBTUtils.getTypeClass(childType), tagList);
+            case NBTConstants.TYPE_COMPOUND:
+                Map<String, Tag> tagMap = new HashMap<>();
+                while (true) {
+                    int childTagType = is.readByte() & 0xFF;
+                    if (childTagType == NBTConstants.TYPE_END) {
+                        break;
+                    }
+                    String childName = readString();
+                    if (skip == null) {
+                        tagMap.put(childName, readPayload(childTagType, null, path));
+                        continue;
+                    }
+                    String childPath = path.isEmpty() ? childName : path + "/" + childName;
+                    if (skip.test(childPath)) {
+                        skipPayload(childTagType);
+                    } else {
+                        tagMap.put(childName, readPayload(childTagType, skip, childPath));
+                    }
+                }
+                return new CompoundTag(tagMap);
+            case NBTConstants.TYPE_INT_ARRAY:
+                int[] data = new int[readArrayLength()];
+                readInts(data, 0, data.length);
+                return new IntArrayTag(data);
+            case NBTConstants.TYPE_LONG_ARRAY:
+                long[] longData = new long[readArrayLength()];
+                readLongs(longData, 0, longData.length);
+                return new LongArrayTag(longData);
+            default:
+                throw new IOException("Invalid tag type: " + type + ".");
+        }
+    }
+
+    /**
+     * Skip a payload of the given type.
+     *
+     * @param type the type
+     * @throws IOException if an I/O error occurs
+     */
+    public void skipPayload(int type) throws IOException {
+        switch (type) {
+            case NBTConstants.TYPE_BYTE:
+                skipFully(1);
+                break;
+            case NBTConstants.TYPE_SHORT:
+                skipFully(2);
+                break;
+            case NBTConstants.TYPE_INT:
+            case NBTConstants.TYPE_FLOAT:
+                skipFully(4);
+                break;
+            case NBTConstants.TYPE_LONG:
+            case NBTConstants.TYPE_DOUBLE:
+                skipFully(8);
+                break;
+            case NBTConstants.TYPE_BYTE_ARRAY:
+                skipFully(readArrayLength());
+                break;
+            case NBTConstants.TYPE_STRING:
+                skipFully(is.readShort() & 0xFFFF);
+                break;
+            case NBTConstants.TYPE_LIST:
+                int childType = is.readByte() & 0xFF;
+                int length = is.readInt();
+                for (int i = 0; i < length; i++) {
+                    skipPayload(childType);
+                }
+                break;
+            case NBTConstants.TYPE_COMPOUND:
+                while (true) {
+                    int childTagType = is.readByte() & 0xFF;
+                    if (childTagType == NBTConstants.TYPE_END) {
+                        break;
+                    }
+                    skipFully(is.readShort() & 0xFFFF);
+                    skipPayload(childTagType);
+                }
+                break;
+            case NBTConstants.TYPE_INT_ARRAY:
+                skipFully(readArrayLength() * 4L);
+                break;
+            case NBTConstants.TYPE_LONG_ARRAY:
+                skipFully(readArrayLength() * 8L);
+                break;
+            default:
+                throw new IOException("Invalid tag type: " + type + ".");
+        }
+    }
+
+    /**
+     * Read the header of the current list tag.
+     *
+     * @return the number of elements
+     * @throws IOException if an I/O error occurs
+     */
+    public int readListHeader() throws IOException {
+        checkState(type == NBTConstants.TYPE_LIST, "Not a list");
+        listType = is.readByte() & 0xFF;
+        return is.readInt();
+    }
+
+    /**
+     * Read the payload of the current byte, short or int tag.
+     *
+     * @return the value
+     * @throws IOException if an I/O error occurs
+     */
+    public int readInt() throws IOException {
+        switch (type) {
+            case NBTConstants.TYPE_BYTE:
+                return is.readByte();
+            case NBTConstants.TYPE_SHORT:
+                return is.readShort();
+            case NBTConstants.TYPE_INT:
+                return is.readInt();
+            default:
+                throw new IOException("Expected a whole number for '" + name + "' but got tag type " + type);
+        }
+    }
+
+    /**
+     * Read the length of the current array tag. The elements must then be
+     * read in full with the matching bulk read method.
+     *
+     * @return the number of elements
+     * @throws IOException if an I/O error occurs
+     */
+    public int readArrayLength() throws IOException {
+        int length = is.readInt();
+        if (length < 0) {
+            throw new IOException("Negative array length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Read elements of a byte array.
+     *
+     * @param buffer the buffer to read into
+     * @param offset the offset into the buffer
+     * @param length the number of elements to read
+     * @throws IOException if an I/O error occurs
+     */
+    public void readBytes(byte[] buffer, int offset, int length) throws IOException {
+        is.readFully(buffer, offset, length);
+    }
+
+    /**
+     * Read elements of an int array.
+     *
+     * @param buffer the buffer to read into
+     * @param offset the offset into the buffer
+     * @param length the number of elements to read
+     * @throws IOException if an I/O error occurs
+     */
+    public void readInts(int[] buffer, int offset, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] = is.readInt();
+        }
+    }
+
+    /**
+     * Read elements of a long array.
+     *
+     * @param buffer the buffer to read into
+     * @param offset the offset into the buffer
+     * @param length the number of elements to read
+     * @throws IOException if an I/O error occurs
+     */
+    public void readLongs(long[] buffer, int offset, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] = is.readLong();
+        }
+    }
+
+    /**
+     * Get a stream over the elements of the current byte array tag, after
+     * {@link #readArrayLength()} has been called. The stream must be read
+     * to the end before the next tag is read.
+     *
+     * @param length the length returned by {@link #readArrayLength()}
+     * @return the stream
+     */
+    public InputStream openBytes(int length) {
+        return new InputStream() {
+            private int remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                remaining--;
+                return is.readUnsignedByte();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = is.read(b, off, Math.min(len, remaining));
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                remaining -= read;
+                return read;
+            }
+
+            @Override
+            public int available() {
+                return remaining;
+            }
+        };
+    }
+
+    private String readString() throws IOException {
+        int length = is.readShort() & 0xFFFF;
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        is.readFully(bytes, 0, length);
+        return new String(bytes, 0, length, NBTConstants.CHARSET);
+    }
+
+    private void skipFully(long count) throws IOException {
+        while (count > 0) {
+            int skipped = is.skipBytes((int) Math.min(count, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                // skipBytes() may give up early, so fall back to reading
+                is.readFully(scratch, 0, (int) Math.min(count, scratch.length));
+                skipped = (int) Math.min(count, scratch.length);
+            }
+            count -= skipped;
+        }
+    }
+
+}
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.event.extent.EditSessionEvent;
@@ -27,7 +28,7 @@
 import com.sk89q.worldedit.extent.MaskingExtent;
 import com.sk89q.worldedit.extent.NullExtent;
 import com.sk89q.worldedit.extent.buffer.ForgetfulExtentBuffer;
-import com.sk89q.worldedit.extent.cache.LastAccessExtentCache;
+import com.sk89q.worldedit.extent.cache.ChunkSectionCache;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.extent.inventory.BlockBagExtent;
 import com.sk89q.worldedit.extent.reorder.ChunkBatchingExtent;
@@ -37,6 +38,7 @@
 import com.sk89q.worldedit.extent.world.BlockQuirkExtent;
 import com.sk89q.worldedit.extent.world.ChunkLoadingExtent;
 import com.sk89q.worldedit.extent.world.FastModeExtent;
+import com.sk89q.worldedit.extent.world.SectionWriteExtent;
 import com.sk89q.worldedit.extent.world.SurvivalModeExtent;
 import com.sk89q.worldedit.function.GroundFunction;
 import com.sk89q.worldedit.function.RegionMaskingFilter;
@@ -61,7 +63,9 @@
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.OperationQueue;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.function.pattern.BlockPattern;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.function.pattern.WaterloggedRemover;
@@ -72,8 +76,10 @@
 import com.sk89q.worldedit.function.visitor.RecursiveVisitor;
 import com.sk89q.worldedit.function.visitor.RegionVisitor;
 import com.sk89q.worldedit.history.UndoContext;
-import com.sk89q.worldedit.history.changeset.BlockOptimizedHistory;
 import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.history.changeset.JournaledBlockHistory;
+import com.sk89q.worldedit.history.changeset.PackedBlockHistory;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
 import com.sk89q.worldedit.internal.expression.Expression;
 import com.sk89q.worldedit.internal.expression.ExpressionException;
 import com.sk89q.worldedit.internal.expression.runtime.ExpressionTimeoutException;
@@ -178,13 +184,15 @@ public String getDisplayName() {
 
     @SuppressWarnings("ProtectedField")
     protected final World world;
-    private final ChangeSet changeSet = new BlockOptimizedHistory();
+    private final ChangeSet changeSet = createChangeSet();
+    private boolean remembered;
 
     private @Nullable FastModeExtent fastModeExtent;
+    private @Nullable SectionWriteExtent sectionWriteExtent;
     private final SurvivalModeExtent survivalExtent;
     private @Nullable ChunkBatchingExtent chunkBatchingExtent;
     private @Nullable ChunkLoadingExtent chunkLoadingExtent;
-    private @Nullable LastAccessExtentCache cacheExtent;
+    private @Nullable ChunkSectionCache cacheExtent;
     private @Nullable BlockQuirkExtent quirkExtent;
     private @Nullable DataValidatorExtent validator;
     private final BlockBagExtent blockBagExtent;
@@ -222,10 +230,13 @@ public String getDisplayName() {
 
             // These extents are ALWAYS used
             extent = fastModeExtent = new FastModeExtent(world, false);
+            if (world.supportsSectionBlocks()) {
+                extent = sectionWriteExtent = new SectionWriteExtent(fastModeExtent, world);
+            }
             extent = survivalExtent = new SurvivalModeExtent(extent, world);
             extent = quirkExtent = new BlockQuirkExtent(extent, world);
             extent = chunkLoadingExtent = new ChunkLoadingExtent(extent, world);
-            extent = cacheExtent = new LastAccessExtentCache(extent);
+            extent = cacheExtent = new ChunkSectionCache(extent);
             extent = wrapExtent(extent, eventBus, event, Stage.BEFORE_CHANGE);
             extent = validator = new DataValidatorExtent(extent, world);
             extent = blockBagExtent = new BlockBagExtent(extent, blockBag);
@@ -259,6 +270,13 @@ public String getDisplayName() {
         setReorderMode(this.reorderMode);
     }
 
+    private static ChangeSet createChangeSet() {
+        if (LocalSession.HISTORY_JOURNAL_THRESHOLD > 0 && LocalSession.HISTORY_JOURNAL_DIRECTORY != null) {
+            return new JournaledBlockHistory(LocalSession.HISTORY_JOURNAL_DIRECTORY, LocalSession.HISTORY_JOURNAL_THRESHOLD);
+        }
+        return new PackedBlockHistory();
+    }
+
     private Extent wrapExtent(Extent extent, EventBus eventBus, EditSessionEvent event, Stage stage) {
         event = event.clone(stage);
         event.setExtent(extent);
@@ -274,6 +292,9 @@ boolean commitRequired() {
         if (chunkBatchingExtent != null && chunkBatchingExtent.commitRequired()) {
             return true;
         }
+        if (sectionWriteExtent != null && sectionWriteExtent.commitRequired()) {
+            return true;
+        }
         if (fastModeExtent != null && fastModeExtent.commitRequired()) {
             return true;
         }
@@ -357,6 +378,26 @@ public ChangeSet getChangeSet() {
         return changeSet;
     }
 
+    /**
+     * Get the cache of blocks read from the world, which records how many
+     * reads it was able to answer.
+     *
+     * @return the block cache, or null if this session has no world
+     */
+    public @Nullable ChunkSectionCache getBlockCache() {
+        return cacheExtent;
+    }
+
+    /**
+     * Get the extent that sets blocks by chunk section, which records how
+     * many blocks it has set.
+     *
+     * @return the extent, or null if the world cannot set blocks by section
+     */
+    public @Nullable SectionWriteExtent getSectionWriteExtent() {
+        return sectionWriteExtent;
+    }
+
     /**
      * Get the maximum number of blocks that can be changed. -1 will be returned
      * if it the limit disabled.
@@ -540,6 +581,9 @@ public void disableBuffering() {
         if (chunkBatchingExtent != null) {
             chunkBatchingExtent.setEnabled(false);
         }
+        if (sectionWriteExtent != null) {
+            sectionWriteExtent.setEnabled(false);
+        }
     }
 
     /**
@@ -573,6 +617,17 @@ public BaseBlock getFullBlock(BlockVector3 position) {
         return world.getFullBlock(position);
     }
 
+    @Override
+    public void getBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids) {
+        world.getBlocks(min, max, buffer, ids);
+    }
+
+    @Override
+    public void getFullBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids,
+                              Map<BlockVector3, BaseBlock> fullBlocks) {
+        world.getFullBlocks(min, max, buffer, ids, fullBlocks);
+    }
+
     /**
      * Returns the highest solid 'terrain' block.
      *
@@ -762,20 +817,81 @@ public List<? extends Entity> getEntities() {
 
     /**
      * Closing an EditSession {@linkplain #flushSession() flushes its buffers}.
+     *
+     * <p>If the session has not been {@linkplain LocalSession#remember(EditSession)
+     * remembered} by then, its history journal is deleted, as nothing can
+     * undo it any more. Sessions that should be undoable must be remembered
+     * before they are closed.</p>
      */
     @Override
     public void close() {
         flushSession();
+        if (!remembered && changeSet instanceof JournaledBlockHistory) {
+            ((JournaledBlockHistory) changeSet).close();
+        }
+    }
+
+    /**
+     * Mark this session as kept in an undo history, so that closing it
+     * does not delete its history journal.
+     */
+    void setRemembered() {
+        remembered = true;
     }
 
     /**
      * Communicate to the EditSession that all block changes are complete,
      * and that it should apply them to the world.
+     *
+     * <p>Operations for this session still pending in the
+     * {@link OperationScheduler} are completed first, so that changes reach
+     * the world in order.</p>
      */
     public void flushSession() {
+        WorldEdit.getInstance().getOperationScheduler().completePending(this);
         Operations.completeBlindly(commit());
     }
 
+    /**
+     * Apply the block changes of this session through the
+     * {@link OperationScheduler}, which spreads them over the following
+     * ticks if the platform supports it.
+     *
+     * <p>The buffers are committed once the operations submitted before
+     * this one have completed.</p>
+     *
+     * @return a future that completes once the changes have been applied
+     */
+    public ListenableFuture<Void> flushSessionLater() {
+        return WorldEdit.getInstance().getOperationScheduler().submit(new Operation() {
+            private boolean started;
+            private Operation delegate;
+
+            @Override
+            public Operation resume(RunContext run) throws WorldEditException {
+                if (!started) {
+                    started = true;
+                    delegate = commit();
+                }
+                if (delegate != null) {
+                    delegate = delegate.resume(run);
+                }
+                return delegate != null ? this : null;
+            }
+
+            @Override
+            public void cancel() {
+                if (delegate != null) {
+                    delegate.cancel();
+                }
+            }
+
+            @Override
+            public void addStatusMessages(List<String> messages) {
+            }
+        });
+    }
+
     @Override
     public @Nullable Operation commit() {
         return bypassNone.commit();
@@ -30,10 +30,17 @@
 import com.sk89q.worldedit.command.tool.InvalidToolBindException;
 import com.sk89q.worldedit.command.tool.SinglePickaxe;
 import com.sk89q.worldedit.command.tool.Tool;
+import com.sk89q.worldedit.command.tool.brush.ClipboardBrush;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.MappedClipboard;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.history.changeset.JournaledBlockHistory;
+import com.sk89q.worldedit.history.changeset.PackedBlockHistory;
 import com.sk89q.worldedit.internal.cui.CUIEvent;
 import com.sk89q.worldedit.internal.cui.CUIRegion;
 import com.sk89q.worldedit.internal.cui.SelectionShapeEvent;
@@ -50,8 +57,12 @@
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import com.sk89q.worldedit.world.snapshot.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.HashMap;
@@ -68,6 +79,11 @@
 public class LocalSession {
 
     public transient static int MAX_HISTORY_SIZE = 15;
+    public transient static int HISTORY_JOURNAL_THRESHOLD = -1;
+    public transient static File HISTORY_JOURNAL_DIRECTORY = null;
+    public transient static File CLIPBOARD_DIRECTORY = null;
+
+    private static final Logger log = LoggerFactory.getLogger(LocalSession.class);
 
     // Non-session related fields
     private transient LocalConfiguration config;
@@ -80,6 +96,7 @@ public class LocalSession {
     private transient LinkedList<EditSession> history = new LinkedList<>();
     private transient int historyPointer = 0;
     private transient ClipboardHolder clipboard;
+    private transient boolean offHeapClipboard = false;
     private transient boolean toolControl = true;
     private transient boolean superPickaxe = false;
     private transient BlockTool pickaxeMode = new SinglePickaxe();
@@ -188,10 +205,74 @@ public void setTimezone(ZoneId timezone) {
      * Clear history.
      */
     public void clearHistory() {
+        for (EditSession editSession : history) {
+            discard(editSession);
+        }
         history.clear();
         historyPointer = 0;
     }
 
+    /**
+     * Write the block changes held in memory by this session's history to
+     * their journals, if journaling is enabled for them.
+     */
+    public void spillHistory() {
+        for (EditSession editSession : history) {
+            ChangeSet changeSet = editSession.getChangeSet();
+            if (changeSet instanceof JournaledBlockHistory) {
+                ((JournaledBlockHistory) changeSet).spill();
+            }
+        }
+    }
+
+    /**
+     * Move the undo history of another session into this session, replacing
+     * this session's history. The other session is left with no history.
+     *
+     * @param other the session to take the history from
+     */
+    public void takeHistoryFrom(LocalSession other) {
+        checkNotNull(other);
+        clearHistory();
+        history.addAll(other.history);
+        historyPointer = other.historyPointer;
+        other.history.clear();
+        other.historyPointer = 0;
+    }
+
+    /**
+     * Get whether this session has any undo history.
+     *
+     * @return true if there is history
+     */
+    public boolean hasHistory() {
+        return !history.isEmpty();
+    }
+
+    private static void discard(EditSession editSession) {
+        ChangeSet changeSet = editSession.getChangeSet();
+        if (changeSet instanceof JournaledBlockHistory) {
+            ((JournaledBlockHistory) changeSet).close();
+        }
+    }
+
+    /**
+     * Get an estimate of the number of bytes used by the block changes
+     * stored in this session's history.
+     *
+     * @return the estimated number of bytes
+     */
+    public long getHistoryMemoryUsage() {
+        long total = 0;
+        for (EditSession editSession : history) {
+            ChangeSet changeSet = editSession.getChangeSet();
+            if (changeSet instanceof PackedBlockHistory) {
+                total += ((PackedBlockHistory) changeSet).getBlockMemoryUsage();
+            }
+        }
+        return total;
+    }
+
     /**
      * Remember an edit session for the undo history. If the history maximum
      * size is reached, old edit sessions will be discarded.
@@ -203,14 +284,15 @@ public void remember(EditSession editSession) {
 
         // Don't store anything if no changes were made
         if (editSession.size() == 0) return;
+        editSession.setRemembered();
 
         // Destroy any sessions after this undo point
         while (historyPointer < history.size()) {
-            history.remove(historyPointer);
+            discard(history.remove(historyPointer));
         }
         history.add(editSession);
         while (history.size() > MAX_HISTORY_SIZE) {
-            history.remove(0);
+            discard(history.remove(0));
         }
         historyPointer = history.size();
     }
@@ -380,10 +462,75 @@ public ClipboardHolder getClipboard() throws EmptyClipboardException {
      *
      * <p>Pass {@code null} to clear the clipboard.</p>
      *
+     * <p>The session takes over the caller's use of an off-heap clipboard,
+     * and releases the previous clipboard.</p>
+     *
      * @param clipboard the clipboard, or null if the clipboard is to be cleared
      */
     public void setClipboard(@Nullable ClipboardHolder clipboard) {
+        ClipboardHolder previous = this.clipboard;
         this.clipboard = clipboard;
+        if (previous != null && (clipboard == null || clipboard.getClipboard() != previous.getClipboard())) {
+            MappedClipboard.release(previous.getClipboard());
+        }
+    }
+
+    /**
+     * Create an empty clipboard for the given region, of the kind selected
+     * with {@link #setUseOffHeapClipboard(boolean)}.
+     *
+     * <p>Off-heap clipboards are backed by a file that is deleted once the
+     * clipboard is replaced or cleared and no clipboard brush, schematic
+     * save or paste still uses it.</p>
+     *
+     * @param region the region of the clipboard
+     * @return a new clipboard
+     */
+    public Clipboard createClipboard(Region region) {
+        if (offHeapClipboard && CLIPBOARD_DIRECTORY != null) {
+            try {
+                return new MappedClipboard(region, CLIPBOARD_DIRECTORY);
+            } catch (IOException e) {
+                log.warn("Failed to create an off-heap clipboard, using the heap instead", e);
+            }
+        }
+        return new SectionedClipboard(region);
+    }
+
+    /**
+     * Clear the clipboard and release the clipboards of the clipboard
+     * brushes of this session.
+     */
+    public void releaseClipboard() {
+        setClipboard(null);
+        for (Tool tool : tools.values()) {
+            releaseBrush(tool);
+        }
+    }
+
+    private static void releaseBrush(@Nullable Tool tool) {
+        if (tool instanceof BrushTool && ((BrushTool) tool).getBrush() instanceof ClipboardBrush) {
+            ((ClipboardBrush) ((BrushTool) tool).getBrush()).release();
+        }
+    }
+
+    /**
+     * Checks if new clipboards are stored off the heap.
+     *
+     * @return true if new clipboards are stored off the heap
+     */
+    public boolean isUsingOffHeapClipboard() {
+        return offHeapClipboard;
+    }
+
+    /**
+     * Set whether new clipboards are stored in a memory-mapped file instead
+     * of on the heap.
+     *
+     * @param offHeapClipboard true to store new clipboards off the heap
+     */
+    public void setUseOffHeapClipboard(boolean offHeapClipboard) {
+        this.offHeapClipboard = offHeapClipboard;
     }
 
     /**
@@ -600,7 +747,10 @@ public void setTool(ItemType item, @Nullable Tool tool) throws InvalidToolBindEx
             throw new InvalidToolBindException(item, "Already used for the navigation wand");
         }
 
-        this.tools.put(item, tool);
+        Tool previous = this.tools.put(item, tool);
+        if (previous != tool) {
+            releaseBrush(previous);
+        }
     }
 
     /**
@@ -0,0 +1,54 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit;
+
+/**
+ * Thrown when a search, such as a flood fill, needs more memory to track
+ * visited blocks than allowed by the configuration.
+ *
+ * <p>This is a {@link MaxChangedBlocksException} so that it passes through
+ * operations that only expect a block limit to be hit. The block limit is
+ * the number of blocks visited before the search was stopped.</p>
+ */
+public class MaxSearchMemoryException extends MaxChangedBlocksException {
+
+    private final long maxMemory;
+
+    /**
+     * Create a new instance.
+     *
+     * @param maxMemory the maximum number of bytes a search may use
+     * @param visitedBlocks the number of blocks visited before the limit was reached
+     */
+    public MaxSearchMemoryException(long maxMemory, int visitedBlocks) {
+        super(visitedBlocks);
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Get the limit.
+     *
+     * @return the maximum number of bytes a search may use
+     */
+    public long getMemoryLimit() {
+        return maxMemory;
+    }
+
+}
@@ -20,20 +20,23 @@
 package com.sk89q.worldedit.command;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.command.util.CommandPermissions;
 import com.sk89q.worldedit.command.util.CommandPermissionsConditionGenerator;
 import com.sk89q.worldedit.command.util.Logging;
 import com.sk89q.worldedit.entity.Player;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.MappedClipboard;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
 import com.sk89q.worldedit.function.block.BlockReplace;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
 import com.sk89q.worldedit.function.operation.Operation;
-import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.internal.annotation.Direction;
 import com.sk89q.worldedit.internal.annotation.Selection;
@@ -74,7 +77,7 @@ public void copy(Player player, LocalSession session, EditSession editSession,
                          boolean copyBiomes,
                      @ArgFlag(name = 'm', desc = "Set the include mask, non-matching blocks become air", def = "")
                          Mask mask) throws WorldEditException {
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        Clipboard clipboard = session.createClipboard(region);
         clipboard.setOrigin(session.getPlacementPosition(player));
         ForwardExtentCopy copy = new ForwardExtentCopy(editSession, region, clipboard, region.getMinimumPoint());
         copy.setCopyingEntities(copyEntities);
@@ -82,12 +85,18 @@ public void copy(Player player, LocalSession session, EditSession editSession,
         if (mask != null) {
             copy.setSourceMask(mask);
         }
-        Operations.completeLegacy(copy);
-        session.setClipboard(new ClipboardHolder(clipboard));
+        submit(copy, clipboard, player, () -> {
+            if (clipboard instanceof SectionedClipboard) {
+                ((SectionedClipboard) clipboard).trim();
+            }
+            // The session keeps a use of its own
+            MappedClipboard.retain(clipboard);
+            session.setClipboard(new ClipboardHolder(clipboard));
 
-        List<String> messages = Lists.newArrayList();
-        copy.addStatusMessages(messages);
-        messages.forEach(player::print);
+            List<String> messages = Lists.newArrayList();
+            copy.addStatusMessages(messages);
+            messages.forEach(player::print);
+        });
     }
 
     @Command(
@@ -108,7 +117,7 @@ public void cut(Player player, LocalSession session, EditSession editSession,
                     @ArgFlag(name = 'm', desc = "Set the exclude mask, matching blocks become air", def = "")
                         Mask mask) throws WorldEditException {
 
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        Clipboard clipboard = session.createClipboard(region);
         clipboard.setOrigin(session.getPlacementPosition(player));
         ForwardExtentCopy copy = new ForwardExtentCopy(editSession, region, clipboard, region.getMinimumPoint());
         copy.setSourceFunction(new BlockReplace(editSession, leavePattern));
@@ -118,12 +127,18 @@ public void cut(Player player, LocalSession session, EditSession editSession,
         if (mask != null) {
             copy.setSourceMask(mask);
         }
-        Operations.completeLegacy(copy);
-        session.setClipboard(new ClipboardHolder(clipboard));
+        submit(copy, clipboard, player, () -> {
+            if (clipboard instanceof SectionedClipboard) {
+                ((SectionedClipboard) clipboard).trim();
+            }
+            // The session keeps a use of its own
+            MappedClipboard.retain(clipboard);
+            session.setClipboard(new ClipboardHolder(clipboard));
 
-        List<String> messages = Lists.newArrayList();
-        copy.addStatusMessages(messages);
-        messages.forEach(player::print);
+            List<String> messages = Lists.newArrayList();
+            copy.addStatusMessages(messages);
+            messages.forEach(player::print);
+        });
     }
 
     @Command(
@@ -159,22 +174,25 @@ public void paste(Player player, LocalSession session, EditSession editSession,
                 .copyEntities(pasteEntities)
                 .maskSource(sourceMask)
                 .build();
-        Operations.completeLegacy(operation);
-
-        if (selectPasted) {
-            BlockVector3 clipboardOffset = clipboard.getRegion().getMinimumPoint().subtract(clipboard.getOrigin());
-            Vector3 realTo = to.toVector3().add(holder.getTransform().apply(clipboardOffset.toVector3()));
-            Vector3 max = realTo.add(holder.getTransform().apply(region.getMaximumPoint().subtract(region.getMinimumPoint()).toVector3()));
-            RegionSelector selector = new CuboidRegionSelector(player.getWorld(), realTo.toBlockPoint(), max.toBlockPoint());
-            session.setRegionSelector(player.getWorld(), selector);
-            selector.learnChanges();
-            selector.explainRegionAdjust(player, session);
-        }
+        // Keep an off-heap clipboard until the paste is done, even if the
+        // session's clipboard is replaced in the meantime
+        MappedClipboard.retain(clipboard);
+        submit(operation, clipboard, player, () -> {
+            if (selectPasted) {
+                BlockVector3 clipboardOffset = clipboard.getRegion().getMinimumPoint().subtract(clipboard.getOrigin());
+                Vector3 realTo = to.toVector3().add(holder.getTransform().apply(clipboardOffset.toVector3()));
+                Vector3 max = realTo.add(holder.getTransform().apply(region.getMaximumPoint().subtract(region.getMinimumPoint()).toVector3()));
+                RegionSelector selector = new CuboidRegionSelector(player.getWorld(), realTo.toBlockPoint(), max.toBlockPoint());
+                session.setRegionSelector(player.getWorld(), selector);
+                selector.learnChanges();
+                selector.explainRegionAdjust(player, session);
+            }
 
-        player.print("The clipboard has been pasted at " + to);
-        List<String> messages = Lists.newArrayList();
-        operation.addStatusMessages(messages);
-        messages.forEach(player::print);
+            player.print("The clipboard has been pasted at " + to);
+            List<String> messages = Lists.newArrayList();
+            operation.addStatusMessages(messages);
+            messages.forEach(player::print);
+        });
     }
 
     @Command(
@@ -231,4 +249,47 @@ public void clearClipboard(Player player, LocalSession session) throws WorldEdit
         session.setClipboard(null);
         player.print("Clipboard cleared.");
     }
+
+    @Command(
+        name = "/offheap",
+        desc = "Toggle storing new clipboards in a memory-mapped file"
+    )
+    @CommandPermissions("worldedit.clipboard.offheap")
+    public void offHeap(Player player, LocalSession session,
+                        @Arg(desc = "The new off-heap clipboard state", def = "")
+                            Boolean offHeap) {
+        boolean usingOffHeap = session.isUsingOffHeapClipboard();
+        if (offHeap != null && offHeap == usingOffHeap) {
+            player.printError("Off-heap clipboards already " + (offHeap ? "enabled" : "disabled") + ".");
+            return;
+        }
+
+        session.setUseOffHeapClipboard(!usingOffHeap);
+        player.print("Off-heap clipboards " + (usingOffHeap ? "disabled" : "enabled") + ".");
+    }
+
+    /**
+     * Submit an operation that uses a clipboard to the operation scheduler.
+     *
+     * <p>The operation holds one use of an off-heap clipboard, which is
+     * released once the operation and callback have completed or failed.
+     * The callback must retain the clipboard again to keep it.</p>
+     *
+     * @param operation the operation
+     * @param clipboard the clipboard the operation uses
+     * @param player the player to report to
+     * @param callback the callback to run once the operation completes
+     * @throws WorldEditException thrown if the operation is completed right away and fails
+     */
+    private static void submit(Operation operation, Clipboard clipboard, Player player, Runnable callback) throws WorldEditException {
+        ListenableFuture<Void> future;
+        try {
+            future = WorldEdit.getInstance().getOperationScheduler().submit(operation, player, callback);
+        } catch (WorldEditException | RuntimeException e) {
+            MappedClipboard.release(clipboard);
+            throw e;
+        }
+        future.addListener(() -> MappedClipboard.release(clipboard), MoreExecutors.directExecutor());
+    }
+
 }
@@ -31,6 +31,7 @@
 import com.sk89q.worldedit.extension.input.DisallowedUsageException;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.MaskOptimizer;
 import com.sk89q.worldedit.util.formatting.component.PaginationBox;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.world.item.ItemType;
@@ -190,13 +191,20 @@ public void drawSelection(Player player, LocalSession session,
     @CommandPermissions("worldedit.global-mask")
     public void gmask(Player player, LocalSession session,
                       @Arg(desc = "The mask to set", def = "")
-                          Mask mask) {
+                          Mask mask,
+                      @Switch(name = 'e', desc = "Show how the mask will be evaluated")
+                          boolean explain) {
         if (mask == null) {
             session.setMask(null);
             player.print("Global mask disabled.");
         } else {
             session.setMask(mask);
             player.print("Global mask set.");
+            if (explain) {
+                for (String line : MaskOptimizer.explain(mask)) {
+                    player.print(line);
+                }
+            }
         }
     }
 
@@ -133,8 +133,9 @@ public void redo(Player player, LocalSession session,
     )
     @CommandPermissions("worldedit.history.clear")
     public void clearHistory(Player player, LocalSession session) {
+        long freed = session.getHistoryMemoryUsage();
         session.clearHistory();
-        player.print("History cleared.");
+        player.print("History cleared (" + (freed / 1024) + " KiB of block changes freed).");
     }
 
 }
@@ -23,6 +23,7 @@
 import com.google.common.collect.Lists;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.command.util.CommandPermissions;
 import com.sk89q.worldedit.command.util.CommandPermissionsConditionGenerator;
@@ -35,7 +36,6 @@
 import com.sk89q.worldedit.function.mask.ExistingBlockMask;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.mask.NoiseFilter2D;
-import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.function.visitor.LayerVisitor;
 import com.sk89q.worldedit.function.visitor.RegionVisitor;
@@ -87,23 +87,22 @@ public RegionCommands() {
     )
     @CommandPermissions("worldedit.region.set")
     @Logging(REGION)
-    public int set(Player player, EditSession editSession,
-                   @Selection Region region,
-                   @Arg(desc = "The pattern of blocks to set")
-                       Pattern pattern) {
+    public void set(Player player, EditSession editSession,
+                    @Selection Region region,
+                    @Arg(desc = "The pattern of blocks to set")
+                        Pattern pattern) throws WorldEditException {
         RegionFunction set = new BlockReplace(editSession, pattern);
         RegionVisitor visitor = new RegionVisitor(region, set);
 
-        Operations.completeBlindly(visitor);
-        List<String> messages = Lists.newArrayList();
-        visitor.addStatusMessages(messages);
-        if (messages.isEmpty()) {
-            player.print("Operation completed.");
-        } else {
-            player.print("Operation completed (" + Joiner.on(", ").join(messages) + ").");
-        }
-
-        return visitor.getAffected();
+        WorldEdit.getInstance().getOperationScheduler().submit(visitor, player, () -> {
+            List<String> messages = Lists.newArrayList();
+            visitor.addStatusMessages(messages);
+            if (messages.isEmpty()) {
+                player.print("Operation completed.");
+            } else {
+                player.print("Operation completed (" + Joiner.on(", ").join(messages) + ").");
+            }
+        });
     }
 
     @Command(
@@ -461,20 +460,17 @@ public int forest(Player player, EditSession editSession, @Selection Region regi
     )
     @CommandPermissions("worldedit.region.flora")
     @Logging(REGION)
-    public int flora(Player player, EditSession editSession, @Selection Region region,
-                     @Arg(desc = "The density of the forest", def = "5")
-                         double density) throws WorldEditException {
+    public void flora(Player player, EditSession editSession, @Selection Region region,
+                      @Arg(desc = "The density of the forest", def = "5")
+                          double density) throws WorldEditException {
         checkCommandArgument(0 <= density && density <= 100, "Density must be in [0, 100]");
         density = density / 100;
         FloraGenerator generator = new FloraGenerator(editSession);
         GroundFunction ground = new GroundFunction(new ExistingBlockMask(editSession), generator);
         LayerVisitor visitor = new LayerVisitor(asFlatRegion(region), minimumBlockY(region), maximumBlockY(region), ground);
         visitor.setMask(new NoiseFilter2D(new RandomNoise(), density));
-        Operations.completeLegacy(visitor);
-
-        int affected = ground.getAffected();
-        player.print(affected + " flora created.");
-        return affected;
+        WorldEdit.getInstance().getOperationScheduler().submit(visitor, player,
+            () -> player.print(ground.getAffected() + " flora created."));
     }
 
 }
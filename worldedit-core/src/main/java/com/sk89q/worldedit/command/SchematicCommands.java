@@ -31,13 +31,16 @@
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.MappedClipboard;
 import com.sk89q.worldedit.extent.clipboard.io.BuiltInClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardWriter;
+import com.sk89q.worldedit.extent.clipboard.io.SchematicIndex;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.session.ClipboardHolder;
 import com.sk89q.worldedit.util.formatting.component.CodeFormat;
 import com.sk89q.worldedit.util.formatting.component.ErrorFormat;
@@ -64,10 +67,9 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -121,14 +123,16 @@ public void load(Player player, LocalSession session,
             return;
         }
 
-        SchematicLoadTask task = new SchematicLoadTask(player, f, format);
+        SchematicLoadTask task = new SchematicLoadTask(player, f, format, session::createClipboard);
         AsyncCommandBuilder.wrap(task, player)
                 .registerWithSupervisor(worldEdit.getSupervisor(), "Loading schematic " + filename)
                 .sendMessageAfterDelay("(Please wait... loading schematic.)")
-                .onSuccess(TextComponent.of(filename, TextColor.GOLD)
-                                .append(TextComponent.of(" loaded. Paste it with ", TextColor.LIGHT_PURPLE))
-                                .append(CodeFormat.wrap("//paste").clickEvent(ClickEvent.of(ClickEvent.Action.SUGGEST_COMMAND, "//paste"))),
-                        session::setClipboard)
+                .onSuccess((Component) null, holder -> {
+                    session.setClipboard(holder);
+                    player.print(TextComponent.of(filename, TextColor.GOLD)
+                            .append(TextComponent.of(" loaded " + task.getThroughput() + ". Paste it with ", TextColor.LIGHT_PURPLE))
+                            .append(CodeFormat.wrap("//paste").clickEvent(ClickEvent.of(ClickEvent.Action.SUGGEST_COMMAND, "//paste"))));
+                })
                 .onFailure("Failed to load schematic", worldEdit.getPlatformManager().getPlatformCommandManager().getExceptionConverter())
                 .buildAndExec(worldEdit.getExecutorService());
     }
@@ -184,7 +188,8 @@ public void save(Player player, LocalSession session,
         AsyncCommandBuilder.wrap(task, player)
                 .registerWithSupervisor(worldEdit.getSupervisor(), "Saving schematic " + filename)
                 .sendMessageAfterDelay("(Please wait... saving schematic.)")
-                .onSuccess(filename + " saved" + (overwrite ? " (overwriting previous file)." : "."), null)
+                .onSuccess((Component) null, result -> player.print(filename + " saved " + task.getThroughput()
+                        + (overwrite ? " (overwriting previous file)." : ".")))
                 .onFailure("Failed to load schematic", worldEdit.getPlatformManager().getPlatformCommandManager().getExceptionConverter())
                 .buildAndExec(worldEdit.getExecutorService());
     }
@@ -273,29 +278,54 @@ public void list(Actor actor,
                 new SchematicListTask(saveDir, sortType, page, pageCommand), "(Please wait... gathering schematic list.)");
     }
 
+    /**
+     * Describe how fast a file was read or written.
+     *
+     * @param bytes the size of the file
+     * @param nanos the time taken
+     * @return the description
+     */
+    private static String formatThroughput(long bytes, long nanos) {
+        double megabytes = bytes / (1024.0 * 1024.0);
+        double seconds = nanos / 1e9;
+        return String.format("(%.1f MB in %.2f s, %.1f MB/s)", megabytes, seconds,
+                seconds > 0 ? megabytes / seconds : 0);
+    }
+
     private static class SchematicLoadTask implements Callable<ClipboardHolder> {
         private final Player player;
         private final File file;
         private final ClipboardFormat format;
+        private final Function<Region, Clipboard> clipboardFactory;
+        private long bytes;
+        private long nanos;
 
-        SchematicLoadTask(Player player, File file, ClipboardFormat format) {
+        SchematicLoadTask(Player player, File file, ClipboardFormat format, Function<Region, Clipboard> clipboardFactory) {
             this.player = player;
             this.file = file;
             this.format = format;
+            this.clipboardFactory = clipboardFactory;
         }
 
         @Override
         public ClipboardHolder call() throws Exception {
+            long start = System.nanoTime();
             try (Closer closer = Closer.create()) {
                 FileInputStream fis = closer.register(new FileInputStream(file));
                 BufferedInputStream bis = closer.register(new BufferedInputStream(fis));
                 ClipboardReader reader = closer.register(format.getReader(bis));
 
-                Clipboard clipboard = reader.read();
-                log.info(player.getName() + " loaded " + file.getCanonicalPath());
+                Clipboard clipboard = reader.read(clipboardFactory);
+                nanos = System.nanoTime() - start;
+                bytes = file.length();
+                log.info(player.getName() + " loaded " + file.getCanonicalPath() + " " + getThroughput());
                 return new ClipboardHolder(clipboard);
             }
         }
+
+        String getThroughput() {
+            return formatThroughput(bytes, nanos);
+        }
     }
 
     private static class SchematicSaveTask implements Callable<Void> {
@@ -304,6 +334,8 @@ private static class SchematicSaveTask implements Callable<Void> {
         private final ClipboardFormat format;
         private final ClipboardHolder holder;
         private final boolean overwrite;
+        private long bytes;
+        private long nanos;
 
         SchematicSaveTask(Player player, File file, ClipboardFormat format, ClipboardHolder holder, boolean overwrite) {
             this.player = player;
@@ -311,10 +343,21 @@ private static class SchematicSaveTask implements Callable<Void> {
             this.format = format;
             this.holder = holder;
             this.overwrite = overwrite;
+            // Keep an off-heap clipboard around until it is written, even
+            // if the session's clipboard is replaced in the meantime
+            MappedClipboard.retain(holder.getClipboard());
         }
 
         @Override
         public Void call() throws Exception {
+            try {
+                return save();
+            } finally {
+                MappedClipboard.release(holder.getClipboard());
+            }
+        }
+
+        private Void save() throws Exception {
             Clipboard clipboard = holder.getClipboard();
             Transform transform = holder.getTransform();
             Clipboard target;
@@ -329,16 +372,24 @@ public Void call() throws Exception {
                 Operations.completeLegacy(result.copyTo(target));
             }
 
+            long start = System.nanoTime();
             try (Closer closer = Closer.create()) {
                 FileOutputStream fos = closer.register(new FileOutputStream(file));
                 BufferedOutputStream bos = closer.register(new BufferedOutputStream(fos));
                 ClipboardWriter writer = closer.register(format.getWriter(bos));
                 writer.write(target);
-
-                log.info(player.getName() + " saved " + file.getCanonicalPath() + (overwrite ? " (overwriting previous file)" : ""));
             }
+            nanos = System.nanoTime() - start;
+            bytes = file.length();
+
+            log.info(player.getName() + " saved " + file.getCanonicalPath() + " " + getThroughput()
+                    + (overwrite ? " (overwriting previous file)" : ""));
             return null;
         }
+
+        String getThroughput() {
+            return formatThroughput(bytes, nanos);
+        }
     }
 
     private static class SchematicListTask implements Callable<Component> {
@@ -358,19 +409,17 @@ private static class SchematicListTask implements Callable<Component> {
 
         @Override
         public Component call() throws Exception {
-            List<File> fileList = allFiles(rootDir);
+            List<SchematicIndex.Entry> entries = SchematicIndex.forDirectory(rootDir).refresh();
 
-            if (fileList == null || fileList.isEmpty()) {
+            if (entries.isEmpty()) {
                 return ErrorFormat.wrap("No schematics found.");
             }
 
-            File[] files = new File[fileList.size()];
-            fileList.toArray(files);
-            // cleanup file list
-            Arrays.sort(files, (f1, f2) -> {
-                // http://stackoverflow.com/questions/203030/best-way-to-list-files-in-java-sorted-by-date-modified
+            entries.sort((e1, e2) -> {
                 int res;
                 if (sortType == 0) { // use name by default
+                    File f1 = e1.getFile();
+                    File f2 = e2.getFile();
                     int p = f1.getParent().compareTo(f2.getParent());
                     if (p == 0) { // same parent, compare names
                         res = f1.getName().compareTo(f2.getName());
@@ -378,30 +427,14 @@ public Component call() throws Exception {
                         res = p;
                     }
                 } else {
-                    res = Long.compare(f1.lastModified(), f2.lastModified()); // use date if there is a flag
+                    res = Long.compare(e1.getLastModified(), e2.getLastModified()); // use date if there is a flag
                     if (sortType == 1) res = -res; // flip date for newest first instead of oldest first
                 }
                 return res;
             });
 
-            PaginationBox paginationBox = new SchematicPaginationBox(prefix, files, pageCommand);
+            PaginationBox paginationBox = new SchematicPaginationBox(prefix, entries, pageCommand);
             return paginationBox.create(page);
         }
     }
-
-    private static List<File> allFiles(File root) {
-        File[] files = root.listFiles();
-        if (files == null) return null;
-        List<File> fileList = new ArrayList<>();
-        for (File f : files) {
-            if (f.isDirectory()) {
-                List<File> subFiles = allFiles(f);
-                if (subFiles == null) continue; // empty subdir
-                fileList.addAll(subFiles);
-            } else {
-                fileList.add(f);
-            }
-        }
-        return fileList;
-    }
 }
@@ -32,7 +32,12 @@
 import com.sk89q.worldedit.extension.input.ParserContext;
 import com.sk89q.worldedit.extension.platform.permission.ActorSelectorLimits;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.MappedClipboard;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.function.RegionMaskingFilter;
 import com.sk89q.worldedit.function.block.BlockDistributionCounter;
+import com.sk89q.worldedit.function.block.Counter;
+import com.sk89q.worldedit.function.mask.BlockMask;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.function.visitor.RegionVisitor;
 import com.sk89q.worldedit.internal.annotation.Direction;
@@ -407,6 +412,11 @@ public void size(Player player, LocalSession session,
 
             BlockVector3 origin = clipboard.getOrigin();
             player.print("Offset: " + origin);
+            if (clipboard instanceof SectionedClipboard) {
+                player.print("Memory: " + (((SectionedClipboard) clipboard).getMemoryUsage() / 1024) + " KiB");
+            } else if (clipboard instanceof MappedClipboard) {
+                player.print("Memory-mapped file: " + (((MappedClipboard) clipboard).getFileSize() / 1024) + " KiB");
+            }
         } else {
             region = session.getSelection(player.getWorld());
 
@@ -445,8 +455,12 @@ public void count(Player player, LocalSession session, EditSession editSession,
         context.setPreferringWildcard(fuzzy);
 
         Set<BaseBlock> searchBlocks = we.getBlockFactory().parseFromListInput(blocks, context);
-        int count = editSession.countBlocks(session.getSelection(player.getWorld()), searchBlocks);
-        player.print("Counted: " + count);
+        // Count the live world a little at a time, so large selections don't stall the server
+        Region region = session.getSelection(player.getWorld()).clone();
+        Counter counter = new Counter();
+        RegionVisitor visitor = new RegionVisitor(region,
+                new RegionMaskingFilter(new BlockMask(editSession, searchBlocks), counter));
+        we.getOperationScheduler().submit(visitor, player, () -> player.print("Counted: " + counter.getCount()));
     }
 
     @Command(
@@ -459,18 +473,23 @@ public void distr(Player player, LocalSession session, EditSession editSession,
                           boolean clipboardDistr,
                       @Switch(name = 'd', desc = "Separate blocks by state")
                           boolean separateStates) throws WorldEditException {
-        List<Countable<BlockState>> distribution;
-
         if (clipboardDistr) {
             Clipboard clipboard = session.getClipboard().getClipboard(); // throws if missing
             BlockDistributionCounter count = new BlockDistributionCounter(clipboard, separateStates);
             RegionVisitor visitor = new RegionVisitor(clipboard.getRegion(), count);
             Operations.completeBlindly(visitor);
-            distribution = count.getDistribution();
+            printDistribution(player, count.getDistribution(), separateStates);
         } else {
-            distribution = editSession.getBlockDistribution(session.getSelection(player.getWorld()), separateStates);
+            // Count the live world a little at a time, so large selections don't stall the server
+            Region region = session.getSelection(player.getWorld()).clone();
+            BlockDistributionCounter count = new BlockDistributionCounter(editSession, separateStates);
+            RegionVisitor visitor = new RegionVisitor(region, count);
+            we.getOperationScheduler().submit(visitor, player,
+                    () -> printDistribution(player, count.getDistribution(), separateStates));
         }
+    }
 
+    private static void printDistribution(Player player, List<Countable<BlockState>> distribution, boolean separateStates) {
         if (distribution.isEmpty()) {  // *Should* always be false
             player.printError("No blocks counted.");
             return;
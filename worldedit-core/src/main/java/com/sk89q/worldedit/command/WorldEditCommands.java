@@ -32,6 +32,8 @@
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
 import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.extent.world.RelightOperation;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.util.paste.ActorCallbackPaste;
 import com.sk89q.worldedit.util.report.ConfigReport;
 import com.sk89q.worldedit.util.report.ReportList;
@@ -52,6 +54,7 @@
 import java.time.zone.ZoneRulesException;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 @CommandContainer(superTypes = CommandPermissionsConditionGenerator.Registration.class)
 public class WorldEditCommands {
@@ -124,6 +127,28 @@ public void report(Actor actor,
         }
     }
 
+    @Command(
+        name = "queue",
+        desc = "Show pending operations and how long they take per tick"
+    )
+    @CommandPermissions("worldedit.queue")
+    public void queue(Actor actor) {
+        OperationScheduler scheduler = we.getOperationScheduler();
+        if (!scheduler.isScheduled()) {
+            actor.print("Operations are completed immediately on this platform.");
+            return;
+        }
+        actor.print("Pending operations: " + scheduler.getQueueSize()
+                + " (" + scheduler.getCompletedOperations() + " completed)");
+        actor.print(String.format("Time per tick: %.2f ms last, %.2f ms average, %.2f ms max (budget %.2f ms)",
+                scheduler.getLastTickTime(TimeUnit.MICROSECONDS) / 1000.0,
+                scheduler.getAverageTickTime(TimeUnit.MICROSECONDS) / 1000.0,
+                scheduler.getMaxTickTime(TimeUnit.MICROSECONDS) / 1000.0,
+                OperationScheduler.TICK_BUDGET / 1000000.0));
+        actor.print("Relighting: " + RelightOperation.getPendingChunks() + " chunk(s) pending, "
+                + RelightOperation.getRelitChunks() + " relit");
+    }
+
     @Command(
         name = "cui",
         desc = "Complete CUI handshake (internal usage)"
@@ -26,6 +26,7 @@
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.command.tool.brush.Brush;
+import com.sk89q.worldedit.command.tool.brush.ClipboardBrush;
 import com.sk89q.worldedit.command.tool.brush.SphereBrush;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
@@ -111,8 +112,12 @@ public void setTraceMask(@Nullable Mask traceMask) {
      * @param permission the permission
      */
     public void setBrush(Brush brush, String permission) {
+        Brush previous = this.brush;
         this.brush = brush;
         this.permission = permission;
+        if (previous != brush && previous instanceof ClipboardBrush) {
+            ((ClipboardBrush) previous).release();
+        }
     }
 
     /**
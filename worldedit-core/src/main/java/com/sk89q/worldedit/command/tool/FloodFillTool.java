@@ -23,18 +23,26 @@
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.MaxSearchMemoryException;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.function.block.BlockReplace;
+import com.sk89q.worldedit.function.mask.AbstractMask;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.Mask2D;
+import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.visitor.RecursiveVisitor;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
 
-import java.util.HashSet;
-import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * A tool that flood fills blocks.
@@ -71,7 +79,9 @@ public boolean actPrimary(Platform server, LocalConfiguration config, Player pla
 
         try (EditSession editSession = session.createEditSession(player)) {
             try {
-                recurse(editSession, origin, origin, range, initialType, new HashSet<>());
+                fill(editSession, origin, initialType);
+            } catch (MaxSearchMemoryException e) {
+                player.printError("The area to fill is too large.");
             } catch (MaxChangedBlocksException e) {
                 player.printError("Max blocks change limit reached.");
             } finally {
@@ -82,33 +92,23 @@ public boolean actPrimary(Platform server, LocalConfiguration config, Player pla
         return true;
     }
 
-    private void recurse(EditSession editSession, BlockVector3 pos, BlockVector3 origin, int size, BlockType initialType,
-            Set<BlockVector3> visited) throws MaxChangedBlocksException {
-
-        if (origin.distance(pos) > size || visited.contains(pos)) {
-            return;
-        }
-
-        visited.add(pos);
-
-        if (editSession.getBlock(pos).getBlockType() == initialType) {
-            editSession.setBlock(pos, pattern.apply(pos));
-        } else {
-            return;
-        }
+    private void fill(EditSession editSession, BlockVector3 origin, BlockType initialType) throws MaxChangedBlocksException {
+        Mask withinRange = new AbstractMask() {
+            @Override
+            public boolean test(BlockVector3 vector) {
+                return origin.distance(vector) <= range;
+            }
 
-        recurse(editSession, pos.add(1, 0, 0),
-                origin, size, initialType, visited);
-        recurse(editSession, pos.add(-1, 0, 0),
-                origin, size, initialType, visited);
-        recurse(editSession, pos.add(0, 0, 1),
-                origin, size, initialType, visited);
-        recurse(editSession, pos.add(0, 0, -1),
-                origin, size, initialType, visited);
-        recurse(editSession, pos.add(0, 1, 0),
-                origin, size, initialType, visited);
-        recurse(editSession, pos.add(0, -1, 0),
-                origin, size, initialType, visited);
+            @Nullable
+            @Override
+            public Mask2D toMask2D() {
+                return null;
+            }
+        };
+        Mask mask = new MaskIntersection(new BlockTypeMask(editSession, initialType), withinRange);
+        RecursiveVisitor visitor = new RecursiveVisitor(mask, new BlockReplace(editSession, pattern));
+        visitor.visit(origin);
+        Operations.completeLegacy(visitor);
     }
 
 }
@@ -22,6 +22,7 @@
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.MappedClipboard;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.Operations;
@@ -38,6 +39,7 @@ public class ClipboardBrush implements Brush {
     private final boolean pasteEntities;
     private final boolean pasteBiomes;
     private final Mask sourceMask;
+    private boolean released;
 
     public ClipboardBrush(ClipboardHolder holder, boolean ignoreAirBlocks, boolean usingOrigin) {
         this.holder = holder;
@@ -46,6 +48,7 @@ public ClipboardBrush(ClipboardHolder holder, boolean ignoreAirBlocks, boolean u
         this.pasteBiomes = false;
         this.pasteEntities = false;
         this.sourceMask = null;
+        MappedClipboard.retain(holder.getClipboard());
     }
 
     public ClipboardBrush(ClipboardHolder holder, boolean ignoreAirBlocks, boolean usingOrigin, boolean pasteEntities,
@@ -56,6 +59,29 @@ public ClipboardBrush(ClipboardHolder holder, boolean ignoreAirBlocks, boolean u
         this.pasteEntities = pasteEntities;
         this.pasteBiomes = pasteBiomes;
         this.sourceMask = sourceMask;
+        MappedClipboard.retain(holder.getClipboard());
+    }
+
+    /**
+     * Get the clipboard holder this brush pastes.
+     *
+     * @return the clipboard holder
+     */
+    public ClipboardHolder getHolder() {
+        return holder;
+    }
+
+    /**
+     * Stop using the clipboard, so that a clipboard backed by a file can be
+     * deleted once nothing else uses it.
+     *
+     * <p>The brush can no longer be used afterwards.</p>
+     */
+    public synchronized void release() {
+        if (!released) {
+            released = true;
+            MappedClipboard.release(holder.getClipboard());
+        }
     }
 
     @Override
@@ -26,7 +26,10 @@
 import com.sk89q.worldedit.extension.factory.parser.pattern.RandomStatePatternParser;
 import com.sk89q.worldedit.extension.factory.parser.pattern.SingleBlockPatternParser;
 import com.sk89q.worldedit.extension.factory.parser.pattern.TypeOrStateApplyingPatternParser;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.extension.input.ParserContext;
 import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.PatternOptimizer;
 import com.sk89q.worldedit.internal.registry.AbstractFactory;
 
 /**
@@ -56,4 +59,9 @@ public PatternFactory(WorldEdit worldEdit) {
         register(new BlockCategoryPatternParser(worldEdit));
     }
 
+    @Override
+    public Pattern parseFromInput(String input, ParserContext context) throws InputParseException {
+        return PatternOptimizer.optimize(super.parseFromInput(input, context));
+    }
+
 }
@@ -57,6 +57,7 @@ public Mask parseFromInput(String input, ParserContext context) throws InputPars
 
         try {
             Expression exp = Expression.compile(input.substring(1), "x", "y", "z");
+            exp.optimize();
             WorldEditExpressionEnvironment env = new WorldEditExpressionEnvironment(
                     new RequestExtent(), Vector3.ONE, Vector3.ZERO);
             exp.setEnvironment(env);
@@ -19,6 +19,8 @@
 
 package com.sk89q.worldedit.extension.platform;
 
+import com.sk89q.worldedit.WorldEdit;
+
 /**
  * A collection of capabilities that a {@link Platform} may support.
  */
@@ -73,7 +75,17 @@ void unload(PlatformManager platformManager, Platform platform) {
     /**
      * The capability of a platform to perform modifications to a world.
      */
-    WORLD_EDITING;
+    WORLD_EDITING {
+        @Override
+        void initialize(PlatformManager platformManager, Platform platform) {
+            WorldEdit.getInstance().getOperationScheduler().start(platform);
+        }
+
+        @Override
+        void unload(PlatformManager platformManager, Platform platform) {
+            WorldEdit.getInstance().getOperationScheduler().stop();
+        }
+    };
 
     void initialize(PlatformManager platformManager, Platform platform) {
 
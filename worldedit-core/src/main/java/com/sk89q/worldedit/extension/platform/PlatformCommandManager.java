@@ -22,6 +22,8 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.IncompleteRegionException;
 import com.sk89q.worldedit.LocalConfiguration;
@@ -87,6 +89,8 @@
 import com.sk89q.worldedit.event.platform.CommandEvent;
 import com.sk89q.worldedit.event.platform.CommandSuggestionEvent;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.cache.ChunkSectionCache;
+import com.sk89q.worldedit.extent.world.SectionWriteExtent;
 import com.sk89q.worldedit.internal.annotation.Selection;
 import com.sk89q.worldedit.internal.command.CommandArgParser;
 import com.sk89q.worldedit.internal.command.CommandLoggingHandler;
@@ -130,6 +134,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
@@ -460,6 +465,9 @@ public void handleCommand(CommandEvent event) {
 
         MemoizingValueAccess context = initializeInjectedValues(event::getArguments, actor);
 
+        // Commands see the results of their session's edits still being spread over ticks
+        worldEdit.getOperationScheduler().completePending(session);
+
         long start = System.currentTimeMillis();
 
         try {
@@ -514,22 +522,43 @@ public void handleCommand(CommandEvent event) {
             if (editSessionOpt.isPresent()) {
                 EditSession editSession = editSessionOpt.get();
                 session.remember(editSession);
-                editSession.flushSession();
-
-                if (config.profile) {
-                    long time = System.currentTimeMillis() - start;
-                    int changed = editSession.getBlockChangeCount();
-                    if (time > 0) {
-                        double throughput = changed / (time / 1000.0);
-                        actor.printDebug((time / 1000.0) + "s elapsed (history: "
-                                + changed + " changed; "
-                                + Math.round(throughput) + " blocks/sec).");
-                    } else {
-                        actor.printDebug((time / 1000.0) + "s elapsed.");
+                ListenableFuture<Void> flush = editSession.flushSessionLater();
+                flush.addListener(() -> {
+                    try {
+                        flush.get();
+                    } catch (ExecutionException e) {
+                        handleUnknownException(actor, e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    if (config.profile) {
+                        long time = System.currentTimeMillis() - start;
+                        int changed = editSession.getBlockChangeCount();
+                        if (time > 0) {
+                            double throughput = changed / (time / 1000.0);
+                            actor.printDebug((time / 1000.0) + "s elapsed (history: "
+                                    + changed + " changed; "
+                                    + Math.round(throughput) + " blocks/sec).");
+                        } else {
+                            actor.printDebug((time / 1000.0) + "s elapsed.");
+                        }
+                        ChunkSectionCache cache = editSession.getBlockCache();
+                        if (cache != null && cache.getHits() + cache.getMisses() > 0) {
+                            actor.printDebug("Block cache: " + cache.getHits() + " hits, "
+                                    + cache.getMisses() + " misses.");
+                        }
+                        SectionWriteExtent sectionWrites = editSession.getSectionWriteExtent();
+                        if (sectionWrites != null && sectionWrites.getAppliedSections() > 0) {
+                            long nanos = sectionWrites.getApplyNanos();
+                            actor.printDebug(String.format("Section writes: %d blocks in %d sections (%.0f blocks/ms).",
+                                    sectionWrites.getAppliedBlocks(), sectionWrites.getAppliedSections(),
+                                    nanos > 0 ? sectionWrites.getAppliedBlocks() / (nanos / 1000000.0) : 0.0));
+                        }
                     }
-                }
 
-                worldEdit.flushBlockBag(actor, editSession);
+                    worldEdit.flushBlockBag(actor, editSession);
+                }, MoreExecutors.directExecutor());
             }
             Request.reset();
         }
@@ -35,6 +35,7 @@
 import com.sk89q.worldedit.event.platform.PlatformReadyEvent;
 import com.sk89q.worldedit.event.platform.PlayerInputEvent;
 import com.sk89q.worldedit.extension.platform.permission.ActorSelectorLimits;
+import com.sk89q.worldedit.internal.block.BlockStatePalette;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.regions.RegionSelector;
@@ -295,6 +296,7 @@ public LocalConfiguration getConfiguration() {
 
     @Subscribe
     public void handlePlatformReady(PlatformReadyEvent event) {
+        BlockStatePalette.clearParsedStates();
         choosePreferred();
         if (initialized.compareAndSet(false, true)) {
             worldEdit.getEventBus().post(new PlatformInitializeEvent());
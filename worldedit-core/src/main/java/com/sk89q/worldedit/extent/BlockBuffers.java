@@ -0,0 +1,111 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.math.BlockVector3;
+
+/**
+ * Helpers for the block state id buffers used by
+ * {@link InputExtent#getBlocks}.
+ *
+ * <p>A buffer holds one id per block of a box, ordered by Y, then Z, then X,
+ * so the X coordinate varies fastest. This matches the order of chunk
+ * sections and Sponge schematics.</p>
+ */
+public final class BlockBuffers {
+
+    /**
+     * The size of a chunk section along each axis.
+     */
+    public static final int SECTION_SIZE = 16;
+
+    /**
+     * The number of blocks in a chunk section.
+     */
+    public static final int SECTION_VOLUME = SECTION_SIZE * SECTION_SIZE * SECTION_SIZE;
+
+    private BlockBuffers() {
+    }
+
+    /**
+     * Check that the given box is valid and the buffer can hold it.
+     *
+     * @param min the minimum point of the box
+     * @param max the maximum point of the box
+     * @param buffer the buffer
+     * @return the number of blocks in the box
+     */
+    public static int checkBuffer(BlockVector3 min, BlockVector3 max, int[] buffer) {
+        checkNotNull(min);
+        checkNotNull(max);
+        checkNotNull(buffer);
+        checkArgument(min.getX() <= max.getX() && min.getY() <= max.getY() && min.getZ() <= max.getZ(),
+                "The minimum point %s is above the maximum point %s", min, max);
+        long volume = (long) (max.getX() - min.getX() + 1)
+                * (max.getY() - min.getY() + 1)
+                * (max.getZ() - min.getZ() + 1);
+        checkArgument(volume <= buffer.length, "A buffer of %s blocks cannot hold %s blocks", buffer.length, volume);
+        return (int) volume;
+    }
+
+    /**
+     * Get the index of a block within the buffer for a box.
+     *
+     * @param min the minimum point of the box
+     * @param max the maximum point of the box
+     * @param x the X coordinate of the block
+     * @param y the Y coordinate of the block
+     * @param z the Z coordinate of the block
+     * @return the index
+     */
+    public static int index(BlockVector3 min, BlockVector3 max, int x, int y, int z) {
+        int width = max.getX() - min.getX() + 1;
+        int length = max.getZ() - min.getZ() + 1;
+        return ((y - min.getY()) * length + (z - min.getZ())) * width + (x - min.getX());
+    }
+
+    /**
+     * Get the minimum point of a chunk section.
+     *
+     * @param sectionX the section X coordinate
+     * @param sectionY the section Y coordinate
+     * @param sectionZ the section Z coordinate
+     * @return the minimum point
+     */
+    public static BlockVector3 getSectionMinimum(int sectionX, int sectionY, int sectionZ) {
+        return BlockVector3.at(sectionX << 4, sectionY << 4, sectionZ << 4);
+    }
+
+    /**
+     * Get the maximum point of a chunk section.
+     *
+     * @param sectionX the section X coordinate
+     * @param sectionY the section Y coordinate
+     * @param sectionZ the section Z coordinate
+     * @return the maximum point
+     */
+    public static BlockVector3 getSectionMaximum(int sectionX, int sectionY, int sectionZ) {
+        return BlockVector3.at((sectionX << 4) + 15, (sectionY << 4) + 15, (sectionZ << 4) + 15);
+    }
+
+}
@@ -20,12 +20,15 @@
 package com.sk89q.worldedit.extent;
 
 import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 
+import java.util.Map;
+
 /**
  * Provides the current state of blocks, entities, and so on.
  */
@@ -66,4 +69,71 @@ public interface InputExtent {
      */
     BiomeType getBiome(BlockVector2 position);
 
+    /**
+     * Read the block states in a box into a buffer of state ids.
+     *
+     * <p>The buffer is filled in the order described by {@link BlockBuffers},
+     * with ids assigned by the given mapper. Tile entity data is not
+     * included, so {@link #getFullBlock(BlockVector3)} must still be used
+     * where it matters.</p>
+     *
+     * <p>The default implementation calls {@link #getBlock(BlockVector3)}
+     * for every block. Extents that can read many blocks at once should
+     * override it.</p>
+     *
+     * @param min the minimum point of the box
+     * @param max the maximum point of the box
+     * @param buffer the buffer, which must hold at least the volume of the box
+     * @param ids the mapper for state ids
+     */
+    default void getBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids) {
+        BlockBuffers.checkBuffer(min, max, buffer);
+        int index = 0;
+        for (int y = min.getY(); y <= max.getY(); y++) {
+            for (int z = min.getZ(); z <= max.getZ(); z++) {
+                for (int x = min.getX(); x <= max.getX(); x++) {
+                    buffer[index++] = ids.getId(getBlock(BlockVector3.at(x, y, z)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the blocks in a box into a buffer of state ids, and collect the
+     * blocks that have tile entity data.
+     *
+     * <p>The buffer is filled as by
+     * {@link #getBlocks(BlockVector3, BlockVector3, int[], BlockStateIdMapper)}.
+     * Every block in the box that has tile entity data is also put into the
+     * given map, so together they give the same blocks as
+     * {@link #getFullBlock(BlockVector3)}.</p>
+     *
+     * <p>The default implementation calls {@link #getFullBlock(BlockVector3)}
+     * for every block. Extents that can read many blocks at once should
+     * override it.</p>
+     *
+     * @param min the minimum point of the box
+     * @param max the maximum point of the box
+     * @param buffer the buffer, which must hold at least the volume of the box
+     * @param ids the mapper for state ids
+     * @param fullBlocks the map to put blocks with tile entity data into
+     */
+    default void getFullBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids,
+                               Map<BlockVector3, BaseBlock> fullBlocks) {
+        BlockBuffers.checkBuffer(min, max, buffer);
+        int index = 0;
+        for (int y = min.getY(); y <= max.getY(); y++) {
+            for (int z = min.getZ(); z <= max.getZ(); z++) {
+                for (int x = min.getX(); x <= max.getX(); x++) {
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    BaseBlock block = getFullBlock(position);
+                    buffer[index++] = ids.getId(block.toImmutableState());
+                    if (block.hasNbtData()) {
+                        fullBlocks.put(position, block);
+                    }
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,150 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the blocks of a box from the underlying extent several rows at a
+ * time through
+ * {@link Extent#getFullBlocks(BlockVector3, BlockVector3, int[], BlockStateIdMapper, Map)}.
+ *
+ * <p>Rows run along the X axis of the box, and a read covers as many rows
+ * of the same Y level as fit into the buffer, so blocks visited in the
+ * order of {@link Region#spans()} are read once per buffer rather than once
+ * per block. Blocks outside the box are read from the underlying extent
+ * directly.</p>
+ *
+ * <p>Blocks are not read again until the reads move past the buffered rows,
+ * so changes made to the underlying extent by other means are not seen in
+ * the meantime. Changes made through this extent drop the buffered rows.</p>
+ */
+public class BulkReadExtent extends AbstractDelegateExtent {
+
+    /**
+     * The number of blocks read at a time, unless a single row is longer.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    private final BlockVector3 min;
+    private final BlockVector3 max;
+    private final int width;
+    private final int rows;
+    private final int[] buffer;
+    private final BlockStateIdMapper ids = new BlockStateIdMapper();
+    private final Map<BlockVector3, BaseBlock> fullBlocks = new HashMap<>();
+    private int bufferY;
+    private int bufferMinZ = 1;
+    private int bufferMaxZ = 0;
+
+    /**
+     * Create a new instance that reads the bounding box of the given region.
+     *
+     * @param extent the extent
+     * @param region the region
+     */
+    public BulkReadExtent(Extent extent, Region region) {
+        this(extent, region.getMinimumPoint(), region.getMaximumPoint());
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent
+     * @param min the minimum point of the box
+     * @param max the maximum point of the box
+     */
+    public BulkReadExtent(Extent extent, BlockVector3 min, BlockVector3 max) {
+        super(extent);
+        checkNotNull(min);
+        checkNotNull(max);
+        this.min = min;
+        this.max = max;
+        this.width = max.getX() - min.getX() + 1;
+        this.rows = Math.max(1, Math.min(max.getZ() - min.getZ() + 1, BUFFER_SIZE / width));
+        this.buffer = new int[rows * width];
+    }
+
+    /**
+     * Make sure the given block is buffered.
+     *
+     * @return the index of the block in the buffer, or -1 if it is outside the box
+     */
+    private int load(BlockVector3 position) {
+        int x = position.getX();
+        int y = position.getY();
+        int z = position.getZ();
+        if (x < min.getX() || x > max.getX() || y < min.getY() || y > max.getY() || z < min.getZ() || z > max.getZ()) {
+            return -1;
+        }
+        if (y != bufferY || z < bufferMinZ || z > bufferMaxZ) {
+            bufferY = y;
+            bufferMinZ = z;
+            bufferMaxZ = Math.min(max.getZ(), z + rows - 1);
+            fullBlocks.clear();
+            getExtent().getFullBlocks(BlockVector3.at(min.getX(), y, bufferMinZ), BlockVector3.at(max.getX(), y, bufferMaxZ),
+                    buffer, ids, fullBlocks);
+        }
+        return (z - bufferMinZ) * width + (x - min.getX());
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        int index = load(position);
+        if (index < 0) {
+            return super.getBlock(position);
+        }
+        return ids.getState(buffer[index]);
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        int index = load(position);
+        if (index < 0) {
+            return super.getFullBlock(position);
+        }
+        BaseBlock block = fullBlocks.get(position);
+        return block != null ? block : ids.getState(buffer[index]).toBaseBlock();
+    }
+
+    @Override
+    public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+        if (location.getY() == bufferY && location.getZ() >= bufferMinZ && location.getZ() <= bufferMaxZ) {
+            bufferMinZ = 1;
+            bufferMaxZ = 0;
+        }
+        return super.setBlock(location, block);
+    }
+
+}
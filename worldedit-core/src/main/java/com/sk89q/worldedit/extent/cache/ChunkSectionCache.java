@@ -0,0 +1,220 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.BlockBuffers;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the block states returned by {@link #getBlock(BlockVector3)},
+ * grouped into recently used 16 by 16 by 16 chunk sections.
+ *
+ * <p>Sections are stored as arrays of state ids and are filled one block
+ * at a time as blocks are read, so a single read never costs more than one
+ * call to the underlying extent. A section is only stored once a second
+ * block of it is read, so scattered single reads do not allocate. The least
+ * recently used section is evicted once the configured number of sections
+ * is exceeded. Blocks changed through this extent are forgotten and read
+ * again on the next access.</p>
+ *
+ * <p>Blocks changed by other means are not seen until the cache is
+ * {@linkplain #clear() cleared}, which the {@link OperationScheduler} does
+ * whenever it resumes an operation on a later tick.</p>
+ *
+ * <p>Full blocks are not cached, as their tile entity data may be mutable.</p>
+ */
+public class ChunkSectionCache extends AbstractDelegateExtent {
+
+    /**
+     * The default maximum number of cached sections, which is about
+     * one megabyte of state ids.
+     */
+    public static final int DEFAULT_MAX_SECTIONS = 64;
+
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private final BlockStateIdMapper ids = new BlockStateIdMapper();
+    private final Map<Long, int[]> sections;
+    private long lastKey;
+    private int[] lastSection;
+    private long readOnceKey;
+    private boolean readOnce;
+    private long hits;
+    private long misses;
+
+    /**
+     * Create a new instance that caches up to
+     * {@link #DEFAULT_MAX_SECTIONS} sections.
+     *
+     * @param extent the extent
+     */
+    public ChunkSectionCache(Extent extent) {
+        this(extent, DEFAULT_MAX_SECTIONS);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent
+     * @param maxSections the maximum number of sections to cache
+     */
+    public ChunkSectionCache(Extent extent, int maxSections) {
+        super(extent);
+        checkArgument(maxSections > 0, "maxSections > 0 required");
+        this.sections = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                if (size() > maxSections) {
+                    if (eldest.getValue() == lastSection) {
+                        lastSection = null;
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static long key(int sectionX, int sectionY, int sectionZ) {
+        return ((long) sectionX & 0x3FFFFFF) << 38 | ((long) sectionZ & 0x3FFFFFF) << 12 | (sectionY & 0xFFF);
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+
+    /**
+     * Get the cached section containing the given block.
+     *
+     * @param create whether to create the section if it is not cached
+     *     and has been read before
+     * @return the section, or null if it is not cached and not created
+     */
+    private int[] getSection(int x, int y, int z, boolean create) {
+        long key = key(x >> 4, y >> 4, z >> 4);
+        if (lastSection != null && lastKey == key) {
+            return lastSection;
+        }
+        int[] section = sections.get(key);
+        if (section == null) {
+            if (!create) {
+                return null;
+            }
+            if (!readOnce || readOnceKey != key) {
+                readOnce = true;
+                readOnceKey = key;
+                return null;
+            }
+            readOnce = false;
+            section = new int[BlockBuffers.SECTION_VOLUME];
+            Arrays.fill(section, UNKNOWN);
+            sections.put(key, section);
+        }
+        lastKey = key;
+        lastSection = section;
+        return section;
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        int x = position.getX();
+        int y = position.getY();
+        int z = position.getZ();
+        int[] section = getSection(x, y, z, true);
+        if (section == null) {
+            misses++;
+            return super.getBlock(position);
+        }
+        int index = index(x, y, z);
+        int id = section[index];
+        if (id != UNKNOWN) {
+            hits++;
+            return ids.getState(id);
+        }
+        misses++;
+        BlockState block = super.getBlock(position);
+        section[index] = ids.getId(block);
+        return block;
+    }
+
+    @Override
+    public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+        // The extents below may change the block on its way to the world, so read it again later
+        forget(location.getX(), location.getY(), location.getZ());
+        return super.setBlock(location, block);
+    }
+
+    private void forget(int x, int y, int z) {
+        int[] section = getSection(x, y, z, false);
+        if (section != null) {
+            section[index(x, y, z)] = UNKNOWN;
+        }
+    }
+
+    /**
+     * Forget every cached block.
+     */
+    public void clear() {
+        sections.clear();
+        lastSection = null;
+        readOnce = false;
+    }
+
+    /**
+     * Get the number of sections currently cached.
+     *
+     * @return the number of sections
+     */
+    public int getSectionCount() {
+        return sections.size();
+    }
+
+    /**
+     * Get the number of reads that were answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of reads that had to go to the underlying extent.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+}
@@ -24,9 +24,12 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.BlockBuffers;
 import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.biome.BiomeType;
@@ -39,6 +42,7 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -161,6 +165,52 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
         }
     }
 
+    @Override
+    public void getBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids) {
+        readBlocks(min, max, buffer, ids, null);
+    }
+
+    @Override
+    public void getFullBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids,
+                              Map<BlockVector3, BaseBlock> fullBlocks) {
+        checkNotNull(fullBlocks);
+        readBlocks(min, max, buffer, ids, fullBlocks);
+    }
+
+    private void readBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids,
+                            @Nullable Map<BlockVector3, BaseBlock> fullBlocks) {
+        BlockBuffers.checkBuffer(min, max, buffer);
+        BlockVector3 origin = region.getMinimumPoint();
+        BlockVector3 limit = region.getMaximumPoint();
+        boolean cuboid = region instanceof CuboidRegion;
+        int air = ids.getId(BlockTypes.AIR.getDefaultState());
+        int index = 0;
+        for (int y = min.getY(); y <= max.getY(); y++) {
+            for (int z = min.getZ(); z <= max.getZ(); z++) {
+                for (int x = min.getX(); x <= max.getX(); x++) {
+                    BaseBlock block = null;
+                    if (cuboid ? inBounds(origin, limit, x, y, z) : region.contains(BlockVector3.at(x, y, z))) {
+                        block = blocks[x - origin.getX()][y - origin.getY()][z - origin.getZ()];
+                    }
+                    if (block == null) {
+                        buffer[index++] = air;
+                        continue;
+                    }
+                    buffer[index++] = ids.getId(block.toImmutableState());
+                    if (fullBlocks != null && block.hasNbtData()) {
+                        fullBlocks.put(BlockVector3.at(x, y, z), block);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean inBounds(BlockVector3 min, BlockVector3 max, int x, int y, int z) {
+        return x >= min.getX() && x <= max.getX()
+                && y >= min.getY() && y <= max.getY()
+                && z >= min.getZ() && z <= max.getZ();
+    }
+
     @Override
     public boolean hasBiomes() {
         return biomes != null;
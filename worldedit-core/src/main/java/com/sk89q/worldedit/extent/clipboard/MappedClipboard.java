@@ -0,0 +1,384 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores block state ids in a memory-mapped temporary file, so that the
+ * blocks of very large clipboards are kept off the heap.
+ *
+ * <p>Block entity NBT, biomes and entities are still kept on the heap.
+ * The file is deleted once every user has {@link #close() closed} the
+ * clipboard, or when the JVM exits otherwise.</p>
+ */
+public class MappedClipboard implements Clipboard, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedClipboard.class);
+
+    /**
+     * Each mapping holds 2^26 ids (256 MiB), well below the 2 GiB limit
+     * of a single mapped buffer.
+     */
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final Region region;
+    private BlockVector3 origin;
+    private final BlockVector3 minimumPoint;
+    private final int width;
+    private final int length;
+    private final File file;
+    private final RandomAccessFile raf;
+    private IntBuffer[] segments;
+    private int references = 1;
+    private final BlockStateIdMapper ids = new BlockStateIdMapper();
+    private final int airId;
+    private final Map<Long, CompoundTag> tiles = new HashMap<>();
+    private BiomeType[][] biomes = null;
+    private final List<ClipboardEntity> entities = new ArrayList<>();
+
+    /**
+     * Create a new instance.
+     *
+     * <p>The origin will be placed at the region's lowest minimum point.</p>
+     *
+     * @param region the bounding region
+     * @param directory the directory to create the backing file in
+     * @throws IOException thrown if the backing file cannot be created
+     */
+    public MappedClipboard(Region region, File directory) throws IOException {
+        checkNotNull(region);
+        checkNotNull(directory);
+        this.region = region.clone();
+        this.origin = region.getMinimumPoint();
+        this.minimumPoint = region.getMinimumPoint();
+
+        BlockVector3 dimensions = getDimensions();
+        width = dimensions.getBlockX();
+        length = dimensions.getBlockZ();
+        long volume = (long) width * dimensions.getBlockY() * length;
+        airId = ids.getId(BlockTypes.AIR.getDefaultState());
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create clipboard directory " + directory);
+        }
+        file = File.createTempFile("clipboard-", ".dat", directory);
+        file.deleteOnExit();
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(volume * 4);
+            FileChannel channel = raf.getChannel();
+            segments = new IntBuffer[(int) ((volume + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                long size = Math.min(SEGMENT_MASK + 1, volume - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start * 4, size * 4).asIntBuffer();
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the size of the backing file, in bytes.
+     *
+     * @return the size of the backing file
+     */
+    public long getFileSize() {
+        return file.length();
+    }
+
+    @Override
+    public Region getRegion() {
+        return region;
+    }
+
+    @Override
+    public BlockVector3 getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void setOrigin(BlockVector3 origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public BlockVector3 getDimensions() {
+        return region.getMaximumPoint().subtract(region.getMinimumPoint()).add(1, 1, 1);
+    }
+
+    @Override
+    public BlockVector3 getMinimumPoint() {
+        return region.getMinimumPoint();
+    }
+
+    @Override
+    public BlockVector3 getMaximumPoint() {
+        return region.getMaximumPoint();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        List<Entity> filtered = new ArrayList<>();
+        for (Entity entity : entities) {
+            if (region.contains(entity.getLocation().toVector().toBlockPoint())) {
+                filtered.add(entity);
+            }
+        }
+        return Collections.unmodifiableList(filtered);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        ClipboardEntity ret = new ClipboardEntity(location, entity);
+        entities.add(ret);
+        return ret;
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        if (region.contains(position)) {
+            return ids.getState(read(getIndex(position)));
+        }
+
+        return BlockTypes.AIR.getDefaultState();
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        if (region.contains(position)) {
+            long index = getIndex(position);
+            BlockState state = ids.getState(read(index));
+            CompoundTag tag = tiles.isEmpty() ? null : tiles.get(index);
+            return tag != null ? state.toBaseBlock(tag) : state.toBaseBlock();
+        }
+
+        return BlockTypes.AIR.getDefaultState().toBaseBlock();
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block) throws WorldEditException {
+        if (!region.contains(position)) {
+            return false;
+        }
+
+        long index = getIndex(position);
+        write(index, ids.getId(block.toImmutableState()));
+
+        CompoundTag tag = block instanceof BaseBlock ? ((BaseBlock) block).getNbtData() : null;
+        if (tag != null) {
+            tiles.put(index, tag);
+        } else if (!tiles.isEmpty()) {
+            tiles.remove(index);
+        }
+        return true;
+    }
+
+    private long getIndex(BlockVector3 position) {
+        int x = position.getBlockX() - minimumPoint.getBlockX();
+        int y = position.getBlockY() - minimumPoint.getBlockY();
+        int z = position.getBlockZ() - minimumPoint.getBlockZ();
+        return ((long) y * length + z) * width + x;
+    }
+
+    /*
+     * Ids are stored XOR'd with the id of air, so that the zero-filled
+     * file starts out as air whatever id the platform gives it.
+     */
+
+    private int read(long index) {
+        checkState(segments != null, "Clipboard has been closed");
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK)) ^ airId;
+    }
+
+    private void write(long index, int id) {
+        checkState(segments != null, "Clipboard has been closed");
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), id ^ airId);
+    }
+
+    @Override
+    public boolean hasBiomes() {
+        return biomes != null;
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector2 position) {
+        if (biomes != null
+                && position.containedWithin(getMinimumPoint().toBlockVector2(), getMaximumPoint().toBlockVector2())) {
+            BlockVector2 v = position.subtract(region.getMinimumPoint().toBlockVector2());
+            BiomeType biomeType = biomes[v.getBlockX()][v.getBlockZ()];
+            if (biomeType != null) {
+                return biomeType;
+            }
+        }
+
+        return BiomeTypes.OCEAN;
+    }
+
+    @Override
+    public boolean setBiome(BlockVector2 position, BiomeType biome) {
+        if (position.containedWithin(getMinimumPoint().toBlockVector2(), getMaximumPoint().toBlockVector2())) {
+            BlockVector2 v = position.subtract(region.getMinimumPoint().toBlockVector2());
+            if (biomes == null) {
+                biomes = new BiomeType[region.getWidth()][region.getLength()];
+            }
+            biomes[v.getBlockX()][v.getBlockZ()] = biome;
+            return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public Operation commit() {
+        return null;
+    }
+
+    /**
+     * Register another user of this clipboard, which must call
+     * {@link #close()} once it no longer reads the clipboard.
+     *
+     * <p>The creator of the clipboard is its first user.</p>
+     *
+     * @return this clipboard
+     * @throws IllegalStateException if the clipboard has been closed
+     */
+    public synchronized MappedClipboard retain() {
+        checkState(references > 0, "Clipboard has been closed");
+        references++;
+        return this;
+    }
+
+    /**
+     * Release one user of this clipboard. Once the last user has
+     * released it, the mapping is released and the backing file deleted.
+     *
+     * <p>The clipboard can no longer be read from or written to
+     * afterwards.</p>
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (references == 0 || --references > 0) {
+                return;
+            }
+        }
+        segments = null;
+        tiles.clear();
+        try {
+            raf.close();
+        } catch (IOException e) {
+            log.warn("Failed to close clipboard file " + file, e);
+        }
+        // The mapping is only released once collected, so this may fail on
+        // some platforms, in which case the file is removed on exit instead
+        if (!file.delete()) {
+            log.debug("Could not delete clipboard file " + file + " yet");
+        }
+    }
+
+    /**
+     * Register another user of the given clipboard if it is backed by a
+     * file, so that it is kept until {@link #release(Clipboard)} is called.
+     *
+     * @param clipboard the clipboard
+     * @throws IllegalStateException if the clipboard has been closed
+     */
+    public static void retain(Clipboard clipboard) {
+        if (clipboard instanceof MappedClipboard) {
+            ((MappedClipboard) clipboard).retain();
+        }
+    }
+
+    /**
+     * Release one user of the given clipboard if it is backed by a file.
+     *
+     * @param clipboard the clipboard, or null
+     */
+    public static void release(@Nullable Clipboard clipboard) {
+        if (clipboard instanceof MappedClipboard) {
+            ((MappedClipboard) clipboard).close();
+        }
+    }
+
+    /**
+     * Stores entity data.
+     */
+    private class ClipboardEntity extends StoredEntity {
+        ClipboardEntity(Location location, BaseEntity entity) {
+            super(location, entity);
+        }
+
+        @Override
+        public boolean remove() {
+            return entities.remove(this);
+        }
+
+        @Nullable
+        @Override
+        public <T> T getFacet(Class<? extends T> cls) {
+            return null;
+        }
+    }
+
+}
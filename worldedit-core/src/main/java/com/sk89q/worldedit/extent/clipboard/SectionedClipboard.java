@@ -0,0 +1,477 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores block data in 16x16x16 sections, each with a local palette and
+ * bit-packed palette indices, and other data as lists or maps.
+ *
+ * <p>Sections are only allocated once a block other than air is stored in
+ * them, and a section holding a single state does not store any indices.
+ * Block entity NBT is kept in a sparse map beside the sections.</p>
+ */
+public class SectionedClipboard implements Clipboard {
+
+    private static final int SECTION_SHIFT = 4;
+    private static final int SECTION_SIZE = 1 << SECTION_SHIFT;
+    private static final int SECTION_MASK = SECTION_SIZE - 1;
+    private static final int SECTION_VOLUME = SECTION_SIZE * SECTION_SIZE * SECTION_SIZE;
+    private static final int MIN_BITS = 4;
+
+    private final Region region;
+    private BlockVector3 origin;
+    private final BlockVector3 minimumPoint;
+    private final int width;
+    private final int height;
+    private final int length;
+    private final int sectionsX;
+    private final int sectionsZ;
+    private final Section[] sections;
+    private final BlockStateIdMapper ids = new BlockStateIdMapper();
+    private final int airId;
+    private final Map<Long, CompoundTag> tiles = new HashMap<>();
+    private BiomeType[][] biomes = null;
+    private final List<ClipboardEntity> entities = new ArrayList<>();
+
+    /**
+     * Create a new instance.
+     *
+     * <p>The origin will be placed at the region's lowest minimum point.</p>
+     *
+     * @param region the bounding region
+     */
+    public SectionedClipboard(Region region) {
+        checkNotNull(region);
+        this.region = region.clone();
+        this.origin = region.getMinimumPoint();
+        this.minimumPoint = region.getMinimumPoint();
+
+        BlockVector3 dimensions = getDimensions();
+        width = dimensions.getBlockX();
+        height = dimensions.getBlockY();
+        length = dimensions.getBlockZ();
+        sectionsX = (width + SECTION_MASK) >> SECTION_SHIFT;
+        sectionsZ = (length + SECTION_MASK) >> SECTION_SHIFT;
+        int sectionsY = (height + SECTION_MASK) >> SECTION_SHIFT;
+        sections = new Section[sectionsX * sectionsY * sectionsZ];
+        airId = ids.getId(BlockTypes.AIR.getDefaultState());
+    }
+
+    @Override
+    public Region getRegion() {
+        return region;
+    }
+
+    @Override
+    public BlockVector3 getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void setOrigin(BlockVector3 origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public BlockVector3 getDimensions() {
+        return region.getMaximumPoint().subtract(region.getMinimumPoint()).add(1, 1, 1);
+    }
+
+    @Override
+    public BlockVector3 getMinimumPoint() {
+        return region.getMinimumPoint();
+    }
+
+    @Override
+    public BlockVector3 getMaximumPoint() {
+        return region.getMaximumPoint();
+    }
+
+    /**
+     * Get an estimate of the memory used to store the blocks of this
+     * clipboard, in bytes.
+     *
+     * <p>Entities, biomes and the contents of block entity NBT are not
+     * included.</p>
+     *
+     * @return the estimated memory usage
+     */
+    public long getMemoryUsage() {
+        long usage = sections.length * 4L;
+        for (Section section : sections) {
+            if (section != null) {
+                usage += section.getMemoryUsage();
+            }
+        }
+        return usage + tiles.size() * 48L;
+    }
+
+    /**
+     * Get the number of sections that have been allocated.
+     *
+     * @return the number of allocated sections
+     */
+    public int getAllocatedSectionCount() {
+        int count = 0;
+        for (Section section : sections) {
+            if (section != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Release the indices of sections that turned out to hold a single
+     * state, and drop sections that only hold air.
+     *
+     * <p>This is worth calling once the clipboard has been filled.</p>
+     */
+    public void trim() {
+        for (int i = 0; i < sections.length; i++) {
+            Section section = sections[i];
+            if (section != null && section.trim() && section.get(0) == airId) {
+                sections[i] = null;
+            }
+        }
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        List<Entity> filtered = new ArrayList<>();
+        for (Entity entity : entities) {
+            if (region.contains(entity.getLocation().toVector().toBlockPoint())) {
+                filtered.add(entity);
+            }
+        }
+        return Collections.unmodifiableList(filtered);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        ClipboardEntity ret = new ClipboardEntity(location, entity);
+        entities.add(ret);
+        return ret;
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        if (region.contains(position)) {
+            int x = position.getBlockX() - minimumPoint.getBlockX();
+            int y = position.getBlockY() - minimumPoint.getBlockY();
+            int z = position.getBlockZ() - minimumPoint.getBlockZ();
+            Section section = sections[getSectionIndex(x, y, z)];
+            if (section != null) {
+                return ids.getState(section.get(getIndexInSection(x, y, z)));
+            }
+        }
+
+        return BlockTypes.AIR.getDefaultState();
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        if (region.contains(position)) {
+            int x = position.getBlockX() - minimumPoint.getBlockX();
+            int y = position.getBlockY() - minimumPoint.getBlockY();
+            int z = position.getBlockZ() - minimumPoint.getBlockZ();
+            Section section = sections[getSectionIndex(x, y, z)];
+            if (section != null) {
+                BlockState state = ids.getState(section.get(getIndexInSection(x, y, z)));
+                CompoundTag tag = tiles.isEmpty() ? null : tiles.get(getTileKey(x, y, z));
+                return tag != null ? state.toBaseBlock(tag) : state.toBaseBlock();
+            }
+        }
+
+        return BlockTypes.AIR.getDefaultState().toBaseBlock();
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block) throws WorldEditException {
+        if (!region.contains(position)) {
+            return false;
+        }
+
+        int x = position.getBlockX() - minimumPoint.getBlockX();
+        int y = position.getBlockY() - minimumPoint.getBlockY();
+        int z = position.getBlockZ() - minimumPoint.getBlockZ();
+        int id = ids.getId(block.toImmutableState());
+        int sectionIndex = getSectionIndex(x, y, z);
+        Section section = sections[sectionIndex];
+        if (section == null) {
+            if (id == airId) {
+                tiles.remove(getTileKey(x, y, z));
+                return true;
+            }
+            section = sections[sectionIndex] = new Section(airId);
+        }
+        section.set(getIndexInSection(x, y, z), id);
+
+        CompoundTag tag = block instanceof BaseBlock ? ((BaseBlock) block).getNbtData() : null;
+        if (tag != null) {
+            tiles.put(getTileKey(x, y, z), tag);
+        } else if (!tiles.isEmpty()) {
+            tiles.remove(getTileKey(x, y, z));
+        }
+        return true;
+    }
+
+    private int getSectionIndex(int x, int y, int z) {
+        return ((y >> SECTION_SHIFT) * sectionsZ + (z >> SECTION_SHIFT)) * sectionsX + (x >> SECTION_SHIFT);
+    }
+
+    private static int getIndexInSection(int x, int y, int z) {
+        return (((y & SECTION_MASK) << SECTION_SHIFT) | (z & SECTION_MASK)) << SECTION_SHIFT | (x & SECTION_MASK);
+    }
+
+    private long getTileKey(int x, int y, int z) {
+        return ((long) y * length + z) * width + x;
+    }
+
+    @Override
+    public boolean hasBiomes() {
+        return biomes != null;
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector2 position) {
+        if (biomes != null
+                && position.containedWithin(getMinimumPoint().toBlockVector2(), getMaximumPoint().toBlockVector2())) {
+            BlockVector2 v = position.subtract(region.getMinimumPoint().toBlockVector2());
+            BiomeType biomeType = biomes[v.getBlockX()][v.getBlockZ()];
+            if (biomeType != null) {
+                return biomeType;
+            }
+        }
+
+        return BiomeTypes.OCEAN;
+    }
+
+    @Override
+    public boolean setBiome(BlockVector2 position, BiomeType biome) {
+        if (position.containedWithin(getMinimumPoint().toBlockVector2(), getMaximumPoint().toBlockVector2())) {
+            BlockVector2 v = position.subtract(region.getMinimumPoint().toBlockVector2());
+            if (biomes == null) {
+                biomes = new BiomeType[region.getWidth()][region.getLength()];
+            }
+            biomes[v.getBlockX()][v.getBlockZ()] = biome;
+            return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public Operation commit() {
+        return null;
+    }
+
+    /**
+     * A 16x16x16 section with a local palette of block state ids.
+     *
+     * <p>Indices into the palette are packed into longs without spanning
+     * two longs. A section with a single palette entry stores no indices
+     * at all.</p>
+     */
+    private static final class Section {
+
+        private int[] palette;
+        private int paletteSize;
+        private int bits;
+        private int entriesPerLong;
+        private long[] data;
+
+        Section(int initialId) {
+            palette = new int[] { initialId };
+            paletteSize = 1;
+        }
+
+        int get(int index) {
+            if (data == null) {
+                return palette[0];
+            }
+            return palette[getPaletteIndex(index)];
+        }
+
+        void set(int index, int id) {
+            int paletteIndex = indexOf(id);
+            if (paletteIndex < 0) {
+                if (data == null) {
+                    resize(MIN_BITS);
+                } else if (paletteSize == 1 << bits) {
+                    compact(index);
+                    if (paletteSize == 1 << bits) {
+                        resize(bits + 1);
+                    }
+                }
+                if (paletteSize == palette.length) {
+                    palette = Arrays.copyOf(palette, Math.min(paletteSize * 2, SECTION_VOLUME));
+                }
+                paletteIndex = paletteSize++;
+                palette[paletteIndex] = id;
+            } else if (data == null) {
+                return;
+            }
+            setPaletteIndex(index, paletteIndex);
+        }
+
+        private int indexOf(int id) {
+            for (int i = 0; i < paletteSize; i++) {
+                if (palette[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Drop palette entries that are no longer referenced.
+         *
+         * <p>The entry at {@code replaced} is about to be overwritten and
+         * does not count as a reference. This keeps the palette below
+         * {@link #SECTION_VOLUME} entries, so it never needs more than
+         * 12 bits or grows past one entry per block.</p>
+         *
+         * @param replaced the index that is about to be set
+         */
+        private void compact(int replaced) {
+            int[] remap = new int[paletteSize];
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                if (i != replaced) {
+                    remap[getPaletteIndex(i)] = 1;
+                }
+            }
+            int used = 0;
+            for (int i = 0; i < paletteSize; i++) {
+                if (remap[i] != 0) {
+                    palette[used] = palette[i];
+                    remap[i] = used++;
+                }
+            }
+            if (used == paletteSize) {
+                return;
+            }
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                setPaletteIndex(i, remap[getPaletteIndex(i)]);
+            }
+            paletteSize = used;
+        }
+
+        private int getPaletteIndex(int index) {
+            long word = data[index / entriesPerLong];
+            return (int) (word >>> ((index % entriesPerLong) * bits)) & ((1 << bits) - 1);
+        }
+
+        private void setPaletteIndex(int index, int paletteIndex) {
+            int wordIndex = index / entriesPerLong;
+            int shift = (index % entriesPerLong) * bits;
+            long mask = ((1L << bits) - 1) << shift;
+            data[wordIndex] = (data[wordIndex] & ~mask) | ((long) paletteIndex << shift);
+        }
+
+        private void resize(int newBits) {
+            int newEntriesPerLong = 64 / newBits;
+            long[] newData = new long[(SECTION_VOLUME + newEntriesPerLong - 1) / newEntriesPerLong];
+            if (data != null) {
+                for (int i = 0; i < SECTION_VOLUME; i++) {
+                    long value = getPaletteIndex(i);
+                    newData[i / newEntriesPerLong] |= value << ((i % newEntriesPerLong) * newBits);
+                }
+            }
+            data = newData;
+            bits = newBits;
+            entriesPerLong = newEntriesPerLong;
+        }
+
+        boolean trim() {
+            if (data != null) {
+                int first = get(0);
+                for (int i = 1; i < SECTION_VOLUME; i++) {
+                    if (get(i) != first) {
+                        return false;
+                    }
+                }
+                palette = new int[] { first };
+                paletteSize = 1;
+                data = null;
+            }
+            return true;
+        }
+
+        long getMemoryUsage() {
+            return 40L + palette.length * 4L + (data != null ? 16L + data.length * 8L : 0);
+        }
+    }
+
+    /**
+     * Stores entity data.
+     */
+    private class ClipboardEntity extends StoredEntity {
+        ClipboardEntity(Location location, BaseEntity entity) {
+            super(location, entity);
+        }
+
+        @Override
+        public boolean remove() {
+            return entities.remove(this);
+        }
+
+        @Nullable
+        @Override
+        public <T> T getFacet(Class<? extends T> cls) {
+            return null;
+        }
+    }
+
+}
@@ -20,21 +20,21 @@
 package com.sk89q.worldedit.extent.clipboard.io;
 
 import com.google.common.collect.ImmutableSet;
-import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTConstants;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
-import com.sk89q.jnbt.NamedTag;
-import com.sk89q.jnbt.Tag;
+import com.sk89q.jnbt.NBTStreamReader;
+import com.sk89q.worldedit.util.io.ParallelGZIPOutputStream;
+import com.sk89q.worldedit.util.io.ReadAheadInputStream;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Map;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * A collection of supported clipboard formats.
@@ -53,7 +53,7 @@ public String getPrimaryFileExtension() {
 
         @Override
         public ClipboardReader getReader(InputStream inputStream) throws IOException {
-            NBTInputStream nbtStream = new NBTInputStream(new GZIPInputStream(inputStream));
+            NBTInputStream nbtStream = new NBTInputStream(new ReadAheadInputStream(new GZIPInputStream(inputStream, BUFFER_SIZE)));
             return new MCEditSchematicReader(nbtStream);
         }
 
@@ -64,22 +64,7 @@ public ClipboardWriter getWriter(OutputStream outputStream) throws IOException {
 
         @Override
         public boolean isFormat(File file) {
-            try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
-                NamedTag rootTag = str.readNamedTag();
-                if (!rootTag.getName().equals("Schematic")) {
-                    return false;
-                }
-                CompoundTag schematicTag = (CompoundTag) rootTag.getTag();
-
-                // Check
-                Map<String, Tag> schematic = schematicTag.getValue();
-                if (!schematic.containsKey("Materials")) {
-                    return false;
-                }
-            } catch (Exception e) {
-                return false;
-            }
-            return true;
+            return detect(file) == this;
         }
     },
     SPONGE_SCHEMATIC("sponge", "schem") {
@@ -91,39 +76,119 @@ public String getPrimaryFileExtension() {
 
         @Override
         public ClipboardReader getReader(InputStream inputStream) throws IOException {
-            NBTInputStream nbtStream = new NBTInputStream(new GZIPInputStream(inputStream));
+            NBTInputStream nbtStream = new NBTInputStream(new ReadAheadInputStream(new GZIPInputStream(inputStream, BUFFER_SIZE)));
             return new SpongeSchematicReader(nbtStream);
         }
 
         @Override
         public ClipboardWriter getWriter(OutputStream outputStream) throws IOException {
-            NBTOutputStream nbtStream = new NBTOutputStream(new GZIPOutputStream(outputStream));
+            NBTOutputStream nbtStream = new NBTOutputStream(new ParallelGZIPOutputStream(outputStream));
             return new SpongeSchematicWriter(nbtStream);
         }
 
         @Override
         public boolean isFormat(File file) {
-            try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
-                NamedTag rootTag = str.readNamedTag();
-                if (!rootTag.getName().equals("Schematic")) {
-                    return false;
-                }
-                CompoundTag schematicTag = (CompoundTag) rootTag.getTag();
+            return detect(file) == this;
+        }
+    };
+
+    /**
+     * The size of the buffer used when decompressing.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The result of the last detection, which every built-in format asks
+     * for in turn when {@link ClipboardFormats#findByFile(File)} is used.
+     */
+    @Nullable
+    private static volatile Detection lastDetection;
+
+    private final ImmutableSet<String> aliases;
 
-                // Check
-                Map<String, Tag> schematic = schematicTag.getValue();
-                if (!schematic.containsKey("Version")) {
-                    return false;
+    /**
+     * Detect which of the built-in formats a file is in.
+     *
+     * <p>The top-level tags are streamed until one turns up that only one
+     * of the formats uses, which for files written by WorldEdit is the
+     * first one, so only a few bytes have to be decompressed. The result
+     * for the last file is kept until its size or modification time
+     * changes.</p>
+     *
+     * @param file the file
+     * @return the format, or null if it is not a built-in format
+     */
+    @Nullable
+    static BuiltInClipboardFormat detect(File file) {
+        File absolute = file.getAbsoluteFile();
+        long lastModified = absolute.lastModified();
+        long size = absolute.length();
+        Detection last = lastDetection;
+        if (last != null && last.file.equals(absolute) && last.lastModified == lastModified && last.size == size) {
+            return last.format;
+        }
+        BuiltInClipboardFormat format = sniff(absolute);
+        lastDetection = new Detection(absolute, lastModified, size, format);
+        return format;
+    }
+
+    @Nullable
+    private static BuiltInClipboardFormat sniff(File file) {
+        try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            NBTStreamReader reader = new NBTStreamReader(str);
+            if (reader.next() != NBTConstants.TYPE_COMPOUND || !reader.getName().equals("Schematic")) {
+                return null;
+            }
+            while (reader.next() != NBTConstants.TYPE_END) {
+                BuiltInClipboardFormat format = identify(reader.getName());
+                if (format != null) {
+                    return format;
                 }
-            } catch (Exception e) {
-                return false;
+                reader.skip();
             }
+        } catch (Exception e) {
+            return null;
+        }
+        return null;
+    }
 
-            return true;
+    /**
+     * Get the format that a top-level schematic tag belongs to.
+     *
+     * @param name the name of the tag
+     * @return the only format using the tag, or null if it is shared or unknown
+     */
+    @Nullable
+    static BuiltInClipboardFormat identify(String name) {
+        switch (name) {
+            case "Materials":
+            case "Blocks":
+            case "AddBlocks":
+                return MCEDIT_SCHEMATIC;
+            case "Version":
+            case "PaletteMax":
+            case "Palette":
+            case "BlockData":
+                return SPONGE_SCHEMATIC;
+            default:
+                return null;
         }
-    };
+    }
 
-    private final ImmutableSet<String> aliases;
+    private static final class Detection {
+        private final File file;
+        private final long lastModified;
+        private final long size;
+        @Nullable
+        private final BuiltInClipboardFormat format;
+
+        private Detection(File file, long lastModified, long size, @Nullable BuiltInClipboardFormat format) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.format = format;
+        }
+    }
 
     BuiltInClipboardFormat(String... aliases) {
         this.aliases = ImmutableSet.copyOf(aliases);
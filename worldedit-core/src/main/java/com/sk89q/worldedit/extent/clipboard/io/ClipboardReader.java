@@ -20,9 +20,11 @@
 package com.sk89q.worldedit.extent.clipboard.io;
 
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.regions.Region;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.function.Function;
 
 /**
  * Reads {@code Clipboard}s.
@@ -39,4 +41,19 @@ public interface ClipboardReader extends Closeable {
      */
     Clipboard read() throws IOException;
 
+    /**
+     * Read a {@code Clipboard}, storing the blocks in a clipboard made by
+     * the given factory if the format supports it.
+     *
+     * <p>This allows large schematics to be loaded into an off-heap
+     * clipboard. Readers that don't support it return {@link #read()}.</p>
+     *
+     * @param clipboardFactory creates an empty clipboard for a region
+     * @return the read clipboard
+     * @throws IOException thrown on I/O error
+     */
+    default Clipboard read(Function<Region, Clipboard> clipboardFactory) throws IOException {
+        return read();
+    }
+
 }
@@ -0,0 +1,381 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.sk89q.jnbt.NBTConstants;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTStreamReader;
+import com.sk89q.worldedit.util.gson.GsonUtil;
+import com.sk89q.worldedit.util.io.Closer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps the format, size and palette of every schematic in a directory, so
+ * that listing schematics does not have to open each file.
+ *
+ * <p>The index is kept in a file in the directory itself. When it is
+ * refreshed, a file is only read again if its size or modification time
+ * has changed, and a directory is only listed again if its modification
+ * time has changed.</p>
+ */
+public final class SchematicIndex {
+
+    /**
+     * The name of the file the index is kept in.
+     */
+    public static final String INDEX_FILE_NAME = ".schematics.json";
+
+    private static final Logger log = LoggerFactory.getLogger(SchematicIndex.class);
+    private static final Type ENTRIES_TYPE = new TypeToken<Map<String, Entry>>() {}.getType();
+    private static final Map<File, SchematicIndex> indexes = new HashMap<>();
+
+    private final File dir;
+    private final Gson gson = GsonUtil.createBuilder().create();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<File, Listing> listings = new HashMap<>();
+    private boolean loaded;
+
+    private SchematicIndex(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Get the index of the given directory.
+     *
+     * @param dir the directory
+     * @return the index
+     */
+    public static SchematicIndex forDirectory(File dir) {
+        checkNotNull(dir);
+        File key = dir.getAbsoluteFile();
+        synchronized (indexes) {
+            return indexes.computeIfAbsent(key, SchematicIndex::new);
+        }
+    }
+
+    /**
+     * Bring the index up to date with the files in the directory and any
+     * of its subdirectories, and get an entry for every file.
+     *
+     * @return the entries
+     */
+    public synchronized List<Entry> refresh() {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+
+        List<File> files = new ArrayList<>();
+        collectFiles(dir, files);
+
+        Set<String> seen = new HashSet<>();
+        List<Entry> result = new ArrayList<>(files.size());
+        boolean changed = false;
+        for (File file : files) {
+            String path = getRelativePath(file);
+            seen.add(path);
+            long lastModified = file.lastModified();
+            long size = file.length();
+            Entry entry = entries.get(path);
+            if (entry == null || entry.lastModified != lastModified || entry.size != size) {
+                entry = scan(file);
+                entry.lastModified = lastModified;
+                entry.size = size;
+                entries.put(path, entry);
+                changed = true;
+            }
+            entry.file = file;
+            result.add(entry);
+        }
+        changed |= entries.keySet().retainAll(seen);
+
+        if (changed) {
+            save();
+        }
+        return result;
+    }
+
+    private void collectFiles(File directory, List<File> files) {
+        long lastModified = directory.lastModified();
+        Listing listing = listings.get(directory);
+        if (listing == null || listing.lastModified != lastModified) {
+            File[] children = directory.listFiles();
+            if (children == null) {
+                listings.remove(directory);
+                return;
+            }
+            List<File> childFiles = new ArrayList<>();
+            List<File> childDirs = new ArrayList<>();
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    childDirs.add(child);
+                } else if (!child.getName().equals(INDEX_FILE_NAME)
+                        && !child.getName().equals(INDEX_FILE_NAME + ".tmp")) {
+                    childFiles.add(child);
+                }
+            }
+            listing = new Listing(lastModified, childFiles, childDirs);
+            listings.put(directory, listing);
+        }
+        files.addAll(listing.files);
+        for (File childDir : listing.dirs) {
+            collectFiles(childDir, files);
+        }
+    }
+
+    private String getRelativePath(File file) {
+        return dir.toURI().relativize(file.toURI()).getPath();
+    }
+
+    /**
+     * Read the metadata of a file, stopping as soon as everything is known,
+     * which for files written by WorldEdit is before the block data.
+     *
+     * @param file the file
+     * @return a new entry
+     */
+    private static Entry scan(File file) {
+        Entry entry = new Entry();
+        try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            NBTStreamReader reader = new NBTStreamReader(str);
+            if (reader.next() == NBTConstants.TYPE_COMPOUND && reader.getName().equals("Schematic")) {
+                BuiltInClipboardFormat format = null;
+                while (!entry.isComplete(format) && reader.next() != NBTConstants.TYPE_END) {
+                    if (format == null) {
+                        format = BuiltInClipboardFormat.identify(reader.getName());
+                    }
+                    switch (reader.getName()) {
+                        case "Width":
+                            entry.width = reader.readInt();
+                            break;
+                        case "Height":
+                            entry.height = reader.readInt();
+                            break;
+                        case "Length":
+                            entry.length = reader.readInt();
+                            break;
+                        case "Version":
+                            entry.version = reader.readInt();
+                            break;
+                        case "DataVersion":
+                            entry.dataVersion = reader.readInt();
+                            break;
+                        case "PaletteMax":
+                            entry.paletteSize = reader.readInt();
+                            break;
+                        case "Palette":
+                            int paletteSize = 0;
+                            while (reader.next() != NBTConstants.TYPE_END) {
+                                reader.skip();
+                                paletteSize++;
+                            }
+                            entry.paletteSize = paletteSize;
+                            break;
+                        default:
+                            reader.skip();
+                    }
+                }
+                if (format != null) {
+                    entry.format = format.getName();
+                }
+            }
+        } catch (Exception ignored) {
+        }
+
+        if (entry.format == null) {
+            // The built-in formats were ruled out above, but registered
+            // formats that are not built in have to check for themselves
+            for (ClipboardFormat format : ClipboardFormats.getAll()) {
+                if (!(format instanceof BuiltInClipboardFormat) && format.isFormat(file)) {
+                    entry.format = format.getName();
+                    break;
+                }
+            }
+        }
+        return entry;
+    }
+
+    private void load() {
+        File file = new File(dir, INDEX_FILE_NAME);
+        try (Closer closer = Closer.create()) {
+            FileReader fr = closer.register(new FileReader(file));
+            BufferedReader br = closer.register(new BufferedReader(fr));
+            Map<String, Entry> loaded = gson.fromJson(br, ENTRIES_TYPE);
+            if (loaded != null) {
+                entries.putAll(loaded);
+            }
+        } catch (FileNotFoundException ignored) {
+        } catch (IOException | JsonParseException e) {
+            log.warn("Failed to read the schematic index " + file.getPath() + ", so it will be rebuilt", e);
+        }
+    }
+
+    private void save() {
+        File finalFile = new File(dir, INDEX_FILE_NAME);
+        File tempFile = new File(dir, INDEX_FILE_NAME + ".tmp");
+
+        try (Closer closer = Closer.create()) {
+            FileWriter fw = closer.register(new FileWriter(tempFile));
+            BufferedWriter bw = closer.register(new BufferedWriter(fw));
+            gson.toJson(entries, ENTRIES_TYPE, bw);
+        } catch (IOException | JsonParseException e) {
+            log.warn("Failed to write the schematic index " + finalFile.getPath(), e);
+            return;
+        }
+
+        if (finalFile.exists() && !finalFile.delete()) {
+            log.warn("Failed to delete " + finalFile.getPath() + " so the .tmp file can replace it");
+        }
+        if (!tempFile.renameTo(finalFile)) {
+            log.warn("Failed to rename temporary schematic index file to " + finalFile.getPath());
+        }
+    }
+
+    private static final class Listing {
+        private final long lastModified;
+        private final List<File> files;
+        private final List<File> dirs;
+
+        private Listing(long lastModified, List<File> files, List<File> dirs) {
+            this.lastModified = lastModified;
+            this.files = ImmutableList.copyOf(files);
+            this.dirs = ImmutableList.copyOf(dirs);
+        }
+    }
+
+    /**
+     * The metadata of one schematic file. Values that could not be read
+     * are {@code -1}.
+     */
+    public static final class Entry {
+        private transient File file;
+        @Nullable private String format;
+        private int width = -1;
+        private int height = -1;
+        private int length = -1;
+        private int version = -1;
+        private int dataVersion = -1;
+        private int paletteSize = -1;
+        private long lastModified;
+        private long size;
+
+        private boolean isComplete(@Nullable BuiltInClipboardFormat format) {
+            if (format == null || width < 0 || height < 0 || length < 0) {
+                return false;
+            }
+            if (format == BuiltInClipboardFormat.MCEDIT_SCHEMATIC) {
+                return true;
+            }
+            // Version 1 of the Sponge format has no data version
+            return paletteSize >= 0 && version >= 0 && (version == 1 || dataVersion >= 0);
+        }
+
+        /**
+         * Get the file.
+         *
+         * @return the file
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Get the format of the file.
+         *
+         * @return the format, or null if it is not a known format
+         */
+        @Nullable
+        public ClipboardFormat getFormat() {
+            if (format == null) {
+                return null;
+            }
+            for (ClipboardFormat candidate : ClipboardFormats.getAll()) {
+                if (candidate.getName().equals(format)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Get the Minecraft data version the schematic was saved with.
+         *
+         * @return the data version, or -1 if it is not stored
+         */
+        public int getDataVersion() {
+            return dataVersion;
+        }
+
+        /**
+         * Get the number of block states in the palette.
+         *
+         * @return the palette size, or -1 if the format has no palette
+         */
+        public int getPaletteSize() {
+            return paletteSize;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+}
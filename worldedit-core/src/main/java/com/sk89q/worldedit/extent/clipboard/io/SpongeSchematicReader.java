@@ -25,8 +25,9 @@
 import com.sk89q.jnbt.IntArrayTag;
 import com.sk89q.jnbt.IntTag;
 import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTConstants;
 import com.sk89q.jnbt.NBTInputStream;
-import com.sk89q.jnbt.NamedTag;
+import com.sk89q.jnbt.NBTStreamReader;
 import com.sk89q.jnbt.ShortTag;
 import com.sk89q.jnbt.StringTag;
 import com.sk89q.jnbt.Tag;
@@ -34,11 +35,12 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.extension.input.InputParseException;
-import com.sk89q.worldedit.extension.input.ParserContext;
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.MappedClipboard;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.internal.block.BlockStatePalette;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
@@ -54,11 +56,15 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -85,15 +91,86 @@ public SpongeSchematicReader(NBTInputStream inputStream) {
 
     @Override
     public Clipboard read() throws IOException {
-        NamedTag rootTag = inputStream.readNamedTag();
-        if (!rootTag.getName().equals("Schematic")) {
+        return read(SectionedClipboard::new);
+    }
+
+    @Override
+    public Clipboard read(Function<Region, Clipboard> clipboardFactory) throws IOException {
+        checkNotNull(clipboardFactory);
+        NBTStreamReader reader = new NBTStreamReader(inputStream);
+        if (reader.next() != NBTConstants.TYPE_COMPOUND || !reader.getName().equals("Schematic")) {
             throw new IOException("Tag 'Schematic' does not exist or is not first");
         }
-        CompoundTag schematicTag = (CompoundTag) rootTag.getTag();
 
-        // Check
-        Map<String, Tag> schematic = schematicTag.getValue();
+        // Everything but the block data is small, so it is read into tags.
+        // The block data is decoded straight from the stream if the tags
+        // needed to do so came before it, as they do in our own files.
+        Map<String, Tag> schematic = new HashMap<>();
+        Clipboard clipboard = null;
+        try {
+            while (reader.next() != NBTConstants.TYPE_END) {
+                String name = reader.getName();
+                if (clipboard == null && name.equals("BlockData")
+                        && reader.getType() == NBTConstants.TYPE_BYTE_ARRAY && canStreamBlocks(schematic)) {
+                    readHeader(schematic);
+                    clipboard = createClipboard(schematic, clipboardFactory);
+                    int length = reader.readArrayLength();
+                    readBlocks(clipboard, readPalette(schematic), reader.openBytes(length));
+                } else {
+                    schematic.put(name, reader.readTag());
+                }
+            }
+
+            int version = readHeader(schematic);
+            if (clipboard == null) {
+                clipboard = createClipboard(schematic, clipboardFactory);
+                byte[] blocks = requireTag(schematic, "BlockData", ByteArrayTag.class).getValue();
+                readBlocks(clipboard, readPalette(schematic), new ByteArrayInputStream(blocks));
+            }
+            readTileEntities(clipboard, schematic);
+            if (clipboard instanceof SectionedClipboard) {
+                ((SectionedClipboard) clipboard).trim();
+            }
 
+            if (version == 2) {
+                return readVersion2(clipboard, schematic);
+            }
+            return clipboard;
+        } catch (IOException | RuntimeException e) {
+            // Don't leave the file of a partly read off-heap clipboard behind
+            MappedClipboard.release(clipboard);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether all the tags that may be needed to place the blocks
+     * have been read.
+     *
+     * @param schematic the tags read so far
+     * @return true if the block data can be decoded now
+     */
+    private static boolean canStreamBlocks(Map<String, Tag> schematic) {
+        Tag version = schematic.get("Version");
+        if (!(version instanceof IntTag)) {
+            return false;
+        }
+        if (((IntTag) version).getValue() == 2 && !schematic.containsKey("DataVersion")) {
+            return false;
+        }
+        return schematic.containsKey("Width") && schematic.containsKey("Height") && schematic.containsKey("Length")
+                && schematic.containsKey("Offset") && schematic.containsKey("Metadata")
+                && schematic.containsKey("Palette");
+    }
+
+    /**
+     * Check the version of the schematic and set up the data fixer.
+     *
+     * @param schematic the schematic tags
+     * @return the version
+     * @throws IOException if the version is not supported
+     */
+    private int readHeader(Map<String, Tag> schematic) throws IOException {
         int version = requireTag(schematic, "Version", IntTag.class).getValue();
         final Platform platform = WorldEdit.getInstance().getPlatformManager()
                 .queryCapability(Capability.WORLD_EDITING);
@@ -102,8 +179,10 @@ public Clipboard read() throws IOException {
         if (version == 1) {
             dataVersion = 1631; // this is a relatively safe assumption unless someone imports a schematic from 1.12, e.g. sponge 7.1-
             fixer = platform.getDataFixer();
-            return readVersion1(schematicTag);
         } else if (version == 2) {
+            if (dataVersion != -1) {
+                return version;
+            }
             dataVersion = requireTag(schematic, "DataVersion", IntTag.class).getValue();
             if (dataVersion > liveDataVersion) {
                 log.warn("Schematic was made in a newer Minecraft version ({} > {}). Data may be incompatible.",
@@ -118,17 +197,15 @@ public Clipboard read() throws IOException {
                             dataVersion, liveDataVersion);
                 }
             }
-
-            BlockArrayClipboard clip = readVersion1(schematicTag);
-            return readVersion2(clip, schematicTag);
+        } else {
+            throw new IOException("This schematic version is currently not supported");
         }
-        throw new IOException("This schematic version is currently not supported");
+        return version;
     }
 
-    private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOException {
+    private Clipboard createClipboard(Map<String, Tag> schematic, Function<Region, Clipboard> clipboardFactory) throws IOException {
         BlockVector3 origin;
         Region region;
-        Map<String, Tag> schematic = schematicTag.getValue();
 
         int width = requireTag(schematic, "Width", ShortTag.class).getValue();
         int height = requireTag(schematic, "Height", ShortTag.class).getValue();
@@ -162,112 +239,143 @@ private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOExce
             region = new CuboidRegion(origin, origin.add(width, height, length).subtract(BlockVector3.ONE));
         }
 
+        Clipboard clipboard = clipboardFactory.apply(region);
+        clipboard.setOrigin(origin);
+        return clipboard;
+    }
+
+    private BlockState[] readPalette(Map<String, Tag> schematic) throws IOException {
         IntTag paletteMaxTag = getTag(schematic, "PaletteMax", IntTag.class);
         Map<String, Tag> paletteObject = requireTag(schematic, "Palette", CompoundTag.class).getValue();
         if (paletteMaxTag != null && paletteObject.size() != paletteMaxTag.getValue()) {
             throw new IOException("Block palette size does not match expected size.");
         }
 
-        Map<Integer, BlockState> palette = new HashMap<>();
-
-        ParserContext parserContext = new ParserContext();
-        parserContext.setRestricted(false);
-        parserContext.setTryLegacy(false);
-        parserContext.setPreferringWildcard(false);
-
+        BlockState[] palette = new BlockState[paletteObject.size()];
         for (String palettePart : paletteObject.keySet()) {
             int id = requireTag(paletteObject, palettePart, IntTag.class).getValue();
+            if (id < 0) {
+                throw new IOException("Negative id in block palette: " + palettePart);
+            }
             if (fixer != null) {
                 palettePart = fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, palettePart, dataVersion);
             }
             BlockState state;
             try {
-                state = WorldEdit.getInstance().getBlockFactory().parseFromInput(palettePart, parserContext).toImmutableState();
+                state = BlockStatePalette.parseState(palettePart);
             } catch (InputParseException e) {
                 throw new IOException("Invalid BlockState in palette: " + palettePart +
                         ". Are you missing a mod or using a schematic made in a newer version of Minecraft?");
             }
-            palette.put(id, state);
+            if (id >= palette.length) {
+                palette = Arrays.copyOf(palette, id + 1);
+            }
+            palette[id] = state;
         }
+        return palette;
+    }
+
+    /**
+     * Decode varint block data into the clipboard.
+     *
+     * @param clipboard the clipboard
+     * @param palette the palette
+     * @param in the encoded block data
+     * @throws IOException if the data is invalid
+     */
+    private void readBlocks(Clipboard clipboard, BlockState[] palette, InputStream in) throws IOException {
+        BlockVector3 min = clipboard.getMinimumPoint();
+        BlockVector3 dimensions = clipboard.getDimensions();
+        int width = dimensions.getBlockX();
+        int length = dimensions.getBlockZ();
+        long volume = (long) width * dimensions.getBlockY() * length;
+
+        byte[] buffer = new byte[8192];
+        long index = 0;
+        int x = 0;
+        int y = 0;
+        int z = 0;
+        int value = 0;
+        int varintLength = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                value |= (b & 127) << (varintLength++ * 7);
+                if (varintLength > 5) {
+                    throw new IOException("VarInt too big (probably corrupted data)");
+                }
+                if ((b & 128) == 128) {
+                    continue;
+                }
 
-        byte[] blocks = requireTag(schematic, "BlockData", ByteArrayTag.class).getValue();
+                if (index >= volume) {
+                    throw new IOException("More block data than the size of the schematic");
+                }
+                BlockState state = value < palette.length ? palette[value] : null;
+                if (state == null) {
+                    throw new IOException("Block data refers to a missing palette entry: " + value);
+                }
+                try {
+                    clipboard.setBlock(min.add(x, y, z), state);
+                } catch (WorldEditException e) {
+                    throw new IOException("Failed to load a block in the schematic");
+                }
 
-        Map<BlockVector3, Map<String, Tag>> tileEntitiesMap = new HashMap<>();
+                // index = (y * length * width) + (z * width) + x
+                index++;
+                if (++x == width) {
+                    x = 0;
+                    if (++z == length) {
+                        z = 0;
+                        y++;
+                    }
+                }
+                value = 0;
+                varintLength = 0;
+            }
+        }
+    }
+
+    private void readTileEntities(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         ListTag tileEntities = getTag(schematic, "BlockEntities", ListTag.class);
         if (tileEntities == null) {
             tileEntities = getTag(schematic, "TileEntities", ListTag.class);
         }
-        if (tileEntities != null) {
-            List<Map<String, Tag>> tileEntityTags = tileEntities.getValue().stream()
-                    .map(tag -> (CompoundTag) tag)
-                    .map(CompoundTag::getValue)
-                    .collect(Collectors.toList());
-
-            for (Map<String, Tag> tileEntity : tileEntityTags) {
-                int[] pos = requireTag(tileEntity, "Pos", IntArrayTag.class).getValue();
-                final BlockVector3 pt = BlockVector3.at(pos[0], pos[1], pos[2]);
-                Map<String, Tag> values = Maps.newHashMap(tileEntity);
-                values.put("x", new IntTag(pt.getBlockX()));
-                values.put("y", new IntTag(pt.getBlockY()));
-                values.put("z", new IntTag(pt.getBlockZ()));
-                values.put("id", values.get("Id"));
-                values.remove("Id");
-                values.remove("Pos");
-                if (fixer != null) {
-                    tileEntity = fixer.fixUp(DataFixer.FixTypes.BLOCK_ENTITY, new CompoundTag(values), dataVersion).getValue();
-                } else {
-                    tileEntity = values;
-                }
-                tileEntitiesMap.put(pt, tileEntity);
-            }
+        if (tileEntities == null) {
+            return;
         }
-
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
-        clipboard.setOrigin(origin);
-
-        int index = 0;
-        int i = 0;
-        int value;
-        int varintLength;
-        while (i < blocks.length) {
-            value = 0;
-            varintLength = 0;
-
-            while (true) {
-                value |= (blocks[i] & 127) << (varintLength++ * 7);
-                if (varintLength > 5) {
-                    throw new IOException("VarInt too big (probably corrupted data)");
-                }
-                if ((blocks[i] & 128) != 128) {
-                    i++;
-                    break;
-                }
-                i++;
+        List<Map<String, Tag>> tileEntityTags = tileEntities.getValue().stream()
+                .map(tag -> (CompoundTag) tag)
+                .map(CompoundTag::getValue)
+                .collect(Collectors.toList());
+
+        BlockVector3 min = clipboard.getMinimumPoint();
+        for (Map<String, Tag> tileEntity : tileEntityTags) {
+            int[] pos = requireTag(tileEntity, "Pos", IntArrayTag.class).getValue();
+            final BlockVector3 pt = BlockVector3.at(pos[0], pos[1], pos[2]);
+            Map<String, Tag> values = Maps.newHashMap(tileEntity);
+            values.put("x", new IntTag(pt.getBlockX()));
+            values.put("y", new IntTag(pt.getBlockY()));
+            values.put("z", new IntTag(pt.getBlockZ()));
+            values.put("id", values.get("Id"));
+            values.remove("Id");
+            values.remove("Pos");
+            if (fixer != null) {
+                tileEntity = fixer.fixUp(DataFixer.FixTypes.BLOCK_ENTITY, new CompoundTag(values), dataVersion).getValue();
+            } else {
+                tileEntity = values;
             }
-            // index = (y * length * width) + (z * width) + x
-            int y = index / (width * length);
-            int z = (index % (width * length)) / width;
-            int x = (index % (width * length)) % width;
-            BlockState state = palette.get(value);
-            BlockVector3 pt = BlockVector3.at(x, y, z);
+            BlockVector3 location = min.add(pt);
             try {
-                if (tileEntitiesMap.containsKey(pt)) {
-                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state.toBaseBlock(new CompoundTag(tileEntitiesMap.get(pt))));
-                } else {
-                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state);
-                }
+                clipboard.setBlock(location, clipboard.getBlock(location).toBaseBlock(new CompoundTag(tileEntity)));
             } catch (WorldEditException e) {
                 throw new IOException("Failed to load a block in the schematic");
             }
-
-            index++;
         }
-
-        return clipboard;
     }
 
-    private Clipboard readVersion2(BlockArrayClipboard version1, CompoundTag schematicTag) throws IOException {
-        Map<String, Tag> schematic = schematicTag.getValue();
+    private Clipboard readVersion2(Clipboard version1, Map<String, Tag> schematic) throws IOException {
         if (schematic.containsKey("BiomeData")) {
             readBiomes(version1, schematic);
         }
@@ -277,7 +385,7 @@ private Clipboard readVersion2(BlockArrayClipboard version1, CompoundTag schemat
         return version1;
     }
 
-    private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schematic) throws IOException {
+    private void readBiomes(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         ByteArrayTag dataTag = requireTag(schematic, "BiomeData", ByteArrayTag.class);
         IntTag maxTag = requireTag(schematic, "BiomePaletteMax", IntTag.class);
         CompoundTag paletteTag = requireTag(schematic, "BiomePalette", CompoundTag.class);
@@ -335,7 +443,7 @@ private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schemati
         }
     }
 
-    private void readEntities(BlockArrayClipboard clipboard, Map<String, Tag> schematic) throws IOException {
+    private void readEntities(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         List<Tag> entList = requireTag(schematic, "Entities", ListTag.class).getValue();
         if (entList.isEmpty()) {
             return;
@@ -29,6 +29,7 @@
 import com.sk89q.jnbt.IntArrayTag;
 import com.sk89q.jnbt.IntTag;
 import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTConstants;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.jnbt.ShortTag;
 import com.sk89q.jnbt.StringTag;
@@ -37,6 +38,8 @@
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.internal.block.BlockStatePalette;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
@@ -62,6 +65,8 @@ public class SpongeSchematicWriter implements ClipboardWriter {
     private static final int CURRENT_VERSION = 2;
 
     private static final int MAX_SIZE = Short.MAX_VALUE - Short.MIN_VALUE;
+    private static final int ROW_BUFFER_SIZE = 1 << 16;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 13;
     private final NBTOutputStream outputStream;
 
     /**
@@ -77,16 +82,22 @@ public SpongeSchematicWriter(NBTOutputStream outputStream) {
     @Override
     public void write(Clipboard clipboard) throws IOException {
         // For now always write the latest version. Maybe provide support for earlier if more appear.
-        outputStream.writeNamedTag("Schematic", new CompoundTag(write2(clipboard)));
+        outputStream.writeNamedTagHeader("Schematic", NBTConstants.TYPE_COMPOUND);
+        write2(clipboard);
+        outputStream.writeEndTag();
     }
 
     /**
-     * Writes a version 2 schematic file.
+     * Writes the tags of a version 2 schematic file.
+     *
+     * <p>The block data is not built in memory. A first pass over the
+     * clipboard assigns palette indices and measures the encoded block data,
+     * then a second pass encodes the blocks directly into the output.</p>
      *
      * @param clipboard The clipboard
-     * @return The schematic map
+     * @throws IOException if an I/O error occurs
      */
-    private Map<String, Tag> write2(Clipboard clipboard) {
+    private void write2(Clipboard clipboard) throws IOException {
         Region region = clipboard.getRegion();
         BlockVector3 origin = clipboard.getOrigin();
         BlockVector3 min = region.getMinimumPoint();
@@ -105,9 +116,8 @@ private Map<String, Tag> write2(Clipboard clipboard) {
             throw new IllegalArgumentException("Length of region too large for a .schematic");
         }
 
-        Map<String, Tag> schematic = new HashMap<>();
-        schematic.put("Version", new IntTag(CURRENT_VERSION));
-        schematic.put("DataVersion", new IntTag(
+        outputStream.writeNamedTag("Version", new IntTag(CURRENT_VERSION));
+        outputStream.writeNamedTag("DataVersion", new IntTag(
                 WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING).getDataVersion()));
 
         Map<String, Tag> metadata = new HashMap<>();
@@ -115,25 +125,24 @@ private Map<String, Tag> write2(Clipboard clipboard) {
         metadata.put("WEOffsetY", new IntTag(offset.getBlockY()));
         metadata.put("WEOffsetZ", new IntTag(offset.getBlockZ()));
 
-        schematic.put("Metadata", new CompoundTag(metadata));
+        outputStream.writeNamedTag("Metadata", new CompoundTag(metadata));
 
-        schematic.put("Width", new ShortTag((short) width));
-        schematic.put("Height", new ShortTag((short) height));
-        schematic.put("Length", new ShortTag((short) length));
+        outputStream.writeNamedTag("Width", new ShortTag((short) width));
+        outputStream.writeNamedTag("Height", new ShortTag((short) height));
+        outputStream.writeNamedTag("Length", new ShortTag((short) length));
 
         // The Sponge format Offset refers to the 'min' points location in the world. That's our 'Origin'
-        schematic.put("Offset", new IntArrayTag(new int[]{
+        outputStream.writeNamedTag("Offset", new IntArrayTag(new int[]{
                 min.getBlockX(),
                 min.getBlockY(),
                 min.getBlockZ(),
         }));
 
-        int paletteMax = 0;
-        Map<String, Integer> palette = new HashMap<>();
-
-        List<CompoundTag> tileEntities = new ArrayList<>();
-
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream(width * height * length);
+        // First pass: build the palette from state ids and find the tile entities
+        BlockStatePalette palette = new BlockStatePalette();
+        BlockStateIdMapper ids = palette.getIdMapper();
+        List<BlockVector3> tileEntities = new ArrayList<>();
+        long dataLength = 0;
 
         for (int y = 0; y < height; y++) {
             int y0 = min.getBlockY() + y;
@@ -144,66 +153,102 @@ private Map<String, Tag> write2(Clipboard clipboard) {
                     BlockVector3 point = BlockVector3.at(x0, y0, z0);
                     BaseBlock block = clipboard.getFullBlock(point);
                     if (block.getNbtData() != null) {
-                        Map<String, Tag> values = new HashMap<>(block.getNbtData().getValue());
+                        tileEntities.add(point);
+                    }
+                    dataLength += varIntSize(palette.getIndex(block.toImmutableState()));
+                }
+            }
+        }
 
-                        values.remove("id"); // Remove 'id' if it exists. We want 'Id'
+        if (dataLength > Integer.MAX_VALUE) {
+            throw new IOException("Block data is too large for a .schematic");
+        }
 
-                        // Positions are kept in NBT, we don't want that.
-                        values.remove("x");
-                        values.remove("y");
-                        values.remove("z");
+        int paletteMax = palette.size();
+        outputStream.writeNamedTag("PaletteMax", new IntTag(paletteMax));
 
-                        values.put("Id", new StringTag(block.getNbtId()));
-                        values.put("Pos", new IntArrayTag(new int[]{
-                                x,
-                                y,
-                                z
-                        }));
+        outputStream.writeNamedTagHeader("Palette", NBTConstants.TYPE_COMPOUND);
+        for (int i = 0; i < paletteMax; i++) {
+            outputStream.writeNamedTag(palette.getAsString(i), new IntTag(i));
+        }
+        outputStream.writeEndTag();
 
-                        tileEntities.add(new CompoundTag(values));
-                    }
+        // Second pass: encode the blocks a few rows at a time straight into the output
+        outputStream.writeNamedByteArrayHeader("BlockData", (int) dataLength);
+        int rows = Math.max(1, Math.min(length, ROW_BUFFER_SIZE / width));
+        int[] buffer = new int[rows * width];
+        byte[] out = new byte[OUTPUT_BUFFER_SIZE];
+        int outIndex = 0;
 
-                    String blockKey = block.toImmutableState().getAsString();
-                    int blockId;
-                    if (palette.containsKey(blockKey)) {
-                        blockId = palette.get(blockKey);
-                    } else {
-                        blockId = paletteMax;
-                        palette.put(blockKey, blockId);
-                        paletteMax++;
+        for (int y = 0; y < height; y++) {
+            int y0 = min.getBlockY() + y;
+            for (int z = 0; z < length; z += rows) {
+                int z1 = Math.min(length, z + rows);
+                BlockVector3 from = BlockVector3.at(min.getBlockX(), y0, min.getBlockZ() + z);
+                BlockVector3 to = BlockVector3.at(min.getBlockX() + width - 1, y0, min.getBlockZ() + z1 - 1);
+                clipboard.getBlocks(from, to, buffer, ids);
+                int count = (z1 - z) * width;
+                for (int i = 0; i < count; i++) {
+                    if (outIndex > out.length - 5) {
+                        outputStream.writeRawBytes(out, 0, outIndex);
+                        outIndex = 0;
+                    }
+                    int blockId = palette.getIndex(buffer[i]);
+                    if (blockId >= paletteMax) {
+                        throw new IOException("The clipboard was changed while it was being saved");
                     }
-
                     while ((blockId & -128) != 0) {
-                        buffer.write(blockId & 127 | 128);
+                        out[outIndex++] = (byte) (blockId & 127 | 128);
                         blockId >>>= 7;
                     }
-                    buffer.write(blockId);
+                    out[outIndex++] = (byte) blockId;
                 }
             }
         }
+        outputStream.writeRawBytes(out, 0, outIndex);
 
-        schematic.put("PaletteMax", new IntTag(paletteMax));
+        outputStream.writeNamedListHeader("BlockEntities", CompoundTag.class, tileEntities.size());
+        for (BlockVector3 point : tileEntities) {
+            BaseBlock block = clipboard.getFullBlock(point);
+            Map<String, Tag> values = new HashMap<>(block.getNbtData().getValue());
 
-        Map<String, Tag> paletteTag = new HashMap<>();
-        palette.forEach((key, value) -> paletteTag.put(key, new IntTag(value)));
+            values.remove("id"); // Remove 'id' if it exists. We want 'Id'
 
-        schematic.put("Palette", new CompoundTag(paletteTag));
-        schematic.put("BlockData", new ByteArrayTag(buffer.toByteArray()));
-        schematic.put("BlockEntities", new ListTag(CompoundTag.class, tileEntities));
+            // Positions are kept in NBT, we don't want that.
+            values.remove("x");
+            values.remove("y");
+            values.remove("z");
+
+            values.put("Id", new StringTag(block.getNbtId()));
+            values.put("Pos", new IntArrayTag(new int[]{
+                    point.getBlockX() - min.getBlockX(),
+                    point.getBlockY() - min.getBlockY(),
+                    point.getBlockZ() - min.getBlockZ()
+            }));
+
+            outputStream.writeTagPayload(new CompoundTag(values));
+        }
 
         // version 2 stuff
         if (clipboard.hasBiomes()) {
-            writeBiomes(clipboard, schematic);
+            writeBiomes(clipboard);
         }
 
         if (!clipboard.getEntities().isEmpty()) {
-            writeEntities(clipboard, schematic);
+            writeEntities(clipboard);
         }
+    }
 
-        return schematic;
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & -128) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
     }
 
-    private void writeBiomes(Clipboard clipboard, Map<String, Tag> schematic) {
+    private void writeBiomes(Clipboard clipboard) throws IOException {
         BlockVector3 min = clipboard.getMinimumPoint();
         int width = clipboard.getRegion().getWidth();
         int length = clipboard.getRegion().getLength();
@@ -238,16 +283,16 @@ private void writeBiomes(Clipboard clipboard, Map<String, Tag> schematic) {
             }
         }
 
-        schematic.put("BiomePaletteMax", new IntTag(paletteMax));
+        outputStream.writeNamedTag("BiomePaletteMax", new IntTag(paletteMax));
 
         Map<String, Tag> paletteTag = new HashMap<>();
         palette.forEach((key, value) -> paletteTag.put(key, new IntTag(value)));
 
-        schematic.put("BiomePalette", new CompoundTag(paletteTag));
-        schematic.put("BiomeData", new ByteArrayTag(buffer.toByteArray()));
+        outputStream.writeNamedTag("BiomePalette", new CompoundTag(paletteTag));
+        outputStream.writeNamedTag("BiomeData", new ByteArrayTag(buffer.toByteArray()));
     }
 
-    private void writeEntities(Clipboard clipboard, Map<String, Tag> schematic) {
+    private void writeEntities(Clipboard clipboard) throws IOException {
         List<CompoundTag> entities = clipboard.getEntities().stream().map(e -> {
             BaseEntity state = e.getState();
             if (state == null) {
@@ -268,7 +313,7 @@ private void writeEntities(Clipboard clipboard, Map<String, Tag> schematic) {
         if (entities.isEmpty()) {
             return;
         }
-        schematic.put("Entities", new ListTag(CompoundTag.class, entities));
+        outputStream.writeNamedTag("Entities", new ListTag(CompoundTag.class, entities));
     }
 
     private Tag writeVector(Vector3 vector) {
@@ -35,111 +35,130 @@
 import com.sk89q.worldedit.world.block.BlockTypes;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 /**
  * Re-orders blocks into several stages.
+ *
+ * <p>Blocks of the first stage that replace a block of the first stage are
+ * set right away, unless a block was already buffered at their location.
+ * Blocks set later at a location are never placed before earlier ones.</p>
  */
 public class MultiStageReorder extends AbstractDelegateExtent implements ReorderingExtent {
 
-    private static final Map<BlockType, PlacementPriority> priorityMap = new HashMap<>();
+    private static PlacementPriority[] priorities = new PlacementPriority[0];
 
     static {
         // Late
-        priorityMap.put(BlockTypes.WATER, PlacementPriority.LATE);
-        priorityMap.put(BlockTypes.LAVA, PlacementPriority.LATE);
-        priorityMap.put(BlockTypes.SAND, PlacementPriority.LATE);
-        priorityMap.put(BlockTypes.GRAVEL, PlacementPriority.LATE);
+        setPriority(BlockTypes.WATER, PlacementPriority.LATE);
+        setPriority(BlockTypes.LAVA, PlacementPriority.LATE);
+        setPriority(BlockTypes.SAND, PlacementPriority.LATE);
+        setPriority(BlockTypes.GRAVEL, PlacementPriority.LATE);
 
         // Late
-        BlockCategories.SAPLINGS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.FLOWER_POTS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.BUTTONS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.ANVIL.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.WOODEN_PRESSURE_PLATES.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.CARPETS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.RAILS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.BEDS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        BlockCategories.SMALL_FLOWERS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.LAST));
-        priorityMap.put(BlockTypes.BLACK_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.BLUE_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.BROWN_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.CYAN_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.GRAY_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.GREEN_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LIGHT_BLUE_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LIGHT_GRAY_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LIME_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.MAGENTA_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.ORANGE_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.PINK_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.PURPLE_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.RED_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.WHITE_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.YELLOW_BED, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.GRASS, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.TALL_GRASS, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.ROSE_BUSH, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.DANDELION, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.BROWN_MUSHROOM, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.RED_MUSHROOM, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.FERN, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LARGE_FERN, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.OXEYE_DAISY, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.AZURE_BLUET, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.TORCH, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.WALL_TORCH, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.FIRE, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.REDSTONE_WIRE, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.CARROTS, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.POTATOES, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.WHEAT, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.BEETROOTS, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.COCOA, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LADDER, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LEVER, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.REDSTONE_TORCH, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.REDSTONE_WALL_TORCH, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.SNOW, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.NETHER_PORTAL, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.END_PORTAL, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.REPEATER, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.VINE, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LILY_PAD, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.NETHER_WART, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.PISTON, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.STICKY_PISTON, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.TRIPWIRE_HOOK, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.TRIPWIRE, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.STONE_PRESSURE_PLATE, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.HEAVY_WEIGHTED_PRESSURE_PLATE, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.LIGHT_WEIGHTED_PRESSURE_PLATE, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.COMPARATOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.IRON_TRAPDOOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.ACACIA_TRAPDOOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.BIRCH_TRAPDOOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.DARK_OAK_TRAPDOOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.JUNGLE_TRAPDOOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.OAK_TRAPDOOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.SPRUCE_TRAPDOOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.DAYLIGHT_DETECTOR, PlacementPriority.LAST);
-        priorityMap.put(BlockTypes.CAKE, PlacementPriority.LAST);
+        BlockCategories.SAPLINGS.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.FLOWER_POTS.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.BUTTONS.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.ANVIL.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.WOODEN_PRESSURE_PLATES.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.CARPETS.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.RAILS.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.BEDS.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        BlockCategories.SMALL_FLOWERS.getAll().forEach(type -> setPriority(type, PlacementPriority.LAST));
+        setPriority(BlockTypes.BLACK_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.BLUE_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.BROWN_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.CYAN_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.GRAY_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.GREEN_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.LIGHT_BLUE_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.LIGHT_GRAY_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.LIME_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.MAGENTA_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.ORANGE_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.PINK_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.PURPLE_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.RED_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.WHITE_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.YELLOW_BED, PlacementPriority.LAST);
+        setPriority(BlockTypes.GRASS, PlacementPriority.LAST);
+        setPriority(BlockTypes.TALL_GRASS, PlacementPriority.LAST);
+        setPriority(BlockTypes.ROSE_BUSH, PlacementPriority.LAST);
+        setPriority(BlockTypes.DANDELION, PlacementPriority.LAST);
+        setPriority(BlockTypes.BROWN_MUSHROOM, PlacementPriority.LAST);
+        setPriority(BlockTypes.RED_MUSHROOM, PlacementPriority.LAST);
+        setPriority(BlockTypes.FERN, PlacementPriority.LAST);
+        setPriority(BlockTypes.LARGE_FERN, PlacementPriority.LAST);
+        setPriority(BlockTypes.OXEYE_DAISY, PlacementPriority.LAST);
+        setPriority(BlockTypes.AZURE_BLUET, PlacementPriority.LAST);
+        setPriority(BlockTypes.TORCH, PlacementPriority.LAST);
+        setPriority(BlockTypes.WALL_TORCH, PlacementPriority.LAST);
+        setPriority(BlockTypes.FIRE, PlacementPriority.LAST);
+        setPriority(BlockTypes.REDSTONE_WIRE, PlacementPriority.LAST);
+        setPriority(BlockTypes.CARROTS, PlacementPriority.LAST);
+        setPriority(BlockTypes.POTATOES, PlacementPriority.LAST);
+        setPriority(BlockTypes.WHEAT, PlacementPriority.LAST);
+        setPriority(BlockTypes.BEETROOTS, PlacementPriority.LAST);
+        setPriority(BlockTypes.COCOA, PlacementPriority.LAST);
+        setPriority(BlockTypes.LADDER, PlacementPriority.LAST);
+        setPriority(BlockTypes.LEVER, PlacementPriority.LAST);
+        setPriority(BlockTypes.REDSTONE_TORCH, PlacementPriority.LAST);
+        setPriority(BlockTypes.REDSTONE_WALL_TORCH, PlacementPriority.LAST);
+        setPriority(BlockTypes.SNOW, PlacementPriority.LAST);
+        setPriority(BlockTypes.NETHER_PORTAL, PlacementPriority.LAST);
+        setPriority(BlockTypes.END_PORTAL, PlacementPriority.LAST);
+        setPriority(BlockTypes.REPEATER, PlacementPriority.LAST);
+        setPriority(BlockTypes.VINE, PlacementPriority.LAST);
+        setPriority(BlockTypes.LILY_PAD, PlacementPriority.LAST);
+        setPriority(BlockTypes.NETHER_WART, PlacementPriority.LAST);
+        setPriority(BlockTypes.PISTON, PlacementPriority.LAST);
+        setPriority(BlockTypes.STICKY_PISTON, PlacementPriority.LAST);
+        setPriority(BlockTypes.TRIPWIRE_HOOK, PlacementPriority.LAST);
+        setPriority(BlockTypes.TRIPWIRE, PlacementPriority.LAST);
+        setPriority(BlockTypes.STONE_PRESSURE_PLATE, PlacementPriority.LAST);
+        setPriority(BlockTypes.HEAVY_WEIGHTED_PRESSURE_PLATE, PlacementPriority.LAST);
+        setPriority(BlockTypes.LIGHT_WEIGHTED_PRESSURE_PLATE, PlacementPriority.LAST);
+        setPriority(BlockTypes.COMPARATOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.IRON_TRAPDOOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.ACACIA_TRAPDOOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.BIRCH_TRAPDOOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.DARK_OAK_TRAPDOOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.JUNGLE_TRAPDOOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.OAK_TRAPDOOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.SPRUCE_TRAPDOOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.DAYLIGHT_DETECTOR, PlacementPriority.LAST);
+        setPriority(BlockTypes.CAKE, PlacementPriority.LAST);
 
         // Final
-        BlockCategories.DOORS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.FINAL));
-        BlockCategories.BANNERS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.FINAL));
-        BlockCategories.SIGNS.getAll().forEach(type -> priorityMap.put(type, PlacementPriority.FINAL));
-        priorityMap.put(BlockTypes.SIGN, PlacementPriority.FINAL);
-        priorityMap.put(BlockTypes.WALL_SIGN, PlacementPriority.FINAL);
-        priorityMap.put(BlockTypes.CACTUS, PlacementPriority.FINAL);
-        priorityMap.put(BlockTypes.SUGAR_CANE, PlacementPriority.FINAL);
-        priorityMap.put(BlockTypes.PISTON_HEAD, PlacementPriority.FINAL);
-        priorityMap.put(BlockTypes.MOVING_PISTON, PlacementPriority.FINAL);
+        BlockCategories.DOORS.getAll().forEach(type -> setPriority(type, PlacementPriority.FINAL));
+        BlockCategories.BANNERS.getAll().forEach(type -> setPriority(type, PlacementPriority.FINAL));
+        BlockCategories.SIGNS.getAll().forEach(type -> setPriority(type, PlacementPriority.FINAL));
+        setPriority(BlockTypes.SIGN, PlacementPriority.FINAL);
+        setPriority(BlockTypes.WALL_SIGN, PlacementPriority.FINAL);
+        setPriority(BlockTypes.CACTUS, PlacementPriority.FINAL);
+        setPriority(BlockTypes.SUGAR_CANE, PlacementPriority.FINAL);
+        setPriority(BlockTypes.PISTON_HEAD, PlacementPriority.FINAL);
+        setPriority(BlockTypes.MOVING_PISTON, PlacementPriority.FINAL);
+    }
+
+    static void setPriority(@Nullable BlockType type, PlacementPriority priority) {
+        if (type == null) {
+            return;
+        }
+        int id = type.getInternalId();
+        if (id >= priorities.length) {
+            priorities = Arrays.copyOf(priorities, Math.max(id + 1, priorities.length * 2));
+        }
+        priorities[id] = priority;
     }
 
-    private Map<PlacementPriority, LocatedBlockList> stages = new HashMap<>();
+    private final LocatedBlockList[] stages = new LocatedBlockList[PlacementPriority.values().length];
+    private final Map<BlockVector3, PlacementPriority> buffered = new HashMap<>();
 
     private boolean enabled;
 
@@ -172,8 +191,8 @@ public MultiStageReorder(Extent extent, boolean enabled) {
         super(extent);
         this.enabled = enabled;
 
-        for (PlacementPriority priority : PlacementPriority.values()) {
-            stages.put(priority, new LocatedBlockList());
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LocatedBlockList();
         }
     }
 
@@ -206,7 +225,12 @@ public boolean commitRequired() {
      * @return The priority
      */
     private <B extends BlockStateHolder<B>> PlacementPriority getPlacementPriority(B block) {
-        return priorityMap.getOrDefault(block.getBlockType(), PlacementPriority.FIRST);
+        int id = block.getBlockType().getInternalId();
+        PlacementPriority[] priorities = MultiStageReorder.priorities;
+        if (id < priorities.length && priorities[id] != null) {
+            return priorities[id];
+        }
+        return PlacementPriority.FIRST;
     }
 
     @Override
@@ -218,28 +242,37 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         BlockState existing = getBlock(location);
         PlacementPriority priority = getPlacementPriority(block);
         PlacementPriority srcPriority = getPlacementPriority(existing);
+        PlacementPriority previous = buffered.get(location);
+
+        if (priority == PlacementPriority.FIRST && srcPriority == PlacementPriority.FIRST && previous == null) {
+            // Nothing has to happen before this block, so it doesn't need to be buffered
+            return super.setBlock(location, block);
+        }
 
         if (srcPriority != PlacementPriority.FIRST) {
             BaseBlock replacement = (block.getBlockType().getMaterial().isAir() ? block : BlockTypes.AIR.getDefaultState()).toBaseBlock();
 
             switch (srcPriority) {
                 case FINAL:
-                    stages.get(PlacementPriority.CLEAR_FINAL).add(location, replacement);
+                    stages[PlacementPriority.CLEAR_FINAL.ordinal()].add(location, replacement);
                     break;
                 case LATE:
-                    stages.get(PlacementPriority.CLEAR_LATE).add(location, replacement);
+                    stages[PlacementPriority.CLEAR_LATE.ordinal()].add(location, replacement);
                     break;
                 case LAST:
-                    stages.get(PlacementPriority.CLEAR_LAST).add(location, replacement);
+                    stages[PlacementPriority.CLEAR_LAST.ordinal()].add(location, replacement);
                     break;
             }
 
-            if (block.getBlockType().getMaterial().isAir()) {
+            if (block.getBlockType().getMaterial().isAir() && previous == null) {
                 return !existing.equalsFuzzy(block);
             }
         }
 
-        stages.get(priority).add(location, block);
+        // A block set earlier at the same location must not be placed after this one
+        PlacementPriority stage = previous != null && previous.compareTo(priority) > 0 ? previous : priority;
+        stages[stage.ordinal()].add(location, block);
+        buffered.put(location, stage);
         return !existing.equalsFuzzy(block);
     }
 
@@ -249,8 +282,8 @@ public Operation commitBefore() {
             return null;
         }
         List<Operation> operations = new ArrayList<>();
-        for (PlacementPriority priority : PlacementPriority.values()) {
-            operations.add(new SetLocatedBlocks(getExtent(), stages.get(priority)));
+        for (LocatedBlockList stage : stages) {
+            operations.add(new SetLocatedBlocks(getExtent(), stage));
         }
 
         return new OperationQueue(operations);
@@ -24,6 +24,7 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.OperationQueue;
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -95,6 +96,17 @@ public void setPostEditSimulationEnabled(boolean enabled) {
         this.postEditSimulation = enabled;
     }
 
+    /**
+     * Mark a chunk as changed so that it is relit when the extent is
+     * committed.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     */
+    void markDirty(int chunkX, int chunkZ) {
+        dirtyChunks.add(BlockVector2.at(chunkX, chunkZ));
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         if (enabled || postEditSimulation) {
@@ -122,14 +134,31 @@ protected Operation commitBefore() {
         if (!commitRequired()) {
             return null;
         }
-        return new Operation() {
+        OperationQueue queue = new OperationQueue();
+        queue.offer(new Operation() {
             @Override
             public Operation resume(RunContext run) throws WorldEditException {
-                if (!dirtyChunks.isEmpty()) {
-                    world.fixAfterFastMode(dirtyChunks);
+                // Extents above may still apply queued blocks before this runs
+                if (dirtyChunks.isEmpty()) {
+                    return null;
                 }
+                Operation relight = new RelightOperation(world, dirtyChunks);
+                dirtyChunks.clear();
+                return relight;
+            }
 
-                if (!enabled && postEditSimulation) {
+            @Override
+            public void cancel() {
+            }
+
+            @Override
+            public void addStatusMessages(List<String> messages) {
+            }
+        });
+        if (!enabled && postEditSimulation) {
+            queue.offer(new Operation() {
+                @Override
+                public Operation resume(RunContext run) throws WorldEditException {
                     Iterator<BlockVector3> positionIterator = positions.iterator();
                     while (run.shouldContinue() && positionIterator.hasNext()) {
                         BlockVector3 position = positionIterator.next();
@@ -140,17 +169,16 @@ public Operation resume(RunContext run) throws WorldEditException {
                     return !positions.isEmpty() ? this : null;
                 }
 
-                return null;
-            }
-
-            @Override
-            public void cancel() {
-            }
+                @Override
+                public void cancel() {
+                }
 
-            @Override
-            public void addStatusMessages(List<String> messages) {
-            }
-        };
+                @Override
+                public void addStatusMessages(List<String> messages) {
+                }
+            });
+        }
+        return queue;
     }
 
 }
@@ -0,0 +1,185 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.util.task.progress.Progress;
+import com.sk89q.worldedit.util.task.progress.ProgressIterator;
+import com.sk89q.worldedit.util.task.progress.ProgressObservable;
+import com.sk89q.worldedit.world.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixes lighting in a set of chunks after a fast mode edit, a few chunks at
+ * a time so that large edits are spread over several ticks when the edit
+ * session is committed through the {@link OperationScheduler}.
+ *
+ * <p>Chunks are visited in Z-order (Morton order) so that neighbouring
+ * chunks are relit close together, which keeps the light engine working on
+ * a compact area instead of jumping across the edit.</p>
+ */
+public class RelightOperation implements Operation, ProgressObservable {
+
+    /**
+     * The number of chunks passed to the world in one call.
+     */
+    public static int CHUNKS_PER_BATCH = 8;
+
+    private static final AtomicLong pendingChunks = new AtomicLong();
+    private static final AtomicLong relitChunks = new AtomicLong();
+
+    private final World world;
+    private final ProgressIterator<BlockVector2> iterator;
+    private int remaining;
+
+    /**
+     * Create a new instance.
+     *
+     * @param world the world
+     * @param chunks the chunks to relight, which are copied
+     */
+    public RelightOperation(World world, Collection<BlockVector2> chunks) {
+        checkNotNull(world);
+        checkNotNull(chunks);
+        this.world = world;
+        List<BlockVector2> ordered = sortSpatially(chunks);
+        this.iterator = ProgressIterator.create(ordered);
+        this.remaining = ordered.size();
+        pendingChunks.addAndGet(remaining);
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        List<BlockVector2> batch = new ArrayList<>(CHUNKS_PER_BATCH);
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() >= CHUNKS_PER_BATCH || !iterator.hasNext()) {
+                relight(batch);
+                batch.clear();
+                if (!run.shouldContinueNow()) {
+                    break;
+                }
+            }
+        }
+        return iterator.hasNext() ? this : null;
+    }
+
+    private void relight(List<BlockVector2> batch) {
+        try {
+            world.fixAfterFastMode(batch);
+        } finally {
+            remaining -= batch.size();
+            pendingChunks.addAndGet(-batch.size());
+            relitChunks.addAndGet(batch.size());
+        }
+    }
+
+    @Override
+    public void cancel() {
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        pendingChunks.addAndGet(-remaining);
+        remaining = 0;
+    }
+
+    @Override
+    public void addStatusMessages(List<String> messages) {
+        messages.add(String.format("%d chunk(s) waiting to be relit (%.0f%% done)",
+                remaining, getProgress().getProgress() * 100));
+    }
+
+    @Override
+    public Progress getProgress() {
+        return iterator.getProgress();
+    }
+
+    /**
+     * Return the chunks in Z-order relative to the smallest coordinates.
+     *
+     * @param chunks the chunks
+     * @return a new sorted list
+     */
+    static List<BlockVector2> sortSpatially(Collection<BlockVector2> chunks) {
+        List<BlockVector2> ordered = new ArrayList<>(chunks);
+        if (ordered.size() < 2) {
+            return ordered;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        for (BlockVector2 chunk : ordered) {
+            minX = Math.min(minX, chunk.getBlockX());
+            minZ = Math.min(minZ, chunk.getBlockZ());
+        }
+        final int originX = minX;
+        final int originZ = minZ;
+        ordered.sort(Comparator.comparingLong(chunk ->
+                interleave(chunk.getBlockX() - originX) | interleave(chunk.getBlockZ() - originZ) << 1));
+        return ordered;
+    }
+
+    /**
+     * Spread the bits of a non-negative value so that there is a zero bit
+     * between each of them.
+     *
+     * @param value the value, of which the lower 32 bits are used
+     * @return the spread value
+     */
+    private static long interleave(int value) {
+        long x = value & 0xFFFFFFFFL;
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x << 2)) & 0x3333333333333333L;
+        x = (x | (x << 1)) & 0x5555555555555555L;
+        return x;
+    }
+
+    /**
+     * Get the number of chunks that are waiting to be relit by all
+     * operations.
+     *
+     * @return the number of chunks
+     */
+    public static long getPendingChunks() {
+        return pendingChunks.get();
+    }
+
+    /**
+     * Get the number of chunks that have been relit since startup.
+     *
+     * @return the number of chunks
+     */
+    public static long getRelitChunks() {
+        return relitChunks.get();
+    }
+
+}
@@ -0,0 +1,337 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.BlockBuffers;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.function.operation.TimedRunContext;
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Collects block changes per chunk section and applies each section to the
+ * world with a single call to
+ * {@link World#setSectionBlocks(int, int, int, short[], int[], int, boolean)},
+ * which sends one update for the section.
+ *
+ * <p>This extent should only be used on worlds that
+ * {@linkplain World#supportsSectionBlocks() support} setting blocks by
+ * section, which are Forge worlds and Bukkit worlds whose implementation
+ * adapter sets blocks by section. Blocks with tile entity data and states
+ * without an internal id are passed on to the {@link FastModeExtent} below
+ * one at a time, as are all blocks if setting a section fails anyway. Reads
+ * see queued blocks.</p>
+ */
+public class SectionWriteExtent extends AbstractDelegateExtent {
+
+    /**
+     * The number of blocks applied per tick when this extent is committed
+     * through the {@link OperationScheduler}, as the edit sessions of
+     * commands are. Synchronous commits apply every queued block at once.
+     */
+    public static int BLOCKS_PER_TICK = 100000;
+
+    /**
+     * The number of sections that may be queued before the oldest is
+     * applied right away, to bound memory use.
+     */
+    private static final int MAX_QUEUED_SECTIONS = 256;
+    private static final int NONE = -1;
+
+    private final World world;
+    private final FastModeExtent fastModeExtent;
+    private final Map<Long, QueuedSection> queue = new LinkedHashMap<>();
+    private boolean enabled = true;
+    private boolean supported = true;
+    private long appliedBlocks;
+    private long appliedSections;
+    private long applyNanos;
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the fast mode extent writing to the world
+     * @param world the world
+     */
+    public SectionWriteExtent(FastModeExtent extent, World world) {
+        super(extent);
+        checkNotNull(world);
+        this.world = world;
+        this.fastModeExtent = extent;
+    }
+
+    /**
+     * Return whether blocks are collected by section.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled && supported;
+    }
+
+    /**
+     * Set whether blocks are collected by section. Queued blocks are kept
+     * until the next commit.
+     *
+     * @param enabled true to collect blocks by section
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private static long key(int sectionX, int sectionY, int sectionZ) {
+        return ((long) sectionX & 0x3FFFFFF) << 38 | ((long) sectionZ & 0x3FFFFFF) << 12 | (sectionY & 0xFFF);
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        if (!queue.isEmpty()) {
+            QueuedSection section = queue.get(key(position.getX() >> 4, position.getY() >> 4, position.getZ() >> 4));
+            if (section != null) {
+                int id = section.states[index(position.getX(), position.getY(), position.getZ())];
+                if (id != NONE) {
+                    return BlockStateIdAccess.getBlockStateById(id);
+                }
+            }
+        }
+        return super.getBlock(position);
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        if (!queue.isEmpty()) {
+            QueuedSection section = queue.get(key(position.getX() >> 4, position.getY() >> 4, position.getZ() >> 4));
+            if (section != null) {
+                int id = section.states[index(position.getX(), position.getY(), position.getZ())];
+                if (id != NONE) {
+                    return BlockStateIdAccess.getBlockStateById(id).toBaseBlock();
+                }
+            }
+        }
+        return super.getFullBlock(position);
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
+        int x = location.getX();
+        int y = location.getY();
+        int z = location.getZ();
+        long key = key(x >> 4, y >> 4, z >> 4);
+
+        OptionalInt id = OptionalInt.empty();
+        if (isEnabled() && !fastModeExtent.isPostEditSimulationEnabled()
+                && !(block instanceof BaseBlock && ((BaseBlock) block).hasNbtData())) {
+            id = BlockStateIdAccess.getBlockStateId(block.toImmutableState());
+        }
+        if (!id.isPresent()) {
+            // Keep the order of changes within the section
+            QueuedSection section = queue.remove(key);
+            if (section != null) {
+                apply(section);
+            }
+            return super.setBlock(location, block);
+        }
+
+        int index = index(x, y, z);
+        QueuedSection section = queue.get(key);
+        if (section != null && section.states[index] == id.getAsInt()) {
+            return false;
+        }
+
+        if (section == null) {
+            if (queue.size() >= MAX_QUEUED_SECTIONS) {
+                Iterator<QueuedSection> it = queue.values().iterator();
+                QueuedSection eldest = it.next();
+                it.remove();
+                apply(eldest);
+                if (!isEnabled()) {
+                    return super.setBlock(location, block);
+                }
+            }
+            section = new QueuedSection(x >> 4, y >> 4, z >> 4);
+            queue.put(key, section);
+        }
+        section.set(index, id.getAsInt());
+        return true;
+    }
+
+    /**
+     * Apply a queued section to the world, falling back to setting its
+     * blocks one at a time if the world cannot set blocks by section.
+     *
+     * @param section the section
+     * @throws WorldEditException thrown on an error
+     */
+    private void apply(QueuedSection section) throws WorldEditException {
+        int[] ids = new int[section.count];
+        for (int i = 0; i < section.count; i++) {
+            ids[i] = section.states[section.indices[i]];
+        }
+
+        if (supported) {
+            long start = System.nanoTime();
+            boolean notifyNeighbors = !fastModeExtent.isEnabled();
+            if (world.setSectionBlocks(section.x, section.y, section.z, section.indices, ids, section.count, notifyNeighbors)) {
+                applyNanos += System.nanoTime() - start;
+                if (!notifyNeighbors) {
+                    fastModeExtent.markDirty(section.x, section.z);
+                }
+                appliedBlocks += section.count;
+                appliedSections++;
+                return;
+            }
+            supported = false;
+        }
+
+        for (int i = 0; i < section.count; i++) {
+            int index = section.indices[i];
+            BlockVector3 position = BlockVector3.at(
+                    (section.x << 4) + (index & 15), (section.y << 4) + (index >> 8), (section.z << 4) + (index >> 4 & 15));
+            super.setBlock(position, BlockStateIdAccess.getBlockStateById(ids[i]));
+        }
+    }
+
+    /**
+     * Returns whether a commit is required, which is the case while blocks
+     * are collected or any are still queued.
+     *
+     * @return true if a commit is required
+     */
+    public boolean commitRequired() {
+        return isEnabled() || !queue.isEmpty();
+    }
+
+    @Override
+    protected Operation commitBefore() {
+        if (!commitRequired()) {
+            return null;
+        }
+        return new Operation() {
+            private RunContext lastRun;
+            private int appliedThisRun;
+
+            @Override
+            public Operation resume(RunContext run) throws WorldEditException {
+                if (run != lastRun) {
+                    lastRun = run;
+                    appliedThisRun = 0;
+                }
+                Iterator<QueuedSection> it = queue.values().iterator();
+                while (it.hasNext()) {
+                    QueuedSection section = it.next();
+                    it.remove();
+                    apply(section);
+                    appliedThisRun += section.count;
+                    if (run instanceof TimedRunContext && appliedThisRun >= BLOCKS_PER_TICK) {
+                        // Leave the rest of the tick to the server
+                        ((TimedRunContext) run).expire();
+                    }
+                    if (!run.shouldContinueNow()) {
+                        return queue.isEmpty() ? null : this;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void cancel() {
+            }
+
+            @Override
+            public void addStatusMessages(List<String> messages) {
+            }
+        };
+    }
+
+    /**
+     * Get the number of blocks that have been set by section.
+     *
+     * @return the number of blocks
+     */
+    public long getAppliedBlocks() {
+        return appliedBlocks;
+    }
+
+    /**
+     * Get the number of sections that have been set.
+     *
+     * @return the number of sections
+     */
+    public long getAppliedSections() {
+        return appliedSections;
+    }
+
+    /**
+     * Get the time spent setting blocks by section.
+     *
+     * @return the time, in nanoseconds
+     */
+    public long getApplyNanos() {
+        return applyNanos;
+    }
+
+    /**
+     * The queued blocks of one section, in the order they were first set.
+     */
+    private static final class QueuedSection {
+        private final int x;
+        private final int y;
+        private final int z;
+        private final int[] states = new int[BlockBuffers.SECTION_VOLUME];
+        private final short[] indices = new short[BlockBuffers.SECTION_VOLUME];
+        private int count;
+
+        private QueuedSection(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            Arrays.fill(states, NONE);
+        }
+
+        private void set(int index, int id) {
+            if (states[index] == NONE) {
+                indices[count++] = (short) index;
+            }
+            states[index] = id;
+        }
+    }
+
+}
@@ -21,14 +21,21 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ForwardingIterator;
+import com.google.common.collect.ForwardingSet;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.FuzzyBlockState;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.OptionalInt;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -39,10 +46,17 @@
  *
  * <p>This mask checks for both an exact block type and state value match,
  * respecting fuzzy status of the BlockState.</p>
+ *
+ * <p>On first use, the list is compiled into a set of the internal ids of
+ * every matching state, so testing a block is a single lookup no matter
+ * how many blocks are in the list. Changing the list compiles it again on
+ * the next test.</p>
  */
 public class BlockMask extends AbstractExtentMask {
 
-    private final Set<BaseBlock> blocks = new HashSet<>();
+    private final Set<BaseBlock> blocks = new BlockSet();
+    @Nullable
+    private BitSet matchingIds;
 
     /**
      * Create a new block mask.
@@ -86,7 +100,8 @@ public void add(BaseBlock... block) {
     }
 
     /**
-     * Get the list of blocks that are tested with.
+     * Get the list of blocks that are tested with. Changes to the list are
+     * used by the mask.
      *
      * @return a list of blocks
      */
@@ -97,6 +112,15 @@ public Collection<BaseBlock> getBlocks() {
     @Override
     public boolean test(BlockVector3 vector) {
         BlockState block = getExtent().getBlock(vector);
+        OptionalInt id = BlockStateIdAccess.getBlockStateId(block);
+        if (id.isPresent()) {
+            BitSet matchingIds = this.matchingIds;
+            if (matchingIds == null) {
+                this.matchingIds = matchingIds = compile();
+            }
+            return matchingIds.get(id.getAsInt());
+        }
+
         for (BaseBlock testBlock : blocks) {
             if (testBlock.equalsFuzzy(block)) {
                 return true;
@@ -106,10 +130,108 @@ public boolean test(BlockVector3 vector) {
         return false;
     }
 
+    /**
+     * Find the internal ids of all states matched by the list. Only the
+     * states of the listed block types need to be checked, and partially
+     * specified states are only compared with the states of their own type.
+     *
+     * @return the set of matching ids
+     */
+    private BitSet compile() {
+        BitSet ids = new BitSet();
+        for (BaseBlock testBlock : blocks) {
+            BlockState testState = testBlock.toImmutableState();
+            if (!(testState instanceof FuzzyBlockState)) {
+                BlockStateIdAccess.getBlockStateId(testState).ifPresent(ids::set);
+                continue;
+            }
+            for (BlockState state : testBlock.getBlockType().getAllStates()) {
+                if (testBlock.equalsFuzzy(state)) {
+                    OptionalInt id = BlockStateIdAccess.getBlockStateId(state);
+                    if (id.isPresent()) {
+                        ids.set(id.getAsInt());
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
         return null;
     }
 
+    /**
+     * The list of blocks, which forgets the compiled ids whenever it is
+     * changed.
+     */
+    private final class BlockSet extends ForwardingSet<BaseBlock> {
+
+        private final Set<BaseBlock> delegate = new HashSet<>();
+
+        @Override
+        protected Set<BaseBlock> delegate() {
+            return delegate;
+        }
+
+        private void changed() {
+            matchingIds = null;
+        }
+
+        @Override
+        public boolean add(BaseBlock element) {
+            changed();
+            return delegate.add(element);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends BaseBlock> collection) {
+            changed();
+            return delegate.addAll(collection);
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            changed();
+            return delegate.remove(object);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            changed();
+            return delegate.removeAll(collection);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> collection) {
+            changed();
+            return delegate.retainAll(collection);
+        }
+
+        @Override
+        public void clear() {
+            changed();
+            delegate.clear();
+        }
+
+        @Override
+        public Iterator<BaseBlock> iterator() {
+            Iterator<BaseBlock> iterator = delegate.iterator();
+            return new ForwardingIterator<BaseBlock>() {
+                @Override
+                protected Iterator<BaseBlock> delegate() {
+                    return iterator;
+                }
+
+                @Override
+                public void remove() {
+                    changed();
+                    iterator.remove();
+                }
+            };
+        }
+    }
+
 }
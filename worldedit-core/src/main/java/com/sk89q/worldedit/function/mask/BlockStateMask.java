@@ -22,19 +22,25 @@
 import com.google.common.collect.Maps;
 import com.sk89q.worldedit.blocks.Blocks;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.registry.state.Property;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockType;
 
 import javax.annotation.Nullable;
+import java.util.BitSet;
 import java.util.Map;
+import java.util.OptionalInt;
 
 public class BlockStateMask extends AbstractExtentMask {
 
     private final Map<String, String> states;
     private final boolean strict;
     private Map<BlockType, Map<Property<Object>, Object>> cache = Maps.newHashMap();
+    // results by internal state id, as the result only depends on the state
+    private final BitSet testedIds = new BitSet();
+    private final BitSet matchingIds = new BitSet();
 
     /**
      * Creates a mask that checks if a given block has the desired properties set to the desired value.
@@ -53,6 +59,19 @@ public BlockStateMask(Extent extent, Map<String, String> states, boolean strict)
     @Override
     public boolean test(BlockVector3 vector) {
         BlockState block = getExtent().getBlock(vector);
+        OptionalInt id = BlockStateIdAccess.getBlockStateId(block);
+        if (!id.isPresent()) {
+            return test(block);
+        }
+        int index = id.getAsInt();
+        if (!testedIds.get(index)) {
+            matchingIds.set(index, test(block));
+            testedIds.set(index);
+        }
+        return matchingIds.get(index);
+    }
+
+    private boolean test(BlockState block) {
         final Map<Property<Object>, Object> checkProps = cache
                 .computeIfAbsent(block.getBlockType(), (b -> Blocks.resolveProperties(states, b)));
         if (strict && checkProps.isEmpty()) {
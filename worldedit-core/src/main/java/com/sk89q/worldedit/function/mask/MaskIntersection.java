@@ -26,7 +26,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -36,10 +36,14 @@
  * Combines several masks and requires that all masks return true
  * when a certain position is tested. It serves as a logical AND operation
  * on a list of masks.
+ *
+ * <p>Masks are tested in the order they were added, stopping at the first
+ * mask that returns false. A mask that is added more than once is only
+ * tested once, at the position it was first added.</p>
  */
 public class MaskIntersection extends AbstractMask {
 
-    private final Set<Mask> masks = new HashSet<>();
+    private final Set<Mask> masks = new LinkedHashSet<>();
 
     /**
      * Create a new intersection.
@@ -80,7 +84,7 @@ public void add(Mask... mask) {
     }
 
     /**
-     * Get the masks that are tested with.
+     * Get the masks that are tested with, in the order they are tested.
      *
      * @return the masks
      */
@@ -0,0 +1,385 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.session.request.RequestExtent;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Rewrites masks into cheaper equivalent masks.
+ *
+ * <p>Intersections and unions are flattened, constant masks are folded,
+ * duplicate masks are dropped, height bounds are combined, block masks in
+ * a union are merged, and the remaining children are ordered so that cheap
+ * checks run before block lookups and expressions.</p>
+ *
+ * <p>Expressions can write to their variables and buffers, so an
+ * intersection or union with an expression among its children keeps the
+ * order of its children and only has constants and duplicates removed.</p>
+ */
+public final class MaskOptimizer {
+
+    private static final int MAX_LISTED_BLOCKS = 8;
+
+    private MaskOptimizer() {
+    }
+
+    /**
+     * Optimize the given mask. The given mask is not modified, though parts
+     * of it may be reused.
+     *
+     * @param mask the mask
+     * @return an equivalent mask
+     */
+    public static Mask optimize(Mask mask) {
+        checkNotNull(mask);
+
+        if (mask.getClass() == MaskUnion.class) {
+            return optimizeUnion((MaskUnion) mask);
+        } else if (mask.getClass() == MaskIntersection.class) {
+            return optimizeIntersection((MaskIntersection) mask);
+        } else if (mask instanceof Masks.NegatedMask) {
+            Mask inner = ((Masks.NegatedMask) mask).getMask();
+            Mask optimized = optimize(inner);
+            return optimized == inner ? mask : Masks.negate(optimized);
+        } else if (mask.getClass() == OffsetMask.class) {
+            OffsetMask offsetMask = (OffsetMask) mask;
+            Mask optimized = optimize(offsetMask.getMask());
+            if (isConstant(optimized)) {
+                return optimized;
+            }
+            return optimized == offsetMask.getMask() ? mask : new OffsetMask(optimized, offsetMask.getOffset());
+        }
+
+        return mask;
+    }
+
+    private static Mask optimizeIntersection(MaskIntersection intersection) {
+        if (intersection.getMasks().isEmpty()) {
+            // An empty intersection never matches
+            return Masks.alwaysFalse();
+        }
+
+        List<Mask> flattened = flatten(intersection.getMasks(), MaskIntersection.class);
+        boolean keepOrder = flattened.stream().anyMatch(MaskOptimizer::hasSideEffects);
+        List<Mask> children = new ArrayList<>();
+        int minY = Integer.MIN_VALUE;
+        int maxY = Integer.MAX_VALUE;
+        boolean bounded = false;
+        for (Mask child : flattened) {
+            if (child == Masks.alwaysTrue()) {
+                continue;
+            } else if (child == Masks.alwaysFalse()) {
+                if (!keepOrder || children.isEmpty()) {
+                    return child;
+                }
+                // The children before it are still tested
+                children.add(child);
+                break;
+            } else if (child instanceof BoundedHeightMask && !keepOrder) {
+                minY = Math.max(minY, ((BoundedHeightMask) child).getMinY());
+                maxY = Math.min(maxY, ((BoundedHeightMask) child).getMaxY());
+                bounded = true;
+                continue;
+            } else if (containsDuplicate(children, child)) {
+                continue;
+            }
+            children.add(child);
+        }
+        if (bounded) {
+            if (minY > maxY) {
+                return Masks.alwaysFalse();
+            }
+            children.add(new BoundedHeightMask(minY, maxY));
+        }
+
+        if (children.isEmpty()) {
+            return Masks.alwaysTrue();
+        } else if (children.size() == 1) {
+            return children.get(0);
+        }
+        if (!keepOrder) {
+            children.sort(Comparator.comparingInt(MaskOptimizer::estimateCost));
+        }
+        return new MaskIntersection(children);
+    }
+
+    private static Mask optimizeUnion(MaskUnion union) {
+        List<Mask> flattened = flatten(union.getMasks(), MaskUnion.class);
+        boolean keepOrder = flattened.stream().anyMatch(MaskOptimizer::hasSideEffects);
+        List<Mask> children = new ArrayList<>();
+        for (Mask child : flattened) {
+            if (child == Masks.alwaysFalse()) {
+                continue;
+            } else if (child == Masks.alwaysTrue()) {
+                if (!keepOrder || children.isEmpty()) {
+                    return child;
+                }
+                // The children before it are still tested
+                children.add(child);
+                break;
+            } else if (containsDuplicate(children, child)) {
+                continue;
+            } else if (!keepOrder && child instanceof BlockMask && mergeBlocks(children, (BlockMask) child)) {
+                continue;
+            } else if (!keepOrder && child instanceof BlockTypeMask && mergeTypes(children, (BlockTypeMask) child)) {
+                continue;
+            }
+            children.add(child);
+        }
+
+        if (children.isEmpty()) {
+            return Masks.alwaysFalse();
+        } else if (children.size() == 1) {
+            return children.get(0);
+        }
+        if (!keepOrder) {
+            children.sort(Comparator.comparingInt(MaskOptimizer::estimateCost));
+        }
+        return new MaskUnion(children);
+    }
+
+    /**
+     * Optimize the given children, replacing children of the given type with
+     * their own children.
+     */
+    private static List<Mask> flatten(Collection<Mask> masks, Class<? extends MaskIntersection> type) {
+        List<Mask> result = new ArrayList<>();
+        for (Mask mask : masks) {
+            Mask optimized = optimize(mask);
+            if (optimized.getClass() == type) {
+                result.addAll(((MaskIntersection) optimized).getMasks());
+            } else {
+                result.add(optimized);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check whether testing a mask can change state that other masks read,
+     * which is the case for masks with an expression in them.
+     */
+    private static boolean hasSideEffects(Mask mask) {
+        if (mask instanceof ExpressionMask) {
+            return true;
+        } else if (mask instanceof Masks.NegatedMask) {
+            return hasSideEffects(((Masks.NegatedMask) mask).getMask());
+        } else if (mask instanceof OffsetMask) {
+            return hasSideEffects(((OffsetMask) mask).getMask());
+        } else if (mask instanceof MaskIntersection) {
+            return ((MaskIntersection) mask).getMasks().stream().anyMatch(MaskOptimizer::hasSideEffects);
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the given list has a mask that always gives the same
+     * result as the given mask. Testing such a mask a second time in the
+     * same intersection or union cannot change the result.
+     */
+    private static boolean containsDuplicate(List<Mask> children, Mask mask) {
+        if (hasSideEffects(mask)) {
+            return false;
+        }
+        for (Mask other : children) {
+            if (other == mask) {
+                return true;
+            } else if (other.getClass() != mask.getClass()) {
+                continue;
+            }
+            if (mask instanceof ExistingBlockMask || mask instanceof SolidBlockMask) {
+                if (sameExtent(((AbstractExtentMask) other).getExtent(), ((AbstractExtentMask) mask).getExtent())) {
+                    return true;
+                }
+            } else if (mask instanceof BlockMask) {
+                BlockMask blockMask = (BlockMask) mask;
+                if (sameExtent(((BlockMask) other).getExtent(), blockMask.getExtent())
+                        && ((BlockMask) other).getBlocks().equals(blockMask.getBlocks())) {
+                    return true;
+                }
+            } else if (mask instanceof BlockTypeMask) {
+                BlockTypeMask typeMask = (BlockTypeMask) mask;
+                if (sameExtent(((BlockTypeMask) other).getExtent(), typeMask.getExtent())
+                        && ((BlockTypeMask) other).getBlocks().equals(typeMask.getBlocks())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean mergeBlocks(List<Mask> children, BlockMask mask) {
+        for (int i = 0; i < children.size(); i++) {
+            Mask other = children.get(i);
+            if (other instanceof BlockMask && sameExtent(((BlockMask) other).getExtent(), mask.getExtent())) {
+                List<BaseBlock> blocks = new ArrayList<>(((BlockMask) other).getBlocks());
+                blocks.addAll(mask.getBlocks());
+                children.set(i, new BlockMask(((BlockMask) other).getExtent(), blocks));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mergeTypes(List<Mask> children, BlockTypeMask mask) {
+        for (int i = 0; i < children.size(); i++) {
+            Mask other = children.get(i);
+            if (other instanceof BlockTypeMask && sameExtent(((BlockTypeMask) other).getExtent(), mask.getExtent())) {
+                List<BlockType> types = new ArrayList<>(((BlockTypeMask) other).getBlocks());
+                types.addAll(mask.getBlocks());
+                children.set(i, new BlockTypeMask(((BlockTypeMask) other).getExtent(), types));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Request extents all read from the current request, so they are
+     * interchangeable.
+     */
+    private static boolean sameExtent(Extent a, Extent b) {
+        return a == b || (a instanceof RequestExtent && b instanceof RequestExtent);
+    }
+
+    private static boolean isConstant(Mask mask) {
+        return mask == Masks.alwaysTrue() || mask == Masks.alwaysFalse();
+    }
+
+    /**
+     * Estimate the relative cost of testing a mask against one position.
+     *
+     * @param mask the mask
+     * @return the estimated cost
+     */
+    public static int estimateCost(Mask mask) {
+        checkNotNull(mask);
+
+        if (isConstant(mask)) {
+            return 0;
+        } else if (mask instanceof BoundedHeightMask) {
+            return 1;
+        } else if (mask instanceof RegionMask) {
+            return ((RegionMask) mask).getRegion() instanceof CuboidRegion ? 1 : 3;
+        } else if (mask instanceof AbstractExtentMask) {
+            // Needs a block lookup
+            return 5;
+        } else if (mask instanceof NoiseFilter) {
+            return 10;
+        } else if (mask instanceof ExpressionMask) {
+            return 50;
+        } else if (mask instanceof OffsetMask) {
+            return estimateCost(((OffsetMask) mask).getMask()) + 1;
+        } else if (mask instanceof Masks.NegatedMask) {
+            return estimateCost(((Masks.NegatedMask) mask).getMask());
+        } else if (mask instanceof MaskIntersection) {
+            int cost = 0;
+            for (Mask child : ((MaskIntersection) mask).getMasks()) {
+                cost += estimateCost(child);
+            }
+            return cost;
+        }
+        return 20;
+    }
+
+    /**
+     * Describe how a mask will be evaluated, one line per mask, with the
+     * children of intersections and unions indented in evaluation order.
+     *
+     * @param mask the mask
+     * @return the lines of the description
+     */
+    public static List<String> explain(Mask mask) {
+        checkNotNull(mask);
+        List<String> lines = new ArrayList<>();
+        explain(mask, "", lines);
+        return lines;
+    }
+
+    private static void explain(Mask mask, String indent, List<String> lines) {
+        lines.add(indent + describe(mask) + " (cost " + estimateCost(mask) + ")");
+        String childIndent = indent + "  ";
+        if (mask instanceof MaskIntersection) {
+            for (Mask child : ((MaskIntersection) mask).getMasks()) {
+                explain(child, childIndent, lines);
+            }
+        } else if (mask instanceof Masks.NegatedMask) {
+            explain(((Masks.NegatedMask) mask).getMask(), childIndent, lines);
+        } else if (mask instanceof OffsetMask) {
+            explain(((OffsetMask) mask).getMask(), childIndent, lines);
+        }
+    }
+
+    private static String describe(Mask mask) {
+        if (mask == Masks.alwaysTrue()) {
+            return "always";
+        } else if (mask == Masks.alwaysFalse()) {
+            return "never";
+        } else if (mask instanceof MaskUnion) {
+            return "any of";
+        } else if (mask instanceof MaskIntersection) {
+            return "all of";
+        } else if (mask instanceof Masks.NegatedMask) {
+            return "not";
+        } else if (mask instanceof OffsetMask) {
+            return "offset by " + ((OffsetMask) mask).getOffset();
+        } else if (mask instanceof BoundedHeightMask) {
+            BoundedHeightMask heightMask = (BoundedHeightMask) mask;
+            return "height " + heightMask.getMinY() + " to " + heightMask.getMaxY();
+        } else if (mask instanceof RegionMask) {
+            return "region " + ((RegionMask) mask).getRegion().getClass().getSimpleName();
+        } else if (mask instanceof BlockMask) {
+            return "blocks " + list(((BlockMask) mask).getBlocks().stream()
+                    .map(BaseBlock::getAsString).collect(Collectors.toList()));
+        } else if (mask instanceof BlockTypeMask) {
+            return "block types " + list(((BlockTypeMask) mask).getBlocks().stream()
+                    .map(BlockType::getId).collect(Collectors.toList()));
+        } else if (mask instanceof ExistingBlockMask) {
+            return "existing blocks";
+        } else if (mask instanceof SolidBlockMask) {
+            return "solid blocks";
+        } else if (mask instanceof ExpressionMask) {
+            return "expression";
+        }
+        String name = mask.getClass().getSimpleName();
+        return name.isEmpty() ? "custom mask" : name;
+    }
+
+    private static String list(List<String> names) {
+        if (names.size() <= MAX_LISTED_BLOCKS) {
+            return String.join(", ", names);
+        }
+        return String.join(", ", names.subList(0, MAX_LISTED_BLOCKS))
+                + " and " + (names.size() - MAX_LISTED_BLOCKS) + " more";
+    }
+
+}
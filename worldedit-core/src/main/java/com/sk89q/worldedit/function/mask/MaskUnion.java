@@ -31,6 +31,9 @@
  * Combines several masks and requires that one or more masks return true
  * when a certain position is tested. It serves as a logical OR operation
  * on a list of masks.
+ *
+ * <p>Masks are tested in the order they were added, stopping at the first
+ * mask that returns true.</p>
  */
 public class MaskUnion extends MaskIntersection {
 
@@ -46,6 +46,15 @@ public static Mask alwaysTrue() {
         return ALWAYS_TRUE;
     }
 
+    /**
+     * Return a 3D mask that always returns false;
+     *
+     * @return a mask
+     */
+    public static Mask alwaysFalse() {
+        return ALWAYS_FALSE;
+    }
+
     /**
      * Return a 2D mask that always returns true;
      *
@@ -66,26 +75,12 @@ public static Mask negate(final Mask mask) {
             return ALWAYS_FALSE;
         } else if (mask instanceof AlwaysFalse) {
             return ALWAYS_TRUE;
+        } else if (mask instanceof NegatedMask) {
+            return ((NegatedMask) mask).getMask();
         }
 
         checkNotNull(mask);
-        return new AbstractMask() {
-            @Override
-            public boolean test(BlockVector3 vector) {
-                return !mask.test(vector);
-            }
-
-            @Nullable
-            @Override
-            public Mask2D toMask2D() {
-                Mask2D mask2d = mask.toMask2D();
-                if (mask2d != null) {
-                    return negate(mask2d);
-                } else {
-                    return null;
-                }
-            }
-        };
+        return new NegatedMask(mask);
     }
 
     /**
@@ -131,6 +126,38 @@ public Mask2D toMask2D() {
         };
     }
 
+    /**
+     * The negation of a mask, kept as its own type so that it can be
+     * unwrapped again.
+     */
+    static final class NegatedMask extends AbstractMask {
+        private final Mask mask;
+
+        private NegatedMask(Mask mask) {
+            this.mask = mask;
+        }
+
+        Mask getMask() {
+            return mask;
+        }
+
+        @Override
+        public boolean test(BlockVector3 vector) {
+            return !mask.test(vector);
+        }
+
+        @Nullable
+        @Override
+        public Mask2D toMask2D() {
+            Mask2D mask2d = mask.toMask2D();
+            if (mask2d != null) {
+                return negate(mask2d);
+            } else {
+                return null;
+            }
+        }
+    }
+
     private static class AlwaysTrue implements Mask, Mask2D {
         @Override
         public boolean test(BlockVector3 vector) {
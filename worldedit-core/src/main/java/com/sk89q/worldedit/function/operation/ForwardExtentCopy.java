@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.entity.metadata.EntityProperties;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.cache.BulkReadExtent;
 import com.sk89q.worldedit.function.CombinedRegionFunction;
 import com.sk89q.worldedit.function.FlatRegionFunction;
 import com.sk89q.worldedit.function.FlatRegionMaskingFilter;
@@ -44,6 +45,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.transform.Identity;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.FlatRegion;
 import com.sk89q.worldedit.regions.Region;
 
@@ -55,6 +57,11 @@
  * <p>This is a forward extent copy, meaning that it iterates over the blocks
  * in the source extent, and will copy as many blocks as there are in the
  * source. Therefore, interpolation will not occur to fill in the gaps.</p>
+ *
+ * <p>When copying a cuboid region to a different extent, blocks are read
+ * from the source several rows at a time with a {@link BulkReadExtent}.
+ * Copies within one extent read block by block, as the copy may change
+ * blocks that it has yet to read.</p>
  */
 public class ForwardExtentCopy implements Operation {
 
@@ -289,7 +296,9 @@ public Operation resume(RunContext run) throws WorldEditException {
                 currentTransform = currentTransform.combine(transform);
             }
 
-            ExtentBlockCopy blockCopy = new ExtentBlockCopy(source, from, destination, to, currentTransform);
+            Extent blockSource = source != destination && region instanceof CuboidRegion
+                    ? new BulkReadExtent(source, region) : source;
+            ExtentBlockCopy blockCopy = new ExtentBlockCopy(blockSource, from, destination, to, currentTransform);
             RegionMaskingFilter filteredFunction = new RegionMaskingFilter(sourceMask,
                     sourceFunction == null ? blockCopy : new CombinedRegionFunction(blockCopy, sourceFunction));
             RegionVisitor blockVisitor = new RegionVisitor(region, filteredFunction);
@@ -98,6 +98,10 @@ public Operation resume(RunContext run) throws WorldEditException {
 
     @Override
     public void cancel() {
+        if (current != null) {
+            current.cancel();
+            current = null;
+        }
         for (Operation operation : queue) {
             operation.cancel();
         }
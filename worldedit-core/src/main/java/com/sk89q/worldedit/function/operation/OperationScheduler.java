@@ -0,0 +1,430 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extent.cache.ChunkSectionCache;
+import com.sk89q.worldedit.session.request.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+/**
+ * Runs operations on the platform's main thread a little at a time, using
+ * at most {@link #TICK_BUDGET} nanoseconds per tick.
+ *
+ * <p>Operations are resumed in the order they were submitted, and are
+ * expected to honor {@link RunContext#shouldContinue()}. If the platform
+ * cannot schedule tasks, or {@link #SPREAD_EDITS} is off, submitted
+ * operations are completed right away.</p>
+ *
+ * <p>The {@link Request} an operation was submitted from is made current
+ * again whenever the operation is resumed, so that extents, masks and
+ * selections bound to the request keep working after it has ended.</p>
+ *
+ * <p>Anything that must see the results of earlier operations, such as a
+ * new command of the same session or a synchronous
+ * {@link EditSession#flushSession()}, first calls one of the
+ * {@code completePending} methods.</p>
+ *
+ * <p>The world may change between ticks, so the blocks cached by the edit
+ * session of an operation are forgotten before it is resumed on a new
+ * tick.</p>
+ */
+public class OperationScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(OperationScheduler.class);
+
+    /**
+     * The time operations may use per tick, in nanoseconds.
+     */
+    public static long TICK_BUDGET = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Whether operations are spread over ticks at all. If not, submitted
+     * operations are completed right away.
+     */
+    public static boolean SPREAD_EDITS = true;
+
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    private @Nullable Platform platform;
+    private @Nullable Platform ticker;
+    private boolean ticking = false;
+
+    private long lastTickNanos;
+    private long maxTickNanos;
+    private double averageTickNanos;
+    private long completedOperations;
+
+    /**
+     * Submit an operation to be run over the following ticks.
+     *
+     * @param operation the operation
+     * @return a future that completes when the operation does
+     */
+    public ListenableFuture<Void> submit(Operation operation) {
+        checkNotNull(operation);
+        SettableFuture<Void> future = SettableFuture.create();
+        synchronized (this) {
+            if (isScheduled()) {
+                queue.add(new Entry(operation, Request.request(), future));
+                return future;
+            }
+        }
+        try {
+            Operations.complete(operation);
+            future.set(null);
+        } catch (Throwable t) {
+            future.setException(t);
+        }
+        return future;
+    }
+
+    /**
+     * Submit an operation run by a command for an actor.
+     *
+     * <p>If operations are spread over ticks, the callback runs on the tick
+     * the operation completes on, and errors are reported to the actor.
+     * Otherwise the operation is completed right away, the callback runs
+     * before this method returns, and errors are thrown to the caller as
+     * they would be by {@link Operations#complete(Operation)}.</p>
+     *
+     * @param operation the operation
+     * @param actor the actor to report errors to
+     * @param callback the callback to run once the operation completes
+     * @return a future that completes once the callback has run, or fails
+     *     if the operation or the callback does
+     * @throws WorldEditException thrown if the operation is completed right away and fails
+     */
+    public ListenableFuture<Void> submit(Operation operation, Actor actor, Runnable callback) throws WorldEditException {
+        checkNotNull(operation);
+        checkNotNull(actor);
+        checkNotNull(callback);
+        if (!isScheduled()) {
+            Operations.complete(operation);
+            callback.run();
+            return Futures.immediateFuture(null);
+        }
+
+        ListenableFuture<Void> future = Futures.transform(submit(operation), result -> {
+            callback.run();
+            return null;
+        }, MoreExecutors.directExecutor());
+        future.addListener(() -> {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof WorldEditException) {
+                    actor.printError(cause.getMessage());
+                } else {
+                    actor.printError("Please report this error: [See console]");
+                    log.error("An operation submitted by " + actor.getName() + " failed", cause);
+                }
+                return;
+            } catch (InterruptedException | RuntimeException ignored) {
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Complete all pending operations right away, in the order they were
+     * submitted.
+     *
+     * <p>This does nothing when called from an operation that the
+     * scheduler is running.</p>
+     */
+    public synchronized void completePending() {
+        completeThrough(request -> true);
+    }
+
+    /**
+     * Complete the pending operations submitted for a session right away,
+     * along with the operations submitted before them, so that changes
+     * still reach the world in order. Later operations of other sessions
+     * keep being spread over ticks.
+     *
+     * <p>This does nothing when called from an operation that the
+     * scheduler is running.</p>
+     *
+     * @param session the session
+     */
+    public synchronized void completePending(LocalSession session) {
+        checkNotNull(session);
+        completeThrough(request -> request.getSession() == session);
+    }
+
+    /**
+     * Complete the pending operations submitted for an edit session right
+     * away, along with the operations submitted before them.
+     *
+     * <p>This does nothing when called from an operation that the
+     * scheduler is running.</p>
+     *
+     * @param editSession the edit session
+     */
+    public synchronized void completePending(EditSession editSession) {
+        checkNotNull(editSession);
+        completeThrough(request -> request.getEditSession() == editSession);
+    }
+
+    /**
+     * Complete pending operations up to and including the last one whose
+     * request matches the predicate.
+     *
+     * @param predicate the predicate
+     */
+    private void completeThrough(Predicate<Request> predicate) {
+        if (ticking) {
+            return;
+        }
+        int count = 0;
+        int index = 0;
+        for (Entry entry : queue) {
+            index++;
+            if (predicate.test(entry.request)) {
+                count = index;
+            }
+        }
+        ticking = true;
+        try {
+            for (int i = 0; i < count; i++) {
+                Entry entry = queue.poll();
+                forgetCachedBlocks(entry);
+                try {
+                    while (entry.operation != null) {
+                        entry.operation = resume(entry, new RunContext());
+                    }
+                    completedOperations++;
+                    entry.future.set(null);
+                } catch (Throwable t) {
+                    entry.operation.cancel();
+                    entry.future.setException(t);
+                }
+            }
+        } finally {
+            ticking = false;
+        }
+    }
+
+    /**
+     * Resume an operation with the request it was submitted from.
+     *
+     * @param entry the entry of the operation
+     * @param run the run context
+     * @return the operation to resume later, or null if it is complete
+     * @throws WorldEditException thrown on an error
+     */
+    private static Operation resume(Entry entry, RunContext run) throws WorldEditException {
+        Request current = Request.request();
+        Request.restore(entry.request);
+        try {
+            return entry.operation.resume(run);
+        } finally {
+            Request.restore(current);
+        }
+    }
+
+    /**
+     * Forget the blocks cached by the edit session of an operation.
+     *
+     * @param entry the entry of the operation
+     */
+    private static void forgetCachedBlocks(Entry entry) {
+        EditSession editSession = entry.request.getEditSession();
+        ChunkSectionCache cache = editSession != null ? editSession.getBlockCache() : null;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Resume pending operations until the tick budget is used up.
+     */
+    public synchronized void tick() {
+        if (queue.isEmpty() || ticking) {
+            return;
+        }
+
+        ticking = true;
+        long start = System.nanoTime();
+        TimedRunContext run = new TimedRunContext(TICK_BUDGET);
+        Entry resumed = null;
+        try {
+            do {
+                Entry entry = queue.peek();
+                if (entry != resumed) {
+                    forgetCachedBlocks(entry);
+                    resumed = entry;
+                }
+                try {
+                    entry.operation = resume(entry, run);
+                    if (entry.operation == null) {
+                        queue.poll();
+                        completedOperations++;
+                        entry.future.set(null);
+                    }
+                } catch (Throwable t) {
+                    queue.poll();
+                    entry.operation.cancel();
+                    entry.future.setException(t);
+                }
+            } while (!queue.isEmpty() && run.shouldContinueNow());
+        } finally {
+            ticking = false;
+        }
+
+        lastTickNanos = System.nanoTime() - start;
+        maxTickNanos = Math.max(maxTickNanos, lastTickNanos);
+        averageTickNanos = averageTickNanos == 0 ? lastTickNanos : averageTickNanos * 0.95 + lastTickNanos * 0.05;
+    }
+
+    /**
+     * Cancel all pending operations.
+     */
+    public synchronized void cancelAll() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            entry.operation.cancel();
+            entry.future.cancel(false);
+        }
+    }
+
+    /**
+     * Get the number of operations waiting to complete.
+     *
+     * @return the queue depth
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Get the time the last tick with pending operations took.
+     *
+     * @param unit the unit to return the time in
+     * @return the time spent
+     */
+    public synchronized long getLastTickTime(TimeUnit unit) {
+        return unit.convert(lastTickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the longest time a tick has taken.
+     *
+     * @param unit the unit to return the time in
+     * @return the time spent
+     */
+    public synchronized long getMaxTickTime(TimeUnit unit) {
+        return unit.convert(maxTickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the moving average of the time ticks with pending operations took.
+     *
+     * @param unit the unit to return the time in
+     * @return the time spent
+     */
+    public synchronized long getAverageTickTime(TimeUnit unit) {
+        return unit.convert((long) averageTickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the number of operations that have completed successfully.
+     *
+     * @return the number of completed operations
+     */
+    public synchronized long getCompletedOperations() {
+        return completedOperations;
+    }
+
+    /**
+     * Returns whether operations are spread over ticks, rather than
+     * completed when they are submitted.
+     *
+     * @return true if the platform runs the scheduler every tick
+     */
+    public synchronized boolean isScheduled() {
+        return platform != null && SPREAD_EDITS;
+    }
+
+    /**
+     * Run the scheduler every tick on the given platform. This is called
+     * when the platform is chosen to modify worlds.
+     *
+     * @param platform the platform
+     */
+    public synchronized void start(Platform platform) {
+        checkNotNull(platform);
+        if (this.platform != null) {
+            return;
+        }
+        // Platforms cannot cancel tasks, so the task of a platform that was
+        // stopped and started again is reused
+        if (ticker != platform) {
+            if (platform.schedule(1, 1, this::tick) == -1) {
+                log.info("{} cannot schedule tasks, operations will be completed immediately", platform.getPlatformName());
+                return;
+            }
+            ticker = platform;
+        }
+        this.platform = platform;
+    }
+
+    /**
+     * Complete pending operations and stop running the scheduler on the
+     * current platform. This is called when the platform is unloaded.
+     */
+    public synchronized void stop() {
+        completePending();
+        platform = null;
+    }
+
+    private static final class Entry {
+        private Operation operation;
+        private final Request request;
+        private final SettableFuture<Void> future;
+
+        private Entry(Operation operation, Request request, SettableFuture<Void> future) {
+            this.operation = operation;
+            this.request = request;
+            this.future = future;
+        }
+    }
+
+}
@@ -35,4 +35,18 @@ public boolean shouldContinue() {
         return true;
     }
 
+    /**
+     * Return whether the current operation should still continue running,
+     * for operations that do a lot of work between calls, such as a whole
+     * chunk at a time.
+     *
+     * <p>{@link #shouldContinue()} may only check the limits of the run
+     * every so many calls, but this method always does.</p>
+     *
+     * @return true if the operation should continue running
+     */
+    public boolean shouldContinueNow() {
+        return shouldContinue();
+    }
+
 }
@@ -21,26 +21,68 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.util.LocatedBlock;
+import com.sk89q.worldedit.util.collection.LocatedBlockList;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 public class SetLocatedBlocks implements Operation {
 
     private final Extent extent;
+    @Nullable
     private final Iterable<LocatedBlock> blocks;
+    @Nullable
+    private final LocatedBlockList list;
+    // the list may be modified between create/resume -- only create this on resume
+    private LocatedBlockList.Cursor cursor;
 
     public SetLocatedBlocks(Extent extent, Iterable<LocatedBlock> blocks) {
         this.extent = checkNotNull(extent);
         this.blocks = checkNotNull(blocks);
+        this.list = null;
+    }
+
+    /**
+     * Create a new operation that replays a {@link LocatedBlockList} without
+     * creating a {@link LocatedBlock} per entry. The operation may be
+     * resumed across multiple calls if the run context asks it to stop.
+     *
+     * @param extent the extent to set the blocks in
+     * @param list the blocks
+     */
+    public SetLocatedBlocks(Extent extent, LocatedBlockList list) {
+        this.extent = checkNotNull(extent);
+        this.blocks = null;
+        this.list = checkNotNull(list);
     }
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (LocatedBlock block : blocks) {
-            extent.setBlock(block.getLocation(), block.getBlock());
+        if (list == null) {
+            for (LocatedBlock block : blocks) {
+                extent.setBlock(block.getLocation(), block.getBlock());
+            }
+            return null;
+        }
+
+        if (cursor == null) {
+            cursor = list.cursor();
+        }
+        while (cursor.next()) {
+            CompoundTag nbt = cursor.getNbtData();
+            if (nbt == null) {
+                extent.setBlock(cursor.getLocation(), cursor.getState());
+            } else {
+                extent.setBlock(cursor.getLocation(), cursor.getState().toBaseBlock(nbt));
+            }
+            if (!run.shouldContinue()) {
+                return this;
+            }
         }
         return null;
     }
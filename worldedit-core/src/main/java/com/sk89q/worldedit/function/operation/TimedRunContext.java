@@ -0,0 +1,74 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+/**
+ * A run that should stop once a time budget has been used up.
+ */
+public class TimedRunContext extends RunContext {
+
+    /**
+     * {@link System#nanoTime()} is only checked once per this many calls
+     * to {@link #shouldContinue()}.
+     */
+    private static final int CHECK_INTERVAL = 64;
+
+    private final long deadline;
+    private int calls;
+    private boolean expired;
+
+    /**
+     * Create a new run that starts now.
+     *
+     * @param budgetNanos the time budget, in nanoseconds
+     */
+    public TimedRunContext(long budgetNanos) {
+        this.deadline = System.nanoTime() + budgetNanos;
+    }
+
+    @Override
+    public boolean shouldContinue() {
+        if (expired) {
+            return false;
+        }
+        if (++calls % CHECK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) {
+            expired = true;
+        }
+        return !expired;
+    }
+
+    @Override
+    public boolean shouldContinueNow() {
+        if (!expired && System.nanoTime() - deadline >= 0) {
+            expired = true;
+        }
+        return !expired;
+    }
+
+    /**
+     * End the run early, so that {@link #shouldContinue()} returns false
+     * from now on. Operations with a budget of their own can use this to
+     * give up the rest of the run.
+     */
+    public void expire() {
+        expired = true;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.pattern;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites patterns into cheaper equivalent patterns.
+ *
+ * <p>Nested random patterns are flattened into a single weighted list,
+ * duplicate blocks have their weights combined, and random patterns with
+ * a single choice are replaced by that choice.</p>
+ */
+public final class PatternOptimizer {
+
+    private PatternOptimizer() {
+    }
+
+    /**
+     * Optimize the given pattern. The given pattern is not modified, though
+     * parts of it may be reused.
+     *
+     * @param pattern the pattern
+     * @return an equivalent pattern
+     */
+    public static Pattern optimize(Pattern pattern) {
+        checkNotNull(pattern);
+
+        if (pattern.getClass() != RandomPattern.class) {
+            return pattern;
+        }
+
+        Map<Object, Pattern> patterns = new LinkedHashMap<>();
+        Map<Object, Double> weights = new LinkedHashMap<>();
+        collect((RandomPattern) pattern, 1, patterns, weights);
+
+        if (patterns.size() == 1) {
+            return patterns.values().iterator().next();
+        }
+
+        RandomPattern optimized = new RandomPattern();
+        for (Map.Entry<Object, Pattern> entry : patterns.entrySet()) {
+            optimized.add(entry.getValue(), weights.get(entry.getKey()));
+        }
+        return optimized;
+    }
+
+    /**
+     * Add the choices of a random pattern to the given maps, with their
+     * weights scaled so that they add up to the given share. Block patterns
+     * are keyed by their block so that duplicates share one entry; other
+     * patterns are keyed by identity.
+     */
+    private static void collect(RandomPattern pattern, double share,
+                                Map<Object, Pattern> patterns, Map<Object, Double> weights) {
+        List<Pattern> children = pattern.getPatterns();
+        double total = 0;
+        for (int i = 0; i < children.size(); i++) {
+            total += pattern.getWeight(i);
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            Pattern child = children.get(i);
+            double weight = total > 0 ? pattern.getWeight(i) / total * share : 0;
+            if (child.getClass() == RandomPattern.class) {
+                collect((RandomPattern) child, weight, patterns, weights);
+                continue;
+            }
+            Object key = child instanceof BlockPattern ? ((BlockPattern) child).getBlock() : child;
+            patterns.putIfAbsent(key, child);
+            weights.merge(key, weight, Double::sum);
+        }
+    }
+
+}
@@ -27,6 +27,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
 
 /**
  * Uses a random pattern of a weighted list of patterns.
@@ -52,6 +53,26 @@ public void add(Pattern pattern, double chance) {
         max += chance;
     }
 
+    /**
+     * Get the patterns this pattern chooses from.
+     *
+     * @return the patterns
+     */
+    public List<Pattern> getPatterns() {
+        return patterns.stream().map(Chance::getPattern).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the weight of the pattern at the given index of
+     * {@link #getPatterns()}.
+     *
+     * @param index the index
+     * @return the weight
+     */
+    public double getWeight(int index) {
+        return patterns.get(index).getChance();
+    }
+
     @Override
     public BaseBlock apply(BlockVector3 position) {
         double r = random.nextDouble();
@@ -21,20 +21,19 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.sk89q.worldedit.MaxSearchMemoryException;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.function.RegionFunction;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.Direction;
+import com.sk89q.worldedit.util.collection.LongHashSet;
+import com.sk89q.worldedit.util.collection.LongRingBuffer;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
 
 /**
  * Performs a breadth-first search starting from points added with
@@ -46,13 +45,25 @@
  * <p>As an abstract implementation, this class can be used to implement
  * functionality that starts at certain points and extends outward from
  * those points.</p>
+ *
+ * <p>Visited and queued positions are tracked as packed {@code long}s.
+ * Positions outside the packable range (see
+ * {@link BlockVector3#isLongPackable()}) are never visited. If tracking
+ * them needs more than {@link #getMaxMemory()} bytes, the search stops
+ * with a {@link MaxSearchMemoryException}.</p>
  */
 public abstract class BreadthFirstSearch implements Operation {
 
+    /**
+     * The default number of bytes a search may use to track positions.
+     */
+    public static long DEFAULT_MAX_MEMORY = 512L * 1024 * 1024;
+
     private final RegionFunction function;
-    private final Queue<BlockVector3> queue = new ArrayDeque<>();
-    private final Set<BlockVector3> visited = new HashSet<>();
+    private final LongRingBuffer queue = new LongRingBuffer();
+    private final LongHashSet visited = new LongHashSet();
     private final List<BlockVector3> directions = new ArrayList<>();
+    private long maxMemory = DEFAULT_MAX_MEMORY;
     private int affected = 0;
 
     /**
@@ -104,6 +115,26 @@ protected void addDiagonal() {
         directions.add(Direction.NORTHWEST.toBlockVector());
     }
 
+    /**
+     * Get the maximum number of bytes this search may use to track
+     * visited and queued positions.
+     *
+     * @return the limit in bytes, or -1 if unlimited
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Set the maximum number of bytes this search may use to track
+     * visited and queued positions.
+     *
+     * @param maxMemory the limit in bytes, or -1 if unlimited
+     */
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
     /**
      * Add the given location to the list of locations to visit, provided
      * that it has not been visited. The position passed to this method
@@ -119,10 +150,12 @@ protected void addDiagonal() {
      * @param position the position
      */
     public void visit(BlockVector3 position) {
-        BlockVector3 blockVector = position;
-        if (!visited.contains(blockVector)) {
-            queue.add(blockVector);
-            visited.add(blockVector);
+        if (!position.isLongPackable()) {
+            return;
+        }
+        long packed = position.toLongPackedForm();
+        if (visited.add(packed)) {
+            queue.add(packed);
         }
     }
 
@@ -130,18 +163,31 @@ public void visit(BlockVector3 position) {
      * Try to visit the given 'to' location.
      *
      * @param from the origin block
-     * @param to the block under question
+     * @param x the X coordinate of the block under question
+     * @param y the Y coordinate of the block under question
+     * @param z the Z coordinate of the block under question
      */
-    private void visit(BlockVector3 from, BlockVector3 to) {
-        BlockVector3 blockVector = to;
-        if (!visited.contains(blockVector)) {
-            visited.add(blockVector);
-            if (isVisitable(from, to)) {
-                queue.add(blockVector);
+    private void visit(BlockVector3 from, int x, int y, int z) throws MaxSearchMemoryException {
+        if (!BlockVector3.isLongPackable(x, y, z)) {
+            return;
+        }
+        long packed = BlockVector3.toLongPackedForm(x, y, z);
+        if (isAtMemoryLimit()) {
+            // Only a new position would need more memory
+            if (visited.contains(packed)) {
+                return;
             }
+            throw new MaxSearchMemoryException(maxMemory, visited.size());
+        }
+        if (visited.add(packed) && isVisitable(from, BlockVector3.at(x, y, z))) {
+            queue.add(packed);
         }
     }
 
+    private boolean isAtMemoryLimit() {
+        return maxMemory >= 0 && visited.getMemoryUsageAfterGrowth() + queue.getMemoryUsage() > maxMemory;
+    }
+
     /**
      * Return whether the given 'to' block should be visited, starting from the
      * 'from' block.
@@ -163,15 +209,28 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        BlockVector3 position;
-        
-        while ((position = queue.poll()) != null) {
+        int[] offsets = new int[directions.size() * 3];
+        int i = 0;
+        for (BlockVector3 dir : directions) {
+            offsets[i++] = dir.getX();
+            offsets[i++] = dir.getY();
+            offsets[i++] = dir.getZ();
+        }
+
+        while (!queue.isEmpty()) {
+            if (!run.shouldContinue()) {
+                return this;
+            }
+            BlockVector3 position = BlockVector3.fromLongPackedForm(queue.remove());
             if (function.apply(position)) {
                 affected++;
             }
 
-            for (BlockVector3 dir : directions) {
-                visit(position, position.add(dir));
+            int x = position.getX();
+            int y = position.getY();
+            int z = position.getZ();
+            for (int j = 0; j < offsets.length; j += 3) {
+                visit(position, x + offsets[j], y + offsets[j + 1], z + offsets[j + 2]);
             }
         }
 
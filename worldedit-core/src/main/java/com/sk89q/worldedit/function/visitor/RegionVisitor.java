@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 
 import java.util.List;
 
@@ -35,6 +36,9 @@ public class RegionVisitor implements Operation {
 
     private final Region region;
     private final RegionFunction function;
+    private SpanIterator spans;
+    private int nextX;
+    private int maxX;
     private int affected = 0;
 
     public RegionVisitor(Region region, RegionFunction function) {
@@ -53,13 +57,27 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector3 pt : region) {
-            if (function.apply(pt)) {
+        if (spans == null) {
+            spans = region.spans();
+            nextX = 1;
+            maxX = 0;
+        }
+        while (true) {
+            if (nextX > maxX) {
+                if (!spans.next()) {
+                    return null;
+                }
+                nextX = spans.getMinX();
+                maxX = spans.getMaxX();
+            }
+            if (function.apply(BlockVector3.at(nextX, spans.getY(), spans.getZ()))) {
                 affected++;
             }
+            nextX++;
+            if (!run.shouldContinue()) {
+                return this;
+            }
         }
-
-        return null;
     }
 
     @Override
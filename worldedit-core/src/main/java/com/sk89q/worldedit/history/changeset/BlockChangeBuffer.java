@@ -0,0 +1,187 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.changeset;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Stores block changes as packed positions and state ids in primitive
+ * arrays, with NBT data kept in side tables.
+ */
+final class BlockChangeBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<Integer, CompoundTag> previousNbt = new HashMap<>();
+    private final Map<Integer, CompoundTag> currentNbt = new HashMap<>();
+    private long[] positions;
+    private int[] previous;
+    private int[] current;
+    private int size;
+
+    BlockChangeBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private BlockChangeBuffer(int capacity) {
+        positions = new long[capacity];
+        previous = new int[capacity];
+        current = new int[capacity];
+    }
+
+    void add(long position, int previousId, CompoundTag previousTag, int currentId, CompoundTag currentTag) {
+        if (size == positions.length) {
+            int capacity = positions.length + (positions.length >> 1);
+            positions = Arrays.copyOf(positions, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            current = Arrays.copyOf(current, capacity);
+        }
+        int index = size++;
+        positions[index] = position;
+        previous[index] = previousId;
+        current[index] = currentId;
+        if (previousTag != null) {
+            previousNbt.put(index, previousTag);
+        }
+        if (currentTag != null) {
+            currentNbt.put(index, currentTag);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Remove all changes and release the backing arrays.
+     */
+    void clear() {
+        positions = new long[INITIAL_CAPACITY];
+        previous = new int[INITIAL_CAPACITY];
+        current = new int[INITIAL_CAPACITY];
+        previousNbt.clear();
+        currentNbt.clear();
+        size = 0;
+    }
+
+    long getMemoryUsage() {
+        return (long) positions.length * (Long.BYTES + Integer.BYTES * 2);
+    }
+
+    /**
+     * Get an iterator over the changes in this buffer.
+     *
+     * <p>Redo iterates forward and yields the current blocks, undo iterates
+     * backward and yields the previous blocks.</p>
+     *
+     * @param stateIds the mapper that produced the stored ids
+     * @param undo true to create an undo iterator
+     * @return an iterator
+     */
+    Iterator<Change> iterator(BlockStateIdMapper stateIds, boolean undo) {
+        return new Iterator<Change>() {
+            private final int[] states = undo ? previous : current;
+            private final Map<Integer, CompoundTag> nbt = undo ? previousNbt : currentNbt;
+            private final int end = size;
+            private int next = undo ? size - 1 : 0;
+
+            @Override
+            public boolean hasNext() {
+                return undo ? next >= 0 : next < end;
+            }
+
+            @Override
+            public Change next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                BaseBlock block = stateIds.getState(states[next]).toBaseBlock(nbt.get(next));
+                Change change = new BlockChange(BlockVector3.fromLongPackedForm(positions[next]), block, block);
+                next += undo ? -1 : 1;
+                return change;
+            }
+        };
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(positions[i]);
+            out.writeInt(previous[i]);
+            out.writeInt(current[i]);
+        }
+        NBTOutputStream nbtOut = new NBTOutputStream(out);
+        writeNbt(out, nbtOut, previousNbt);
+        writeNbt(out, nbtOut, currentNbt);
+    }
+
+    private static void writeNbt(DataOutputStream out, NBTOutputStream nbtOut, Map<Integer, CompoundTag> nbt) throws IOException {
+        out.writeInt(nbt.size());
+        for (Map.Entry<Integer, CompoundTag> entry : nbt.entrySet()) {
+            out.writeInt(entry.getKey());
+            nbtOut.writeNamedTag("", entry.getValue());
+        }
+    }
+
+    static BlockChangeBuffer read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        BlockChangeBuffer buffer = new BlockChangeBuffer(Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            buffer.positions[i] = in.readLong();
+            buffer.previous[i] = in.readInt();
+            buffer.current[i] = in.readInt();
+        }
+        buffer.size = size;
+        NBTInputStream nbtIn = new NBTInputStream(in);
+        readNbt(in, nbtIn, buffer.previousNbt);
+        readNbt(in, nbtIn, buffer.currentNbt);
+        return buffer;
+    }
+
+    private static void readNbt(DataInputStream in, NBTInputStream nbtIn, Map<Integer, CompoundTag> nbt) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int index = in.readInt();
+            Tag tag = nbtIn.readNamedTag().getTag();
+            if (!(tag instanceof CompoundTag)) {
+                throw new IOException("Expected a compound tag for block " + index);
+            }
+            nbt.put(index, (CompoundTag) tag);
+        }
+    }
+
+}
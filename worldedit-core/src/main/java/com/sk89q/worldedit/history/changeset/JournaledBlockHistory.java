@@ -0,0 +1,249 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.changeset;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.sk89q.worldedit.history.change.Change;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An extension of {@link PackedBlockHistory} that moves block changes to a
+ * compressed journal file once a threshold is reached.
+ *
+ * <p>The journal is append-only and made of independently compressed
+ * segments. An in-memory index of segment offsets lets undo read the
+ * segments back one at a time in reverse order.</p>
+ *
+ * <p>If the journal cannot be written, changes are kept in memory
+ * instead. The journal file is not removed automatically; it is deleted
+ * when this change set is {@link #close() closed}, which the owning
+ * session does when the edit is evicted from its history or cleared, and
+ * the edit session does when it is closed without being remembered.
+ * Journals left behind by a crash are removed with
+ * {@link #deleteJournals(File)} at startup.</p>
+ */
+public class JournaledBlockHistory extends PackedBlockHistory implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournaledBlockHistory.class);
+    private static final String JOURNAL_PREFIX = "edit-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private final File directory;
+    private final int threshold;
+    private final List<Segment> segments = new ArrayList<>();
+    private int journaledCount;
+    private @Nullable File file;
+    private @Nullable RandomAccessFile journal;
+    private boolean failed;
+
+    /**
+     * Create a new instance.
+     *
+     * @param directory the directory to create the journal file in
+     * @param threshold the number of block changes to keep in memory before writing them to the journal
+     */
+    public JournaledBlockHistory(File directory, int threshold) {
+        checkNotNull(directory);
+        checkArgument(threshold > 0, "threshold must be positive");
+        this.directory = directory;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void add(Change change) {
+        super.add(change);
+
+        if (getBlocks().size() >= threshold) {
+            spill();
+        }
+    }
+
+    /**
+     * Write all block changes currently held in memory to the journal.
+     */
+    public void spill() {
+        BlockChangeBuffer blocks = getBlocks();
+        if (blocks.size() == 0 || failed) {
+            return;
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+                blocks.write(out);
+            } finally {
+                deflater.end();
+            }
+
+            RandomAccessFile journal = openJournal();
+            long offset = journal.length();
+            journal.seek(offset);
+            journal.write(bytes.toByteArray());
+
+            segments.add(new Segment(offset, bytes.size()));
+            journaledCount += blocks.size();
+            blocks.clear();
+        } catch (IOException e) {
+            log.warn("Failed to write history journal, keeping changes in memory", e);
+            failed = true;
+        }
+    }
+
+    private RandomAccessFile openJournal() throws IOException {
+        if (journal == null) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create history journal directory " + directory);
+            }
+            file = File.createTempFile(JOURNAL_PREFIX, JOURNAL_SUFFIX, directory);
+            journal = new RandomAccessFile(file, "rw");
+        }
+        return journal;
+    }
+
+    private BlockChangeBuffer readSegment(Segment segment) {
+        try {
+            byte[] data = new byte[segment.length];
+            checkNotNull(journal).seek(segment.offset);
+            journal.readFully(data);
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+                return BlockChangeBuffer.read(in);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read history journal " + file, e);
+        }
+    }
+
+    @Override
+    protected Iterator<Change> forwardBlockIterator() {
+        return Iterators.concat(
+                Iterators.concat(Iterators.transform(segments.iterator(),
+                        segment -> readSegment(segment).iterator(getStateIds(), false))),
+                super.forwardBlockIterator());
+    }
+
+    @Override
+    protected Iterator<Change> backwardBlockIterator() {
+        return Iterators.concat(
+                super.backwardBlockIterator(),
+                Iterators.concat(Iterators.transform(Lists.reverse(segments).iterator(),
+                        segment -> readSegment(segment).iterator(getStateIds(), true))));
+    }
+
+    @Override
+    public int size() {
+        return super.size() + journaledCount;
+    }
+
+    /**
+     * Get the number of bytes written to the journal file.
+     *
+     * @return the journal size in bytes
+     */
+    public long getJournalSize() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.length;
+        }
+        return total;
+    }
+
+    /**
+     * Close and delete the journal file. The journaled changes can no
+     * longer be undone or redone afterwards, and later changes are kept
+     * in memory.
+     */
+    @Override
+    public void close() {
+        segments.clear();
+        journaledCount = 0;
+        failed = true;
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close history journal " + file, e);
+            }
+            journal = null;
+        }
+        if (file != null) {
+            if (!file.delete()) {
+                log.warn("Failed to delete history journal " + file);
+            }
+            file = null;
+        }
+    }
+
+    /**
+     * Delete the journal files in a directory. This must only be called
+     * when no journaled history is in use, such as at startup.
+     *
+     * @param directory the journal directory
+     * @return the number of journals deleted
+     */
+    public static int deleteJournals(File directory) {
+        checkNotNull(directory);
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX));
+        if (files == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (File file : files) {
+            if (file.delete()) {
+                deleted++;
+            } else {
+                log.warn("Failed to delete history journal " + file);
+            }
+        }
+        return deleted;
+    }
+
+    private static final class Segment {
+        private final long offset;
+        private final int length;
+
+        private Segment(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.changeset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Iterators;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+
+import java.util.Iterator;
+
+/**
+ * An extension of {@link ArrayListHistory} that stores {@link BlockChange}s
+ * in primitive arrays.
+ *
+ * <p>Positions are stored as packed {@code long}s and blocks as state ids,
+ * which costs 16 bytes per change instead of several objects. NBT data is
+ * kept in a side table only for blocks that carry it. Block changes at
+ * positions that cannot be packed are stored as regular {@link Change}s.</p>
+ *
+ * <p>{@link BlockChange}s are only created when iterating.</p>
+ */
+public class PackedBlockHistory extends ArrayListHistory {
+
+    private final BlockStateIdMapper stateIds = new BlockStateIdMapper();
+    private final BlockChangeBuffer blocks = new BlockChangeBuffer();
+
+    @Override
+    public void add(Change change) {
+        checkNotNull(change);
+
+        if (change instanceof BlockChange && ((BlockChange) change).getPosition().isLongPackable()) {
+            if (isRecordingChanges()) {
+                BlockChange blockChange = (BlockChange) change;
+                BaseBlock previous = blockChange.getPrevious();
+                BaseBlock current = blockChange.getCurrent();
+                blocks.add(blockChange.getPosition().toLongPackedForm(),
+                        stateIds.getId(previous.toImmutableState()), previous.getNbtData(),
+                        stateIds.getId(current.toImmutableState()), current.getNbtData());
+            }
+        } else {
+            super.add(change);
+        }
+    }
+
+    @Override
+    public Iterator<Change> forwardIterator() {
+        return Iterators.concat(super.forwardIterator(), forwardBlockIterator());
+    }
+
+    @Override
+    public Iterator<Change> backwardIterator() {
+        return Iterators.concat(super.backwardIterator(), backwardBlockIterator());
+    }
+
+    /**
+     * Get a redo directed iterator over the packed block changes only.
+     *
+     * @return a forward directed iterator
+     */
+    protected Iterator<Change> forwardBlockIterator() {
+        return blocks.iterator(stateIds, false);
+    }
+
+    /**
+     * Get an undo directed iterator over the packed block changes only.
+     *
+     * @return a backward directed iterator
+     */
+    protected Iterator<Change> backwardBlockIterator() {
+        return blocks.iterator(stateIds, true);
+    }
+
+    @Override
+    public int size() {
+        return super.size() + blocks.size();
+    }
+
+    /**
+     * Get an estimate of the number of bytes used by the stored block changes.
+     *
+     * <p>Changes that are not block changes and NBT data are not included
+     * in the estimate.</p>
+     *
+     * @return the estimated number of bytes
+     */
+    public long getBlockMemoryUsage() {
+        return blocks.getMemoryUsage();
+    }
+
+    BlockChangeBuffer getBlocks() {
+        return blocks;
+    }
+
+    BlockStateIdMapper getStateIds() {
+        return stateIds;
+    }
+
+}
@@ -58,7 +58,7 @@ public static void register(BlockState blockState) {
         if (id.isPresent()) {
             int i = id.getAsInt();
             while (i >= blockStates.length) {
-                blockStates = Arrays.copyOf(blockStates, blockStates.length + blockStates.length >> 1);
+                blockStates = Arrays.copyOf(blockStates, blockStates.length + (blockStates.length >> 1));
             }
             BlockState existing = blockStates[i];
             checkState(existing == null || existing == blockState,
@@ -0,0 +1,91 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.block;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.sk89q.worldedit.world.block.BlockState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Maps block states to compact {@code int} ids for primitive storage.
+ *
+ * <p>The platform's internal ids from {@link BlockStateIdAccess} are used
+ * where available. States without an internal id are assigned a negative id
+ * from a table local to this mapper, so ids are only meaningful to the
+ * mapper that produced them.</p>
+ */
+public final class BlockStateIdMapper {
+
+    private final List<BlockState> localStates = new ArrayList<>();
+    private final Map<BlockState, Integer> localIds = new HashMap<>();
+
+    /**
+     * Get the id for the given state, assigning a local id if necessary.
+     *
+     * @param state the state
+     * @return the id
+     */
+    public int getId(BlockState state) {
+        checkNotNull(state);
+        OptionalInt internalId = BlockStateIdAccess.getBlockStateId(state);
+        if (internalId.isPresent()) {
+            return internalId.getAsInt();
+        }
+        Integer localId = localIds.get(state);
+        if (localId == null) {
+            localId = ~localStates.size();
+            localStates.add(state);
+            localIds.put(state, localId);
+        }
+        return localId;
+    }
+
+    /**
+     * Get the state for an id previously returned by {@link #getId(BlockState)}.
+     *
+     * @param id the id
+     * @return the state
+     */
+    public BlockState getState(int id) {
+        if (id < 0) {
+            return localStates.get(~id);
+        }
+        BlockState state = BlockStateIdAccess.getBlockStateById(id);
+        checkState(state != null, "No block state registered for internal id %s", id);
+        return state;
+    }
+
+    /**
+     * Get the number of states that had to be assigned a local id.
+     *
+     * @return the number of local ids
+     */
+    public int getLocalIdCount() {
+        return localStates.size();
+    }
+
+}
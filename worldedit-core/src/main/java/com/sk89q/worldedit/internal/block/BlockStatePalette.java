@@ -0,0 +1,207 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.block;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.extension.input.ParserContext;
+import com.sk89q.worldedit.world.block.BlockState;
+
+import java.util.Arrays;
+
+/**
+ * Assigns palette indices to block states in order of first use.
+ *
+ * <p>States are looked up by the ids of a {@link BlockStateIdMapper}, so
+ * building a palette does not hash states or build their strings. Strings
+ * are only made when the palette is serialized, with
+ * {@link #getAsString(int)}.</p>
+ *
+ * <p>Parsing a palette goes the other way with {@link #parseState(String)},
+ * which keeps the states it has parsed, so loading many schematics with
+ * the same blocks only parses each palette string once.</p>
+ */
+public final class BlockStatePalette {
+
+    private static final int PARSED_STATE_CACHE_SIZE = 1 << 14;
+    private static final Cache<String, BlockState> parsedStates = CacheBuilder.newBuilder()
+            .maximumSize(PARSED_STATE_CACHE_SIZE)
+            .build();
+
+    private final BlockStateIdMapper ids;
+    private int[] indices = new int[0];
+    private int[] localIndices = new int[0];
+    private int[] stateIds = new int[16];
+    private int size;
+
+    /**
+     * Create a new palette with its own id mapper.
+     */
+    public BlockStatePalette() {
+        this(new BlockStateIdMapper());
+    }
+
+    /**
+     * Create a new palette that looks up states by the ids of the given
+     * mapper.
+     *
+     * @param ids the id mapper
+     */
+    public BlockStatePalette(BlockStateIdMapper ids) {
+        checkNotNull(ids);
+        this.ids = ids;
+    }
+
+    /**
+     * Get the id mapper that state ids passed to {@link #getIndex(int)}
+     * must come from.
+     *
+     * @return the id mapper
+     */
+    public BlockStateIdMapper getIdMapper() {
+        return ids;
+    }
+
+    /**
+     * Get the palette index of a state, adding it if necessary.
+     *
+     * @param state the state
+     * @return the index
+     */
+    public int getIndex(BlockState state) {
+        return getIndex(ids.getId(state));
+    }
+
+    /**
+     * Get the palette index of a state id, adding it if necessary.
+     *
+     * @param stateId an id from {@link #getIdMapper()}
+     * @return the index
+     */
+    public int getIndex(int stateId) {
+        int[] table;
+        int slot;
+        if (stateId >= 0) {
+            if (stateId >= indices.length) {
+                indices = grow(indices, stateId);
+            }
+            table = indices;
+            slot = stateId;
+        } else {
+            if (~stateId >= localIndices.length) {
+                localIndices = grow(localIndices, ~stateId);
+            }
+            table = localIndices;
+            slot = ~stateId;
+        }
+        int index = table[slot] - 1;
+        if (index < 0) {
+            index = size++;
+            if (index >= stateIds.length) {
+                stateIds = Arrays.copyOf(stateIds, stateIds.length * 2);
+            }
+            stateIds[index] = stateId;
+            table[slot] = index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Get the state at a palette index.
+     *
+     * @param index the index
+     * @return the state
+     */
+    public BlockState getState(int index) {
+        return ids.getState(getStateId(index));
+    }
+
+    /**
+     * Get the state id at a palette index.
+     *
+     * @param index the index
+     * @return the state id
+     */
+    public int getStateId(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Palette index " + index + " out of bounds for size " + size);
+        }
+        return stateIds[index];
+    }
+
+    /**
+     * Get the string form of the state at a palette index.
+     *
+     * @param index the index
+     * @return the string
+     */
+    public String getAsString(int index) {
+        return getState(index).getAsString();
+    }
+
+    /**
+     * Get the number of states in the palette.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int[] grow(int[] table, int slot) {
+        return Arrays.copyOf(table, Math.max(slot + 1, table.length * 2));
+    }
+
+    /**
+     * Forget the states that were parsed by {@link #parseState(String)}.
+     * This is called when a platform becomes ready, since it may have
+     * registered a new set of block states.
+     */
+    public static void clearParsedStates() {
+        parsedStates.invalidateAll();
+    }
+
+    /**
+     * Parse the string form of a state from a palette, such as one made
+     * by {@link #getAsString(int)}.
+     *
+     * @param input the string
+     * @return the state
+     * @throws InputParseException if the string is not a known state
+     */
+    public static BlockState parseState(String input) throws InputParseException {
+        checkNotNull(input);
+        BlockState state = parsedStates.getIfPresent(input);
+        if (state == null) {
+            ParserContext parserContext = new ParserContext();
+            parserContext.setRestricted(false);
+            parserContext.setTryLegacy(false);
+            parserContext.setPreferringWildcard(false);
+            state = WorldEdit.getInstance().getBlockFactory().parseFromInput(input, parserContext).toImmutableState();
+            parsedStates.put(input, state);
+        }
+        return state;
+    }
+
+}
@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.MaxBrushRadiusException;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.MaxRadiusException;
+import com.sk89q.worldedit.MaxSearchMemoryException;
 import com.sk89q.worldedit.UnknownDirectionException;
 import com.sk89q.worldedit.UnknownItemException;
 import com.sk89q.worldedit.WorldEdit;
@@ -103,6 +104,12 @@ public void convert(MaxChangedBlocksException e) throws CommandException {
                 + e.getBlockLimit() + ").", e);
     }
 
+    @ExceptionMatch
+    public void convert(MaxSearchMemoryException e) throws CommandException {
+        throw newCommandException("The area to search is too large (more than "
+                + (e.getMemoryLimit() / (1024 * 1024)) + " MiB needed, see configuration).", e);
+    }
+
     @ExceptionMatch
     public void convert(MaxBrushRadiusException e) throws CommandException {
         throw newCommandException("Maximum brush radius (in configuration): " + worldEdit.getConfiguration().maxBrushRadius, e);
@@ -19,7 +19,6 @@
 
 package com.sk89q.worldedit.internal.expression;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.internal.expression.lexer.Lexer;
 import com.sk89q.worldedit.internal.expression.lexer.tokens.Token;
@@ -32,18 +31,12 @@
 import com.sk89q.worldedit.internal.expression.runtime.RValue;
 import com.sk89q.worldedit.internal.expression.runtime.ReturnException;
 import com.sk89q.worldedit.internal.expression.runtime.Variable;
-import com.sk89q.worldedit.session.request.Request;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 /**
  * Compiles and evaluates expressions.
@@ -75,18 +68,20 @@
  *
  * <p>Variables are also supported and can be set either by passing values
  * to {@link #evaluate(double...)}.</p>
+ *
+ * <p>Evaluation happens on the calling thread. Time limits are enforced
+ * cooperatively: loop nodes call {@link #checkDeadline()} on every
+ * iteration, which is the only way an expression can run for an
+ * unbounded amount of time.</p>
  */
 public class Expression {
 
     private static final ThreadLocal<Stack<Expression>> instance = new ThreadLocal<>();
-    private static final ExecutorService evalThread = Executors.newCachedThreadPool(
-            new ThreadFactoryBuilder()
-                    .setDaemon(true)
-                    .setNameFormat("worldedit-expression-eval-%d")
-                    .build());
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
 
     private final Map<String, RValue> variables = new HashMap<>();
-    private final String[] variableNames;
+    private final Variable[] parameters;
+    private long deadline = NO_DEADLINE;
     private RValue root;
     private final Functions functions = new Functions();
     private ExpressionEnvironment environment;
@@ -100,18 +95,18 @@ private Expression(String expression, String... variableNames) throws Expression
     }
 
     private Expression(List<Token> tokens, String... variableNames) throws ExpressionException {
-        this.variableNames = variableNames;
-
         variables.put("e", new Constant(-1, Math.E));
         variables.put("pi", new Constant(-1, Math.PI));
         variables.put("true", new Constant(-1, 1));
         variables.put("false", new Constant(-1, 0));
 
-        for (String variableName : variableNames) {
+        parameters = new Variable[variableNames.length];
+        for (int i = 0; i < variableNames.length; ++i) {
+            final String variableName = variableNames[i];
             if (variables.containsKey(variableName)) {
                 throw new ExpressionException(-1, "Tried to overwrite identifier '" + variableName + "'");
             }
-            variables.put(variableName, new Variable(0));
+            variables.put(variableName, parameters[i] = new Variable(0));
         }
 
         root = Parser.parse(tokens, this);
@@ -122,60 +117,25 @@ public double evaluate(double... values) throws EvaluationException {
     }
 
     public double evaluate(double[] values, int timeout) throws EvaluationException {
+        if (values.length > parameters.length) {
+            throw new EvaluationException(-1, "Tried to assign " + values.length + " values to "
+                    + parameters.length + " variables.");
+        }
         for (int i = 0; i < values.length; ++i) {
-            final String variableName = variableNames[i];
-            final RValue invokable = variables.get(variableName);
-            if (!(invokable instanceof Variable)) {
-                throw new EvaluationException(invokable.getPosition(), "Tried to assign constant " + variableName + ".");
-            }
-
-            ((Variable) invokable).value = values[i];
+            parameters[i].value = values[i];
         }
 
+        deadline = timeout < 0 ? NO_DEADLINE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
         try {
-            if (timeout < 0) {
-                return evaluateRoot();
-            }
-            return evaluateRootTimed(timeout);
+            return evaluateRoot();
         } catch (ReturnException e) {
             return e.getValue();
-        } // other evaluation exceptions are thrown out of this method
-    }
-
-    private double evaluateRootTimed(int timeout) throws EvaluationException {
-        Request request = Request.request();
-        Future<Double> result = evalThread.submit(() -> {
-            Request local = Request.request();
-            local.setSession(request.getSession());
-            local.setWorld(request.getWorld());
-            local.setEditSession(request.getEditSession());
-            try {
-                return Expression.this.evaluateRoot();
-            } finally {
-                Request.reset();
-            }
-        });
-        try {
-            return result.get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e);
-        } catch (TimeoutException e) {
-            result.cancel(true);
-            throw new ExpressionTimeoutException("Calculations exceeded time limit.");
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof EvaluationException) {
-                throw (EvaluationException) cause;
-            }
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            throw new RuntimeException(cause);
+        } finally { // other evaluation exceptions are thrown out of this method
+            deadline = NO_DEADLINE;
         }
     }
 
-    private Double evaluateRoot() throws EvaluationException {
+    private double evaluateRoot() throws EvaluationException {
         pushInstance();
         try {
             return root.getValue();
@@ -184,6 +144,19 @@ private Double evaluateRoot() throws EvaluationException {
         }
     }
 
+    /**
+     * Checks whether the current evaluation has exceeded its time limit.
+     *
+     * <p>This is called by loop nodes once per iteration.</p>
+     *
+     * @throws ExpressionTimeoutException if the time limit has been exceeded
+     */
+    public void checkDeadline() throws ExpressionTimeoutException {
+        if (deadline != NO_DEADLINE && System.nanoTime() - deadline > 0) {
+            throw new ExpressionTimeoutException("Calculations exceeded time limit.");
+        }
+    }
+
     public void optimize() throws EvaluationException {
         root = root.optimize();
     }
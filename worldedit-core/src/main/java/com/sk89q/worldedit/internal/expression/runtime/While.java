@@ -49,9 +49,7 @@ public double getValue() throws EvaluationException {
                 if (iterations > 256) {
                     throw new EvaluationException(getPosition(), "Loop exceeded 256 iterations.");
                 }
-                if (Thread.interrupted()) {
-                    throw new EvaluationException(getPosition(), "Calculations exceeded time limit.");
-                }
+                Expression.getInstance().checkDeadline();
                 ++iterations;
 
                 try {
@@ -69,9 +67,7 @@ public double getValue() throws EvaluationException {
                 if (iterations > 256) {
                     throw new EvaluationException(getPosition(), "Loop exceeded 256 iterations.");
                 }
-                if (Thread.interrupted()) {
-                    throw new EvaluationException(getPosition(), "Calculations exceeded time limit.");
-                }
+                Expression.getInstance().checkDeadline();
                 ++iterations;
 
                 try {
@@ -83,6 +83,89 @@ public static Comparator<BlockVector3> sortByCoordsYzx() {
         return YzxOrderComparator.YZX_ORDER;
     }
 
+    private static final int PACKED_XZ_BITS = 26;
+    private static final int PACKED_Y_BITS = 12;
+    private static final int PACKED_XZ_MIN = -(1 << (PACKED_XZ_BITS - 1));
+    private static final int PACKED_XZ_MAX = (1 << (PACKED_XZ_BITS - 1)) - 1;
+    private static final int PACKED_Y_MIN = -(1 << (PACKED_Y_BITS - 1));
+    private static final int PACKED_Y_MAX = (1 << (PACKED_Y_BITS - 1)) - 1;
+    private static final long PACKED_XZ_MASK = (1L << PACKED_XZ_BITS) - 1;
+
+    /**
+     * Checks whether the given coordinates can be packed into a single
+     * {@code long} by {@link #toLongPackedForm(int, int, int)}.
+     *
+     * <p>This covers the full horizontal range of a Minecraft world and a
+     * vertical range of -2048 to 2047.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return true if the coordinates can be packed
+     */
+    public static boolean isLongPackable(int x, int y, int z) {
+        return x >= PACKED_XZ_MIN && x <= PACKED_XZ_MAX
+                && z >= PACKED_XZ_MIN && z <= PACKED_XZ_MAX
+                && y >= PACKED_Y_MIN && y <= PACKED_Y_MAX;
+    }
+
+    /**
+     * Packs the given coordinates into a single {@code long}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the packed form
+     * @throws IllegalArgumentException if the coordinates are not packable
+     * @see #isLongPackable(int, int, int)
+     */
+    public static long toLongPackedForm(int x, int y, int z) {
+        checkArgument(isLongPackable(x, y, z), "Coordinates (%s, %s, %s) are out of packable range", x, y, z);
+        return (x & PACKED_XZ_MASK)
+                | ((z & PACKED_XZ_MASK) << PACKED_XZ_BITS)
+                | ((long) y << (PACKED_XZ_BITS * 2));
+    }
+
+    /**
+     * Get the X coordinate from a packed position.
+     *
+     * @param packed the packed position
+     * @return the X coordinate
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed << (64 - PACKED_XZ_BITS) >> (64 - PACKED_XZ_BITS));
+    }
+
+    /**
+     * Get the Y coordinate from a packed position.
+     *
+     * @param packed the packed position
+     * @return the Y coordinate
+     */
+    public static int unpackY(long packed) {
+        return (int) (packed >> (PACKED_XZ_BITS * 2));
+    }
+
+    /**
+     * Get the Z coordinate from a packed position.
+     *
+     * @param packed the packed position
+     * @return the Z coordinate
+     */
+    public static int unpackZ(long packed) {
+        return (int) (packed << PACKED_Y_BITS >> (64 - PACKED_XZ_BITS));
+    }
+
+    /**
+     * Create a vector from a position packed by {@link #toLongPackedForm()}.
+     *
+     * @param packed the packed position
+     * @return the vector
+     */
+    public static BlockVector3 fromLongPackedForm(long packed) {
+        return at(unpackX(packed), unpackY(packed), unpackZ(packed));
+    }
+
     private final int x, y, z;
 
     /**
@@ -600,6 +683,25 @@ public Vector3 toVector3() {
         return Vector3.at(x, y, z);
     }
 
+    /**
+     * Checks whether this vector can be packed into a single {@code long}.
+     *
+     * @return true if {@link #toLongPackedForm()} will succeed
+     */
+    public boolean isLongPackable() {
+        return isLongPackable(x, y, z);
+    }
+
+    /**
+     * Packs this vector into a single {@code long}.
+     *
+     * @return the packed form
+     * @throws IllegalArgumentException if this vector is not packable
+     */
+    public long toLongPackedForm() {
+        return toLongPackedForm(x, y, z);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof BlockVector3)) {
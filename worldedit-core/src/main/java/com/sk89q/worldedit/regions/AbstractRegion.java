@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.regions.iterator.RegionIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 
@@ -114,6 +115,24 @@ public int getArea() {
                 (max.getZ() - min.getZ() + 1);
     }
 
+    /**
+     * Count the blocks in the region by walking its {@link #spans()}.
+     *
+     * <p>This takes time proportional to the number of rows, so it is only
+     * worth using in regions whose spans are computed exactly.</p>
+     *
+     * @return number of blocks
+     */
+    protected int getSpanArea() {
+        SpanIterator spans = spans();
+        long area = 0;
+        while (spans.next()) {
+            area += spans.getLength();
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, area);
+    }
+
     /**
      * Get X-size.
      *
@@ -162,21 +181,12 @@ public int getLength() {
     public Set<BlockVector2> getChunks() {
         final Set<BlockVector2> chunks = new HashSet<>();
 
-        final BlockVector3 min = getMinimumPoint();
-        final BlockVector3 max = getMaximumPoint();
-
-        final int minY = min.getBlockY();
-
-        for (int x = min.getBlockX(); x <= max.getBlockX(); ++x) {
-            for (int z = min.getBlockZ(); z <= max.getBlockZ(); ++z) {
-                if (!contains(BlockVector3.at(x, minY, z))) {
-                    continue;
-                }
-
-                chunks.add(BlockVector2.at(
-                    x >> ChunkStore.CHUNK_SHIFTS,
-                    z >> ChunkStore.CHUNK_SHIFTS
-                ));
+        final SpanIterator spans = spans();
+        while (spans.next()) {
+            final int chunkZ = spans.getZ() >> ChunkStore.CHUNK_SHIFTS;
+            final int maxChunkX = spans.getMaxX() >> ChunkStore.CHUNK_SHIFTS;
+            for (int chunkX = spans.getMinX() >> ChunkStore.CHUNK_SHIFTS; chunkX <= maxChunkX; ++chunkX) {
+                chunks.add(BlockVector2.at(chunkX, chunkZ));
             }
         }
 
@@ -187,22 +197,13 @@ public Set<BlockVector2> getChunks() {
     public Set<BlockVector3> getChunkCubes() {
         final Set<BlockVector3> chunks = new HashSet<>();
 
-        final BlockVector3 min = getMinimumPoint();
-        final BlockVector3 max = getMaximumPoint();
-
-        for (int x = min.getBlockX(); x <= max.getBlockX(); ++x) {
-            for (int y = min.getBlockY(); y <= max.getBlockY(); ++y) {
-                for (int z = min.getBlockZ(); z <= max.getBlockZ(); ++z) {
-                    if (!contains(BlockVector3.at(x, y, z))) {
-                        continue;
-                    }
-
-                    chunks.add(BlockVector3.at(
-                        x >> ChunkStore.CHUNK_SHIFTS,
-                        y >> ChunkStore.CHUNK_SHIFTS,
-                        z >> ChunkStore.CHUNK_SHIFTS
-                    ));
-                }
+        final SpanIterator spans = spans();
+        while (spans.next()) {
+            final int chunkY = spans.getY() >> ChunkStore.CHUNK_SHIFTS;
+            final int chunkZ = spans.getZ() >> ChunkStore.CHUNK_SHIFTS;
+            final int maxChunkX = spans.getMaxX() >> ChunkStore.CHUNK_SHIFTS;
+            for (int chunkX = spans.getMinX() >> ChunkStore.CHUNK_SHIFTS; chunkX <= maxChunkX; ++chunkX) {
+                chunks.add(BlockVector3.at(chunkX, chunkY, chunkZ));
             }
         }
 
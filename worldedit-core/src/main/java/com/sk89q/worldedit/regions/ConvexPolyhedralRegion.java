@@ -23,6 +23,7 @@
 
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.regions.polyhedron.Edge;
 import com.sk89q.worldedit.regions.polyhedron.Triangle;
 import com.sk89q.worldedit.world.World;
@@ -227,6 +228,11 @@ public BlockVector3 getMaximumPoint() {
         return maximumPoint;
     }
     
+    @Override
+    public int getArea() {
+        return getSpanArea();
+    }
+
     @Override
     public Vector3 getCenter() {
         return centerAccum.toVector3().divide(vertices.size());
@@ -293,6 +299,36 @@ public boolean contains(BlockVector3 position) {
         return containsRaw(position.toVector3());
     }
 
+    @Override
+    public SpanIterator spans() {
+        if (!isDefined()) {
+            return SpanIterator.empty();
+        }
+        final List<Triangle> triangles = new ArrayList<>(this.triangles);
+        return new SpanIterator(this, false) {
+            @Override
+            protected void computeRow(int y, int z) {
+                // Clip the row against the plane of every face
+                double minX = Double.NEGATIVE_INFINITY;
+                double maxX = Double.POSITIVE_INFINITY;
+                for (Triangle triangle : triangles) {
+                    Vector3 normal = triangle.getNormal();
+                    double limit = triangle.getDistance() - normal.getY() * y - normal.getZ() * z;
+                    if (normal.getX() > 1e-9) {
+                        maxX = Math.min(maxX, limit / normal.getX());
+                    } else if (normal.getX() < -1e-9) {
+                        minX = Math.max(minX, limit / normal.getX());
+                    } else if (limit < -1e-9) {
+                        return;
+                    }
+                }
+                if (minX <= maxX + 2) {
+                    addConvexSpan(ConvexPolyhedralRegion.this, y, z, minX, maxX);
+                }
+            }
+        };
+    }
+
     private boolean containsRaw(Vector3 pt) {
         if (lastTriangle != null && lastTriangle.above(pt)) {
             return false;
@@ -24,6 +24,7 @@
 
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 
@@ -325,6 +326,28 @@ public boolean contains(BlockVector3 position) {
         return position.containedWithin(min, max);
     }
 
+    @Override
+    public int getArea() {
+        BlockVector3 min = getMinimumPoint();
+        BlockVector3 max = getMaximumPoint();
+
+        return (max.getX() - min.getX() + 1) *
+                (max.getY() - min.getY() + 1) *
+                (max.getZ() - min.getZ() + 1);
+    }
+
+    @Override
+    public SpanIterator spans() {
+        final int minX = getMinimumPoint().getBlockX();
+        final int maxX = getMaximumPoint().getBlockX();
+        return new SpanIterator(this, true) {
+            @Override
+            protected void computeRow(int y, int z) {
+                addSpan(minX, maxX);
+            }
+        };
+    }
+
     @Override
     public Iterator<BlockVector3> iterator() {
         return new Iterator<BlockVector3>() {
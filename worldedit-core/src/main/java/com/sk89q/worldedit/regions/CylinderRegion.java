@@ -27,11 +27,10 @@
 import com.sk89q.worldedit.math.Vector2;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.math.geom.Polygons;
-import com.sk89q.worldedit.regions.iterator.FlatRegion3DIterator;
 import com.sk89q.worldedit.regions.iterator.FlatRegionIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -185,7 +184,7 @@ public int getMinimumY() {
 
     @Override
     public int getArea() {
-        return (int) Math.floor(radius.getX() * radius.getZ() * Math.PI * getHeight());
+        return getSpanArea();
     }
 
     @Override
@@ -315,8 +314,22 @@ public boolean setY(int y) {
     }
 
     @Override
-    public Iterator<BlockVector3> iterator() {
-        return new FlatRegion3DIterator(this);
+    public SpanIterator spans() {
+        final Vector2 radius = this.radius;
+        final int centerX = center.getBlockX();
+        final int centerZ = center.getBlockZ();
+        return new SpanIterator(this, true) {
+            @Override
+            protected void computeRow(int y, int z) {
+                double dz = (z - centerZ) / radius.getZ();
+                double remaining = 1 - dz * dz;
+                if (remaining < -1e-9) {
+                    return;
+                }
+                double halfWidth = radius.getX() * Math.sqrt(Math.max(0, remaining));
+                addConvexSpan(CylinderRegion.this, y, z, centerX - halfWidth, centerX + halfWidth);
+            }
+        };
     }
 
     @Override
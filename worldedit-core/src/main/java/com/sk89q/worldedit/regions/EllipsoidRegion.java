@@ -19,14 +19,10 @@
 
 package com.sk89q.worldedit.regions;
 
-import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
-import com.sk89q.worldedit.world.storage.ChunkStore;
-
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Represents an ellipsoid region.
@@ -82,7 +78,7 @@ public BlockVector3 getMaximumPoint() {
 
     @Override
     public int getArea() {
-        return (int) Math.floor((4.0 / 3.0) * Math.PI * radius.getX() * radius.getY() * radius.getZ());
+        return getSpanArea();
     }
 
     @Override
@@ -176,32 +172,29 @@ public void setRadius(Vector3 radius) {
     }
 
     @Override
-    public Set<BlockVector2> getChunks() {
-        final Set<BlockVector2> chunks = new HashSet<>();
+    public boolean contains(BlockVector3 position) {
+        return position.subtract(center).toVector3().divide(radius).lengthSq() <= 1;
+    }
 
-        final BlockVector3 min = getMinimumPoint();
-        final BlockVector3 max = getMaximumPoint();
+    @Override
+    public SpanIterator spans() {
+        final Vector3 radius = this.radius;
+        final int centerX = center.getBlockX();
         final int centerY = center.getBlockY();
-
-        for (int x = min.getBlockX(); x <= max.getBlockX(); ++x) {
-            for (int z = min.getBlockZ(); z <= max.getBlockZ(); ++z) {
-                if (!contains(BlockVector3.at(x, centerY, z))) {
-                    continue;
+        final int centerZ = center.getBlockZ();
+        return new SpanIterator(this, false) {
+            @Override
+            protected void computeRow(int y, int z) {
+                double dy = (y - centerY) / radius.getY();
+                double dz = (z - centerZ) / radius.getZ();
+                double remaining = 1 - dy * dy - dz * dz;
+                if (remaining < -1e-9) {
+                    return;
                 }
-
-                chunks.add(BlockVector2.at(
-                    x >> ChunkStore.CHUNK_SHIFTS,
-                    z >> ChunkStore.CHUNK_SHIFTS
-                ));
+                double halfWidth = radius.getX() * Math.sqrt(Math.max(0, remaining));
+                addConvexSpan(EllipsoidRegion.this, y, z, centerX - halfWidth, centerX + halfWidth);
             }
-        }
-
-        return chunks;
-    }
-
-    @Override
-    public boolean contains(BlockVector3 position) {
-        return position.subtract(center).toVector3().divide(radius).lengthSq() <= 1;
+        };
     }
 
     /**
@@ -21,11 +21,12 @@
 
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.regions.iterator.FlatRegion3DIterator;
 import com.sk89q.worldedit.regions.iterator.FlatRegionIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -198,17 +199,7 @@ public BlockVector3 getMaximumPoint() {
 
     @Override
     public int getArea() {
-        double area = 0;
-        int i, j = points.size() - 1;
-
-        for (i = 0; i < points.size(); ++i) {
-            area += (points.get(j).getBlockX() + points.get(i).getBlockX())
-                    * (points.get(j).getBlockZ() - points.get(i).getBlockZ());
-            j = i;
-        }
-
-        return (int) Math.floor(Math.abs(area * 0.5)
-                * (maxY - minY + 1));
+        return getSpanArea();
     }
 
     @Override
@@ -293,14 +284,24 @@ public static boolean contains(List<BlockVector2> points, int minY, int maxY, Bl
         if (points.size() < 3) {
             return false;
         }
-        int targetX = pt.getBlockX(); //wide
         int targetY = pt.getBlockY(); //height
-        int targetZ = pt.getBlockZ(); //depth
 
         if (targetY < minY || targetY > maxY) {
             return false;
         }
 
+        return contains(points, pt.getBlockX(), pt.getBlockZ());
+    }
+
+    /**
+     * Checks to see if a column is inside a polygon.
+     *
+     * @param points a list of at least three points
+     * @param targetX the x coordinate of the column
+     * @param targetZ the z coordinate of the column
+     * @return true if the given polygon contains the given column
+     */
+    private static boolean contains(List<BlockVector2> points, int targetX, int targetZ) {
         boolean inside = false;
         int npoints = points.size();
         int xNew, zNew;
@@ -380,8 +381,55 @@ public boolean expandY(int y) {
     }
 
     @Override
-    public Iterator<BlockVector3> iterator() {
-        return new FlatRegion3DIterator(this);
+    public SpanIterator spans() {
+        final List<BlockVector2> points = this.points;
+        if (points.size() < 3) {
+            return SpanIterator.empty();
+        }
+        return new SpanIterator(this, true) {
+            private final int[] candidates = new int[points.size() * 3 + 2];
+
+            @Override
+            protected void computeRow(int y, int z) {
+                int minX = getRowMinX();
+                int maxX = getRowMaxX();
+                int count = 0;
+                candidates[count++] = minX;
+                candidates[count++] = maxX;
+                BlockVector2 previous = points.get(points.size() - 1);
+                for (BlockVector2 point : points) {
+                    candidates[count++] = point.getBlockX();
+                    int z1 = previous.getBlockZ();
+                    int z2 = point.getBlockZ();
+                    if (z1 != z2 && Math.min(z1, z2) <= z && z <= Math.max(z1, z2)) {
+                        double crossing = previous.getBlockX()
+                                + (double) (z - z1) * (point.getBlockX() - previous.getBlockX()) / (z2 - z1);
+                        candidates[count++] = (int) Math.floor(crossing);
+                        candidates[count++] = (int) Math.ceil(crossing);
+                    }
+                    previous = point;
+                }
+                Arrays.sort(candidates, 0, count);
+
+                // Scanline fill: between two candidates no edge or vertex
+                // meets the row, so every column there is either inside or
+                // outside and only one of them needs to be tested
+                int last = Integer.MIN_VALUE;
+                for (int i = 0; i < count; i++) {
+                    int x = candidates[i];
+                    if (x < minX || x > maxX || x == last) {
+                        continue;
+                    }
+                    if (last != Integer.MIN_VALUE && x > last + 1 && contains(points, last + 1, z)) {
+                        addSpan(last + 1, x - 1);
+                    }
+                    if (contains(points, x, z)) {
+                        addSpan(x, x);
+                    }
+                    last = x;
+                }
+            }
+        };
     }
 
     @Override
@@ -22,6 +22,8 @@
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.iterator.ContainmentSpanIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
 import java.util.List;
@@ -117,6 +119,20 @@ public interface Region extends Iterable<BlockVector3>, Cloneable {
      */
     boolean contains(BlockVector3 position);
 
+    /**
+     * Get an iterator over the runs of blocks along the x-axis that make up
+     * this region.
+     *
+     * <p>The default implementation tests every block of the bounding box,
+     * so regions should override this where they can find their spans
+     * directly.</p>
+     *
+     * @return a new span iterator
+     */
+    default SpanIterator spans() {
+        return new ContainmentSpanIterator(this);
+    }
+
     /**
      * Get a list of chunks.
      *
@@ -24,9 +24,11 @@
 
 import com.google.common.collect.Iterators;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -141,4 +143,42 @@ public Iterator<BlockVector3> iterator() {
         return Iterators.concat(iterators);
     }
 
+    @Override
+    public SpanIterator spans() {
+        final SpanIterator[] children = new SpanIterator[regions.size()];
+        final boolean[] remaining = new boolean[regions.size()];
+        for (int i = 0; i < regions.size(); i++) {
+            children[i] = regions.get(i).spans();
+            remaining[i] = children[i].next();
+        }
+
+        return new SpanIterator(this, false) {
+            private long[] row = new long[16];
+
+            @Override
+            protected void computeRow(int y, int z) {
+                // Every child visits its rows in the same order, so only
+                // the spans at the head of each child can be in this row
+                int count = 0;
+                for (int i = 0; i < children.length; i++) {
+                    SpanIterator child = children[i];
+                    while (remaining[i] && (child.getZ() < z || (child.getZ() == z && child.getY() < y))) {
+                        remaining[i] = child.next();
+                    }
+                    while (remaining[i] && child.getZ() == z && child.getY() == y) {
+                        if (count == row.length) {
+                            row = Arrays.copyOf(row, row.length * 2);
+                        }
+                        row[count++] = ((long) child.getMinX() << 32) | (child.getMaxX() & 0xFFFFFFFFL);
+                        remaining[i] = child.next();
+                    }
+                }
+                Arrays.sort(row, 0, count);
+                for (int i = 0; i < count; i++) {
+                    addSpan((int) (row[i] >> 32), (int) row[i]);
+                }
+            }
+        };
+    }
+
 }
@@ -0,0 +1,57 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * Finds the spans of any region by testing every block of its bounding box
+ * with {@link Region#contains(BlockVector3)}.
+ */
+public class ContainmentSpanIterator extends SpanIterator {
+
+    private final Region region;
+
+    public ContainmentSpanIterator(Region region) {
+        super(region, false);
+        this.region = region;
+    }
+
+    @Override
+    protected void computeRow(int y, int z) {
+        int start = Integer.MIN_VALUE;
+        int maxX = getRowMaxX();
+        for (int x = getRowMinX(); x <= maxX; x++) {
+            if (region.contains(BlockVector3.at(x, y, z))) {
+                if (start == Integer.MIN_VALUE) {
+                    start = x;
+                }
+            } else if (start != Integer.MIN_VALUE) {
+                addSpan(start, x - 1);
+                start = Integer.MIN_VALUE;
+            }
+        }
+        if (start != Integer.MIN_VALUE) {
+            addSpan(start, maxX);
+        }
+    }
+
+}
@@ -22,7 +22,6 @@
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.sk89q.worldedit.math.BlockVector2;
-import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 
 import java.util.Iterator;
@@ -30,43 +29,34 @@
 
 public class FlatRegionIterator implements Iterator<BlockVector2>  {
 
-    private Region region;
-    private int y;
-    private int minX;
+    private final SpanIterator spans;
+    private final int y;
     private int nextX;
-    private int nextZ;
     private int maxX;
-    private int maxZ;
+    private boolean hasNext;
 
     public FlatRegionIterator(Region region) {
         checkNotNull(region);
 
-        this.region = region;
-
-        BlockVector3 min = region.getMinimumPoint();
-        BlockVector3 max = region.getMaximumPoint();
-
-        this.y = min.getBlockY();
-
-        this.minX = min.getBlockX();
-
-        this.nextX = minX;
-        this.nextZ = min.getBlockZ();
-
-        this.maxX = max.getBlockX();
-        this.maxZ = max.getBlockZ();
+        this.spans = region.spans();
+        this.y = region.getMinimumPoint().getBlockY();
 
         forward();
     }
 
     @Override
     public boolean hasNext() {
-        return nextX != Integer.MIN_VALUE;
+        return hasNext;
     }
 
     private void forward() {
-        while (hasNext() && !region.contains(BlockVector3.at(nextX, y, nextZ))) {
-            forwardOne();
+        // Only the bottom layer is visited
+        do {
+            hasNext = spans.next();
+        } while (hasNext && spans.getY() != y);
+        if (hasNext) {
+            nextX = spans.getMinX();
+            maxX = spans.getMaxX();
         }
     }
 
@@ -76,24 +66,13 @@ public BlockVector2 next() {
             throw new NoSuchElementException();
         }
 
-        BlockVector2 answer = BlockVector2.at(nextX, nextZ);
-
-        forwardOne();
-        forward();
-
-        return answer;
-    }
+        BlockVector2 answer = BlockVector2.at(nextX, spans.getZ());
 
-    private void forwardOne() {
-        if (++nextX <= maxX) {
-            return;
+        if (nextX++ == maxX) {
+            forward();
         }
-        nextX = minX;
 
-        if (++nextZ <= maxZ) {
-            return;
-        }
-        nextX = Integer.MIN_VALUE;
+        return answer;
     }
 
 }
@@ -28,41 +28,29 @@
 
 public class RegionIterator implements Iterator<BlockVector3> {
 
-    private final Region region;
-    private final int maxX;
-    private final int maxY;
-    private final int maxZ;
-    private final BlockVector3 min;
+    private final SpanIterator spans;
     private int nextX;
-    private int nextY;
-    private int nextZ;
+    private int maxX;
+    private boolean hasNext;
 
     public RegionIterator(Region region) {
         checkNotNull(region);
 
-        this.region = region;
-
-        BlockVector3 max = region.getMaximumPoint();
-        this.maxX = max.getBlockX();
-        this.maxY = max.getBlockY();
-        this.maxZ = max.getBlockZ();
-
-        this.min = region.getMinimumPoint();
-        this.nextX = min.getBlockX();
-        this.nextY = min.getBlockY();
-        this.nextZ = min.getBlockZ();
+        this.spans = region.spans();
 
         forward();
     }
 
     @Override
     public boolean hasNext() {
-        return nextX != Integer.MIN_VALUE;
+        return hasNext;
     }
 
     private void forward() {
-        while (hasNext() && !region.contains(BlockVector3.at(nextX, nextY, nextZ))) {
-            forwardOne();
+        hasNext = spans.next();
+        if (hasNext) {
+            nextX = spans.getMinX();
+            maxX = spans.getMaxX();
         }
     }
 
@@ -70,29 +58,13 @@ private void forward() {
     public BlockVector3 next() {
         if (!hasNext()) throw new java.util.NoSuchElementException();
 
-        BlockVector3 answer = BlockVector3.at(nextX, nextY, nextZ);
-
-        forwardOne();
-        forward();
+        BlockVector3 answer = BlockVector3.at(nextX, spans.getY(), spans.getZ());
 
-        return answer;
-    }
-
-    private void forwardOne() {
-        if (++nextX <= maxX) {
-            return;
-        }
-        nextX = min.getBlockX();
-
-        if (++nextY <= maxY) {
-            return;
+        if (nextX++ == maxX) {
+            forward();
         }
-        nextY = min.getBlockY();
 
-        if (++nextZ <= maxZ) {
-            return;
-        }
-        nextX = Integer.MIN_VALUE;
+        return answer;
     }
 
     @Override
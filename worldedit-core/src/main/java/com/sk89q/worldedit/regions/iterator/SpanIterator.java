@@ -0,0 +1,249 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+
+import java.util.Arrays;
+
+/**
+ * Iterates over a region as runs of blocks along the x-axis.
+ *
+ * <p>Rows are visited in order of z, then y. Each row may contain any number
+ * of spans, which are visited in increasing x order and never touch or
+ * overlap. Subclasses compute the spans of a row in
+ * {@link #computeRow(int, int)} by calling {@link #addSpan(int, int)}.</p>
+ */
+public abstract class SpanIterator {
+
+    private final int minX;
+    private final int maxX;
+    private final int minY;
+    private final int maxY;
+    private final int maxZ;
+    private final boolean flat;
+
+    private int nextY;
+    private int nextZ;
+    private int rowY;
+    private int rowZ;
+    private boolean computed;
+
+    private int[] spans = new int[8];
+    private int spanCount;
+    private int spanIndex = -1;
+
+    /**
+     * Create a new instance.
+     *
+     * @param min the minimum point of the rows to visit
+     * @param max the maximum point of the rows to visit
+     * @param flat true if the spans of a row do not depend on its y, in which
+     *             case each z is only computed once
+     */
+    protected SpanIterator(BlockVector3 min, BlockVector3 max, boolean flat) {
+        checkNotNull(min);
+        checkNotNull(max);
+        this.minX = min.getBlockX();
+        this.maxX = max.getBlockX();
+        this.minY = min.getBlockY();
+        this.maxY = max.getBlockY();
+        this.maxZ = max.getBlockZ();
+        this.flat = flat;
+        this.nextY = minY;
+        this.nextZ = minY <= maxY ? min.getBlockZ() : maxZ + 1;
+    }
+
+    /**
+     * Create a new instance for the bounding box of the given region.
+     *
+     * @param region the region
+     * @param flat true if the spans of a row do not depend on its y
+     */
+    protected SpanIterator(Region region, boolean flat) {
+        this(region.getMinimumPoint(), region.getMaximumPoint(), flat);
+    }
+
+    /**
+     * Get an iterator without any spans.
+     *
+     * @return an empty iterator
+     */
+    public static SpanIterator empty() {
+        return new SpanIterator(BlockVector3.ONE, BlockVector3.ZERO, true) {
+            @Override
+            protected void computeRow(int y, int z) {
+            }
+        };
+    }
+
+    /**
+     * Compute the spans of the given row.
+     *
+     * @param y the y coordinate of the row
+     * @param z the z coordinate of the row
+     */
+    protected abstract void computeRow(int y, int z);
+
+    /**
+     * Add a span to the row being computed. Spans must be added in
+     * increasing x order; empty spans are ignored and touching spans are
+     * merged.
+     *
+     * @param minX the first x coordinate, inclusive
+     * @param maxX the last x coordinate, inclusive
+     */
+    protected final void addSpan(int minX, int maxX) {
+        if (maxX < minX) {
+            return;
+        }
+        if (spanCount > 0 && spans[spanCount * 2 - 1] >= minX - 1) {
+            spans[spanCount * 2 - 1] = Math.max(spans[spanCount * 2 - 1], maxX);
+            return;
+        }
+        if (spanCount * 2 == spans.length) {
+            spans = Arrays.copyOf(spans, spans.length * 2);
+        }
+        spans[spanCount * 2] = minX;
+        spans[spanCount * 2 + 1] = maxX;
+        spanCount++;
+    }
+
+    /**
+     * Add the part of a row of a region that is convex along the x-axis.
+     *
+     * <p>The given bounds may be approximate, as long as they are within
+     * one block of the real bounds. They are widened by one block, clamped
+     * to the bounding box and then shrunk with
+     * {@link Region#contains(BlockVector3)}, so the resulting span matches
+     * the region exactly.</p>
+     *
+     * @param region the region
+     * @param y the y coordinate of the row
+     * @param z the z coordinate of the row
+     * @param minX the approximate first x coordinate
+     * @param maxX the approximate last x coordinate
+     */
+    protected final void addConvexSpan(Region region, int y, int z, double minX, double maxX) {
+        int lo = (int) Math.max(this.minX, Math.floor(minX) - 1);
+        int hi = (int) Math.min(this.maxX, Math.ceil(maxX) + 1);
+        while (lo <= hi && !region.contains(BlockVector3.at(lo, y, z))) {
+            lo++;
+        }
+        while (hi >= lo && !region.contains(BlockVector3.at(hi, y, z))) {
+            hi--;
+        }
+        addSpan(lo, hi);
+    }
+
+    /**
+     * Get the minimum x coordinate of the rows.
+     *
+     * @return the minimum x
+     */
+    protected final int getRowMinX() {
+        return minX;
+    }
+
+    /**
+     * Get the maximum x coordinate of the rows.
+     *
+     * @return the maximum x
+     */
+    protected final int getRowMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Move to the next span.
+     *
+     * @return false if there are no more spans
+     */
+    public boolean next() {
+        while (++spanIndex >= spanCount) {
+            if (nextZ > maxZ) {
+                spanIndex = spanCount;
+                return false;
+            }
+            spanIndex = -1;
+            if (!flat || !computed || nextZ != rowZ) {
+                spanCount = 0;
+                computeRow(nextY, nextZ);
+                computed = true;
+            }
+            rowY = nextY;
+            rowZ = nextZ;
+            if (++nextY > maxY) {
+                nextY = minY;
+                nextZ++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the y coordinate of the current span.
+     *
+     * @return the y coordinate
+     */
+    public int getY() {
+        return rowY;
+    }
+
+    /**
+     * Get the z coordinate of the current span.
+     *
+     * @return the z coordinate
+     */
+    public int getZ() {
+        return rowZ;
+    }
+
+    /**
+     * Get the first x coordinate of the current span, inclusive.
+     *
+     * @return the first x coordinate
+     */
+    public int getMinX() {
+        return spans[spanIndex * 2];
+    }
+
+    /**
+     * Get the last x coordinate of the current span, inclusive.
+     *
+     * @return the last x coordinate
+     */
+    public int getMaxX() {
+        return spans[spanIndex * 2 + 1];
+    }
+
+    /**
+     * Get the number of blocks in the current span.
+     *
+     * @return the number of blocks
+     */
+    public int getLength() {
+        return getMaxX() - getMinX() + 1;
+    }
+
+}
@@ -71,6 +71,26 @@ public Edge getEdge(int index) {
         return new Edge(vertices[index], vertices[index + 1]);
     }
 
+    /**
+     * Returns the unit normal of the plane the triangle is in.
+     *
+     * @return the normal
+     */
+    public Vector3 getNormal() {
+        return normal;
+    }
+
+    /**
+     * Returns the distance of the plane the triangle is in from the origin,
+     * along its normal. Points are above the plane if their dot product
+     * with the normal is greater than this.
+     *
+     * @return the distance
+     */
+    public double getDistance() {
+        return b;
+    }
+
     /**
      * Returns whether the given point is above the plane the triangle is in.
      *
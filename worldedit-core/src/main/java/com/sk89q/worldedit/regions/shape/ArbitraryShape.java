@@ -24,6 +24,7 @@
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.block.BaseBlock;
 
 /**
@@ -93,61 +94,65 @@ protected Region getExtent() {
     public int generate(EditSession editSession, Pattern pattern, boolean hollow) throws MaxChangedBlocksException {
         int affected = 0;
 
-        for (BlockVector3 position : getExtent()) {
-            int x = position.getBlockX();
-            int y = position.getBlockY();
-            int z = position.getBlockZ();
+        SpanIterator spans = getExtent().spans();
+        while (spans.next()) {
+            int y = spans.getY();
+            int z = spans.getZ();
+            int maxX = spans.getMaxX();
+            for (int x = spans.getMinX(); x <= maxX; x++) {
+                BlockVector3 position = BlockVector3.at(x, y, z);
+
+                if (!hollow) {
+                    BaseBlock material = getMaterial(x, y, z, pattern.apply(position));
+                    if (material != null && editSession.setBlock(position, material)) {
+                        ++affected;
+                    }
+
+                    continue;
+                }
 
-            if (!hollow) {
                 BaseBlock material = getMaterial(x, y, z, pattern.apply(position));
-                if (material != null && editSession.setBlock(position, material)) {
-                    ++affected;
+                if (material == null) {
+                    final int index = (y - cacheOffsetY) + (z - cacheOffsetZ) * cacheSizeY + (x - cacheOffsetX) * cacheSizeY * cacheSizeZ;
+                    cache[index] = -1;
+                    continue;
                 }
 
-                continue;
-            }
-
-            BaseBlock material = getMaterial(x, y, z, pattern.apply(position));
-            if (material == null) {
-                final int index = (y - cacheOffsetY) + (z - cacheOffsetZ) * cacheSizeY + (x - cacheOffsetX) * cacheSizeY * cacheSizeZ;
-                cache[index] = -1;
-                continue;
-            }
-
-            boolean draw = false;
-            do {
-                if (!isInsideCached(x + 1, y, z, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x - 1, y, z, pattern)) {
-                    draw = true;
-                    break;
+                boolean draw = false;
+                do {
+                    if (!isInsideCached(x + 1, y, z, pattern)) {
+                        draw = true;
+                        break;
+                    }
+                    if (!isInsideCached(x - 1, y, z, pattern)) {
+                        draw = true;
+                        break;
+                    }
+                    if (!isInsideCached(x, y, z + 1, pattern)) {
+                        draw = true;
+                        break;
+                    }
+                    if (!isInsideCached(x, y, z - 1, pattern)) {
+                        draw = true;
+                        break;
+                    }
+                    if (!isInsideCached(x, y + 1, z, pattern)) {
+                        draw = true;
+                        break;
+                    }
+                    if (!isInsideCached(x, y - 1, z, pattern)) {
+                        draw = true;
+                        break;
+                    }
+                } while (false);
+
+                if (!draw) {
+                    continue;
                 }
-                if (!isInsideCached(x, y, z + 1, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x, y, z - 1, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x, y + 1, z, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x, y - 1, z, pattern)) {
-                    draw = true;
-                    break;
-                }
-            } while (false);
 
-            if (!draw) {
-                continue;
-            }
-
-            if (editSession.setBlock(position, material)) {
-                ++affected;
+                if (editSession.setBlock(position, material)) {
+                    ++affected;
+                }
             }
         }
 
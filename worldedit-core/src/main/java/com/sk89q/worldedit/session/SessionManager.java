@@ -28,6 +28,7 @@
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.event.platform.ConfigurationLoadEvent;
+import com.sk89q.worldedit.history.changeset.JournaledBlockHistory;
 import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.session.storage.JsonFileSessionStore;
 import com.sk89q.worldedit.session.storage.SessionStore;
@@ -61,12 +62,14 @@
 public class SessionManager {
 
     public static int EXPIRATION_GRACE = 600000;
+    public static long HISTORY_RETENTION = 0;
     private static final int FLUSH_PERIOD = 1000 * 30;
     private static final ListeningExecutorService executorService = MoreExecutors.listeningDecorator(EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, 5));
     private static final Logger log = LoggerFactory.getLogger(SessionManager.class);
     private final Timer timer = new Timer();
     private final WorldEdit worldEdit;
     private final Map<UUID, SessionHolder> sessions = new HashMap<>();
+    private final Map<UUID, RetainedHistory> retainedHistories = new HashMap<>();
     private SessionStore store = new VoidStore();
 
     /**
@@ -154,6 +157,11 @@ public synchronized LocalSession get(SessionOwner owner) {
             }
             Request.request().setSession(session);
 
+            RetainedHistory retained = retainedHistories.remove(getKey(owner));
+            if (retained != null) {
+                session.takeHistoryFrom(retained.holder);
+            }
+
             session.setConfiguration(config);
             session.setBlockChangeLimit(config.defaultChangeLimit);
             session.setTimeout(config.calculationTimeout);
@@ -253,7 +261,11 @@ protected UUID getKey(SessionKey key) {
      */
     public synchronized void remove(SessionOwner owner) {
         checkNotNull(owner);
-        sessions.remove(getKey(owner));
+        SessionHolder holder = sessions.remove(getKey(owner));
+        if (holder != null) {
+            holder.session.clearHistory();
+            holder.session.releaseClipboard();
+        }
     }
 
     /**
@@ -269,43 +281,100 @@ public synchronized void unload() {
      */
     public synchronized void clear() {
         saveChangedSessions();
+        for (SessionHolder holder : sessions.values()) {
+            holder.session.clearHistory();
+            holder.session.releaseClipboard();
+        }
         sessions.clear();
+        for (RetainedHistory retained : retainedHistories.values()) {
+            retained.holder.clearHistory();
+        }
+        retainedHistories.clear();
     }
 
     private synchronized void saveChangedSessions() {
         long now = System.currentTimeMillis();
-        Iterator<SessionHolder> it = sessions.values().iterator();
+        Iterator<Map.Entry<UUID, SessionHolder>> it = sessions.entrySet().iterator();
         Map<SessionKey, LocalSession> saveQueue = new HashMap<>();
 
         while (it.hasNext()) {
-            SessionHolder stored = it.next();
+            Map.Entry<UUID, SessionHolder> entry = it.next();
+            SessionHolder stored = entry.getValue();
             if (stored.key.isActive()) {
                 stored.lastActive = now;
+                stored.historySpilled = false;
 
                 if (stored.session.compareAndResetDirty()) {
                     saveQueue.put(stored.key, stored.session);
                 }
             } else {
+                if (!stored.historySpilled) {
+                    stored.session.spillHistory();
+                    stored.historySpilled = true;
+                }
+
                 if (now - stored.lastActive > EXPIRATION_GRACE) {
                     if (stored.session.compareAndResetDirty()) {
                         saveQueue.put(stored.key, stored.session);
                     }
 
+                    retainHistory(entry.getKey(), stored.session, now);
+                    stored.session.releaseClipboard();
                     it.remove();
                 }
             }
         }
 
+        Iterator<RetainedHistory> retainedIt = retainedHistories.values().iterator();
+        while (retainedIt.hasNext()) {
+            RetainedHistory retained = retainedIt.next();
+            if (now > retained.expiry) {
+                retained.holder.clearHistory();
+                retainedIt.remove();
+            }
+        }
+
         if (!saveQueue.isEmpty()) {
             commit(saveQueue);
         }
     }
 
+    /**
+     * Keep the (already spilled) history of an expiring session so that it
+     * can be restored if the owner returns within {@link #HISTORY_RETENTION}.
+     *
+     * @param key the session key
+     * @param session the expiring session
+     * @param now the current time
+     */
+    private void retainHistory(UUID key, LocalSession session, long now) {
+        if (HISTORY_RETENTION <= 0 || !session.hasHistory()) {
+            session.clearHistory();
+            return;
+        }
+        LocalSession holder = new LocalSession();
+        holder.takeHistoryFrom(session);
+        RetainedHistory previous = retainedHistories.put(key, new RetainedHistory(holder, now + HISTORY_RETENTION));
+        if (previous != null) {
+            previous.holder.clearHistory();
+        }
+    }
+
     @Subscribe
     public void onConfigurationLoad(ConfigurationLoadEvent event) {
         LocalConfiguration config = event.getConfiguration();
         File dir = new File(config.getWorkingDirectory(), "sessions");
         store = new JsonFileSessionStore(dir);
+        File journalDirectory = new File(config.getWorkingDirectory(), "history");
+        if (!journalDirectory.equals(LocalSession.HISTORY_JOURNAL_DIRECTORY)) {
+            // No history uses this directory yet, so anything in it was left by a previous run
+            int deleted = JournaledBlockHistory.deleteJournals(journalDirectory);
+            if (deleted > 0) {
+                log.info("Deleted " + deleted + " history journal(s) left over from a previous run");
+            }
+            LocalSession.HISTORY_JOURNAL_DIRECTORY = journalDirectory;
+        }
+        LocalSession.CLIPBOARD_DIRECTORY = new File(config.getWorkingDirectory(), "clipboard");
     }
 
     /**
@@ -315,6 +384,7 @@ private static final class SessionHolder {
         private final SessionKey key;
         private final LocalSession session;
         private long lastActive = System.currentTimeMillis();
+        private boolean historySpilled;
 
         private SessionHolder(SessionKey key, LocalSession session) {
             this.key = key;
@@ -322,6 +392,20 @@ private SessionHolder(SessionKey key, LocalSession session) {
         }
     }
 
+    /**
+     * Stores the history of an expired session until it is restored or
+     * the retention window has passed.
+     */
+    private static final class RetainedHistory {
+        private final LocalSession holder;
+        private final long expiry;
+
+        private RetainedHistory(LocalSession holder, long expiry) {
+            this.holder = holder;
+            this.expiry = expiry;
+        }
+    }
+
     /**
      * Removes inactive sessions after they have been inactive for a period
      * of time. Commits them as well.
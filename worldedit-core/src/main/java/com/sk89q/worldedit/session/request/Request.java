@@ -19,6 +19,8 @@
 
 package com.sk89q.worldedit.session.request;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.world.World;
@@ -103,6 +105,17 @@ public static Request request() {
         return threadLocal.get();
     }
 
+    /**
+     * Make the given request the current request of this thread, such as
+     * to resume work started for the request after it was reset.
+     *
+     * @param request the request
+     */
+    public static void restore(Request request) {
+        checkNotNull(request);
+        threadLocal.set(request);
+    }
+
     /**
      * Reset the current request and clear all fields.
      */
@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.regions.NullRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.regions.RegionOperationException;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
 import java.util.Iterator;
@@ -117,6 +118,11 @@ public boolean contains(BlockVector3 position) {
         return getRegion().contains(position);
     }
 
+    @Override
+    public SpanIterator spans() {
+        return getRegion().spans();
+    }
+
     @Override
     public Set<BlockVector2> getChunks() {
         return getRegion().getChunks();
@@ -24,6 +24,11 @@
 import com.sk89q.util.StringUtil;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.extent.world.RelightOperation;
+import com.sk89q.worldedit.extent.world.SectionWriteExtent;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
+import com.sk89q.worldedit.function.visitor.BreadthFirstSearch;
+import com.sk89q.worldedit.session.SessionManager;
 import com.sk89q.worldedit.util.report.Unreported;
 import com.sk89q.worldedit.world.registry.LegacyMapper;
 import com.sk89q.worldedit.world.snapshot.SnapshotRepository;
@@ -41,6 +46,7 @@
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Simple LocalConfiguration that loads settings using
@@ -86,6 +92,7 @@ public void load() {
         maxPolyhedronPoints = getInt("max-polyhedron-points", maxPolyhedronPoints);
         shellSaveType = getString("shell-save-type", shellSaveType);
         maxRadius = getInt("max-radius", maxRadius);
+        BreadthFirstSearch.DEFAULT_MAX_MEMORY = Math.max(-1, getInt("max-search-memory", 512)) * 1024L * 1024L;
         maxSuperPickaxeSize = getInt("max-super-pickaxe-size", maxSuperPickaxeSize);
         maxBrushRadius = getInt("max-brush-radius", maxBrushRadius);
         logCommands = getBool("log-commands", logCommands);
@@ -120,6 +127,12 @@ public void load() {
         serverSideCUI = getBool("server-side-cui", serverSideCUI);
 
         LocalSession.MAX_HISTORY_SIZE = Math.max(15, getInt("history-size", 15));
+        LocalSession.HISTORY_JOURNAL_THRESHOLD = getInt("history-journal-threshold", 1000000);
+        SessionManager.HISTORY_RETENTION = TimeUnit.MINUTES.toMillis(Math.max(0, getInt("history-retention", 60)));
+        OperationScheduler.SPREAD_EDITS = getBool("scheduler-spread-edits", true);
+        OperationScheduler.TICK_BUDGET = Math.max(1, getInt("scheduler-tick-budget", 10)) * 1000000L;
+        SectionWriteExtent.BLOCKS_PER_TICK = Math.max(1, getInt("scheduler-write-budget", 100000));
+        RelightOperation.CHUNKS_PER_BATCH = Math.max(1, getInt("scheduler-relight-batch", 8));
 
         String snapshotsDir = getString("snapshots-dir", "");
         if (!snapshotsDir.isEmpty()) {
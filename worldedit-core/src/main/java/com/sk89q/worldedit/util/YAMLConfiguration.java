@@ -23,6 +23,10 @@
 import com.sk89q.util.yaml.YAMLProcessor;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.extent.world.RelightOperation;
+import com.sk89q.worldedit.extent.world.SectionWriteExtent;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
+import com.sk89q.worldedit.function.visitor.BreadthFirstSearch;
 import com.sk89q.worldedit.session.SessionManager;
 import com.sk89q.worldedit.util.report.Unreported;
 import com.sk89q.worldedit.world.snapshot.SnapshotRepository;
@@ -30,6 +34,7 @@
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A less simple implementation of {@link LocalConfiguration}
@@ -71,6 +76,7 @@ public void load() {
         maxPolyhedronPoints = Math.max(-1, config.getInt("limits.max-polyhedron-points.maximum", maxPolyhedronPoints));
 
         maxRadius = Math.max(-1, config.getInt("limits.max-radius", maxRadius));
+        BreadthFirstSearch.DEFAULT_MAX_MEMORY = Math.max(-1, config.getInt("limits.max-search-memory", 512)) * 1024L * 1024L;
         maxBrushRadius = config.getInt("limits.max-brush-radius", maxBrushRadius);
         maxSuperPickaxeSize = Math.max(1, config.getInt(
                 "limits.max-super-pickaxe-size", maxSuperPickaxeSize));
@@ -112,6 +118,12 @@ public void load() {
         allowSymlinks = config.getBoolean("files.allow-symbolic-links", false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, config.getInt("history.size", 15));
         SessionManager.EXPIRATION_GRACE = config.getInt("history.expiration", 10) * 60 * 1000;
+        LocalSession.HISTORY_JOURNAL_THRESHOLD = config.getInt("history.journal-threshold", 1000000);
+        SessionManager.HISTORY_RETENTION = TimeUnit.MINUTES.toMillis(Math.max(0, config.getInt("history.retention", 60)));
+        OperationScheduler.SPREAD_EDITS = config.getBoolean("scheduler.spread-edits", true);
+        OperationScheduler.TICK_BUDGET = Math.max(1, config.getInt("scheduler.tick-budget", 10)) * 1000000L;
+        SectionWriteExtent.BLOCKS_PER_TICK = Math.max(1, config.getInt("scheduler.write-budget", 100000));
+        RelightOperation.CHUNKS_PER_BATCH = Math.max(1, config.getInt("scheduler.relight-batch", 8));
 
         showHelpInfo = config.getBoolean("show-help-on-first-use", true);
         serverSideCUI = config.getBoolean("server-side-cui", true);
@@ -21,68 +21,330 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.LocatedBlock;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
 
 /**
  * Wrapper around a list of blocks located in the world.
+ *
+ * <p>Blocks are stored in columns: positions are packed into {@code long}s
+ * (see {@link BlockVector3#toLongPackedForm()}), states are stored as
+ * {@code int} ids, and NBT data is kept in a sparse side table. Use
+ * {@link #cursor()} to read the list without allocating an object per
+ * block.</p>
  */
 public class LocatedBlockList implements Iterable<LocatedBlock> {
 
-    private final List<LocatedBlock> list;
+    private static final long[] EMPTY_POSITIONS = new long[0];
+    private static final int[] EMPTY_IDS = new int[0];
+
+    private final BlockStateIdMapper ids = new BlockStateIdMapper();
+    private long[] positions = EMPTY_POSITIONS;
+    private int[] states = EMPTY_IDS;
+    private final SparseColumn<CompoundTag> nbt = new SparseColumn<>();
+    private final SparseColumn<BlockVector3> unpackable = new SparseColumn<>();
+    private int size;
 
     public LocatedBlockList() {
-        list = new ArrayList<>();
     }
 
     public LocatedBlockList(Collection<? extends LocatedBlock> collection) {
-        list = new ArrayList<>(collection);
+        ensureCapacity(collection.size());
+        for (LocatedBlock block : collection) {
+            add(block);
+        }
     }
 
     public void add(LocatedBlock setBlockCall) {
         checkNotNull(setBlockCall);
-        list.add(setBlockCall);
+        add(setBlockCall.getLocation(), setBlockCall.getBlock());
     }
 
     public <B extends BlockStateHolder<B>> void add(BlockVector3 location, B block) {
-        add(new LocatedBlock(location, block.toBaseBlock()));
+        checkNotNull(location);
+        checkNotNull(block);
+        ensureCapacity(size + 1);
+        if (location.isLongPackable()) {
+            positions[size] = location.toLongPackedForm();
+        } else {
+            unpackable.add(size, location);
+        }
+        states[size] = ids.getId(block.toImmutableState());
+        CompoundTag tag = block instanceof BaseBlock ? ((BaseBlock) block).getNbtData() : null;
+        if (tag != null) {
+            nbt.add(size, tag);
+        }
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > positions.length) {
+            int newCapacity = Math.max(capacity, Math.max(16, positions.length + (positions.length >> 1)));
+            positions = Arrays.copyOf(positions, newCapacity);
+            states = Arrays.copyOf(states, newCapacity);
+        }
     }
 
     public int size() {
-        return list.size();
+        return size;
     }
 
     public void clear() {
-        list.clear();
+        positions = EMPTY_POSITIONS;
+        states = EMPTY_IDS;
+        nbt.clear();
+        unpackable.clear();
+        size = 0;
+    }
+
+    /**
+     * Get an estimate of the memory used by this list, in bytes, not
+     * counting NBT data.
+     *
+     * @return the estimated memory usage
+     */
+    public long getMemoryUsage() {
+        return positions.length * 12L + nbt.getMemoryUsage() + unpackable.getMemoryUsage();
+    }
+
+    /**
+     * Create a cursor that visits the blocks in insertion order.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor(false);
+    }
+
+    /**
+     * Create a cursor that visits the blocks in reverse insertion order.
+     *
+     * @return a new cursor
+     */
+    public Cursor reverseCursor() {
+        return new Cursor(true);
     }
 
     @Override
     public Iterator<LocatedBlock> iterator() {
-        return list.iterator();
+        return new CursorIterator(cursor());
     }
 
     public Iterator<LocatedBlock> reverseIterator() {
-        return new Iterator<LocatedBlock>() {
+        return new CursorIterator(reverseCursor());
+    }
+
+    /**
+     * Reads the blocks of the list one at a time, without allocating an
+     * object per block unless one is asked for.
+     *
+     * <p>{@link #getX()}, {@link #getY()}, {@link #getZ()},
+     * {@link #getState()} and {@link #getNbtData()} do not allocate.
+     * {@link #getLocation()} and {@link #getBlock()} create a new object
+     * for most blocks.</p>
+     *
+     * <p>The list should not be modified while a cursor is in use.</p>
+     */
+    public final class Cursor {
+
+        private final boolean reverse;
+        private int index;
+
+        private Cursor(boolean reverse) {
+            this.reverse = reverse;
+            this.index = reverse ? size : -1;
+        }
+
+        /**
+         * Move to the next block.
+         *
+         * @return false if there are no more blocks
+         */
+        public boolean next() {
+            if (reverse) {
+                if (index > 0) {
+                    index--;
+                    return true;
+                }
+                return false;
+            }
+            if (index + 1 < size) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private void checkPosition() {
+            if (index < 0 || index >= size) {
+                throw new NoSuchElementException();
+            }
+        }
+
+        /**
+         * Get the x coordinate of the current block.
+         *
+         * @return the x coordinate
+         */
+        public int getX() {
+            checkPosition();
+            BlockVector3 location = unpackable.get(index);
+            return location != null ? location.getBlockX() : BlockVector3.unpackX(positions[index]);
+        }
+
+        /**
+         * Get the y coordinate of the current block.
+         *
+         * @return the y coordinate
+         */
+        public int getY() {
+            checkPosition();
+            BlockVector3 location = unpackable.get(index);
+            return location != null ? location.getBlockY() : BlockVector3.unpackY(positions[index]);
+        }
+
+        /**
+         * Get the z coordinate of the current block.
+         *
+         * @return the z coordinate
+         */
+        public int getZ() {
+            checkPosition();
+            BlockVector3 location = unpackable.get(index);
+            return location != null ? location.getBlockZ() : BlockVector3.unpackZ(positions[index]);
+        }
+
+        /**
+         * Get the location of the current block.
+         *
+         * @return the location
+         */
+        public BlockVector3 getLocation() {
+            checkPosition();
+            BlockVector3 location = unpackable.get(index);
+            return location != null ? location : BlockVector3.fromLongPackedForm(positions[index]);
+        }
+
+        /**
+         * Get the state of the current block.
+         *
+         * @return the block state
+         */
+        public BlockState getState() {
+            checkPosition();
+            return ids.getState(states[index]);
+        }
+
+        /**
+         * Get the NBT data of the current block.
+         *
+         * @return the NBT data, or null if the block has none
+         */
+        @Nullable
+        public CompoundTag getNbtData() {
+            checkPosition();
+            return nbt.get(index);
+        }
+
+        /**
+         * Get the current block with its NBT data.
+         *
+         * @return the block
+         */
+        public BaseBlock getBlock() {
+            CompoundTag tag = getNbtData();
+            return tag != null ? getState().toBaseBlock(tag) : getState().toBaseBlock();
+        }
+
+    }
+
+    /**
+     * Values for a few of the indices of the list, such as NBT data, kept
+     * in sorted arrays so that looking one up does not box the index.
+     *
+     * <p>Values are always added for the last index of the list, so the
+     * indices are sorted in the order they were added.</p>
+     *
+     * @param <T> the type of value
+     */
+    private static final class SparseColumn<T> {
+
+        private int[] indices = EMPTY_IDS;
+        private Object[] values = new Object[0];
+        private int count;
+
+        void add(int index, T value) {
+            if (count == indices.length) {
+                int newCapacity = Math.max(4, count * 2);
+                indices = Arrays.copyOf(indices, newCapacity);
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            indices[count] = index;
+            values[count] = value;
+            count++;
+        }
+
+        @Nullable
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            if (count == 0) {
+                return null;
+            }
+            int found = Arrays.binarySearch(indices, 0, count, index);
+            return found >= 0 ? (T) values[found] : null;
+        }
+
+        void clear() {
+            indices = EMPTY_IDS;
+            values = new Object[0];
+            count = 0;
+        }
+
+        long getMemoryUsage() {
+            return indices.length * 12L;
+        }
+
+    }
+
+    private static final class CursorIterator implements Iterator<LocatedBlock> {
+
+        private final Cursor cursor;
+        private boolean advanced;
+        private boolean hasNext;
 
-            private final ListIterator<LocatedBlock> backingIterator = list.listIterator(list.size());
+        private CursorIterator(Cursor cursor) {
+            this.cursor = cursor;
+        }
 
-            @Override
-            public boolean hasNext() {
-                return backingIterator.hasPrevious();
+        @Override
+        public boolean hasNext() {
+            if (!advanced) {
+                hasNext = cursor.next();
+                advanced = true;
             }
+            return hasNext;
+        }
 
-            @Override
-            public LocatedBlock next() {
-                return backingIterator.previous();
+        @Override
+        public LocatedBlock next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
-        };
+            advanced = false;
+            return new LocatedBlock(cursor.getLocation(), cursor.getBlock());
+        }
     }
 
 }
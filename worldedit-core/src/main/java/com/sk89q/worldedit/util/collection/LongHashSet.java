@@ -0,0 +1,183 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A set of primitive {@code long}s using open addressing with linear
+ * probing.
+ *
+ * <p>Any {@code long} value may be stored, which makes this suitable for
+ * positions packed with {@link com.sk89q.worldedit.math.BlockVector3#toLongPackedForm()}.
+ * Elements cannot be removed.</p>
+ */
+public class LongHashSet {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsEmpty;
+
+    /**
+     * Create a new instance.
+     */
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param expectedSize the number of elements to size the table for
+     */
+    public LongHashSet(int expectedSize) {
+        checkArgument(expectedSize >= 0, "expectedSize must be non-negative");
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) Math.min(1 << 30, expectedSize / LOAD_FACTOR)) - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+
+    /**
+     * Check whether the given value is in the set.
+     *
+     * @param value the value
+     * @return true if the set contains the value
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        for (int i = hash(value) & mask; ; i = (i + 1) & mask) {
+            long existing = table[i];
+            if (existing == EMPTY) {
+                return false;
+            }
+            if (existing == value) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Add the given value to the set.
+     *
+     * @param value the value
+     * @return true if the value was not already in the set
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        for (int i = hash(value) & mask; ; i = (i + 1) & mask) {
+            long existing = table[i];
+            if (existing == EMPTY) {
+                table[i] = value;
+                if (++size > table.length * LOAD_FACTOR) {
+                    rehash(table.length << 1);
+                }
+                return true;
+            }
+            if (existing == value) {
+                return false;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        checkArgument(capacity > 0, "Set is too large");
+        long[] old = table;
+        table = new long[capacity];
+        mask = capacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int i = hash(value) & mask;
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+
+    /**
+     * Get the number of values in the set.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the set is empty.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all values and release the table.
+     */
+    public void clear() {
+        table = new long[DEFAULT_CAPACITY];
+        mask = DEFAULT_CAPACITY - 1;
+        size = 0;
+        containsEmpty = false;
+    }
+
+    /**
+     * Get the number of bytes used by the table.
+     *
+     * @return the number of bytes
+     */
+    public long getMemoryUsage() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * Get the number of bytes the table will use after the next value
+     * that requires it to grow is added.
+     *
+     * @return the number of bytes
+     */
+    public long getMemoryUsageAfterGrowth() {
+        return (size + 1 > table.length * LOAD_FACTOR ? 2L : 1L) * getMemoryUsage();
+    }
+
+}
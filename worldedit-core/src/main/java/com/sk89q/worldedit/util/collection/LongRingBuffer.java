@@ -0,0 +1,110 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A first-in, first-out queue of primitive {@code long}s backed by a
+ * growable ring buffer.
+ */
+public class LongRingBuffer {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] buffer = new long[DEFAULT_CAPACITY];
+    private int head;
+    private int size;
+
+    /**
+     * Add a value to the end of the queue.
+     *
+     * @param value the value
+     */
+    public void add(long value) {
+        if (size == buffer.length) {
+            grow();
+        }
+        buffer[(head + size) & (buffer.length - 1)] = value;
+        size++;
+    }
+
+    private void grow() {
+        long[] grown = new long[buffer.length << 1];
+        int tail = buffer.length - head;
+        System.arraycopy(buffer, head, grown, 0, tail);
+        System.arraycopy(buffer, 0, grown, tail, head);
+        buffer = grown;
+        head = 0;
+    }
+
+    /**
+     * Remove and return the value at the front of the queue.
+     *
+     * @return the value
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public long remove() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        long value = buffer[head];
+        head = (head + 1) & (buffer.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Get the number of values in the queue.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the queue is empty.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all values and release the buffer.
+     */
+    public void clear() {
+        buffer = new long[DEFAULT_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Get the number of bytes used by the buffer.
+     *
+     * @return the number of bytes
+     */
+    public long getMemoryUsage() {
+        return (long) buffer.length * Long.BYTES;
+    }
+
+}
@@ -21,6 +21,8 @@
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -51,4 +53,22 @@ public static ExecutorService newBoundedCachedThreadPool(int minThreads, int max
         return threadPoolExecutor;
     }
 
+    /**
+     * Creates a thread pool that hands each task directly to an idle or new
+     * thread, up to a maximum number of threads. Tasks are never queued:
+     * once every thread is busy, new submissions are rejected, so that the
+     * caller can do the work itself instead of waiting.
+     *
+     * @param maxThreads the maximum number of threads to have at a given time
+     * @param threadFactory the factory for new threads
+     * @return the newly created thread pool
+     */
+    public static ExecutorService newDirectHandoffThreadPool(int maxThreads, ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(
+                0, maxThreads,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                threadFactory);
+    }
+
 }
@@ -23,6 +23,7 @@
 import com.google.common.io.Files;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
+import com.sk89q.worldedit.extent.clipboard.io.SchematicIndex;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.event.ClickEvent;
@@ -30,27 +31,42 @@
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
 
 import java.io.File;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 public class SchematicPaginationBox extends PaginationBox {
     private final String prefix;
-    private final File[] files;
+    private final List<SchematicIndex.Entry> entries;
 
-    public SchematicPaginationBox(String rootDir, File[] files, String pageCommand) {
+    public SchematicPaginationBox(String rootDir, List<SchematicIndex.Entry> entries, String pageCommand) {
         super("Available schematics", pageCommand);
         this.prefix = rootDir == null ? "" : rootDir;
-        this.files = files;
+        this.entries = entries;
     }
 
     @Override
     public Component getComponent(int number) {
-        checkArgument(number < files.length && number >= 0);
-        File file = files[number];
-        Multimap<String, ClipboardFormat> exts = ClipboardFormats.getFileExtensionMap();
-        String format = exts.get(Files.getFileExtension(file.getName()))
-                .stream().findFirst().map(ClipboardFormat::getName).orElse("Unknown");
+        checkArgument(number < entries.size() && number >= 0);
+        SchematicIndex.Entry entry = entries.get(number);
+        File file = entry.getFile();
+        ClipboardFormat format = entry.getFormat();
+        if (format == null) {
+            Multimap<String, ClipboardFormat> exts = ClipboardFormats.getFileExtensionMap();
+            format = exts.get(Files.getFileExtension(file.getName())).stream().findFirst().orElse(null);
+        }
+        StringBuilder info = new StringBuilder(format == null ? "Unknown" : format.getName());
+        if (entry.getWidth() >= 0 && entry.getHeight() >= 0 && entry.getLength() >= 0) {
+            info.append(" (").append(entry.getWidth()).append("x").append(entry.getHeight())
+                    .append("x").append(entry.getLength()).append(")");
+        }
+        if (entry.getPaletteSize() >= 0) {
+            info.append(", ").append(entry.getPaletteSize()).append(" block states");
+        }
+        if (entry.getDataVersion() >= 0) {
+            info.append(", data version ").append(entry.getDataVersion());
+        }
         boolean inRoot = file.getParentFile().getName().equals(prefix);
 
         String path = inRoot ? file.getName() : file.getPath().split(Pattern.quote(prefix + File.separator))[1];
@@ -64,12 +80,12 @@ public Component getComponent(int number) {
                 .append(TextComponent.space())
                 .append(TextComponent.of(path)
                         .color(TextColor.DARK_GREEN)
-                        .hoverEvent(HoverEvent.of(HoverEvent.Action.SHOW_TEXT, TextComponent.of(format))))
+                        .hoverEvent(HoverEvent.of(HoverEvent.Action.SHOW_TEXT, TextComponent.of(info.toString()))))
                 .build();
     }
 
     @Override
     public int getComponentsSize() {
-        return files.length;
+        return entries.size();
     }
 }
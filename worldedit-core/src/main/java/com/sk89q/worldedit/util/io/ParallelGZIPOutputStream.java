@@ -0,0 +1,218 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.io;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A GZIP output stream that compresses blocks of input in parallel.
+ *
+ * <p>Each block is written as a complete GZIP member. A file made of
+ * several members is still a valid GZIP file, which standard readers such
+ * as {@link java.util.zip.GZIPInputStream} decompress as one stream.</p>
+ */
+public class ParallelGZIPOutputStream extends OutputStream {
+
+    /**
+     * The number of uncompressed bytes in each member.
+     */
+    public static final int BLOCK_SIZE = 1 << 20;
+
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, // magic
+            Deflater.DEFLATED, // compression method
+            0, // flags
+            0, 0, 0, 0, // modification time
+            0, // extra flags
+            (byte) 0xff // operating system: unknown
+    };
+
+    private final OutputStream out;
+    private final Executor executor;
+    private final int maxPending;
+    private final int level;
+    private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private byte[] buffer = new byte[BLOCK_SIZE];
+    private int count;
+    private boolean written;
+    private boolean closed;
+
+    /**
+     * Create a new instance that compresses on the common fork-join pool.
+     *
+     * @param out the stream to write compressed data to
+     */
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism(), Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param out the stream to write compressed data to
+     * @param executor the executor to compress blocks on
+     * @param parallelism the number of blocks to compress at once
+     * @param level the compression level
+     */
+    public ParallelGZIPOutputStream(OutputStream out, Executor executor, int parallelism, int level) {
+        checkNotNull(out);
+        checkNotNull(executor);
+        this.out = out;
+        this.executor = executor;
+        // Keep a few blocks queued so that workers don't wait on the writer
+        this.maxPending = Math.max(2, parallelism * 2);
+        this.level = level;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            submitBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                submitBlock();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes all compressed blocks to the underlying stream, ending the
+     * current block early if needed.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeCompleted();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (count > 0 || !written && pending.isEmpty()) {
+                // An empty stream still needs one member to be a valid file
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeCompleted();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] block = buffer;
+        int length = count;
+        buffer = new byte[BLOCK_SIZE];
+        count = 0;
+        written = true;
+        pending.add(CompletableFuture.supplyAsync(() -> compress(block, length, level), executor));
+        while (pending.size() >= maxPending) {
+            writeCompleted();
+        }
+    }
+
+    private void writeCompleted() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress a block", e.getCause());
+        }
+    }
+
+    /**
+     * Compress data into a complete GZIP member.
+     *
+     * @param data the data
+     * @param length the number of bytes of the data to use
+     * @param level the compression level
+     * @return the member
+     */
+    static byte[] compress(byte[] data, int length, int level) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + 64);
+        member.write(HEADER, 0, HEADER.length);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                member.write(chunk, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        writeIntLE(member, (int) crc.getValue());
+        writeIntLE(member, length);
+        return member.toByteArray();
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sk89q.worldedit.util.concurrency.EvenMoreExecutors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+/**
+ * An input stream that reads ahead from another stream on a background
+ * thread, so that slow work in the source, such as decompression, overlaps
+ * with the work of the reader.
+ *
+ * <p>The background threads come from a small shared pool. If every thread
+ * of the pool is busy, the stream reads from the source directly instead of
+ * waiting for one. A stream that is
+ * dropped without being closed stops reading ahead once it has been garbage
+ * collected, and its source is then closed.</p>
+ *
+ * <p>Instances are not thread safe and must be read from one thread.</p>
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    /**
+     * The default number of bytes in each chunk that is read ahead.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private static final int MAX_THREADS = 4;
+    private static final ExecutorService executor = EvenMoreExecutors.newDirectHandoffThreadPool(MAX_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("WorldEdit Read-Ahead #%d").setDaemon(true).build());
+
+    private static final Chunk END = new Chunk(new byte[0], -1, null);
+
+    private final InputStream source;
+    @Nullable
+    private final Filler filler;
+    @Nullable
+    private final Future<?> future;
+    private Chunk current;
+    private int position;
+    private boolean closed;
+
+    /**
+     * Create a new instance with default chunk sizes.
+     *
+     * @param source the stream to read from
+     */
+    public ReadAheadInputStream(InputStream source) {
+        this(source, DEFAULT_CHUNK_SIZE, 16);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param source the stream to read from
+     * @param chunkSize the number of bytes in each chunk
+     * @param chunks the number of chunks that may be read ahead
+     */
+    public ReadAheadInputStream(InputStream source, int chunkSize, int chunks) {
+        checkNotNull(source);
+        checkArgument(chunkSize > 0, "chunkSize must be positive");
+        checkArgument(chunks > 0, "chunks must be positive");
+        this.source = source;
+        Filler filler = new Filler(this, source, chunkSize, chunks);
+        Future<?> future;
+        try {
+            future = executor.submit(filler);
+        } catch (RejectedExecutionException e) {
+            filler = null;
+            future = null;
+        }
+        this.filler = filler;
+        this.future = future;
+    }
+
+    /**
+     * Make sure that there are bytes left in the current chunk.
+     *
+     * @return false at the end of the stream
+     * @throws IOException if the source failed
+     */
+    private boolean ensureData() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || (current != END && position >= current.length)) {
+            try {
+                current = filler.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading");
+            }
+            position = 0;
+            if (current.error != null) {
+                Exception error = current.error;
+                current = END;
+                if (error instanceof IOException) {
+                    throw (IOException) error;
+                }
+                throw new IOException(error);
+            }
+        }
+        return current != END;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (filler == null) {
+            return source.read();
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        return current.data[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (filler == null) {
+            return source.read(b, off, len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (filler == null) {
+            return source.available();
+        }
+        return current == null || current == END ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (filler != null) {
+            filler.stop(future);
+        }
+        source.close();
+    }
+
+    /**
+     * Reads chunks from the source into the queue on a pool thread.
+     *
+     * <p>This holds only a weak reference to the stream, so that it can tell
+     * when the stream has been dropped without being closed.</p>
+     */
+    private static final class Filler implements Runnable {
+        private static final long ABANDON_CHECK_INTERVAL = 1;
+
+        private final WeakReference<ReadAheadInputStream> owner;
+        private final InputStream source;
+        private final int chunkSize;
+        private final BlockingQueue<Chunk> queue;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean stopped;
+
+        private Filler(ReadAheadInputStream owner, InputStream source, int chunkSize, int chunks) {
+            this.owner = new WeakReference<>(owner);
+            this.source = source;
+            this.chunkSize = chunkSize;
+            this.queue = new ArrayBlockingQueue<>(chunks);
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return; // Stopped before it began
+            }
+            try {
+                fill();
+            } catch (InterruptedException ignored) {
+                // Stopped by the reader
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void fill() throws InterruptedException {
+            while (!stopped) {
+                byte[] data = new byte[chunkSize];
+                int length = 0;
+                Exception error = null;
+                try {
+                    while (length < chunkSize) {
+                        int n = source.read(data, length, chunkSize - length);
+                        if (n == -1) {
+                            break;
+                        }
+                        length += n;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    error = e;
+                }
+                // Bytes read before an error are still handed to the reader
+                if (length > 0 && !put(new Chunk(data, length, null))) {
+                    return;
+                }
+                if (error != null) {
+                    put(new Chunk(null, -1, error));
+                    return;
+                }
+                if (length < chunkSize) {
+                    put(END);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Wait for room in the queue and add a chunk to it.
+         *
+         * @param chunk the chunk
+         * @return false if the stream was closed or dropped first
+         * @throws InterruptedException if interrupted while waiting
+         */
+        private boolean put(Chunk chunk) throws InterruptedException {
+            while (!queue.offer(chunk, ABANDON_CHECK_INTERVAL, TimeUnit.SECONDS)) {
+                if (stopped) {
+                    return false;
+                }
+                if (owner.get() == null) {
+                    try {
+                        source.close();
+                    } catch (IOException ignored) {
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Stop reading ahead and wait until the source is no longer in use.
+         *
+         * @param future the future of this task
+         */
+        private void stop(Future<?> future) {
+            stopped = true;
+            if (started.compareAndSet(false, true)) {
+                future.cancel(false);
+                return;
+            }
+            future.cancel(true);
+            queue.clear();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final byte[] data;
+        private final int length;
+        private final Exception error;
+
+        private Chunk(byte[] data, int length, Exception error) {
+            this.data = data;
+            this.length = length;
+            this.error = error;
+        }
+    }
+
+}
@@ -263,6 +263,45 @@ public interface World extends Extent {
      */
     BlockVector3 getSpawnPosition();
 
+    /**
+     * Returns whether this world can set blocks by section with
+     * {@link #setSectionBlocks(int, int, int, short[], int[], int, boolean)}.
+     *
+     * @return true if blocks can be set by section
+     */
+    default boolean supportsSectionBlocks() {
+        return false;
+    }
+
+    /**
+     * Set many blocks within one chunk section at once and send a single
+     * update for the section to clients. If neighbours are notified, the
+     * section is relit once afterwards; otherwise lighting is left to
+     * {@link #fixAfterFastMode(Iterable)}.
+     *
+     * <p>Tile entity data is not set. Blocks are given as indices within the
+     * section ({@code y << 8 | z << 4 | x}) and the internal ids of their
+     * states.</p>
+     *
+     * <p>The default implementation does nothing and returns false, in which
+     * case the blocks should be set one at a time instead. Callers should
+     * check {@link #supportsSectionBlocks()} first.</p>
+     *
+     * @param sectionX the section X coordinate
+     * @param sectionY the section Y coordinate
+     * @param sectionZ the section Z coordinate
+     * @param indices the indices of the blocks within the section
+     * @param stateIds the internal ids of the states to set
+     * @param count the number of blocks to set
+     * @param notifyNeighbors whether to notify neighbouring blocks of the change
+     * @return true if the blocks were set, false if this world cannot set blocks by section
+     * @throws WorldEditException thrown on an error
+     */
+    default boolean setSectionBlocks(int sectionX, int sectionY, int sectionZ, short[] indices, int[] stateIds,
+                                     int count, boolean notifyNeighbors) throws WorldEditException {
+        return false;
+    }
+
     @Override
     boolean equals(Object other);
 
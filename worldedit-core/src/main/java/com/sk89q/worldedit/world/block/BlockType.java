@@ -36,6 +36,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -46,6 +47,9 @@ public class BlockType implements Keyed {
 
     public static final NamespacedRegistry<BlockType> REGISTRY = new NamespacedRegistry<>("block type");
 
+    private static final AtomicInteger nextInternalId = new AtomicInteger();
+
+    private final int internalId = nextInternalId.getAndIncrement();
     private final String id;
     private final Function<BlockState, BlockState> values;
     private final AtomicReference<BlockState> defaultState = new AtomicReference<>();
@@ -97,6 +101,17 @@ public String getId() {
         return this.id;
     }
 
+    /**
+     * Gets a small, dense ID for this block type that can be used to index
+     * arrays. It is only valid for the lifetime of the process and must
+     * not be persisted.
+     *
+     * @return The internal id
+     */
+    public int getInternalId() {
+        return this.internalId;
+    }
+
     /**
      * Gets the name of this block, or the ID if the name cannot be found.
      *
@@ -19,7 +19,11 @@
 
 package com.sk89q.worldedit.world.storage;
 
+import com.google.common.collect.ImmutableSet;
 import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTConstants;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTStreamReader;
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.extension.platform.Capability;
@@ -37,6 +41,7 @@
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents chunk storage mechanisms.
@@ -48,6 +53,16 @@ public abstract class ChunkStore implements Closeable {
      */
     private static final int DATA_VERSION_MC_1_13 = 1519;
 
+    /**
+     * Paths of chunk data that is not needed to read blocks, which
+     * {@link #readChunkTag(NBTInputStream)} leaves out.
+     */
+    private static final Set<String> UNUSED_CHUNK_TAGS = ImmutableSet.of(
+            "Level/Entities", "Level/Sections/BlockLight", "Level/Sections/SkyLight",
+            "Level/HeightMap", "Level/Heightmaps", "Level/Lights", "Level/TileTicks", "Level/LiquidTicks",
+            "Level/ToBeTicked", "Level/LiquidsToBeTicked", "Level/PostProcessing", "Level/Structures",
+            "Level/CarvingMasks");
+
     /**
      * {@code >>} - to chunk
      * {@code <<} - from chunk
@@ -67,6 +82,9 @@ public static BlockVector2 toChunk(BlockVector3 position) {
     /**
      * Get the tag for a chunk.
      *
+     * <p>Data that is not needed to read the chunk's blocks, such as
+     * entities and lighting, may be left out.</p>
+     *
      * @param position the position of the chunk
      * @return tag
      * @throws DataException thrown on data error
@@ -74,6 +92,24 @@ public static BlockVector2 toChunk(BlockVector3 position) {
      */
     public abstract CompoundTag getChunkTag(BlockVector2 position, World world) throws DataException, IOException;
 
+    /**
+     * Read the root tag of a chunk, leaving out data such as entities,
+     * lighting and scheduled ticks that is not needed to read its blocks.
+     *
+     * @param nbt the stream to read from
+     * @return the tag
+     * @throws ChunkStoreException thrown if the root tag is not a compound
+     * @throws IOException thrown on I/O error
+     */
+    protected static CompoundTag readChunkTag(NBTInputStream nbt) throws ChunkStoreException, IOException {
+        NBTStreamReader reader = new NBTStreamReader(nbt);
+        int type = reader.next();
+        if (type != NBTConstants.TYPE_COMPOUND) {
+            throw new ChunkStoreException("CompoundTag expected for chunk; got tag type " + type);
+        }
+        return (CompoundTag) reader.readTag(UNUSED_CHUNK_TAGS::contains);
+    }
+
     /**
      * Get a chunk at a location.
      *
@@ -21,7 +21,6 @@
 
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTInputStream;
-import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.World;
@@ -70,15 +69,9 @@ public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataEx
         McRegionReader reader = getReader(position, world.getName());
 
         InputStream stream = reader.getChunkInputStream(position);
-        Tag tag;
 
         try (NBTInputStream nbt = new NBTInputStream(stream)) {
-            tag = nbt.readNamedTag().getTag();
-            if (!(tag instanceof CompoundTag)) {
-                throw new ChunkStoreException("CompoundTag expected for chunk; got " + tag.getClass().getName());
-            }
-
-            return (CompoundTag) tag;
+            return readChunkTag(nbt);
         }
     }
 
@@ -0,0 +1,162 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.jnbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+public class NBTStreamReaderTest {
+
+    private static NBTStreamReader reader(Map<String, Tag> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (NBTOutputStream out = new NBTOutputStream(bytes)) {
+            out.writeNamedTag("Root", new CompoundTag(entries));
+        }
+        return new NBTStreamReader(new NBTInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testNextAndReadInt() throws IOException {
+        NBTStreamReader reader = reader(ImmutableMap.of(
+                "Byte", new ByteTag((byte) -3),
+                "Short", new ShortTag((short) 1234),
+                "Int", new IntTag(-56789)));
+
+        assertEquals(NBTConstants.TYPE_COMPOUND, reader.next());
+        assertEquals("Root", reader.getName());
+        assertEquals(NBTConstants.TYPE_BYTE, reader.next());
+        assertEquals("Byte", reader.getName());
+        assertEquals(-3, reader.readInt());
+        assertEquals(NBTConstants.TYPE_SHORT, reader.next());
+        assertEquals(1234, reader.readInt());
+        assertEquals(NBTConstants.TYPE_INT, reader.next());
+        assertEquals("Int", reader.getName());
+        assertEquals(-56789, reader.readInt());
+        assertEquals(NBTConstants.TYPE_END, reader.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadIntRejectsOtherTypes() throws IOException {
+        NBTStreamReader reader = reader(ImmutableMap.of("Name", new StringTag("stone")));
+        reader.next();
+        reader.next();
+        reader.readInt();
+    }
+
+    @Test
+    public void testSkip() throws IOException {
+        Map<String, Tag> nested = ImmutableMap.of(
+                "Data", new ByteArrayTag(new byte[100]),
+                "Name", new StringTag("chest"));
+        NBTStreamReader reader = reader(ImmutableMap.<String, Tag>builder()
+                .put("Nested", new CompoundTag(nested))
+                .put("List", new ListTag(CompoundTag.class, ImmutableList.of(new CompoundTag(nested), new CompoundTag(nested))))
+                .put("Longs", new LongArrayTag(new long[] { 1, 2, 3 }))
+                .put("Ints", new IntArrayTag(new int[] { 4, 5 }))
+                .put("Double", new DoubleTag(1.5))
+                .put("After", new IntTag(42))
+                .build());
+
+        reader.next();
+        for (int i = 0; i < 5; i++) {
+            reader.next();
+            reader.skip();
+        }
+        assertEquals(NBTConstants.TYPE_INT, reader.next());
+        assertEquals("After", reader.getName());
+        assertEquals(42, reader.readInt());
+        assertEquals(NBTConstants.TYPE_END, reader.next());
+    }
+
+    @Test
+    public void testListOfCompounds() throws IOException {
+        NBTStreamReader reader = reader(ImmutableMap.of("List", new ListTag(CompoundTag.class, ImmutableList.of(
+                new CompoundTag(ImmutableMap.of("Value", new IntTag(1))),
+                new CompoundTag(ImmutableMap.of("Value", new IntTag(2)))))));
+
+        reader.next();
+        assertEquals(NBTConstants.TYPE_LIST, reader.next());
+        assertEquals(2, reader.readListHeader());
+        assertEquals(NBTConstants.TYPE_COMPOUND, reader.getListType());
+        for (int i = 1; i <= 2; i++) {
+            assertEquals(NBTConstants.TYPE_INT, reader.next());
+            assertEquals(i, reader.readInt());
+            assertEquals(NBTConstants.TYPE_END, reader.next());
+        }
+        assertEquals(NBTConstants.TYPE_END, reader.next());
+    }
+
+    @Test
+    public void testBulkReads() throws IOException {
+        byte[] bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        int[] ints = { Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE };
+        long[] longs = { Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE };
+        NBTStreamReader reader = reader(ImmutableMap.of(
+                "Bytes", new ByteArrayTag(bytes),
+                "Ints", new IntArrayTag(ints),
+                "Longs", new LongArrayTag(longs),
+                "Stream", new ByteArrayTag(bytes)));
+
+        reader.next();
+        assertEquals(NBTConstants.TYPE_BYTE_ARRAY, reader.next());
+        byte[] readBytes = new byte[reader.readArrayLength() + 2];
+        reader.readBytes(readBytes, 1, bytes.length);
+        assertArrayEquals(bytes, Arrays.copyOfRange(readBytes, 1, bytes.length + 1));
+
+        assertEquals(NBTConstants.TYPE_INT_ARRAY, reader.next());
+        int[] readInts = new int[reader.readArrayLength()];
+        reader.readInts(readInts, 0, readInts.length);
+        assertArrayEquals(ints, readInts);
+
+        assertEquals(NBTConstants.TYPE_LONG_ARRAY, reader.next());
+        long[] readLongs = new long[reader.readArrayLength()];
+        reader.readLongs(readLongs, 0, readLongs.length);
+        assertArrayEquals(longs, readLongs);
+
+        assertEquals(NBTConstants.TYPE_BYTE_ARRAY, reader.next());
+        InputStream stream = reader.openBytes(reader.readArrayLength());
+        byte[] streamed = new byte[bytes.length];
+        int offset = 0;
+        int read;
+        while ((read = stream.read(streamed, offset, Math.min(999, streamed.length - offset))) > 0) {
+            offset += read;
+        }
+        assertEquals(bytes.length, offset);
+        assertEquals(-1, stream.read());
+        assertArrayEquals(bytes, streamed);
+        assertEquals(NBTConstants.TYPE_END, reader.next());
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.registry.state.IntegerProperty;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledBlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Installs a mock platform with a few block types, for tests that need
+ * block states.
+ */
+public final class TestPlatform {
+
+    /**
+     * A block with a {@code power} property of 16 values.
+     */
+    public static final String POWERED_BLOCK = "worldedit:test_powered";
+
+    /**
+     * A block with a {@code power} property whose states have no internal id.
+     */
+    public static final String UNNUMBERED_BLOCK = "worldedit:test_unnumbered";
+
+    /**
+     * A block with three properties of 16 values, for 4096 states in total.
+     */
+    public static final String MANY_STATES_BLOCK = "worldedit:test_many_states";
+
+    private static final String[] SIMPLE_BLOCKS = { "minecraft:air", "minecraft:stone", "minecraft:dirt" };
+
+    private static final List<Integer> SIXTEEN_VALUES =
+            Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15);
+
+    private static Platform platform;
+
+    private TestPlatform() {
+    }
+
+    /**
+     * Make the test platform the only registered platform and register the
+     * test block types.
+     */
+    public static synchronized void install() {
+        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
+        if (platform == null) {
+            platform = mock(Platform.class);
+            BundledRegistries registries = new TestRegistries();
+            LocalConfiguration configuration = new LocalConfiguration() {
+                @Override
+                public void load() {
+                }
+            };
+            when(platform.getRegistries()).thenReturn(registries);
+            when(platform.getConfiguration()).thenReturn(configuration);
+            when(platform.getDataVersion()).thenReturn(1976);
+        }
+        for (Platform other : new ArrayList<>(platformManager.getPlatforms())) {
+            if (other != platform) {
+                platformManager.unregister(other);
+            }
+        }
+        if (!platformManager.getPlatforms().contains(platform)) {
+            platformManager.register(platform);
+        }
+
+        for (String id : SIMPLE_BLOCKS) {
+            registerType(id);
+        }
+        registerType(POWERED_BLOCK);
+        registerType(UNNUMBERED_BLOCK);
+        registerType(MANY_STATES_BLOCK);
+    }
+
+    private static void registerType(String id) {
+        if (BlockType.REGISTRY.get(id) == null) {
+            BlockType.REGISTRY.register(id, new BlockType(id));
+        }
+    }
+
+    /**
+     * Get the default state of a registered block type.
+     *
+     * @param id the block type id
+     * @return the state
+     */
+    public static BlockState state(String id) {
+        return BlockType.REGISTRY.get(id).getDefaultState();
+    }
+
+    /**
+     * Get a state of one of the blocks with a {@code power} property.
+     *
+     * @param id the block type id
+     * @param power the power
+     * @return the state
+     */
+    public static BlockState state(String id, int power) {
+        BlockType type = BlockType.REGISTRY.get(id);
+        Property<Integer> property = type.getProperty("power");
+        return type.getDefaultState().with(property, power);
+    }
+
+    private static final class TestRegistries extends BundledRegistries {
+        private final BlockRegistry blockRegistry = new BundledBlockRegistry() {
+            private final Map<String, Property<?>> properties = ImmutableMap.<String, Property<?>>of(
+                    "power", new IntegerProperty("power", SIXTEEN_VALUES));
+            private final Map<String, Property<?>> manyProperties = ImmutableMap.<String, Property<?>>of(
+                    "a", new IntegerProperty("a", SIXTEEN_VALUES),
+                    "b", new IntegerProperty("b", SIXTEEN_VALUES),
+                    "c", new IntegerProperty("c", SIXTEEN_VALUES));
+            private final Map<BlockState, Integer> ids = new HashMap<>();
+
+            @Override
+            public Map<String, ? extends Property<?>> getProperties(BlockType blockType) {
+                String id = blockType.getId();
+                if (id.equals(MANY_STATES_BLOCK)) {
+                    return manyProperties;
+                }
+                return id.equals(POWERED_BLOCK) || id.equals(UNNUMBERED_BLOCK) ? properties : Collections.emptyMap();
+            }
+
+            @Override
+            public synchronized OptionalInt getInternalBlockStateId(BlockState state) {
+                if (state.getBlockType().getId().equals(UNNUMBERED_BLOCK)) {
+                    return OptionalInt.empty();
+                }
+                Integer id = ids.get(state);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(state, id);
+                }
+                return OptionalInt.of(id);
+            }
+        };
+
+        @Override
+        public BlockRegistry getBlockRegistry() {
+            return blockRegistry;
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class BulkReadExtentTest {
+
+    private BlockArrayClipboard source;
+    private BaseBlock sign;
+
+    @Before
+    public void setUp() throws WorldEditException {
+        TestPlatform.install();
+        source = new BlockArrayClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(19, 1, 4)));
+        for (BlockVector3 position : source.getRegion()) {
+            source.setBlock(position, TestPlatform.state(TestPlatform.POWERED_BLOCK, position.getX() % 16));
+        }
+        sign = TestPlatform.state("minecraft:stone").toBaseBlock(
+                new CompoundTag(ImmutableMap.of("Text", new StringTag("hello"))));
+        source.setBlock(BlockVector3.at(7, 1, 3), sign);
+    }
+
+    @Test
+    public void testReadsMatchSource() {
+        CountingExtent counting = new CountingExtent(source);
+        BulkReadExtent extent = new BulkReadExtent(counting, source.getRegion());
+        for (BlockVector3 position : source.getRegion()) {
+            assertEquals(source.getFullBlock(position), extent.getFullBlock(position));
+            assertSame(source.getBlock(position), extent.getBlock(position));
+        }
+        assertEquals("hello", extent.getFullBlock(BlockVector3.at(7, 1, 3)).getNbtData().getString("Text"));
+        // Each Y level fits into one read
+        assertEquals(2, counting.bulkReads);
+        assertEquals(0, counting.singleReads);
+    }
+
+    @Test
+    public void testLongRowsAreReadOneAtATime() {
+        CountingExtent counting = new CountingExtent(source);
+        BulkReadExtent extent = new BulkReadExtent(counting, BlockVector3.ZERO, BlockVector3.at(4999, 1, 4));
+        extent.getBlock(BlockVector3.at(0, 0, 0));
+        extent.getBlock(BlockVector3.at(4999, 0, 0));
+        extent.getBlock(BlockVector3.at(0, 0, 1));
+        assertEquals(2, counting.bulkReads);
+    }
+
+    @Test
+    public void testOutsideTheBoxReadsDirectly() {
+        CountingExtent counting = new CountingExtent(source);
+        BulkReadExtent extent = new BulkReadExtent(counting, BlockVector3.ZERO, BlockVector3.at(3, 0, 0));
+        assertEquals(sign, extent.getFullBlock(BlockVector3.at(7, 1, 3)));
+        assertEquals(0, counting.bulkReads);
+        assertEquals(1, counting.singleReads);
+    }
+
+    @Test
+    public void testWritesDropBufferedRows() throws WorldEditException {
+        BulkReadExtent extent = new BulkReadExtent(source, source.getRegion());
+        BlockState stone = TestPlatform.state("minecraft:stone");
+        BlockVector3 position = BlockVector3.at(2, 0, 1);
+        extent.getBlock(position);
+
+        extent.setBlock(position, stone);
+        assertSame(stone, extent.getBlock(position));
+    }
+
+    private static final class CountingExtent extends AbstractDelegateExtent {
+
+        private int bulkReads;
+        private int singleReads;
+
+        private CountingExtent(Extent extent) {
+            super(extent);
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            singleReads++;
+            return super.getFullBlock(position);
+        }
+
+        @Override
+        public void getFullBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids,
+                                  Map<BlockVector3, BaseBlock> fullBlocks) {
+            bulkReads++;
+            getExtent().getFullBlocks(min, max, buffer, ids, fullBlocks);
+        }
+    }
+
+}
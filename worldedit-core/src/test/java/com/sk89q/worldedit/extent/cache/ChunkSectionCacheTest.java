@@ -0,0 +1,147 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkSectionCacheTest {
+
+    private static final BlockVector3 A = BlockVector3.at(0, 0, 0);
+    private static final BlockVector3 B = BlockVector3.at(16, 0, 0);
+    private static final BlockVector3 C = BlockVector3.at(0, 16, 0);
+
+    private SectionedClipboard world;
+    private CountingExtent counting;
+    private BlockState stone;
+    private BlockState dirt;
+
+    @Before
+    public void setUp() throws WorldEditException {
+        TestPlatform.install();
+        stone = TestPlatform.state("minecraft:stone");
+        dirt = TestPlatform.state("minecraft:dirt");
+        world = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(31, 31, 31)));
+        for (BlockVector3 position : world.getRegion()) {
+            world.setBlock(position, stone);
+        }
+        counting = new CountingExtent(world);
+    }
+
+    @Test
+    public void testSingleReadsDoNotAllocate() {
+        ChunkSectionCache cache = new ChunkSectionCache(counting);
+        assertSame(stone, cache.getBlock(A));
+        assertSame(stone, cache.getBlock(B));
+        assertSame(stone, cache.getBlock(C));
+        assertEquals(0, cache.getSectionCount());
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, counting.reads);
+    }
+
+    @Test
+    public void testRepeatedReadsHit() {
+        ChunkSectionCache cache = new ChunkSectionCache(counting);
+        cache.getBlock(A);
+        cache.getBlock(A.add(1, 0, 0));
+        assertEquals(1, cache.getSectionCount());
+        cache.getBlock(A.add(1, 0, 0));
+        assertEquals(2, counting.reads);
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSectionIsEvicted() {
+        ChunkSectionCache cache = new ChunkSectionCache(counting, 2);
+        cache.getBlock(A);
+        cache.getBlock(A);
+        cache.getBlock(B);
+        cache.getBlock(B);
+        // A is now more recently used than B
+        cache.getBlock(A);
+        cache.getBlock(C);
+        cache.getBlock(C);
+        assertEquals(2, cache.getSectionCount());
+
+        int reads = counting.reads;
+        cache.getBlock(A);
+        assertEquals(reads, counting.reads);
+        cache.getBlock(C);
+        assertEquals(reads, counting.reads);
+        cache.getBlock(B);
+        assertEquals(reads + 1, counting.reads);
+    }
+
+    @Test
+    public void testWritesAreForgotten() throws WorldEditException {
+        ChunkSectionCache cache = new ChunkSectionCache(counting);
+        cache.getBlock(A);
+        assertSame(stone, cache.getBlock(A));
+
+        cache.setBlock(A, dirt);
+        int reads = counting.reads;
+        assertSame(dirt, cache.getBlock(A));
+        assertEquals(reads + 1, counting.reads);
+        assertSame(dirt, cache.getBlock(A));
+        assertEquals(reads + 1, counting.reads);
+    }
+
+    @Test
+    public void testClear() throws WorldEditException {
+        ChunkSectionCache cache = new ChunkSectionCache(counting);
+        cache.getBlock(A);
+        cache.getBlock(A);
+        world.setBlock(A, dirt);
+        assertSame(stone, cache.getBlock(A));
+
+        cache.clear();
+        assertEquals(0, cache.getSectionCount());
+        assertSame(dirt, cache.getBlock(A));
+    }
+
+    private static final class CountingExtent extends AbstractDelegateExtent {
+
+        private int reads;
+
+        private CountingExtent(Extent extent) {
+            super(extent);
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            reads++;
+            return super.getBlock(position);
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.io.BuiltInClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardWriter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+public class MappedClipboardTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        TestPlatform.install();
+        directory = folder.newFolder();
+    }
+
+    @Test
+    public void testStartsAsAir() throws IOException {
+        MappedClipboard clipboard = create();
+        assertSame(TestPlatform.state("minecraft:air"), clipboard.getBlock(BlockVector3.at(3, 1, 2)));
+        clipboard.close();
+    }
+
+    @Test
+    public void testCloseDeletesFile() throws IOException, WorldEditException {
+        MappedClipboard clipboard = create();
+        BlockState stone = TestPlatform.state("minecraft:stone");
+        clipboard.setBlock(BlockVector3.ONE, stone);
+        assertSame(stone, clipboard.getBlock(BlockVector3.ONE));
+        assertEquals(1, directory.list().length);
+
+        clipboard.close();
+        assertEquals(0, directory.list().length);
+        try {
+            clipboard.getBlock(BlockVector3.ONE);
+            fail("Closed clipboard was read");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testKeptUntilLastUserCloses() throws IOException, WorldEditException {
+        MappedClipboard clipboard = create();
+        BlockState stone = TestPlatform.state("minecraft:stone");
+        clipboard.setBlock(BlockVector3.ONE, stone);
+
+        MappedClipboard.retain(clipboard);
+        clipboard.close();
+        assertSame(stone, clipboard.getBlock(BlockVector3.ONE));
+        assertEquals(1, directory.list().length);
+
+        MappedClipboard.release(clipboard);
+        assertEquals(0, directory.list().length);
+
+        // Extra releases are ignored
+        clipboard.close();
+    }
+
+    @Test
+    public void testRetainAfterClose() throws IOException {
+        MappedClipboard clipboard = create();
+        clipboard.close();
+        try {
+            clipboard.retain();
+            fail("Closed clipboard was retained");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testHeapClipboardsAreIgnored() {
+        Clipboard clipboard = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.ONE));
+        MappedClipboard.retain(clipboard);
+        MappedClipboard.release(clipboard);
+        MappedClipboard.release(null);
+        assertSame(TestPlatform.state("minecraft:air"), clipboard.getBlock(BlockVector3.ONE));
+    }
+
+    @Test
+    public void testReadSchematicIntoFactoryClipboard() throws IOException, WorldEditException {
+        SectionedClipboard clipboard = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(20, 3, 20)));
+        for (BlockVector3 position : clipboard.getRegion()) {
+            clipboard.setBlock(position, expected(position));
+        }
+
+        Clipboard read;
+        try (ClipboardReader reader = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getReader(new ByteArrayInputStream(write(clipboard)))) {
+            read = reader.read(this::mapped);
+        }
+
+        assertTrue(read instanceof MappedClipboard);
+        for (BlockVector3 position : clipboard.getRegion()) {
+            assertSame(expected(position), read.getBlock(position));
+        }
+        ((MappedClipboard) read).close();
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void testFailedSchematicReadReleasesClipboard() throws IOException, WorldEditException {
+        SectionedClipboard clipboard = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(20, 3, 20)));
+        for (BlockVector3 position : clipboard.getRegion()) {
+            clipboard.setBlock(position, expected(position));
+        }
+        byte[] data = write(clipboard);
+
+        try (ClipboardReader reader = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getReader(
+                new ByteArrayInputStream(Arrays.copyOf(data, data.length / 2)))) {
+            reader.read(this::mapped);
+            fail("Truncated schematic was read");
+        } catch (IOException ignored) {
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    private static BlockState expected(BlockVector3 position) {
+        return TestPlatform.state(TestPlatform.POWERED_BLOCK, Math.floorMod(position.getX() + position.getY() * 3 + position.getZ() * 5, 16));
+    }
+
+    private static byte[] write(Clipboard clipboard) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ClipboardWriter writer = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getWriter(out)) {
+            writer.write(clipboard);
+        }
+        return out.toByteArray();
+    }
+
+    private Clipboard mapped(Region region) {
+        try {
+            return new MappedClipboard(region, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedClipboard create() throws IOException {
+        return new MappedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(7, 3, 7)), directory);
+    }
+
+}
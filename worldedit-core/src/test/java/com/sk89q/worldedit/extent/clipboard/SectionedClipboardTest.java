@@ -0,0 +1,109 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class SectionedClipboardTest {
+
+    private BlockState air;
+    private BlockState stone;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        air = TestPlatform.state("minecraft:air");
+        stone = TestPlatform.state("minecraft:stone");
+    }
+
+    @Test
+    public void testPaletteGrowth() throws WorldEditException {
+        SectionedClipboard clipboard = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15)));
+        assertSame(air, clipboard.getBlock(BlockVector3.at(3, 4, 5)));
+        assertEquals(0, clipboard.getAllocatedSectionCount());
+
+        // Each new state doubles the palette up to 16 entries per section
+        for (int power = 0; power < 16; power++) {
+            clipboard.setBlock(BlockVector3.at(power, 0, 0), TestPlatform.state(TestPlatform.POWERED_BLOCK, power));
+        }
+        clipboard.setBlock(BlockVector3.at(0, 1, 0), stone);
+        for (int power = 0; power < 16; power++) {
+            assertSame(TestPlatform.state(TestPlatform.POWERED_BLOCK, power), clipboard.getBlock(BlockVector3.at(power, 0, 0)));
+        }
+        assertSame(stone, clipboard.getBlock(BlockVector3.at(0, 1, 0)));
+        assertSame(air, clipboard.getBlock(BlockVector3.at(1, 1, 0)));
+        assertEquals(1, clipboard.getAllocatedSectionCount());
+    }
+
+    @Test
+    public void testSectionWithEveryBlockDistinct() throws WorldEditException {
+        SectionedClipboard clipboard = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15)));
+        List<BlockState> states = BlockType.REGISTRY.get(TestPlatform.MANY_STATES_BLOCK).getAllStates();
+        assertEquals(4096, states.size());
+
+        int i = 0;
+        for (BlockVector3 position : clipboard.getRegion()) {
+            clipboard.setBlock(position, states.get(i++));
+        }
+        i = 0;
+        for (BlockVector3 position : clipboard.getRegion()) {
+            assertSame(states.get(i++), clipboard.getBlock(position));
+        }
+
+        // A state the full palette has not seen yet must still fit
+        clipboard.setBlock(BlockVector3.at(7, 7, 7), stone);
+        clipboard.setBlock(BlockVector3.at(8, 8, 8), air);
+        assertSame(stone, clipboard.getBlock(BlockVector3.at(7, 7, 7)));
+        assertSame(air, clipboard.getBlock(BlockVector3.at(8, 8, 8)));
+        assertSame(states.get(0), clipboard.getBlock(BlockVector3.ZERO));
+        assertSame(states.get(4095), clipboard.getBlock(BlockVector3.at(15, 15, 15)));
+    }
+
+    @Test
+    public void testTrim() throws WorldEditException {
+        SectionedClipboard clipboard = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(31, 15, 15)));
+        clipboard.setBlock(BlockVector3.at(1, 1, 1), stone);
+        clipboard.setBlock(BlockVector3.at(20, 1, 1), stone);
+        clipboard.setBlock(BlockVector3.at(20, 1, 1), air);
+        assertEquals(2, clipboard.getAllocatedSectionCount());
+        long usage = clipboard.getMemoryUsage();
+
+        clipboard.trim();
+        assertEquals(1, clipboard.getAllocatedSectionCount());
+        assertSame(stone, clipboard.getBlock(BlockVector3.at(1, 1, 1)));
+        assertSame(air, clipboard.getBlock(BlockVector3.at(20, 1, 1)));
+        assertTrue(clipboard.getMemoryUsage() < usage);
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.ByteArrayTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntArrayTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.ShortTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+public class BuiltInClipboardFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+    }
+
+    @Test
+    public void testDetectSponge() throws IOException, WorldEditException {
+        File file = folder.newFile("written.schem");
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(1, 1, 1)));
+        clipboard.setBlock(BlockVector3.ZERO, TestPlatform.state("minecraft:stone"));
+        try (ClipboardWriter writer = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getWriter(new FileOutputStream(file))) {
+            writer.write(clipboard);
+        }
+
+        assertEquals(BuiltInClipboardFormat.SPONGE_SCHEMATIC, BuiltInClipboardFormat.detect(file));
+        assertTrue(BuiltInClipboardFormat.SPONGE_SCHEMATIC.isFormat(file));
+        assertFalse(BuiltInClipboardFormat.MCEDIT_SCHEMATIC.isFormat(file));
+    }
+
+    @Test
+    public void testDetectSpongeAfterSharedTags() throws IOException {
+        Map<String, Tag> tags = new LinkedHashMap<>();
+        tags.put("Width", new ShortTag((short) 1));
+        tags.put("Height", new ShortTag((short) 1));
+        tags.put("Length", new ShortTag((short) 1));
+        tags.put("Metadata", new CompoundTag(ImmutableMap.of("WEOffsetX", new IntTag(0))));
+        tags.put("Offset", new IntArrayTag(new int[3]));
+        tags.put("BlockData", new ByteArrayTag(new byte[1]));
+        File file = writeSchematic("Schematic", tags);
+
+        assertEquals(BuiltInClipboardFormat.SPONGE_SCHEMATIC, BuiltInClipboardFormat.detect(file));
+    }
+
+    @Test
+    public void testDetectMCEdit() throws IOException {
+        File file = writeSchematic("Schematic", mcEditTags());
+
+        assertEquals(BuiltInClipboardFormat.MCEDIT_SCHEMATIC, BuiltInClipboardFormat.detect(file));
+        assertTrue(BuiltInClipboardFormat.MCEDIT_SCHEMATIC.isFormat(file));
+        assertFalse(BuiltInClipboardFormat.SPONGE_SCHEMATIC.isFormat(file));
+    }
+
+    @Test
+    public void testDetectUnknown() throws IOException {
+        Map<String, Tag> shared = new LinkedHashMap<>();
+        shared.put("Width", new ShortTag((short) 1));
+        shared.put("Entities", new CompoundTag(ImmutableMap.of()));
+        assertNull(BuiltInClipboardFormat.detect(writeSchematic("Schematic", shared)));
+
+        assertNull(BuiltInClipboardFormat.detect(writeSchematic("Level", mcEditTags())));
+
+        File text = folder.newFile("notes.txt");
+        Files.write(text.toPath(), "not a schematic".getBytes(StandardCharsets.UTF_8));
+        assertNull(BuiltInClipboardFormat.detect(text));
+
+        File truncated = folder.newFile("truncated.schematic");
+        byte[] bytes = Files.readAllBytes(writeSchematic("Schematic", shared).toPath());
+        Files.write(truncated.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(BuiltInClipboardFormat.detect(truncated));
+
+        assertNull(BuiltInClipboardFormat.detect(new File(folder.getRoot(), "missing.schem")));
+    }
+
+    @Test
+    public void testDetectAfterFileChanges() throws IOException {
+        File file = writeSchematic("Schematic", mcEditTags());
+        assertEquals(BuiltInClipboardFormat.MCEDIT_SCHEMATIC, BuiltInClipboardFormat.detect(file));
+        assertEquals(BuiltInClipboardFormat.MCEDIT_SCHEMATIC, ClipboardFormats.findByFile(file));
+
+        Map<String, Tag> tags = new LinkedHashMap<>();
+        tags.put("Version", new IntTag(2));
+        tags.put("Width", new ShortTag((short) 1));
+        try (NBTOutputStream out = new NBTOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeNamedTag("Schematic", new CompoundTag(tags));
+        }
+        assertEquals(BuiltInClipboardFormat.SPONGE_SCHEMATIC, BuiltInClipboardFormat.detect(file));
+        assertEquals(BuiltInClipboardFormat.SPONGE_SCHEMATIC, ClipboardFormats.findByFile(file));
+    }
+
+    @Test
+    public void testIdentify() {
+        assertEquals(BuiltInClipboardFormat.MCEDIT_SCHEMATIC, BuiltInClipboardFormat.identify("Blocks"));
+        assertEquals(BuiltInClipboardFormat.SPONGE_SCHEMATIC, BuiltInClipboardFormat.identify("Palette"));
+        assertNull(BuiltInClipboardFormat.identify("Width"));
+        assertNull(BuiltInClipboardFormat.identify("TileEntities"));
+    }
+
+    private static Map<String, Tag> mcEditTags() {
+        Map<String, Tag> tags = new LinkedHashMap<>();
+        tags.put("Width", new ShortTag((short) 2));
+        tags.put("Height", new ShortTag((short) 1));
+        tags.put("Length", new ShortTag((short) 1));
+        tags.put("Materials", new StringTag("Alpha"));
+        tags.put("Blocks", new ByteArrayTag(new byte[] { 1, 0 }));
+        tags.put("Data", new ByteArrayTag(new byte[2]));
+        return tags;
+    }
+
+    private File writeSchematic(String rootName, Map<String, Tag> tags) throws IOException {
+        File file = folder.newFile();
+        try (NBTOutputStream out = new NBTOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeNamedTag(rootName, new CompoundTag(tags));
+        }
+        return file;
+    }
+
+}
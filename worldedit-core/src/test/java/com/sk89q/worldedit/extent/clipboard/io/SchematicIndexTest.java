@@ -0,0 +1,167 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.jnbt.ByteArrayTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.ShortTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+public class SchematicIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+    }
+
+    @Test
+    public void testRefresh() throws IOException, WorldEditException {
+        File dir = folder.getRoot();
+        File sponge = writeSponge(new File(dir, "house.schem"), BlockVector3.at(2, 3, 4));
+        File mcEdit = writeMCEdit(new File(folder.newFolder("old"), "tower.schematic"), (short) 5);
+        File text = new File(dir, "readme.txt");
+        Files.write(text.toPath(), "not a schematic".getBytes(StandardCharsets.UTF_8));
+
+        Map<File, SchematicIndex.Entry> entries = refresh(dir);
+
+        assertEquals(3, entries.size());
+        SchematicIndex.Entry spongeEntry = entries.get(sponge);
+        assertEquals(BuiltInClipboardFormat.SPONGE_SCHEMATIC, spongeEntry.getFormat());
+        assertEquals(3, spongeEntry.getWidth());
+        assertEquals(4, spongeEntry.getHeight());
+        assertEquals(5, spongeEntry.getLength());
+        assertEquals(1976, spongeEntry.getDataVersion());
+        assertEquals(2, spongeEntry.getPaletteSize());
+        assertEquals(sponge.length(), spongeEntry.getSize());
+        assertEquals(sponge.lastModified(), spongeEntry.getLastModified());
+
+        SchematicIndex.Entry mcEditEntry = entries.get(mcEdit);
+        assertEquals(BuiltInClipboardFormat.MCEDIT_SCHEMATIC, mcEditEntry.getFormat());
+        assertEquals(5, mcEditEntry.getWidth());
+        assertEquals(-1, mcEditEntry.getDataVersion());
+        assertEquals(-1, mcEditEntry.getPaletteSize());
+
+        assertNull(entries.get(text).getFormat());
+        assertTrue(new File(dir, SchematicIndex.INDEX_FILE_NAME).isFile());
+    }
+
+    @Test
+    public void testRefreshRescansChangedFiles() throws IOException {
+        File dir = folder.getRoot();
+        File file = writeMCEdit(new File(dir, "tower.schematic"), (short) 5);
+        long lastModified = file.lastModified();
+        long size = file.length();
+        assertEquals(5, refresh(dir).get(file).getWidth());
+
+        // Same size and time, so the old entry is kept
+        writeMCEdit(file, (short) 6);
+        assertEquals(size, file.length());
+        assertTrue(file.setLastModified(lastModified));
+        assertEquals(5, refresh(dir).get(file).getWidth());
+
+        assertTrue(file.setLastModified(lastModified - 10000));
+        assertEquals(6, refresh(dir).get(file).getWidth());
+    }
+
+    @Test
+    public void testRefreshListsChangedDirectories() throws IOException {
+        File dir = folder.getRoot();
+        File first = writeMCEdit(new File(dir, "first.schematic"), (short) 1);
+        assertEquals(1, refresh(dir).size());
+
+        File second = writeMCEdit(new File(dir, "second.schematic"), (short) 2);
+        assertTrue(dir.setLastModified(dir.lastModified() + 10000));
+        Map<File, SchematicIndex.Entry> entries = refresh(dir);
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(second).getWidth());
+
+        assertTrue(first.delete());
+        assertTrue(dir.setLastModified(dir.lastModified() + 10000));
+        entries = refresh(dir);
+        assertEquals(1, entries.size());
+        assertFalse(entries.containsKey(first));
+        assertFalse(Files.readAllLines(new File(dir, SchematicIndex.INDEX_FILE_NAME).toPath()).toString().contains("first"));
+    }
+
+    private static Map<File, SchematicIndex.Entry> refresh(File dir) {
+        List<SchematicIndex.Entry> entries = SchematicIndex.forDirectory(dir).refresh();
+        Map<File, SchematicIndex.Entry> byFile = new HashMap<>();
+        for (SchematicIndex.Entry entry : entries) {
+            byFile.put(entry.getFile(), entry);
+        }
+        assertEquals(entries.size(), byFile.size());
+        return byFile;
+    }
+
+    private static File writeSponge(File file, BlockVector3 max) throws IOException, WorldEditException {
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(new CuboidRegion(BlockVector3.ZERO, max));
+        clipboard.setBlock(BlockVector3.ZERO, TestPlatform.state("minecraft:stone"));
+        try (ClipboardWriter writer = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getWriter(new FileOutputStream(file))) {
+            writer.write(clipboard);
+        }
+        return file;
+    }
+
+    private static File writeMCEdit(File file, short width) throws IOException {
+        Map<String, Tag> tags = new LinkedHashMap<>();
+        tags.put("Width", new ShortTag(width));
+        tags.put("Height", new ShortTag((short) 1));
+        tags.put("Length", new ShortTag((short) 1));
+        tags.put("Materials", new StringTag("Alpha"));
+        tags.put("Blocks", new ByteArrayTag(new byte[8]));
+        tags.put("Data", new ByteArrayTag(new byte[8]));
+        try (NBTOutputStream out = new NBTOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeNamedTag("Schematic", new CompoundTag(tags));
+        }
+        return file;
+    }
+
+}
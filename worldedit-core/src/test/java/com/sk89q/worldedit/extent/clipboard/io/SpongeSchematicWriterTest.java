@@ -0,0 +1,124 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+public class SpongeSchematicWriterTest {
+
+    private List<BlockState> states;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        states = BlockType.REGISTRY.get(TestPlatform.MANY_STATES_BLOCK).getAllStates();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, WorldEditException {
+        // Wider than one row buffer, with palette indices that need two bytes
+        BlockVector3 min = BlockVector3.at(-150, 10, 40);
+        BlockVector3 max = BlockVector3.at(149, 11, 339);
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(new CuboidRegion(min, max));
+        clipboard.setOrigin(BlockVector3.at(0, 10, 40));
+        for (BlockVector3 position : clipboard.getRegion()) {
+            clipboard.setBlock(position, expected(position));
+        }
+
+        CompoundTag chestData = new CompoundTag(ImmutableMap.of(
+                "id", new StringTag("minecraft:chest"),
+                "Lock", new StringTag("key"),
+                "Count", new IntTag(3)));
+        BlockVector3 chest = BlockVector3.at(5, 11, 77);
+        BlockState chestState = TestPlatform.state("minecraft:stone");
+        clipboard.setBlock(chest, chestState.toBaseBlock(chestData));
+
+        Clipboard read = roundTrip(clipboard);
+
+        assertEquals(min, read.getMinimumPoint());
+        assertEquals(max, read.getMaximumPoint());
+        assertEquals(clipboard.getOrigin(), read.getOrigin());
+        for (BlockVector3 position : clipboard.getRegion()) {
+            if (!position.equals(chest)) {
+                assertSame(expected(position), read.getBlock(position));
+            }
+        }
+
+        BaseBlock readChest = read.getFullBlock(chest);
+        assertSame(chestState, readChest.toImmutableState());
+        assertTrue(readChest.hasNbtData());
+        assertEquals("minecraft:chest", readChest.getNbtId());
+        assertEquals("key", readChest.getNbtData().getString("Lock"));
+        assertEquals(3, readChest.getNbtData().getInt("Count"));
+        assertFalse(read.getFullBlock(chest.add(1, 0, 0)).hasNbtData());
+    }
+
+    @Test
+    public void testSingleBlock() throws IOException, WorldEditException {
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.ZERO));
+        clipboard.setBlock(BlockVector3.ZERO, TestPlatform.state(TestPlatform.POWERED_BLOCK, 7));
+
+        Clipboard read = roundTrip(clipboard);
+
+        assertEquals(BlockVector3.ZERO, read.getMinimumPoint());
+        assertEquals(BlockVector3.ZERO, read.getMaximumPoint());
+        assertSame(TestPlatform.state(TestPlatform.POWERED_BLOCK, 7), read.getBlock(BlockVector3.ZERO));
+    }
+
+    private BlockState expected(BlockVector3 position) {
+        return states.get(Math.floorMod(position.getX() * 7 + position.getY() * 13 + position.getZ() * 31, 300));
+    }
+
+    private static Clipboard roundTrip(Clipboard clipboard) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ClipboardWriter writer = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getWriter(out)) {
+            writer.write(clipboard);
+        }
+        try (ClipboardReader reader = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getReader(new ByteArrayInputStream(out.toByteArray()))) {
+            return reader.read();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.reorder;
+
+import static org.junit.Assert.assertSame;
+
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.extent.reorder.MultiStageReorder.PlacementPriority;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MultiStageReorderTest {
+
+    private static final String LATE_BLOCK = "worldedit:test_late";
+    private static final String LAST_BLOCK = "worldedit:test_last";
+
+    private SectionedClipboard world;
+    private BlockState air;
+    private BlockState stone;
+    private BlockState late;
+    private BlockState last;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        for (String id : new String[] { LATE_BLOCK, LAST_BLOCK }) {
+            if (BlockType.REGISTRY.get(id) == null) {
+                BlockType.REGISTRY.register(id, new BlockType(id));
+            }
+        }
+        MultiStageReorder.setPriority(BlockType.REGISTRY.get(LATE_BLOCK), PlacementPriority.LATE);
+        MultiStageReorder.setPriority(BlockType.REGISTRY.get(LAST_BLOCK), PlacementPriority.LAST);
+        air = TestPlatform.state("minecraft:air");
+        stone = TestPlatform.state("minecraft:stone");
+        late = TestPlatform.state(LATE_BLOCK);
+        last = TestPlatform.state(LAST_BLOCK);
+        world = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15)));
+    }
+
+    @Test
+    public void testFirstStageIsSetRightAway() throws WorldEditException {
+        MultiStageReorder reorder = new MultiStageReorder(world);
+        reorder.setBlock(BlockVector3.ZERO, stone);
+        assertSame(stone, world.getBlock(BlockVector3.ZERO));
+    }
+
+    @Test
+    public void testLaterStageIsBuffered() throws WorldEditException {
+        MultiStageReorder reorder = new MultiStageReorder(world);
+        reorder.setBlock(BlockVector3.ZERO, late);
+        assertSame(air, world.getBlock(BlockVector3.ZERO));
+        Operations.complete(reorder.commit());
+        assertSame(late, world.getBlock(BlockVector3.ZERO));
+    }
+
+    @Test
+    public void testFirstStageAfterBufferedBlockWins() throws WorldEditException {
+        MultiStageReorder reorder = new MultiStageReorder(world);
+        reorder.setBlock(BlockVector3.ZERO, late);
+        reorder.setBlock(BlockVector3.ZERO, stone);
+        Operations.complete(reorder.commit());
+        assertSame(stone, world.getBlock(BlockVector3.ZERO));
+    }
+
+    @Test
+    public void testEarlierStageAfterLaterStageWins() throws WorldEditException {
+        MultiStageReorder reorder = new MultiStageReorder(world);
+        reorder.setBlock(BlockVector3.ZERO, last);
+        reorder.setBlock(BlockVector3.ZERO, late);
+        Operations.complete(reorder.commit());
+        assertSame(late, world.getBlock(BlockVector3.ZERO));
+    }
+
+    @Test
+    public void testAirAfterBufferedBlockWins() throws WorldEditException {
+        world.setBlock(BlockVector3.ZERO, last);
+        MultiStageReorder reorder = new MultiStageReorder(world);
+        reorder.setBlock(BlockVector3.ZERO, late);
+        reorder.setBlock(BlockVector3.ZERO, air);
+        Operations.complete(reorder.commit());
+        assertSame(air, world.getBlock(BlockVector3.ZERO));
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.world;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.function.operation.TimedRunContext;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.NullWorld;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RelightOperationTest {
+
+    private static List<BlockVector2> square(int size) {
+        List<BlockVector2> chunks = new ArrayList<>();
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                chunks.add(BlockVector2.at(x, z));
+            }
+        }
+        return chunks;
+    }
+
+    @Test
+    public void testExpiredRunRelightsOneBatch() throws WorldEditException {
+        RelightWorld world = new RelightWorld();
+        RelightOperation operation = new RelightOperation(world, square(4));
+        Operation next = operation.resume(new TimedRunContext(0));
+        assertNotNull(next);
+        assertEquals(RelightOperation.CHUNKS_PER_BATCH, world.relit.size());
+        assertEquals(RelightOperation.CHUNKS_PER_BATCH / 16.0, operation.getProgress().getProgress(), 0);
+    }
+
+    @Test
+    public void testCompletesWithFullProgress() throws WorldEditException {
+        RelightWorld world = new RelightWorld();
+        RelightOperation operation = new RelightOperation(world, square(4));
+        assertEquals(0, operation.getProgress().getProgress(), 0);
+        assertNull(operation.resume(new RunContext()));
+        assertEquals(16, world.relit.size());
+        assertEquals(1, operation.getProgress().getProgress(), 0);
+    }
+
+    @Test
+    public void testSortSpatially() {
+        List<BlockVector2> ordered = RelightOperation.sortSpatially(Arrays.asList(
+                BlockVector2.at(1, 1), BlockVector2.at(0, 1), BlockVector2.at(1, 0), BlockVector2.at(0, 0)));
+        assertEquals(Arrays.asList(BlockVector2.at(0, 0), BlockVector2.at(1, 0), BlockVector2.at(0, 1),
+                BlockVector2.at(1, 1)), ordered);
+    }
+
+    private static final class RelightWorld extends NullWorld {
+        private final List<BlockVector2> relit = new ArrayList<>();
+
+        @Override
+        public void fixAfterFastMode(Iterable<BlockVector2> chunks) {
+            chunks.forEach(relit::add);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.world;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.operation.TimedRunContext;
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.NullWorld;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SectionWriteExtentTest {
+
+    private SectionWorld world;
+    private BlockState stone;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        stone = TestPlatform.state("minecraft:stone");
+        world = new SectionWorld();
+    }
+
+    private SectionWriteExtent create() {
+        return new SectionWriteExtent(new FastModeExtent(world, false), world);
+    }
+
+    @Test
+    public void testQueuedWritesDoNotRead() throws WorldEditException {
+        SectionWriteExtent extent = create();
+        extent.setBlock(BlockVector3.ZERO, stone);
+        extent.setBlock(BlockVector3.at(1, 0, 0), stone);
+        assertEquals(0, world.reads);
+        assertSame(stone, extent.getBlock(BlockVector3.ZERO));
+        assertEquals(0, world.reads);
+        assertEquals(0, world.sections);
+    }
+
+    @Test
+    public void testCommitSetsEachSectionOnce() throws WorldEditException {
+        SectionWriteExtent extent = create();
+        extent.setBlock(BlockVector3.ZERO, stone);
+        extent.setBlock(BlockVector3.at(1, 0, 0), stone);
+        extent.setBlock(BlockVector3.at(16, 0, 0), stone);
+        Operations.complete(extent.commit());
+        assertEquals(2, world.sections);
+        assertEquals(3, extent.getAppliedBlocks());
+        assertEquals(2, extent.getAppliedSections());
+        assertSame(stone, world.clipboard.getBlock(BlockVector3.at(16, 0, 0)));
+    }
+
+    @Test
+    public void testCountersArePerExtent() throws WorldEditException {
+        SectionWriteExtent first = create();
+        first.setBlock(BlockVector3.ZERO, stone);
+        Operations.complete(first.commit());
+        SectionWriteExtent second = create();
+        second.setBlock(BlockVector3.at(16, 0, 0), stone);
+        second.setBlock(BlockVector3.at(17, 0, 0), stone);
+        Operations.complete(second.commit());
+        assertEquals(1, first.getAppliedBlocks());
+        assertEquals(2, second.getAppliedBlocks());
+    }
+
+    @Test
+    public void testExpiredRunStopsAfterOneSection() throws WorldEditException {
+        SectionWriteExtent extent = create();
+        extent.setBlock(BlockVector3.ZERO, stone);
+        extent.setBlock(BlockVector3.at(16, 0, 0), stone);
+        Operation commit = extent.commit();
+        commit = commit.resume(new TimedRunContext(0));
+        assertEquals(1, world.sections);
+        Operations.complete(commit);
+        assertEquals(2, world.sections);
+    }
+
+    private static final class SectionWorld extends NullWorld {
+        private final SectionedClipboard clipboard =
+                new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(31, 15, 15)));
+        private int reads;
+        private int sections;
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            reads++;
+            return clipboard.getBlock(position);
+        }
+
+        @Override
+        public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block,
+                                                                boolean notifyAndLight) throws WorldEditException {
+            return clipboard.setBlock(position, block);
+        }
+
+        @Override
+        public boolean supportsSectionBlocks() {
+            return true;
+        }
+
+        @Override
+        public boolean setSectionBlocks(int sectionX, int sectionY, int sectionZ, short[] indices, int[] stateIds,
+                                        int count, boolean notifyNeighbors) throws WorldEditException {
+            sections++;
+            for (int i = 0; i < count; i++) {
+                int index = indices[i];
+                clipboard.setBlock(BlockVector3.at((sectionX << 4) + (index & 15), (sectionY << 4) + (index >> 8),
+                        (sectionZ << 4) + (index >> 4 & 15)), BlockStateIdAccess.getBlockStateById(stateIds[i]));
+            }
+            return true;
+        }
+    }
+
+}
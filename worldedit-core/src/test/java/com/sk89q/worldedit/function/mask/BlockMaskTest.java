@@ -0,0 +1,125 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.mask;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.FuzzyBlockState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+public class BlockMaskTest {
+
+    private SectionedClipboard extent;
+    private BlockState stone;
+    private BlockState dirt;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        extent = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 0, 0)));
+        stone = TestPlatform.state("minecraft:stone");
+        dirt = TestPlatform.state("minecraft:dirt");
+    }
+
+    @Test
+    public void testExactStates() throws WorldEditException {
+        BlockMask mask = new BlockMask(extent, stone.toBaseBlock(), TestPlatform.state(TestPlatform.POWERED_BLOCK, 3).toBaseBlock());
+        assertTrue(test(mask, stone));
+        assertFalse(test(mask, dirt));
+        assertTrue(test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, 3)));
+        assertFalse(test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, 4)));
+    }
+
+    @Test
+    public void testFuzzyStates() throws WorldEditException {
+        BlockType powered = TestPlatform.state(TestPlatform.POWERED_BLOCK).getBlockType();
+        BlockMask anyPower = new BlockMask(extent, FuzzyBlockState.builder().type(powered).build().toBaseBlock());
+        for (int power = 0; power < 16; power++) {
+            assertTrue(test(anyPower, TestPlatform.state(TestPlatform.POWERED_BLOCK, power)));
+        }
+        assertFalse(test(anyPower, stone));
+
+        BlockMask powerFive = new BlockMask(extent, FuzzyBlockState.builder()
+                .type(powered)
+                .withProperty(powered.getProperty("power"), 5)
+                .build().toBaseBlock());
+        assertTrue(test(powerFive, TestPlatform.state(TestPlatform.POWERED_BLOCK, 5)));
+        assertFalse(test(powerFive, TestPlatform.state(TestPlatform.POWERED_BLOCK, 6)));
+    }
+
+    @Test
+    public void testStatesWithoutIds() throws WorldEditException {
+        BlockMask mask = new BlockMask(extent, TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 2).toBaseBlock());
+        assertTrue(test(mask, TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 2)));
+        assertFalse(test(mask, TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 3)));
+        assertFalse(test(mask, stone));
+    }
+
+    @Test
+    public void testAddAfterFirstTest() throws WorldEditException {
+        BlockMask mask = new BlockMask(extent, stone.toBaseBlock());
+        assertFalse(test(mask, dirt));
+
+        mask.add(dirt.toBaseBlock());
+        assertTrue(test(mask, dirt));
+        assertTrue(test(mask, stone));
+    }
+
+    @Test
+    public void testChangesThroughGetBlocks() throws WorldEditException {
+        BlockMask mask = new BlockMask(extent, stone.toBaseBlock());
+        assertFalse(test(mask, dirt));
+
+        mask.getBlocks().add(dirt.toBaseBlock());
+        assertTrue(test(mask, dirt));
+
+        mask.getBlocks().remove(dirt.toBaseBlock());
+        assertFalse(test(mask, dirt));
+
+        Iterator<BaseBlock> iterator = mask.getBlocks().iterator();
+        iterator.next();
+        iterator.remove();
+        assertFalse(test(mask, stone));
+
+        mask.getBlocks().add(stone.toBaseBlock());
+        assertTrue(test(mask, stone));
+        mask.getBlocks().clear();
+        assertFalse(test(mask, stone));
+    }
+
+    private boolean test(Mask mask, BlockState state) throws WorldEditException {
+        extent.setBlock(BlockVector3.ZERO, state);
+        return mask.test(BlockVector3.ZERO);
+    }
+
+}
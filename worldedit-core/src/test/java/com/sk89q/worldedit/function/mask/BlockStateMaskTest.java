@@ -0,0 +1,91 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.mask;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockStateMaskTest {
+
+    private SectionedClipboard extent;
+    private BlockState stone;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        extent = new SectionedClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 0, 0)));
+        stone = TestPlatform.state("minecraft:stone");
+    }
+
+    @Test
+    public void testStrict() throws WorldEditException {
+        BlockStateMask mask = new BlockStateMask(extent, ImmutableMap.of("power", "7"), true);
+        assertTrue(test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, 7)));
+        assertFalse(test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, 8)));
+        assertFalse(test(mask, stone));
+        // The same results again, from the remembered ids
+        assertTrue(test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, 7)));
+        assertFalse(test(mask, stone));
+    }
+
+    @Test
+    public void testNotStrict() throws WorldEditException {
+        BlockStateMask mask = new BlockStateMask(extent, ImmutableMap.of("power", "7"), false);
+        assertTrue(test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, 7)));
+        assertFalse(test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, 8)));
+        assertTrue(test(mask, stone));
+    }
+
+    @Test
+    public void testStatesFirstSeenLater() throws WorldEditException {
+        BlockStateMask mask = new BlockStateMask(extent, ImmutableMap.of("power", "7"), true);
+        assertFalse(test(mask, stone));
+        for (int power = 0; power < 16; power++) {
+            assertTrue(power == 7 == test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, power)));
+        }
+        for (int power = 15; power >= 0; power--) {
+            assertTrue(power == 7 == test(mask, TestPlatform.state(TestPlatform.POWERED_BLOCK, power)));
+        }
+    }
+
+    @Test
+    public void testStatesWithoutIds() throws WorldEditException {
+        BlockStateMask mask = new BlockStateMask(extent, ImmutableMap.of("power", "7"), true);
+        assertTrue(test(mask, TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 7)));
+        assertFalse(test(mask, TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 2)));
+    }
+
+    private boolean test(Mask mask, BlockState state) throws WorldEditException {
+        extent.setBlock(BlockVector3.ZERO, state);
+        return mask.test(BlockVector3.ZERO);
+    }
+
+}
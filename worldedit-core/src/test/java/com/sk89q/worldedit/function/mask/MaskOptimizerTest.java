@@ -0,0 +1,160 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.mask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.internal.expression.ExpressionException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.session.request.RequestExtent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MaskOptimizerTest {
+
+    private Mask region;
+    private Mask existing;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        region = new RegionMask(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15)));
+        existing = new ExistingBlockMask(new RequestExtent());
+    }
+
+    @Test
+    public void testFoldsConstants() {
+        assertSame(Masks.alwaysFalse(), MaskOptimizer.optimize(new MaskIntersection()));
+        assertSame(Masks.alwaysFalse(), MaskOptimizer.optimize(new MaskIntersection(existing, Masks.alwaysFalse())));
+        assertSame(Masks.alwaysTrue(), MaskOptimizer.optimize(new MaskIntersection(Masks.alwaysTrue())));
+        assertSame(existing, MaskOptimizer.optimize(new MaskIntersection(Masks.alwaysTrue(), existing)));
+        assertSame(Masks.alwaysTrue(), MaskOptimizer.optimize(new MaskUnion(existing, Masks.alwaysTrue())));
+        assertSame(Masks.alwaysFalse(), MaskOptimizer.optimize(new MaskUnion(Masks.alwaysFalse())));
+        assertSame(Masks.alwaysTrue(), MaskOptimizer.optimize(new OffsetMask(Masks.alwaysTrue(), BlockVector3.UNIT_Y)));
+    }
+
+    @Test
+    public void testFlattensAndOrdersByCost() {
+        Mask optimized = MaskOptimizer.optimize(new MaskIntersection(existing, new MaskIntersection(region)));
+        assertEquals(MaskIntersection.class, optimized.getClass());
+        assertEquals(Arrays.asList(region, existing), children(optimized));
+    }
+
+    @Test
+    public void testCombinesHeightBounds() {
+        Mask optimized = MaskOptimizer.optimize(new MaskIntersection(
+                new BoundedHeightMask(0, 100), existing, new BoundedHeightMask(50, 200)));
+        List<Mask> children = children(optimized);
+        assertEquals(2, children.size());
+        BoundedHeightMask bounds = (BoundedHeightMask) children.get(0);
+        assertEquals(50, bounds.getMinY());
+        assertEquals(100, bounds.getMaxY());
+        assertSame(existing, children.get(1));
+
+        assertSame(Masks.alwaysFalse(), MaskOptimizer.optimize(new MaskIntersection(
+                new BoundedHeightMask(0, 10), new BoundedHeightMask(20, 30))));
+    }
+
+    @Test
+    public void testDropsDuplicates() {
+        Mask optimized = MaskOptimizer.optimize(new MaskIntersection(
+                existing, new ExistingBlockMask(new RequestExtent())));
+        assertSame(existing, optimized);
+
+        BlockMask stone = new BlockMask(new RequestExtent(), TestPlatform.state("minecraft:stone").toBaseBlock());
+        BlockMask otherStone = new BlockMask(new RequestExtent(), TestPlatform.state("minecraft:stone").toBaseBlock());
+        assertSame(stone, MaskOptimizer.optimize(new MaskIntersection(stone, otherStone)));
+    }
+
+    @Test
+    public void testMergesBlockMasksInUnion() {
+        Mask optimized = MaskOptimizer.optimize(new MaskUnion(
+                new BlockMask(new RequestExtent(), TestPlatform.state("minecraft:stone").toBaseBlock()),
+                new BlockMask(new RequestExtent(), TestPlatform.state("minecraft:dirt").toBaseBlock())));
+        assertEquals(BlockMask.class, optimized.getClass());
+        assertEquals(ImmutableSet.of(
+                TestPlatform.state("minecraft:stone").toBaseBlock(),
+                TestPlatform.state("minecraft:dirt").toBaseBlock()), ((BlockMask) optimized).getBlocks());
+    }
+
+    @Test
+    public void testKeepsOrderWithExpressions() throws ExpressionException {
+        Mask expression = new ExpressionMask("y > 0");
+        Mask bounds = new BoundedHeightMask(0, 10);
+        Mask optimized = MaskOptimizer.optimize(new MaskIntersection(
+                expression, existing, Masks.alwaysTrue(), bounds, new ExistingBlockMask(new RequestExtent())));
+        assertEquals(Arrays.asList(expression, existing, bounds), children(optimized));
+
+        optimized = MaskOptimizer.optimize(new MaskIntersection(expression, Masks.alwaysFalse(), existing));
+        assertEquals(Arrays.asList(expression, Masks.alwaysFalse()), children(optimized));
+        assertSame(Masks.alwaysFalse(), MaskOptimizer.optimize(new MaskIntersection(Masks.alwaysFalse(), expression)));
+
+        optimized = MaskOptimizer.optimize(new MaskUnion(Masks.negate(expression), existing, region));
+        assertEquals(3, children(optimized).size());
+        assertSame(region, children(optimized).get(2));
+    }
+
+    @Test
+    public void testExpressionsAreNotDuplicates() throws ExpressionException {
+        Mask expression = new ExpressionMask("y > 0");
+        Mask optimized = MaskOptimizer.optimize(new MaskIntersection(
+                expression, new ExpressionMask("y > 0")));
+        assertEquals(2, children(optimized).size());
+    }
+
+    @Test
+    public void testEstimateCost() throws ExpressionException {
+        assertEquals(0, MaskOptimizer.estimateCost(Masks.alwaysTrue()));
+        assertEquals(1, MaskOptimizer.estimateCost(new BoundedHeightMask(0, 10)));
+        assertEquals(1, MaskOptimizer.estimateCost(region));
+        assertEquals(5, MaskOptimizer.estimateCost(existing));
+        assertEquals(50, MaskOptimizer.estimateCost(new ExpressionMask("1")));
+        assertEquals(6, MaskOptimizer.estimateCost(new OffsetMask(existing, BlockVector3.UNIT_Y)));
+        assertEquals(5, MaskOptimizer.estimateCost(Masks.negate(existing)));
+        assertEquals(6, MaskOptimizer.estimateCost(new MaskIntersection(region, existing)));
+        assertTrue(MaskOptimizer.estimateCost(region) < MaskOptimizer.estimateCost(existing));
+    }
+
+    @Test
+    public void testExplain() {
+        List<String> lines = MaskOptimizer.explain(MaskOptimizer.optimize(new MaskIntersection(
+                Masks.negate(existing), region)));
+        assertEquals(Arrays.asList(
+                "all of (cost 6)",
+                "  region CuboidRegion (cost 1)",
+                "  not (cost 5)",
+                "    existing blocks (cost 5)"), lines);
+    }
+
+    private static List<Mask> children(Mask mask) {
+        return new ArrayList<>(((MaskIntersection) mask).getMasks());
+    }
+
+}
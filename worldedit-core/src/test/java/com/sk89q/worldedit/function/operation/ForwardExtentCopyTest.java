@@ -0,0 +1,66 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ForwardExtentCopyTest {
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+    }
+
+    @Test
+    public void testCopyBetweenExtents() throws WorldEditException {
+        BlockArrayClipboard source = new BlockArrayClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(17, 3, 5)));
+        for (BlockVector3 position : source.getRegion()) {
+            source.setBlock(position, TestPlatform.state(TestPlatform.POWERED_BLOCK, (position.getX() + position.getZ()) % 16));
+        }
+        BaseBlock sign = TestPlatform.state("minecraft:stone").toBaseBlock(
+                new CompoundTag(ImmutableMap.of("Text", new StringTag("hello"))));
+        source.setBlock(BlockVector3.at(3, 2, 1), sign);
+
+        BlockVector3 offset = BlockVector3.at(100, 10, -50);
+        BlockArrayClipboard destination = new BlockArrayClipboard(new CuboidRegion(offset, offset.add(17, 3, 5)));
+        ForwardExtentCopy copy = new ForwardExtentCopy(source, source.getRegion(), destination, offset);
+        copy.setCopyingEntities(false);
+        Operations.complete(copy);
+
+        for (BlockVector3 position : source.getRegion()) {
+            assertEquals(source.getFullBlock(position), destination.getFullBlock(position.add(offset)));
+        }
+        assertEquals("hello", destination.getFullBlock(BlockVector3.at(3, 2, 1).add(offset)).getNbtData().getString("Text"));
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.session.request.Request;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OperationSchedulerTest {
+
+    private OperationScheduler scheduler;
+    private final List<String> completed = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Platform platform = mock(Platform.class);
+        when(platform.schedule(anyLong(), anyLong(), any(Runnable.class))).thenReturn(1);
+        scheduler = new OperationScheduler();
+        scheduler.start(platform);
+        Request.reset();
+    }
+
+    @After
+    public void tearDown() {
+        Request.reset();
+    }
+
+    @Test
+    public void testResumesWithSubmittingRequest() {
+        LocalSession session = new LocalSession();
+        Request.request().setSession(session);
+        List<LocalSession> seen = new ArrayList<>();
+        scheduler.submit(new Steps("a", 2) {
+            @Override
+            public Operation resume(RunContext run) throws WorldEditException {
+                seen.add(Request.request().getSession());
+                return super.resume(run);
+            }
+        });
+        Request.reset();
+
+        scheduler.tick();
+        scheduler.tick();
+
+        assertEquals(2, seen.size());
+        assertSame(session, seen.get(0));
+        assertSame(session, seen.get(1));
+        assertNull(Request.request().getSession());
+    }
+
+    @Test
+    public void testCompletesOnlyWhatSessionDependsOn() {
+        LocalSession first = new LocalSession();
+        LocalSession second = new LocalSession();
+        submit(first, "a");
+        submit(second, "b");
+        submit(first, "c");
+        submit(second, "d");
+
+        scheduler.completePending(first);
+
+        // b was submitted before c, so it is completed to keep the order
+        assertEquals(3, completed.size());
+        assertEquals("a", completed.get(0));
+        assertEquals("b", completed.get(1));
+        assertEquals("c", completed.get(2));
+        assertEquals(1, scheduler.getQueueSize());
+
+        scheduler.completePending(new LocalSession());
+        assertEquals(1, scheduler.getQueueSize());
+
+        scheduler.completePending();
+        assertEquals("d", completed.get(3));
+        assertEquals(0, scheduler.getQueueSize());
+    }
+
+    @Test
+    public void testCallbackRunsBeforeFutureCompletes() throws Exception {
+        List<String> order = new ArrayList<>();
+        ListenableFuture<Void> future = scheduler.submit(new Steps("a", 1), mock(Actor.class), () -> order.add("callback"));
+        future.addListener(() -> order.add("listener"), Runnable::run);
+        assertFalse(future.isDone());
+
+        scheduler.tick();
+
+        assertTrue(future.isDone());
+        assertEquals(2, order.size());
+        assertEquals("callback", order.get(0));
+        assertEquals("listener", order.get(1));
+    }
+
+    @Test
+    public void testTimedRunChecksCoarseWorkEveryCall() {
+        TimedRunContext run = new TimedRunContext(0);
+        assertTrue(run.shouldContinue());
+        assertFalse(run.shouldContinueNow());
+        assertFalse(run.shouldContinue());
+    }
+
+    private void submit(LocalSession session, String name) {
+        Request.request().setSession(session);
+        scheduler.submit(new Steps(name, 3));
+        Request.reset();
+    }
+
+    /**
+     * An operation that takes a number of resumes to complete.
+     */
+    private class Steps implements Operation {
+        private final String name;
+        private int steps;
+
+        private Steps(String name, int steps) {
+            this.name = name;
+            this.steps = steps;
+        }
+
+        @Override
+        public Operation resume(RunContext run) throws WorldEditException {
+            if (--steps > 0) {
+                return this;
+            }
+            completed.add(name);
+            return null;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public void addStatusMessages(List<String> messages) {
+        }
+    }
+
+}
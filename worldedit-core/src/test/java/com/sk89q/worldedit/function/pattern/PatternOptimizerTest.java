@@ -0,0 +1,95 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.sk89q.worldedit.TestPlatform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class PatternOptimizerTest {
+
+    private static final double DELTA = 1e-9;
+
+    private BlockPattern stone;
+    private BlockPattern dirt;
+    private BlockPattern air;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        stone = new BlockPattern(TestPlatform.state("minecraft:stone"));
+        dirt = new BlockPattern(TestPlatform.state("minecraft:dirt"));
+        air = new BlockPattern(TestPlatform.state("minecraft:air"));
+    }
+
+    @Test
+    public void testOtherPatternsAreUnchanged() {
+        assertSame(stone, PatternOptimizer.optimize(stone));
+    }
+
+    @Test
+    public void testSingleChoice() {
+        RandomPattern pattern = new RandomPattern();
+        pattern.add(stone, 5);
+        assertSame(stone, PatternOptimizer.optimize(pattern));
+    }
+
+    @Test
+    public void testFlattensNestedPatterns() {
+        RandomPattern inner = new RandomPattern();
+        inner.add(dirt, 1);
+        inner.add(air, 3);
+        RandomPattern pattern = new RandomPattern();
+        pattern.add(stone, 2);
+        pattern.add(inner, 2);
+
+        RandomPattern optimized = (RandomPattern) PatternOptimizer.optimize(pattern);
+        List<Pattern> patterns = optimized.getPatterns();
+        assertEquals(3, patterns.size());
+        assertSame(stone, patterns.get(0));
+        assertEquals(0.5, optimized.getWeight(0), DELTA);
+        assertSame(dirt, patterns.get(1));
+        assertEquals(0.125, optimized.getWeight(1), DELTA);
+        assertSame(air, patterns.get(2));
+        assertEquals(0.375, optimized.getWeight(2), DELTA);
+    }
+
+    @Test
+    public void testCombinesDuplicateBlocks() {
+        RandomPattern pattern = new RandomPattern();
+        pattern.add(stone, 1);
+        pattern.add(dirt, 2);
+        pattern.add(new BlockPattern(TestPlatform.state("minecraft:stone")), 1);
+
+        RandomPattern optimized = (RandomPattern) PatternOptimizer.optimize(pattern);
+        assertEquals(2, optimized.getPatterns().size());
+        assertSame(stone, optimized.getPatterns().get(0));
+        assertEquals(0.5, optimized.getWeight(0), DELTA);
+        assertSame(dirt, optimized.getPatterns().get(1));
+        assertEquals(0.5, optimized.getWeight(1), DELTA);
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sk89q.worldedit.MaxSearchMemoryException;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.RegionFunction;
+import com.sk89q.worldedit.function.mask.RegionMask;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class RecursiveVisitorTest {
+
+    @Test
+    public void testVisitsConnectedBlocksOnce() throws WorldEditException {
+        CuboidRegion region = new CuboidRegion(BlockVector3.at(-5, 0, -5), BlockVector3.at(14, 19, 14));
+        Set<BlockVector3> applied = new HashSet<>();
+        RegionFunction function = position -> {
+            assertTrue("Visited twice: " + position, applied.add(position));
+            return true;
+        };
+        RecursiveVisitor visitor = new RecursiveVisitor(new RegionMask(region), function);
+        visitor.visit(BlockVector3.at(3, 7, 3));
+        Operations.complete(visitor);
+
+        assertEquals(region.getArea(), applied.size());
+        assertEquals(region.getArea(), visitor.getAffected());
+        for (BlockVector3 position : region) {
+            assertTrue(applied.contains(position));
+        }
+    }
+
+    @Test
+    public void testMemoryLimit() throws WorldEditException {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(63, 63, 63));
+        RecursiveVisitor visitor = new RecursiveVisitor(new RegionMask(region), position -> true);
+        visitor.setMaxMemory(64 * 1024);
+        visitor.visit(BlockVector3.ZERO);
+        try {
+            Operations.complete(visitor);
+            fail("Search was not stopped");
+        } catch (MaxSearchMemoryException e) {
+            assertEquals(64 * 1024, e.getMemoryLimit());
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.history.changeset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class JournaledBlockHistoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BlockState air;
+    private BlockState stone;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        air = TestPlatform.state("minecraft:air");
+        stone = TestPlatform.state("minecraft:stone");
+    }
+
+    @Test
+    public void testSpilledRoundTrip() {
+        JournaledBlockHistory history = new JournaledBlockHistory(folder.getRoot(), 10);
+        for (int i = 0; i < 25; i++) {
+            history.add(new BlockChange(BlockVector3.at(i, 0, 0), air, i % 2 == 0 ? stone : air));
+        }
+        assertEquals(25, history.size());
+        assertTrue(history.getJournalSize() > 0);
+        assertEquals(1, journals().length);
+
+        List<Change> forward = Lists.newArrayList(history.forwardIterator());
+        assertEquals(25, forward.size());
+        for (int i = 0; i < 25; i++) {
+            BlockChange change = (BlockChange) forward.get(i);
+            assertEquals(BlockVector3.at(i, 0, 0), change.getPosition());
+            assertSame(i % 2 == 0 ? stone : air, change.getCurrent().toImmutableState());
+        }
+
+        List<Change> backward = Lists.newArrayList(history.backwardIterator());
+        assertEquals(25, backward.size());
+        for (int i = 0; i < 25; i++) {
+            BlockChange change = (BlockChange) backward.get(i);
+            assertEquals(BlockVector3.at(24 - i, 0, 0), change.getPosition());
+            assertSame(air, change.getPrevious().toImmutableState());
+        }
+        history.close();
+    }
+
+    @Test
+    public void testCloseDeletesJournal() {
+        JournaledBlockHistory history = new JournaledBlockHistory(folder.getRoot(), 2);
+        history.add(new BlockChange(BlockVector3.at(0, 0, 0), air, stone));
+        history.add(new BlockChange(BlockVector3.at(1, 0, 0), air, stone));
+        assertEquals(1, journals().length);
+
+        history.close();
+        assertEquals(0, journals().length);
+        assertEquals(0, history.size());
+
+        // Later changes stay in memory instead of opening a new journal
+        history.add(new BlockChange(BlockVector3.at(2, 0, 0), air, stone));
+        history.add(new BlockChange(BlockVector3.at(3, 0, 0), air, stone));
+        assertEquals(0, journals().length);
+        assertEquals(2, history.size());
+    }
+
+    @Test
+    public void testDeleteJournals() throws IOException {
+        File other = folder.newFile("notes.txt");
+        JournaledBlockHistory history = new JournaledBlockHistory(folder.getRoot(), 1);
+        history.add(new BlockChange(BlockVector3.at(0, 0, 0), air, stone));
+        JournaledBlockHistory second = new JournaledBlockHistory(folder.getRoot(), 1);
+        second.add(new BlockChange(BlockVector3.at(0, 0, 0), air, stone));
+        assertEquals(2, journals().length);
+        history.close();
+        second.close();
+
+        File orphan = File.createTempFile("edit-", ".journal", folder.getRoot());
+        assertEquals(1, JournaledBlockHistory.deleteJournals(folder.getRoot()));
+        assertFalse(orphan.exists());
+        assertTrue(other.exists());
+        assertEquals(0, JournaledBlockHistory.deleteJournals(new File(folder.getRoot(), "missing")));
+        assertArrayEquals(new File[0], journals());
+    }
+
+    private File[] journals() {
+        return folder.getRoot().listFiles((dir, name) -> name.endsWith(".journal"));
+    }
+
+}
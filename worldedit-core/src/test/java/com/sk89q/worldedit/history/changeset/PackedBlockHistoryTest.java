@@ -0,0 +1,149 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.changeset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.history.UndoContext;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class PackedBlockHistoryTest {
+
+    private BlockState air;
+    private BlockState stone;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        air = TestPlatform.state("minecraft:air");
+        stone = TestPlatform.state("minecraft:stone");
+    }
+
+    @Test
+    public void testRoundTrip() {
+        PackedBlockHistory history = new PackedBlockHistory();
+        CompoundTag nbt = new CompoundTag(ImmutableMap.of("Text", new StringTag("hello")));
+        BlockState powered = TestPlatform.state(TestPlatform.POWERED_BLOCK, 7);
+        BlockState unnumbered = TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 3);
+        BlockVector3 corner = BlockVector3.at(-33554432, -2048, 33554431);
+
+        history.add(new BlockChange(BlockVector3.at(1, 2, 3), air, stone));
+        history.add(new BlockChange(corner, stone, stone.toBaseBlock(nbt)));
+        history.add(new BlockChange(BlockVector3.ZERO, powered, unnumbered));
+        assertEquals(3, history.size());
+
+        // Redo replays the current blocks in order
+        List<Change> forward = Lists.newArrayList(history.forwardIterator());
+        assertEquals(3, forward.size());
+        assertBlock(forward.get(0), BlockVector3.at(1, 2, 3), stone);
+        assertBlock(forward.get(1), corner, stone);
+        assertSame(nbt, ((BlockChange) forward.get(1)).getCurrent().getNbtData());
+        assertBlock(forward.get(2), BlockVector3.ZERO, unnumbered);
+
+        // Undo replays the previous blocks in reverse
+        List<Change> backward = Lists.newArrayList(history.backwardIterator());
+        assertEquals(3, backward.size());
+        assertBlock(backward.get(0), BlockVector3.ZERO, powered);
+        assertBlock(backward.get(1), corner, stone);
+        assertNull(((BlockChange) backward.get(1)).getPrevious().getNbtData());
+        assertBlock(backward.get(2), BlockVector3.at(1, 2, 3), air);
+    }
+
+    @Test
+    public void testUnpackableChangesComeFirst() {
+        PackedBlockHistory history = new PackedBlockHistory();
+        BlockChange unpackable = new BlockChange(BlockVector3.at(0, 4096, 0), air, stone);
+        Change other = new DummyChange();
+
+        history.add(new BlockChange(BlockVector3.at(0, 0, 0), air, stone));
+        history.add(unpackable);
+        history.add(other);
+        history.add(new BlockChange(BlockVector3.at(1, 0, 0), stone, air));
+        assertEquals(4, history.size());
+
+        // Changes that can't be packed are stored as they are, and are
+        // replayed before the packed block changes in both directions
+        List<Change> forward = Lists.newArrayList(history.forwardIterator());
+        assertSame(unpackable, forward.get(0));
+        assertSame(other, forward.get(1));
+        assertBlock(forward.get(2), BlockVector3.at(0, 0, 0), stone);
+        assertBlock(forward.get(3), BlockVector3.at(1, 0, 0), air);
+
+        List<Change> backward = Lists.newArrayList(history.backwardIterator());
+        assertSame(other, backward.get(0));
+        assertSame(unpackable, backward.get(1));
+        assertBlock(backward.get(2), BlockVector3.at(1, 0, 0), stone);
+        assertBlock(backward.get(3), BlockVector3.at(0, 0, 0), air);
+    }
+
+    @Test
+    public void testNotRecording() {
+        PackedBlockHistory history = new PackedBlockHistory();
+        history.setRecordChanges(false);
+        history.add(new BlockChange(BlockVector3.at(0, 0, 0), air, stone));
+        assertEquals(0, history.size());
+        assertFalse(history.forwardIterator().hasNext());
+    }
+
+    @Test
+    public void testMemoryUsageGrows() {
+        PackedBlockHistory history = new PackedBlockHistory();
+        long empty = history.getBlockMemoryUsage();
+        for (int i = 0; i < 1000; i++) {
+            history.add(new BlockChange(BlockVector3.at(i, 0, 0), air, stone));
+        }
+        assertTrue(history.getBlockMemoryUsage() > empty);
+    }
+
+    private static void assertBlock(Change change, BlockVector3 position, BlockState block) {
+        assertTrue(change instanceof BlockChange);
+        BlockChange blockChange = (BlockChange) change;
+        assertEquals(position, blockChange.getPosition());
+        assertSame(block, blockChange.getCurrent().toImmutableState());
+        assertSame(block, blockChange.getPrevious().toImmutableState());
+    }
+
+    private static final class DummyChange implements Change {
+        @Override
+        public void undo(UndoContext context) {
+        }
+
+        @Override
+        public void redo(UndoContext context) {
+        }
+    }
+
+}
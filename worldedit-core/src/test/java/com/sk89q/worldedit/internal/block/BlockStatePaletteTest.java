@@ -0,0 +1,153 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.internal.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class BlockStatePaletteTest {
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+    }
+
+    @Test
+    public void testInternalIds() {
+        BlockStatePalette palette = new BlockStatePalette();
+        BlockState stone = TestPlatform.state("minecraft:stone");
+        BlockState powered = TestPlatform.state(TestPlatform.POWERED_BLOCK, 9);
+        int stoneId = palette.getIdMapper().getId(stone);
+        assertTrue(stoneId >= 0);
+
+        assertEquals(0, palette.getIndex(powered));
+        assertEquals(1, palette.getIndex(stoneId));
+        assertEquals(0, palette.getIndex(powered));
+        assertEquals(1, palette.getIndex(stone));
+        assertEquals(2, palette.size());
+
+        assertSame(powered, palette.getState(0));
+        assertSame(stone, palette.getState(1));
+        assertEquals(stoneId, palette.getStateId(1));
+        assertEquals(powered.getAsString(), palette.getAsString(0));
+        assertEquals(0, palette.getIdMapper().getLocalIdCount());
+    }
+
+    @Test
+    public void testManyInternalIds() {
+        List<BlockState> states = BlockType.REGISTRY.get(TestPlatform.MANY_STATES_BLOCK).getAllStates();
+        BlockStatePalette palette = new BlockStatePalette();
+        // Half the states from the highest id down, then the rest from the lowest up
+        for (int i = states.size() - 1; i >= 0; i -= 2) {
+            palette.getIndex(states.get(i));
+        }
+        for (int i = 0; i < states.size(); i += 2) {
+            palette.getIndex(states.get(i));
+        }
+
+        assertEquals(states.size(), palette.size());
+        for (int i = 0; i < palette.size(); i++) {
+            BlockState state = palette.getState(i);
+            assertEquals(i, palette.getIndex(state));
+        }
+        assertEquals(states.size(), palette.size());
+    }
+
+    @Test
+    public void testLocalIds() {
+        BlockStatePalette palette = new BlockStatePalette();
+        BlockStateIdMapper ids = palette.getIdMapper();
+        BlockState stone = TestPlatform.state("minecraft:stone");
+        for (int power = 0; power < 16; power++) {
+            BlockState unnumbered = TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, power);
+            assertTrue(ids.getId(unnumbered) < 0);
+            assertEquals(power * 2, palette.getIndex(unnumbered));
+            assertEquals(power * 2 + 1, palette.getIndex(TestPlatform.state(TestPlatform.POWERED_BLOCK, power)));
+        }
+        assertEquals(0, palette.getIndex(TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 0)));
+        assertEquals(32, palette.getIndex(stone));
+        assertEquals(33, palette.size());
+        assertEquals(16, ids.getLocalIdCount());
+
+        for (int power = 0; power < 16; power++) {
+            assertSame(TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, power), palette.getState(power * 2));
+            assertSame(TestPlatform.state(TestPlatform.POWERED_BLOCK, power), palette.getState(power * 2 + 1));
+        }
+        assertSame(stone, palette.getState(32));
+    }
+
+    @Test
+    public void testSharedIdMapper() {
+        BlockStateIdMapper ids = new BlockStateIdMapper();
+        BlockStatePalette first = new BlockStatePalette(ids);
+        BlockStatePalette second = new BlockStatePalette(ids);
+        BlockState a = TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 3);
+        BlockState b = TestPlatform.state(TestPlatform.UNNUMBERED_BLOCK, 4);
+
+        assertEquals(0, first.getIndex(a));
+        assertEquals(0, second.getIndex(b));
+        assertEquals(1, second.getIndex(a));
+        assertEquals(first.getStateId(0), second.getStateId(1));
+        assertSame(a, second.getState(1));
+        assertEquals(2, ids.getLocalIdCount());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        BlockStatePalette palette = new BlockStatePalette();
+        palette.getIndex(TestPlatform.state("minecraft:stone"));
+        palette.getStateId(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testNegativeIndex() {
+        new BlockStatePalette().getStateId(-1);
+    }
+
+    @Test
+    public void testParseState() throws InputParseException {
+        BlockStatePalette palette = new BlockStatePalette();
+        BlockState powered = TestPlatform.state(TestPlatform.POWERED_BLOCK, 12);
+        String input = palette.getAsString(palette.getIndex(powered));
+
+        assertSame(powered, BlockStatePalette.parseState(input));
+        assertSame(powered, BlockStatePalette.parseState(input));
+        assertSame(TestPlatform.state("minecraft:dirt"), BlockStatePalette.parseState("minecraft:dirt"));
+        BlockStatePalette.clearParsedStates();
+        assertSame(powered, BlockStatePalette.parseState(input));
+    }
+
+    @Test(expected = InputParseException.class)
+    public void testParseUnknownState() throws InputParseException {
+        BlockStatePalette.parseState("worldedit:no_such_block");
+    }
+
+}
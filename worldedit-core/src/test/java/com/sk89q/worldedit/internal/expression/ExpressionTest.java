@@ -22,6 +22,7 @@
 import static java.lang.Math.atan2;
 import static java.lang.Math.sin;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -190,6 +191,82 @@ public void testTimeout() throws Exception {
         }
     }
 
+    @Test
+    public void testTimeoutInWhile() throws Exception {
+        Expression expression = compile("a=0; while (a<256) { ++a; b=0; while (b<256) { ++b; c=0; do { ++c; d=0; while (d<256) { ++d; ln(pi) } } while (c<256) } } a");
+        try {
+            expression.evaluate(new double[0], 20);
+            fail("Loop was not stopped.");
+        } catch (EvaluationException e) {
+            assertTrue(e.getMessage().contains("Calculations exceeded time limit"));
+        }
+    }
+
+    @Test
+    public void testTimeoutIsPerEvaluation() throws Exception {
+        Expression expression = compile("a=0; for (i=0; i<n; i++) { for (j=0,255) { for (k=0,255) { a+=ln(pi) } } } n", "n");
+        try {
+            expression.evaluate(new double[] { 256 }, 20);
+            fail("Loop was not stopped.");
+        } catch (EvaluationException e) {
+            assertTrue(e.getMessage().contains("Calculations exceeded time limit"));
+        }
+        // A timed out evaluation does not affect the next one
+        assertEquals(1, expression.evaluate(new double[] { 1 }, 10000), 0);
+        Thread.sleep(30);
+        assertEquals(2, expression.evaluate(new double[] { 2 }, -1), 0);
+    }
+
+    @Test
+    public void testEvaluatesOnCallingThread() throws Exception {
+        Thread[] evaluatingThread = new Thread[1];
+        Expression expression = compile("query(1,2,3,4,5)");
+        expression.setEnvironment(new ExpressionEnvironment() {
+            @Override
+            public int getBlockType(double x, double y, double z) {
+                evaluatingThread[0] = Thread.currentThread();
+                return 0;
+            }
+
+            @Override
+            public int getBlockData(double x, double y, double z) {
+                return 0;
+            }
+
+            @Override
+            public int getBlockTypeAbs(double x, double y, double z) {
+                return 0;
+            }
+
+            @Override
+            public int getBlockDataAbs(double x, double y, double z) {
+                return 0;
+            }
+
+            @Override
+            public int getBlockTypeRel(double x, double y, double z) {
+                return 0;
+            }
+
+            @Override
+            public int getBlockDataRel(double x, double y, double z) {
+                return 0;
+            }
+        });
+        expression.evaluate(new double[0], 1000);
+        assertSame(Thread.currentThread(), evaluatingThread[0]);
+    }
+
+    @Test
+    public void testTooManyValues() throws Exception {
+        try {
+            compile("x", "x").evaluate(1D, 2D);
+            fail("Error expected");
+        } catch (EvaluationException e) {
+            assertTrue(e.getMessage().contains("2 values to 1 variables"));
+        }
+    }
+
     private double simpleEval(String expressionString) throws ExpressionException {
         final Expression expression = compile(expressionString);
 
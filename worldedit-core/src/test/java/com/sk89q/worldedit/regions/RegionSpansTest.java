@@ -0,0 +1,146 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.regions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector2;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
+import com.sk89q.worldedit.world.World;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class RegionSpansTest {
+
+    @Test
+    public void testCuboid() {
+        assertSpansMatchContains(new CuboidRegion(BlockVector3.at(-3, 2, 5), BlockVector3.at(4, 7, -2)), true);
+    }
+
+    @Test
+    public void testEllipsoid() {
+        assertSpansMatchContains(new EllipsoidRegion(null, BlockVector3.at(3, 10, -7), Vector3.at(4.5, 3.2, 6.7)), true);
+        assertSpansMatchContains(new EllipsoidRegion(null, BlockVector3.ZERO, Vector3.at(1, 1, 1)), true);
+    }
+
+    @Test
+    public void testCylinder() {
+        assertSpansMatchContains(new CylinderRegion(BlockVector3.at(-5, 0, 8), Vector2.at(5.5, 3.3), 2, 6), true);
+        assertSpansMatchContains(new CylinderRegion(BlockVector3.ZERO, Vector2.at(0.5, 0.5), 0, 0), true);
+    }
+
+    @Test
+    public void testPolygonal2D() {
+        // Concave, with a collinear point and a horizontal edge
+        Polygonal2DRegion region = new Polygonal2DRegion(null, ImmutableList.of(
+                BlockVector2.at(0, 0),
+                BlockVector2.at(10, 0),
+                BlockVector2.at(10, 9),
+                BlockVector2.at(5, 3),
+                BlockVector2.at(0, 9),
+                BlockVector2.at(0, 4)), 1, 3);
+        assertSpansMatchContains(region, true);
+    }
+
+    @Test
+    public void testConvexPolyhedral() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5; i++) {
+            ConvexPolyhedralRegion region = new ConvexPolyhedralRegion((World) null);
+            for (int j = 0; j < 8; j++) {
+                region.addVertex(BlockVector3.at(random.nextInt(16) - 8, random.nextInt(16) - 8, random.nextInt(16) - 8));
+            }
+            assertSpansMatchContains(region, true);
+        }
+    }
+
+    @Test
+    public void testIntersection() {
+        RegionIntersection region = new RegionIntersection(
+                new CuboidRegion(BlockVector3.at(-6, 0, -6), BlockVector3.at(0, 4, 6)),
+                new EllipsoidRegion(null, BlockVector3.ZERO, Vector3.at(5, 3, 5)),
+                new CuboidRegion(BlockVector3.at(-2, -2, -2), BlockVector3.at(2, 2, 2)));
+        assertSpansMatchContains(region, false);
+    }
+
+    /**
+     * Check that the spans of a region cover exactly the blocks its
+     * bounding box contains, each of them once.
+     *
+     * @param region the region
+     * @param exactArea whether {@link Region#getArea()} should match the spans
+     */
+    private static void assertSpansMatchContains(Region region, boolean exactArea) {
+        Set<BlockVector3> expected = new HashSet<>();
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        for (int y = min.getBlockY(); y <= max.getBlockY(); y++) {
+            for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
+                for (int x = min.getBlockX(); x <= max.getBlockX(); x++) {
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    if (region.contains(position)) {
+                        expected.add(position);
+                    }
+                }
+            }
+        }
+        assertFalse(expected.isEmpty());
+
+        Set<BlockVector3> actual = new HashSet<>();
+        int count = 0;
+        int lastY = Integer.MIN_VALUE;
+        int lastZ = Integer.MIN_VALUE;
+        int lastMaxX = Integer.MIN_VALUE;
+        SpanIterator spans = region.spans();
+        while (spans.next()) {
+            assertTrue(spans.getMinX() <= spans.getMaxX());
+            assertEquals(spans.getMaxX() - spans.getMinX() + 1, spans.getLength());
+            // Rows are ordered by z, then y, and spans within a row by x
+            boolean sameRow = spans.getY() == lastY && spans.getZ() == lastZ;
+            assertTrue(spans.getZ() > lastZ || spans.getZ() == lastZ && spans.getY() >= lastY);
+            assertTrue(!sameRow || spans.getMinX() > lastMaxX);
+            lastY = spans.getY();
+            lastZ = spans.getZ();
+            lastMaxX = spans.getMaxX();
+
+            for (int x = spans.getMinX(); x <= spans.getMaxX(); x++) {
+                actual.add(BlockVector3.at(x, spans.getY(), spans.getZ()));
+            }
+            count += spans.getLength();
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), count);
+        if (exactArea) {
+            assertEquals(expected.size(), region.getArea());
+        }
+    }
+
+}
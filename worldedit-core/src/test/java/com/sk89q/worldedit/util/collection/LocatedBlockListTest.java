@@ -0,0 +1,139 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.TestPlatform;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.LocatedBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+public class LocatedBlockListTest {
+
+    private BlockState stone;
+    private BlockState dirt;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        stone = TestPlatform.state("minecraft:stone");
+        dirt = TestPlatform.state("minecraft:dirt");
+    }
+
+    @Test
+    public void testCursorOrder() {
+        LocatedBlockList list = new LocatedBlockList();
+        for (int i = 0; i < 100; i++) {
+            list.add(BlockVector3.at(i, i % 16, -i), i % 2 == 0 ? stone : dirt);
+        }
+        assertEquals(100, list.size());
+
+        LocatedBlockList.Cursor cursor = list.cursor();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cursor.next());
+            assertEquals(i, cursor.getX());
+            assertEquals(i % 16, cursor.getY());
+            assertEquals(-i, cursor.getZ());
+            assertEquals(BlockVector3.at(i, i % 16, -i), cursor.getLocation());
+            assertSame(i % 2 == 0 ? stone : dirt, cursor.getState());
+            assertNull(cursor.getNbtData());
+        }
+        assertFalse(cursor.next());
+
+        LocatedBlockList.Cursor reverse = list.reverseCursor();
+        for (int i = 99; i >= 0; i--) {
+            assertTrue(reverse.next());
+            assertEquals(i, reverse.getX());
+        }
+        assertFalse(reverse.next());
+    }
+
+    @Test
+    public void testNbtAndUnpackableLocations() {
+        CompoundTag tag = new CompoundTag(ImmutableMap.of("id", new StringTag("minecraft:chest")));
+        BlockVector3 far = BlockVector3.at(Integer.MAX_VALUE, -5000, 0);
+        LocatedBlockList list = new LocatedBlockList();
+        for (int i = 0; i < 300; i++) {
+            if (i == 200) {
+                list.add(BlockVector3.at(i, 0, 0), stone.toBaseBlock(tag));
+            } else if (i == 250) {
+                list.add(far, dirt);
+            } else {
+                list.add(BlockVector3.at(i, 0, 0), stone);
+            }
+        }
+
+        LocatedBlockList.Cursor cursor = list.reverseCursor();
+        for (int i = 299; i >= 0; i--) {
+            assertTrue(cursor.next());
+            if (i == 250) {
+                assertEquals(far, cursor.getLocation());
+                assertEquals(Integer.MAX_VALUE, cursor.getX());
+                assertEquals(-5000, cursor.getY());
+            } else {
+                assertEquals(i, cursor.getX());
+                assertEquals(0, cursor.getY());
+            }
+            if (i == 200) {
+                assertSame(tag, cursor.getNbtData());
+                assertTrue(cursor.getBlock().hasNbtData());
+            } else {
+                assertNull(cursor.getNbtData());
+            }
+        }
+    }
+
+    @Test
+    public void testIteratorAndClear() {
+        LocatedBlockList list = new LocatedBlockList();
+        list.add(BlockVector3.at(1, 2, 3), stone);
+        list.add(BlockVector3.at(4, 5, 6), dirt);
+
+        Iterator<LocatedBlock> iterator = list.reverseIterator();
+        LocatedBlock first = iterator.next();
+        assertEquals(BlockVector3.at(4, 5, 6), first.getLocation());
+        assertSame(dirt, first.getBlock().toImmutableState());
+        assertEquals(BlockVector3.at(1, 2, 3), iterator.next().getLocation());
+        assertFalse(iterator.hasNext());
+
+        list.clear();
+        assertEquals(0, list.size());
+        assertFalse(list.iterator().hasNext());
+        list.add(BlockVector3.ZERO, dirt);
+        LocatedBlockList.Cursor cursor = list.cursor();
+        assertTrue(cursor.next());
+        assertNull(cursor.getNbtData());
+        assertSame(dirt, cursor.getState());
+    }
+
+}
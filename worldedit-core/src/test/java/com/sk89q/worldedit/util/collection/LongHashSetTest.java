@@ -0,0 +1,121 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.add(-42));
+        assertTrue(set.contains(42));
+        assertTrue(set.contains(-42));
+        assertFalse(set.contains(43));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void testZeroAndExtremes() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MAX_VALUE));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testGrowthMatchesHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(1234);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextInt(50000) * 0x100000001L;
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value : expected) {
+            assertTrue(set.contains(value));
+        }
+        assertFalse(set.contains(50000 * 0x100000001L));
+    }
+
+    @Test
+    public void testPackedPositions() {
+        LongHashSet set = new LongHashSet(16 * 16 * 16);
+        for (int x = -8; x < 8; x++) {
+            for (int y = -8; y < 8; y++) {
+                for (int z = -8; z < 8; z++) {
+                    assertTrue(set.add(BlockVector3.at(x, y, z).toLongPackedForm()));
+                }
+            }
+        }
+        assertEquals(16 * 16 * 16, set.size());
+        assertTrue(set.contains(BlockVector3.at(-8, 7, 0).toLongPackedForm()));
+        assertFalse(set.contains(BlockVector3.at(8, 0, 0).toLongPackedForm()));
+    }
+
+    @Test
+    public void testMemoryUsage() {
+        LongHashSet set = new LongHashSet();
+        long initial = set.getMemoryUsage();
+        int capacity = (int) (initial / Long.BYTES);
+        // The table grows once it is more than half full
+        for (int i = 1; i <= capacity / 2; i++) {
+            set.add(i);
+        }
+        assertEquals(initial, set.getMemoryUsage());
+        assertEquals(initial * 2, set.getMemoryUsageAfterGrowth());
+        set.add(capacity);
+        assertEquals(initial * 2, set.getMemoryUsage());
+    }
+
+    @Test
+    public void testClear() {
+        LongHashSet set = new LongHashSet(1000);
+        set.add(0);
+        set.add(1);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(1));
+        assertTrue(set.add(1));
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+public class ParallelGZIPOutputStreamTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static byte[] compressibleBytes(int length) {
+        byte[] data = new byte[length];
+        Random random = new Random(42);
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) random.nextInt(16);
+        }
+        return data;
+    }
+
+    private byte[] compress(byte[]... writes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream gzip = new ParallelGZIPOutputStream(out, executor, 2, Deflater.DEFAULT_COMPRESSION)) {
+            for (byte[] data : writes) {
+                gzip.write(data);
+                gzip.flush();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private static int countMembers(byte[] compressed) {
+        int members = 0;
+        for (int i = 0; i + 2 < compressed.length; i++) {
+            if (compressed[i] == 0x1f && compressed[i + 1] == (byte) 0x8b && compressed[i + 2] == Deflater.DEFLATED) {
+                members++;
+            }
+        }
+        return members;
+    }
+
+    @Test
+    public void testMultipleMembersRoundTrip() throws IOException {
+        byte[] data = compressibleBytes(ParallelGZIPOutputStream.BLOCK_SIZE * 5 / 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream gzip = new ParallelGZIPOutputStream(out, executor, 2, Deflater.DEFAULT_COMPRESSION)) {
+            gzip.write(data);
+        }
+        byte[] compressed = out.toByteArray();
+        assertTrue(countMembers(compressed) >= 3);
+        assertArrayEquals(data, decompress(compressed));
+    }
+
+    @Test
+    public void testFlushEndsMember() throws IOException {
+        byte[] first = compressibleBytes(100);
+        byte[] second = compressibleBytes(50);
+        byte[] expected = new byte[first.length + second.length];
+        System.arraycopy(first, 0, expected, 0, first.length);
+        System.arraycopy(second, 0, expected, first.length, second.length);
+        assertArrayEquals(expected, decompress(compress(first, second)));
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        byte[] compressed = compress();
+        assertEquals(1, countMembers(compressed));
+        assertEquals(0, decompress(compressed).length);
+    }
+
+    @Test
+    public void testReadBackWithReadAhead() throws IOException {
+        byte[] data = compressibleBytes(ParallelGZIPOutputStream.BLOCK_SIZE + 1000);
+        byte[] compressed = compress(data);
+        try (ReadAheadInputStream in = new ReadAheadInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(compressed)), 4096, 4)) {
+            assertArrayEquals(data, ByteStreams.toByteArray(in));
+        }
+    }
+
+}
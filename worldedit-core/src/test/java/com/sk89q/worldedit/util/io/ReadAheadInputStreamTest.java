@@ -0,0 +1,157 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ReadAheadInputStreamTest {
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testReadsEverything() throws IOException {
+        byte[] data = randomBytes(1000);
+        try (ReadAheadInputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), 64, 2)) {
+            assertEquals(data[0] & 0xff, in.read());
+            byte[] rest = ByteStreams.toByteArray(in);
+            assertEquals(data.length - 1, rest.length);
+            for (int i = 0; i < rest.length; i++) {
+                assertEquals(data[i + 1], rest[i]);
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testEmptySource() throws IOException {
+        try (ReadAheadInputStream in = new ReadAheadInputStream(new ByteArrayInputStream(new byte[0]), 64, 2)) {
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[8], 0, 8));
+        }
+    }
+
+    @Test
+    public void testErrorIsPropagated() throws IOException {
+        byte[] data = randomBytes(100);
+        IOException error = new IOException("broken");
+        InputStream source = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == data.length) {
+                    throw error;
+                }
+                return data[position++] & 0xff;
+            }
+        };
+        try (ReadAheadInputStream in = new ReadAheadInputStream(source, 16, 2)) {
+            byte[] read = new byte[data.length];
+            ByteStreams.readFully(in, read);
+            assertArrayEquals(data, read);
+            try {
+                in.read();
+                fail("Expected the error of the source");
+            } catch (IOException e) {
+                assertSame(error, e);
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWhileFillerIsBlocked() throws IOException, InterruptedException {
+        EndlessStream source = new EndlessStream();
+        ReadAheadInputStream in = new ReadAheadInputStream(source, 16, 1);
+        assertEquals(0, in.read());
+        // Give the filler time to fill the queue and block on it
+        Thread.sleep(100);
+        in.close();
+        assertTrue(source.closed);
+        try {
+            in.read();
+            fail("Expected the stream to be closed");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testReadsDirectlyWhenPoolIsBusy() throws IOException {
+        List<ReadAheadInputStream> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                EndlessStream source = new EndlessStream();
+                ReadAheadInputStream in = new ReadAheadInputStream(source, 16, 1);
+                streams.add(in);
+                assertEquals(0, in.read());
+                if (source.reader == Thread.currentThread()) {
+                    return;
+                }
+            }
+            fail("Expected a stream to read from its source directly");
+        } finally {
+            for (ReadAheadInputStream in : streams) {
+                in.close();
+            }
+        }
+    }
+
+    private static final class EndlessStream extends InputStream {
+        private volatile Thread reader;
+        private volatile boolean closed;
+
+        @Override
+        public int read() {
+            return read(new byte[1], 0, 1) == -1 ? -1 : 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (reader == null) {
+                reader = Thread.currentThread();
+            }
+            return len;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+}
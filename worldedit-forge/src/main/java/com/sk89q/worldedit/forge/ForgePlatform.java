@@ -95,7 +95,7 @@ public void reload() {
 
     @Override
     public int schedule(long delay, long period, Runnable task) {
-        return -1;
+        return ForgeTaskScheduler.getInstance().schedule(delay, period, task);
     }
 
     @Override
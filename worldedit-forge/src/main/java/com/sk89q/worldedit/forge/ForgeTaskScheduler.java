@@ -0,0 +1,85 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.forge;
+
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs tasks on the server thread at the end of server ticks.
+ */
+public class ForgeTaskScheduler {
+
+    private static final ForgeTaskScheduler INSTANCE = new ForgeTaskScheduler();
+    private final List<Task> tasks = new CopyOnWriteArrayList<>();
+    private int nextId = 0;
+
+    /**
+     * Schedule a task.
+     *
+     * @param delay the number of ticks before the task first runs
+     * @param period the number of ticks between runs, or 0 to run it once
+     * @param task the task
+     * @return the ID of the task
+     */
+    public synchronized int schedule(long delay, long period, Runnable task) {
+        tasks.add(new Task(Math.max(1, delay), period, task));
+        return nextId++;
+    }
+
+    @SubscribeEvent
+    public void serverTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+        for (Task task : tasks) {
+            if (--task.ticksLeft > 0) {
+                continue;
+            }
+            if (task.period > 0) {
+                task.ticksLeft = task.period;
+            } else {
+                tasks.remove(task);
+            }
+            task.runnable.run();
+        }
+    }
+
+    public static ForgeTaskScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Task {
+        private final long period;
+        private final Runnable runnable;
+        private long ticksLeft;
+
+        private Task(long delay, long period, Runnable runnable) {
+            this.ticksLeft = delay;
+            this.period = period;
+            this.runnable = runnable;
+        }
+    }
+
+}
@@ -31,8 +31,10 @@
 import com.sk89q.worldedit.blocks.BaseItemStack;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.BlockBuffers;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.internal.block.BlockStateIdMapper;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
@@ -100,6 +102,7 @@
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Random;
@@ -217,6 +220,92 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
         return successful;
     }
 
+    @Override
+    public void getBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids) {
+        readBlocks(min, max, buffer, null);
+    }
+
+    @Override
+    public void getFullBlocks(BlockVector3 min, BlockVector3 max, int[] buffer, BlockStateIdMapper ids,
+                              Map<BlockVector3, BaseBlock> fullBlocks) {
+        checkNotNull(fullBlocks);
+        readBlocks(min, max, buffer, fullBlocks);
+    }
+
+    private void readBlocks(BlockVector3 min, BlockVector3 max, int[] buffer,
+                            @Nullable Map<BlockVector3, BaseBlock> fullBlocks) {
+        BlockBuffers.checkBuffer(min, max, buffer);
+
+        World world = getWorld();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; chunkX++) {
+            for (int chunkZ = min.getZ() >> 4; chunkZ <= max.getZ() >> 4; chunkZ++) {
+                Chunk chunk = world.getChunk(chunkX, chunkZ);
+                int minX = Math.max(min.getX(), chunkX << 4);
+                int maxX = Math.min(max.getX(), (chunkX << 4) + 15);
+                int minZ = Math.max(min.getZ(), chunkZ << 4);
+                int maxZ = Math.min(max.getZ(), (chunkZ << 4) + 15);
+                for (int y = min.getY(); y <= max.getY(); y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        int index = BlockBuffers.index(min, max, minX, y, z);
+                        for (int x = minX; x <= maxX; x++) {
+                            net.minecraft.block.BlockState state = chunk.getBlockState(pos.setPos(x, y, z));
+                            // Internal ids mean the same to every mapper
+                            buffer[index++] = Block.getStateId(state);
+                            if (fullBlocks != null && state.hasTileEntity()) {
+                                BlockVector3 position = BlockVector3.at(x, y, z);
+                                BaseBlock block = getFullBlock(position);
+                                if (block.hasNbtData()) {
+                                    fullBlocks.put(position, block);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsSectionBlocks() {
+        return true;
+    }
+
+    @Override
+    public boolean setSectionBlocks(int sectionX, int sectionY, int sectionZ, short[] indices, int[] stateIds,
+                                    int count, boolean notifyNeighbors) throws WorldEditException {
+        World world = getWorldChecked();
+        AbstractChunkProvider provider = world.getChunkProvider();
+        Chunk chunk = world.getChunk(sectionX, sectionZ);
+        int baseX = sectionX << 4;
+        int baseY = sectionY << 4;
+        int baseZ = sectionZ << 4;
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            BlockPos pos = new BlockPos(baseX + (index & 15), baseY + (index >> 8), baseZ + (index >> 4 & 15));
+            net.minecraft.block.BlockState newState = Block.getStateById(stateIds[i]);
+            net.minecraft.block.BlockState old = chunk.setBlockState(pos, newState, false);
+            if (old == null || old == newState) {
+                continue;
+            }
+            changed = true;
+            if (notifyNeighbors) {
+                world.markAndNotifyBlock(pos, chunk, old, newState, UPDATE);
+            }
+            if (provider instanceof ServerChunkProvider) {
+                // Changes are collected per chunk and sent together on the next tick
+                ((ServerChunkProvider) provider).markBlockChanged(pos);
+            }
+        }
+        if (changed && notifyNeighbors) {
+            // Relight once per section rather than per block; in fast mode
+            // the chunk is relit when the edit session is committed
+            provider.getLightManager().func_215571_a(chunk.getPos(), true);
+        }
+        return true;
+    }
+
     @Override
     public boolean notifyAndLightBlock(BlockVector3 position, BlockState previousType) throws WorldEditException {
         BlockPos pos = new BlockPos(position.getX(), position.getY(), position.getZ());
@@ -106,6 +106,7 @@ public ForgeWorldEdit() {
         modBus.addListener(this::init);
 
         MinecraftForge.EVENT_BUS.register(ThreadSafeCache.getInstance());
+        MinecraftForge.EVENT_BUS.register(ForgeTaskScheduler.getInstance());
         MinecraftForge.EVENT_BUS.register(this);
     }
 
@@ -22,6 +22,10 @@
 import com.google.common.reflect.TypeToken;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.extent.world.RelightOperation;
+import com.sk89q.worldedit.extent.world.SectionWriteExtent;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
+import com.sk89q.worldedit.function.visitor.BreadthFirstSearch;
 import com.sk89q.worldedit.session.SessionManager;
 import com.sk89q.worldedit.util.report.Unreported;
 import com.sk89q.worldedit.world.registry.LegacyMapper;
@@ -34,6 +38,7 @@
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
 
 public class ConfigurateConfiguration extends LocalConfiguration {
 
@@ -73,6 +78,7 @@ public void load() {
         maxPolygonalPoints = Math.max(-1, node.getNode("limits", "max-polygonal-points", "maximum").getInt(maxPolygonalPoints));
 
         maxRadius = Math.max(-1, node.getNode("limits", "max-radius").getInt(maxRadius));
+        BreadthFirstSearch.DEFAULT_MAX_MEMORY = Math.max(-1, node.getNode("limits", "max-search-memory").getInt(512)) * 1024L * 1024L;
         maxBrushRadius = node.getNode("limits", "max-brush-radius").getInt(maxBrushRadius);
         maxSuperPickaxeSize = Math.max(1, node.getNode("limits", "max-super-pickaxe-size").getInt(maxSuperPickaxeSize));
 
@@ -118,6 +124,12 @@ public void load() {
         allowSymlinks = node.getNode("files", "allow-symbolic-links").getBoolean(false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, node.getNode("history", "size").getInt(15));
         SessionManager.EXPIRATION_GRACE = node.getNode("history", "expiration").getInt(10) * 60 * 1000;
+        LocalSession.HISTORY_JOURNAL_THRESHOLD = node.getNode("history", "journal-threshold").getInt(1000000);
+        SessionManager.HISTORY_RETENTION = TimeUnit.MINUTES.toMillis(Math.max(0, node.getNode("history", "retention").getInt(60)));
+        OperationScheduler.SPREAD_EDITS = node.getNode("scheduler", "spread-edits").getBoolean(true);
+        OperationScheduler.TICK_BUDGET = Math.max(1, node.getNode("scheduler", "tick-budget").getInt(10)) * 1000000L;
+        SectionWriteExtent.BLOCKS_PER_TICK = Math.max(1, node.getNode("scheduler", "write-budget").getInt(100000));
+        RelightOperation.CHUNKS_PER_BATCH = Math.max(1, node.getNode("scheduler", "relight-batch").getInt(8));
 
         showHelpInfo = node.getNode("show-help-on-first-use").getBoolean(true);
         serverSideCUI = node.getNode("server-side-cui").getBoolean(true);